@@ -0,0 +1,416 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala;
+
+import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.ArtifactProfile;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CostModel;
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Orders the coordinates of a batch run. Unless the order of the input is kept, every coordinate
+ * is scanned up front for the size of its JAR file, taken from the local Maven repository or from
+ * a HEAD request, and, for {@link Policy#DEPENDENCY_LOCALITY}, for its direct dependencies. The
+ * predicted duration of every artifact gives the expected completion curve of the batch, which is
+ * reported together with the actual one once the batch is done. {@link Policy#FIFO} batches are
+ * not scanned and only report the actual curve.
+ */
+public class BatchScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchScheduler.class);
+
+    private static final int PRESCAN_PARALLELISM = 8;
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 5000;
+
+    private static final int READ_TIMEOUT_MILLIS = 10000;
+
+    /** Fractions of the batch at which completion times are reported. */
+    private static final int CURVE_POINTS = 10;
+
+    /**
+     * Order in which the coordinates of a batch are analyzed.
+     */
+    public enum Policy {
+
+        /** Order of the input file. */
+        FIFO,
+
+        /** Smallest JAR file first, coordinates of unknown size last. */
+        SHORTEST_FIRST,
+
+        /**
+         * Coordinates sharing the most dependencies and the group ID one after another, so
+         * downloaded dependencies and cached analysis results are reused while they are hot.
+         */
+        DEPENDENCY_LOCALITY
+    }
+
+    private final Policy policy;
+
+    private final CostModel costModel;
+
+    private final Algorithm algorithm;
+
+    private final ToLongFunction<MavenCoordinate> sizer;
+
+    private final Function<MavenCoordinate, Collection<String>> dependencies;
+
+    private final List<Job> completed;
+
+    private long startTime;
+
+    /**
+     * Construct scheduler that scans Maven repositories.
+     *
+     * @param policy    Scheduling policy
+     * @param costModel Cost model predicting the duration of every artifact
+     * @param algorithm Call graph generation algorithm of the batch
+     */
+    public BatchScheduler(final Policy policy, final CostModel costModel,
+                          final Algorithm algorithm) {
+        this(policy, costModel, algorithm, BatchScheduler::jarSize,
+            BatchScheduler::directDependencies);
+    }
+
+    /**
+     * Construct scheduler.
+     *
+     * @param policy       Scheduling policy
+     * @param costModel    Cost model predicting the duration of every artifact
+     * @param algorithm    Call graph generation algorithm of the batch
+     * @param sizer        Function returning the JAR size of a coordinate, negative if unknown
+     * @param dependencies Function returning the products a coordinate depends on
+     */
+    BatchScheduler(final Policy policy, final CostModel costModel, final Algorithm algorithm,
+                   final ToLongFunction<MavenCoordinate> sizer,
+                   final Function<MavenCoordinate, Collection<String>> dependencies) {
+        this.policy = policy;
+        this.costModel = costModel;
+        this.algorithm = algorithm;
+        this.sizer = sizer;
+        this.dependencies = dependencies;
+        this.completed = new ArrayList<>();
+    }
+
+    /**
+     * Scan the coordinates and order them by the policy. The completion curve is measured from
+     * the moment the order is returned.
+     *
+     * @param coordinates Coordinates in the order of the input
+     * @return Jobs in the order they should be analyzed
+     */
+    public List<Job> schedule(final List<MavenCoordinate> coordinates) {
+        if (policy == Policy.FIFO) {
+            final List<Job> result = new ArrayList<>(coordinates.size());
+            for (int i = 0; i < coordinates.size(); i++) {
+                final var job = new Job(coordinates.get(i), i);
+                job.jarSize = -1;
+                result.add(job);
+            }
+            logger.info("Scheduled {} coordinates {}", result.size(), policy);
+            completed.clear();
+            startTime = System.currentTimeMillis();
+            return result;
+        }
+        final var jobs = scan(coordinates);
+        final List<Job> result;
+        switch (policy) {
+            case SHORTEST_FIRST:
+                result = new ArrayList<>(jobs);
+                result.sort(Comparator.comparingLong((Job job) -> job.jarSize < 0
+                    ? Long.MAX_VALUE : job.jarSize).thenComparingInt(Job::getPosition));
+                break;
+            case DEPENDENCY_LOCALITY:
+                result = byLocality(jobs);
+                break;
+            default:
+                result = jobs;
+        }
+        var expected = 0d;
+        for (final var job : result) {
+            expected += job.predictedMillis;
+            job.expectedMillis = (long) expected;
+        }
+        logger.info("Scheduled {} coordinates {}, expected to finish in {} seconds",
+            result.size(), policy, (long) expected / 1000);
+        completed.clear();
+        startTime = System.currentTimeMillis();
+        return result;
+    }
+
+    /**
+     * Record that a job finished, successfully or not.
+     *
+     * @param job Scheduled job
+     */
+    public void completed(final Job job) {
+        job.actualMillis = System.currentTimeMillis() - startTime;
+        completed.add(job);
+    }
+
+    /**
+     * Describe the expected and actual time at which every tenth of the completed jobs was done,
+     * together with the mean completion time, which shortest-job-first minimizes. Expected times
+     * are left out for {@link Policy#FIFO}, which does not scan the coordinates.
+     *
+     * @return One line per point of the completion curve and a line with the means
+     */
+    public List<String> completionCurve() {
+        final List<String> result = new ArrayList<>();
+        if (completed.isEmpty()) {
+            return result;
+        }
+        final var points = Math.min(CURVE_POINTS, completed.size());
+        for (int point = 1; point <= points; point++) {
+            final var job = completed.get(point * completed.size() / points - 1);
+            if (policy == Policy.FIFO) {
+                result.add(String.format("%3d%% (%d jobs): actual %.1fs",
+                    100 * point / points, point * completed.size() / points,
+                    job.actualMillis / 1000d));
+            } else {
+                result.add(String.format("%3d%% (%d jobs): expected %.1fs, actual %.1fs",
+                    100 * point / points, point * completed.size() / points,
+                    job.expectedMillis / 1000d, job.actualMillis / 1000d));
+            }
+        }
+        final var expectedMean = completed.stream()
+            .mapToLong(Job::getExpectedMillis).average().orElse(0);
+        final var actualMean = completed.stream()
+            .mapToLong(Job::getActualMillis).average().orElse(0);
+        if (policy == Policy.FIFO) {
+            result.add(String.format("mean completion: actual %.1fs", actualMean / 1000));
+        } else {
+            result.add(String.format("mean completion: expected %.1fs, actual %.1fs",
+                expectedMean / 1000, actualMean / 1000));
+        }
+        return result;
+    }
+
+    /**
+     * Log the completion curve of the batch.
+     */
+    public void logCompletionCurve() {
+        logger.info("Completion of {} jobs scheduled {}", completed.size(), policy);
+        completionCurve().forEach(line -> logger.info("  {}", line));
+    }
+
+    private List<Job> scan(final List<MavenCoordinate> coordinates) {
+        final ExecutorService executor = Executors.newFixedThreadPool(PRESCAN_PARALLELISM);
+        try {
+            final var scans = new ArrayList<CompletableFuture<Job>>();
+            for (int i = 0; i < coordinates.size(); i++) {
+                final var position = i;
+                final var coordinate = coordinates.get(i);
+                scans.add(CompletableFuture.supplyAsync(() -> scan(coordinate, position),
+                    executor));
+            }
+            return scans.stream().map(CompletableFuture::join).collect(Collectors.toList());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Job scan(final MavenCoordinate coordinate, final int position) {
+        final var job = new Job(coordinate, position);
+        job.jarSize = sizer.applyAsLong(coordinate);
+        job.predictedMillis = costModel.predictMillis(algorithm,
+            new ArtifactProfile(0, 0, Math.max(0, job.jarSize), 0, 0));
+        if (policy == Policy.DEPENDENCY_LOCALITY) {
+            job.keys.add("group:" + coordinate.getGroupID());
+            job.keys.addAll(dependencies.apply(coordinate));
+        }
+        return job;
+    }
+
+    /**
+     * Order jobs so that every job shares as many dependencies as possible with the one before
+     * it. A job sharing nothing with the previous one starts a new cluster with the first
+     * remaining job of the input.
+     *
+     * @param jobs Jobs in the order of the input
+     * @return Jobs grouped by shared dependencies
+     */
+    static List<Job> byLocality(final List<Job> jobs) {
+        final Map<String, List<Job>> users = new HashMap<>();
+        for (final var job : jobs) {
+            for (final var key : job.keys) {
+                users.computeIfAbsent(key, k -> new ArrayList<>()).add(job);
+            }
+        }
+        final var remaining = new TreeSet<>(Comparator.comparingInt(Job::getPosition));
+        remaining.addAll(jobs);
+
+        final List<Job> result = new ArrayList<>(jobs.size());
+        Job current = null;
+        while (!remaining.isEmpty()) {
+            Job next = null;
+            if (current != null) {
+                final Map<Job, Integer> shared = new HashMap<>();
+                for (final var key : current.keys) {
+                    for (final var other : users.get(key)) {
+                        if (remaining.contains(other)) {
+                            shared.merge(other, 1, Integer::sum);
+                        }
+                    }
+                }
+                var best = 0;
+                for (final var entry : shared.entrySet()) {
+                    if (entry.getValue() > best
+                        || (entry.getValue() == best && entry.getKey().position < next.position)) {
+                        best = entry.getValue();
+                        next = entry.getKey();
+                    }
+                }
+            }
+            if (next == null) {
+                next = remaining.first();
+            }
+            remaining.remove(next);
+            result.add(next);
+            current = next;
+        }
+        return result;
+    }
+
+    /**
+     * Get the size of the JAR file of a coordinate without downloading it.
+     *
+     * @param coordinate Maven coordinate
+     * @return Size in bytes or -1 if it is unknown
+     */
+    static long jarSize(final MavenCoordinate coordinate) {
+        final var local = Paths.get(System.getProperty("user.home"), ".m2", "repository")
+            .resolve(coordinate.toJarUrl(""));
+        try {
+            if (Files.isRegularFile(local)) {
+                return Files.size(local);
+            }
+        } catch (IOException e) {
+            logger.debug("Cannot read size of {}", local);
+        }
+        for (final var repo : coordinate.getMavenRepos()) {
+            HttpURLConnection connection = null;
+            try {
+                connection = (HttpURLConnection) new URL(coordinate.toJarUrl(repo))
+                    .openConnection();
+                connection.setRequestMethod("HEAD");
+                connection.setConnectTimeout(CONNECT_TIMEOUT_MILLIS);
+                connection.setReadTimeout(READ_TIMEOUT_MILLIS);
+                if (connection.getResponseCode() == HttpURLConnection.HTTP_OK
+                    && connection.getContentLengthLong() >= 0) {
+                    return connection.getContentLengthLong();
+                }
+            } catch (IOException e) {
+                logger.debug("HEAD request for {} failed", coordinate.getCoordinate());
+            } finally {
+                if (connection != null) {
+                    connection.disconnect();
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static Collection<String> directDependencies(final MavenCoordinate coordinate) {
+        try {
+            final Set<String> result = new LinkedHashSet<>();
+            for (final var clause
+                : MavenCoordinate.MavenResolver.resolveRuntimeDependencies(coordinate)) {
+                for (final var dependency : clause) {
+                    result.add(dependency.product);
+                }
+            }
+            return result;
+        } catch (RuntimeException e) {
+            logger.warn("Could not resolve dependencies of {}", coordinate.getCoordinate());
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * A coordinate of the batch with what the scan found out about it.
+     */
+    public static class Job {
+
+        private final MavenCoordinate coordinate;
+
+        private final int position;
+
+        /** Products the coordinate depends on and its group. */
+        private final Set<String> keys;
+
+        private long jarSize;
+
+        private double predictedMillis;
+
+        private long expectedMillis;
+
+        private long actualMillis;
+
+        Job(final MavenCoordinate coordinate, final int position) {
+            this.coordinate = coordinate;
+            this.position = position;
+            this.keys = new LinkedHashSet<>();
+        }
+
+        public MavenCoordinate getCoordinate() {
+            return coordinate;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        public long getJarSize() {
+            return jarSize;
+        }
+
+        public long getExpectedMillis() {
+            return expectedMillis;
+        }
+
+        public long getActualMillis() {
+            return actualMillis;
+        }
+    }
+}
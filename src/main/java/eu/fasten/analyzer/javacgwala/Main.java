@@ -19,8 +19,18 @@
 package eu.fasten.analyzer.javacgwala;
 
 import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.data.callgraph.AdaptiveCallGraphGenerator;
 import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.ExclusionSet;
+import eu.fasten.analyzer.javacgwala.data.callgraph.IncrementalCallGraphGenerator;
 import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.SpillingEdgeBuffer;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CostModel;
+import eu.fasten.analyzer.javacgwala.data.output.BinaryCallGraphWriter;
+import eu.fasten.analyzer.javacgwala.data.output.ChunkedCallGraphWriter;
+import eu.fasten.analyzer.javacgwala.data.output.CompressionStats;
+import eu.fasten.analyzer.javacgwala.data.output.OutputCodec;
+import eu.fasten.analyzer.javacgwala.data.output.ShardedCallGraphWriter;
 import eu.fasten.core.data.CallPreservationStrategy;
 import eu.fasten.core.data.Constants;
 import eu.fasten.core.data.JSONUtils;
@@ -37,11 +47,17 @@ import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.json.JSONException;
@@ -57,8 +73,16 @@ import picocli.CommandLine;
 public class Main implements Runnable {
 
     private static final Logger logger = LoggerFactory.getLogger(Main.class);
+
+    /** Cost model of adaptive algorithm selection, kept between runs. */
+    private static final Path COST_MODEL_FILE =
+        Paths.get(System.getProperty("java.io.tmpdir"), "fasten-wala-cost-model.properties");
+
     public static final CallPreservationStrategy STRATEGY = CallPreservationStrategy.INCLUDING_ALL_SUBTYPES;
 
+    /** Calls per off-heap buffer and per written chunk of {@code --spill}. */
+    private static final int SPILL_CHUNK_RECORDS = 1 << 20;
+
     @CommandLine.ArgGroup()
     SetRunner setRunner;
 
@@ -68,6 +92,18 @@ public class Main implements Runnable {
         split = ",")
     List<String> repos;
 
+    @CommandLine.Option(names = {"-d", "--dependencies"},
+        paramLabel = "DEPENDENCIES",
+        description = "Paths to JAR files of the dependencies of the analyzed file",
+        split = ",")
+    List<String> dependencies;
+
+    @CommandLine.Option(names = {"--resolveDependencies"},
+        paramLabel = "RESOLVE",
+        description = "Resolve transitive dependencies of Maven coordinates and analyze them "
+            + "together with the artifact")
+    boolean resolveDependencies;
+
     @CommandLine.Option(names = {"-t", "--timestamp"},
         paramLabel = "TS",
         description = "Release TS",
@@ -84,9 +120,91 @@ public class Main implements Runnable {
         description = "Write to stdout")
     boolean writeToStdout;
 
+    @CommandLine.Option(names = {"--format"},
+        paramLabel = "FORMAT",
+        description = "Output format {JSON, BINARY}", defaultValue = "JSON")
+    String format;
+
+    @CommandLine.Option(names = {"--exclude"},
+        paramLabel = "PATTERN",
+        description = "Additional classes to exclude from the analysis, as WALA exclusion "
+            + "patterns",
+        split = ",")
+    List<String> exclusions;
+
+    @CommandLine.Option(names = {"--adaptive"},
+        paramLabel = "ADAPTIVE",
+        description = "Choose the most precise algorithm that fits the time budget per artifact")
+    boolean adaptive;
+
+    @CommandLine.Option(names = {"--timeBudget"},
+        paramLabel = "SECONDS",
+        description = "Time budget of adaptive algorithm selection in seconds",
+        defaultValue = "600")
+    long timeBudget;
+
+    @CommandLine.Option(names = {"--incremental"},
+        paramLabel = "INCREMENTAL",
+        description = "Reuse call sites of unchanged classes between coordinates of a set")
+    boolean incremental;
+
+    @CommandLine.Option(names = {"--schedule"},
+        paramLabel = "POLICY",
+        description = "Order in which a set is analyzed {FIFO, SHORTEST_FIRST, "
+            + "DEPENDENCY_LOCALITY}",
+        defaultValue = "FIFO")
+    BatchScheduler.Policy schedule;
+
+    private final CostModel costModel = new CostModel();
+
+    private AdaptiveCallGraphGenerator adaptiveGenerator;
+
+    @CommandLine.Option(names = {"--shards"},
+        paramLabel = "SHARDS",
+        description = "Split JSON output into up to this many files with a manifest",
+        defaultValue = "1")
+    int shards;
+
+    @CommandLine.Option(names = {"--codec"},
+        paramLabel = "CODEC",
+        description = "Compression of JSON output {NONE, GZIP, DEFLATE, LZ4}",
+        defaultValue = "NONE")
+    OutputCodec codec;
+
+    @CommandLine.Option(names = {"--codecLevel"},
+        paramLabel = "LEVEL",
+        description = "Compression level, the default of the codec if it is not set",
+        defaultValue = "-1")
+    int codecLevel;
+
+    private CompressionStats compressionStats;
+
+    @CommandLine.Option(names = {"--stream"},
+        paramLabel = "NODES",
+        description = "Write the call graph of a file in chunks of calls of up to this many "
+            + "source nodes while it is wrapped",
+        defaultValue = "0")
+    int streamBatchSize;
+
+    @CommandLine.Option(names = {"--spill"},
+        paramLabel = "MB",
+        description = "Accumulate the calls of a file in external memory, holding up to this "
+            + "many megabytes of them off-heap before spilling to temporary files",
+        defaultValue = "0")
+    long spillBudget;
+
+    @CommandLine.Option(names = {"--strategies"},
+        paramLabel = "STRATEGY",
+        description = "Call preservation strategies to write from one analysis of a file "
+            + "{ONLY_STATIC_CALLSITES, INCLUDING_ALL_SUBTYPES}",
+        split = ",")
+    List<CallPreservationStrategy> strategies;
+
     @CommandLine.Option(names = {"--cgAlg"},
         paramLabel = "CGALG",
-        description = "Call graph generation algorithm {CHA, RTA}", defaultValue = "CHA")
+        description = "Call graph generation algorithm {CHA, RTA, ZERO_CFA, ZERO_ONE_CFA, "
+            + "ZERO_ONE_CONTAINER_CFA}, several comma separated ones share one analysis of a "
+            + "file", defaultValue = "CHA")
     String algorithm;
 
     static class Input {
@@ -127,17 +245,52 @@ public class Main implements Runnable {
      * Runs Wala plugin.
      */
     public void run() {
+        if (format.equalsIgnoreCase("BINARY") && (codec != OutputCodec.NONE || shards > 1)) {
+            logger.error("--format BINARY cannot be combined with --codec or --shards");
+            return;
+        }
+        final var chunked = (spillBudget > 0 || streamBatchSize > 0) && !adaptive;
+        if (chunked && algorithm.contains(",")) {
+            logger.error("--stream and --spill support a single --cgAlg");
+            return;
+        }
+        if (chunked && (format.equalsIgnoreCase("BINARY") || shards > 1)) {
+            logger.error("--stream and --spill cannot be combined with --format BINARY or "
+                + "--shards");
+            return;
+        }
+        if (strategies != null && strategies.size() > 1 && !adaptive
+            && (chunked || algorithm.contains(","))) {
+            logger.error("--strategies with several strategies cannot be combined with several "
+                + "--cgAlg, --stream or --spill");
+            return;
+        }
+        if (exclusions != null && !exclusions.isEmpty()) {
+            ExclusionSet.setDefault(ExclusionSet.getDefault().with(exclusions));
+        }
         MavenCoordinate mavenCoordinate;
         final var pcg = getEmptyPCG();
         if (setRunner != null && setRunner.input != null && setRunner.input.path != null ) {
 
-            PartialCallGraphGenerator.generateFromFile(setRunner.input.path,
-                Algorithm.valueOf(algorithm), pcg, STRATEGY);
-
-            try {
-                writeCallgraph(pcg);
-            } catch (IOException e) {
-                logger.info("Couldn't write to the file");
+            if (spillBudget > 0 && outputPath != null && !adaptive) {
+                spillFromFile(setRunner.input.path);
+            } else if (streamBatchSize > 0 && outputPath != null && !adaptive) {
+                streamFromFile(setRunner.input.path);
+            } else if (algorithm.contains(",") && !adaptive) {
+                generateAlgorithmsFromFile(setRunner.input.path);
+            } else if (strategies != null && strategies.size() > 1 && !adaptive) {
+                generateStrategiesFromFile(setRunner.input.path);
+            } else if (adaptive) {
+                getAdaptiveGenerator().generateFromFile(setRunner.input.path,
+                    getDependencyFiles(), pcg, getStrategy());
+            } else {
+                PartialCallGraphGenerator.generateFromFile(setRunner.input.path,
+                    getDependencyFiles(), Algorithm.valueOf(algorithm), pcg, getStrategy());
+                try {
+                    writeCallgraph(pcg);
+                } catch (IOException e) {
+                    logger.info("Couldn't write to the file");
+                }
             }
 
         } else if (setRunner != null && setRunner.set != null) {
@@ -150,8 +303,7 @@ public class Main implements Runnable {
             }
 
             try {
-                PartialCallGraphGenerator.generateFromCoordinate(mavenCoordinate,
-                    Algorithm.valueOf(algorithm), pcg, STRATEGY);
+                generateFromCoordinate(mavenCoordinate, pcg);
                 try {
                     writeCallgraph(pcg);
                 } catch (IOException e) {
@@ -163,6 +315,17 @@ public class Main implements Runnable {
                     mavenCoordinate.getCoordinate(), e);
             }
         }
+        ExclusionSet.getDefault().logHits();
+        if (compressionStats != null) {
+            logger.info("Output compression {}", compressionStats);
+        }
+        if (adaptiveGenerator != null) {
+            try {
+                costModel.save(COST_MODEL_FILE);
+            } catch (IOException e) {
+                logger.warn("Couldn't store the cost model in {}", COST_MODEL_FILE);
+            }
+        }
         Long2ObjectMap<JavaNode> result = new Long2ObjectOpenHashMap<>();
         for (final var entry : pcg.getClassHierarchy()
             .get(JavaScope.externalTypes).entrySet()) {
@@ -178,11 +341,155 @@ public class Main implements Runnable {
 
     }
 
+    /**
+     * Generate the call graphs of every requested call preservation strategy from one analysis
+     * of a file and write each of them with the strategy as file name suffix.
+     *
+     * @param path Path to the artifact
+     */
+    private void generateStrategiesFromFile(final String path) {
+        final Map<CallPreservationStrategy, PartialJavaCallGraph> results =
+            new EnumMap<>(CallPreservationStrategy.class);
+        for (final var strategy : strategies) {
+            results.put(strategy, getEmptyPCG());
+        }
+        PartialCallGraphGenerator.generateFromFile(path, getDependencyFiles(),
+            Algorithm.valueOf(algorithm), results);
+        for (final var result : results.entrySet()) {
+            try {
+                writeCallgraph(result.getValue(),
+                    "-" + result.getKey().name().toLowerCase(Locale.ROOT));
+            } catch (IOException e) {
+                logger.info("Couldn't write to the file");
+            }
+        }
+    }
+
+    /**
+     * Generate the call graphs of every algorithm listed in {@code --cgAlg} from one analysis
+     * scope and class hierarchy and write each of them with the algorithm as file name suffix.
+     *
+     * @param path Path to the artifact
+     */
+    private void generateAlgorithmsFromFile(final String path) {
+        final Map<Algorithm, PartialJavaCallGraph> results = new EnumMap<>(Algorithm.class);
+        for (final var alg : algorithm.split(",")) {
+            results.put(Algorithm.valueOf(alg.strip()), getEmptyPCG());
+        }
+        PartialCallGraphGenerator.generateFromFile(path, getDependencyFiles(), results,
+            getStrategy());
+        for (final var result : results.entrySet()) {
+            try {
+                writeCallgraph(result.getValue(),
+                    "-" + result.getKey().name().toLowerCase(Locale.ROOT));
+            } catch (IOException e) {
+                logger.info("Couldn't write to the file");
+            }
+        }
+    }
+
+    /**
+     * Generate the call graph of a file and write it in chunks to the directory
+     * {@code <product>-v<version>} while its calls are resolved.
+     *
+     * @param path Path to the artifact
+     */
+    private void streamFromFile(final String path) {
+        final var header = getEmptyPCG();
+        try (var writer = new ChunkedCallGraphWriter(
+            Paths.get(outputPath, header.product + "-v" + header.version), codec, codecLevel)) {
+            PartialCallGraphGenerator.generateFromFile(path, getDependencyFiles(),
+                Algorithm.valueOf(algorithm), header, getStrategy(), writer, streamBatchSize);
+            compressionStats = writer.getStats();
+            logger.info("Successfully written the call graph into {} chunks",
+                writer.getChunks());
+        } catch (IOException e) {
+            logger.info("Couldn't write to the file");
+        }
+    }
+
+    /**
+     * Generate the call graph of a file with its calls accumulated in external memory and write
+     * it in chunks to the directory {@code <product>-v<version>}.
+     *
+     * @param path Path to the artifact
+     */
+    private void spillFromFile(final String path) {
+        final var header = getEmptyPCG();
+        try (var writer = new ChunkedCallGraphWriter(
+            Paths.get(outputPath, header.product + "-v" + header.version), codec, codecLevel);
+             var edges = new SpillingEdgeBuffer(Paths.get(System.getProperty("java.io.tmpdir")),
+                 SPILL_CHUNK_RECORDS, spillBudget * 1024 * 1024)) {
+            PartialCallGraphGenerator.generateFromFile(path, getDependencyFiles(),
+                Algorithm.valueOf(algorithm), header, getStrategy(), writer, edges);
+            compressionStats = writer.getStats();
+            logger.info("Successfully written the call graph into {} chunks",
+                writer.getChunks());
+        } catch (IOException e) {
+            logger.info("Couldn't write to the file");
+        }
+    }
+
+    private CallPreservationStrategy getStrategy() {
+        return strategies == null || strategies.isEmpty() ? STRATEGY : strategies.get(0);
+    }
+
+    /**
+     * Generate a call graph for a Maven coordinate with the configured algorithm.
+     *
+     * @param mavenCoordinate Maven coordinate
+     * @param pcg             Partial call graph to fill
+     */
+    private void generateFromCoordinate(final MavenCoordinate mavenCoordinate,
+                                        final PartialJavaCallGraph pcg) {
+        if (adaptive) {
+            final var selected = getAdaptiveGenerator().generateFromCoordinate(mavenCoordinate,
+                pcg, getStrategy(), resolveDependencies);
+            logger.info("Generated call graph of {} with {}", mavenCoordinate.getCoordinate(),
+                selected);
+        } else {
+            PartialCallGraphGenerator.generateFromCoordinate(mavenCoordinate,
+                Algorithm.valueOf(algorithm), pcg, getStrategy(), resolveDependencies);
+        }
+    }
+
+    /**
+     * Get the adaptive generator, loading the cost model learned in earlier runs.
+     *
+     * @return Adaptive generator
+     */
+    private AdaptiveCallGraphGenerator getAdaptiveGenerator() {
+        if (adaptiveGenerator == null) {
+            if (Files.exists(COST_MODEL_FILE)) {
+                try {
+                    costModel.load(COST_MODEL_FILE);
+                } catch (IOException e) {
+                    logger.warn("Couldn't load the cost model from {}", COST_MODEL_FILE);
+                }
+            }
+            adaptiveGenerator =
+                new AdaptiveCallGraphGenerator(costModel, Duration.ofSeconds(timeBudget));
+        }
+        return adaptiveGenerator;
+    }
+
     private PartialJavaCallGraph getEmptyPCG() {
         return PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
             setRunner.input.mavenCoordStr, Long.parseLong(timestamp), Constants.walaGenerator);
     }
 
+    /**
+     * Get JAR files of the dependencies specified in the command line.
+     *
+     * @return List of dependency files
+     */
+    private List<File> getDependencyFiles() {
+        if (dependencies == null) {
+            return Collections.emptyList();
+        }
+        return dependencies.stream().map(File::new).collect(Collectors.toList());
+    }
+
     /**
      * Consume a set of maven coordinates and generate call graphs for them.
      *
@@ -192,20 +499,37 @@ public class Main implements Runnable {
         List<String> successfulRecords = new ArrayList<>();
         Map<String, String> failedRecords = new HashMap<>();
         Map<String, Integer> errorOccurrences = new HashMap<>();
+        if (incremental && (adaptive || !algorithm.equals(Algorithm.CHA.label)
+            || getStrategy() != CallPreservationStrategy.ONLY_STATIC_CALLSITES)) {
+            logger.error("--incremental only supports --cgAlg CHA with --strategies "
+                + "ONLY_STATIC_CALLSITES and cannot be combined with --adaptive");
+            return;
+        }
+        final var incrementalGenerator = incremental ? new IncrementalCallGraphGenerator() : null;
 
+        final List<MavenCoordinate> coordinates = new ArrayList<>();
         for (var coordinate : getCoordinates(path)) {
             final var mavenCoordinate = getMavenCoordinate(coordinate);
             if (mavenCoordinate != null && repos != null && repos.size() > 0) {
                 mavenCoordinate.setMavenRepos(repos);
             }
-            if (mavenCoordinate == null) {
-                continue;
+            if (mavenCoordinate != null) {
+                coordinates.add(mavenCoordinate);
             }
+        }
+        final var scheduler = new BatchScheduler(schedule, costModel,
+            algorithm.contains(",") ? Algorithm.CHA : Algorithm.valueOf(algorithm));
+
+        for (var job : scheduler.schedule(coordinates)) {
+            final var mavenCoordinate = job.getCoordinate();
             try {
                 final var pcg = getEmptyPCG();
-                PartialCallGraphGenerator.generateFromCoordinate(mavenCoordinate,
-                    Algorithm.valueOf(algorithm), pcg, STRATEGY);
-
+                if (incrementalGenerator != null) {
+                    incrementalGenerator.generateFromCoordinate(mavenCoordinate,
+                        Algorithm.CHA, pcg, getStrategy(), resolveDependencies);
+                } else {
+                    generateFromCoordinate(mavenCoordinate, pcg);
+                }
 
                 successfulRecords.add("Number of calls: " + pcg.getGraph().getCallSites().size()
                     + " COORDINATE: " + mavenCoordinate.getCoordinate());
@@ -230,10 +554,13 @@ public class Main implements Runnable {
                 } else {
                     errorOccurrences.put(errorType, 1);
                 }
+            } finally {
+                scheduler.completed(job);
             }
         }
 
         printStats(successfulRecords, failedRecords, errorOccurrences);
+        scheduler.logCompletionCurve();
     }
 
     /**
@@ -327,9 +654,38 @@ public class Main implements Runnable {
      * @throws IOException cannot write to a file
      */
     private void writeCallgraph(final PartialJavaCallGraph graph) throws IOException {
-        if (this.outputPath != null) {
+        writeCallgraph(graph, "");
+    }
+
+    /**
+     * Writes a callgraph to a specified path.
+     *
+     * @param graph  a callgraph to write to file
+     * @param suffix appended to the file name before the extension
+     * @throws IOException cannot write to a file
+     */
+    private void writeCallgraph(final PartialJavaCallGraph graph, final String suffix)
+        throws IOException {
+        final var name = graph.product + "-v" + graph.version + suffix;
+        if (this.outputPath != null && format.equalsIgnoreCase("BINARY")) {
+            BinaryCallGraphWriter.write(graph, Paths.get(outputPath,
+                name + ".fcg"));
+            logger.info("Successfully written the call graph into a file");
+        } else if (this.outputPath != null && shards > 1) {
+            final var manifest = ShardedCallGraphWriter.write(graph,
+                Paths.get(outputPath, name), shards, codec,
+                codecLevel);
+            logger.info("Successfully written the call graph into {} shards",
+                manifest.getShards().size());
+        } else if (this.outputPath != null && codec != OutputCodec.NONE) {
+            final var stats = codec.write(JSONUtils.toJSONString(graph),
+                Files.newOutputStream(Paths.get(outputPath, name + ".json" + codec.getExtension())),
+                codecLevel);
+            compressionStats = compressionStats == null ? stats : compressionStats.plus(stats);
+            logger.info("Successfully written the call graph into a file, {}", stats);
+        } else if (this.outputPath != null) {
             final BufferedWriter writer = new BufferedWriter(
-                new FileWriter(outputPath + "/" + graph.product + "-v" + graph.version + ".json"));
+                new FileWriter(outputPath + "/" + name + ".json"));
             writer.write(JSONUtils.toJSONString(graph));
             writer.close();
             logger.info("Successfully written the call graph into a file");
@@ -0,0 +1,258 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala;
+
+import eu.fasten.analyzer.javacgwala.data.Checksum;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.core.data.CallPreservationStrategy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Persistent cache of serialized call graphs, stored as the bytes handed over, e.g. already
+ * compressed. Entries are keyed by the checksum of the analyzed
+ * JAR file together with everything else that influences the result, and the least recently
+ * used entries are evicted once the cache grows over its size limit.
+ */
+public class ResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResultCache.class);
+
+    private static final String SUFFIX = ".json";
+
+    private final Path directory;
+
+    private final long maxBytes;
+
+    /**
+     * Cached entries and their sizes in the order of access, least recently used first.
+     */
+    private final LinkedHashMap<String, Long> entries;
+
+    private long totalBytes;
+
+    private final AtomicLong hits;
+
+    private final AtomicLong misses;
+
+    /**
+     * Construct result cache, picking up entries stored by previous runs.
+     *
+     * @param directory Directory in which results are stored
+     * @param maxBytes  Maximum total size of the stored results
+     */
+    public ResultCache(final Path directory, final long maxBytes) {
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+        loadIndex();
+    }
+
+    /**
+     * Create a cache key. Cached call graphs carry the coordinate and release date of the record
+     * they were generated for, so both are part of the key even though the same JAR file may be
+     * published under several coordinates.
+     *
+     * @param jarChecksum   Checksum of the analyzed JAR file
+     * @param coordinate    Maven coordinate the JAR file was consumed as
+     * @param releaseDate   Release date of the record, -1 if it is unknown
+     * @param algorithm     Call graph generation algorithm
+     * @param strategy      Call preservation strategy
+     * @param exclusions    Checksum of the classes excluded from the analysis
+     * @param pluginVersion Version of the plugin that generated the result
+     * @return Cache key
+     */
+    public static String key(final String jarChecksum, final String coordinate,
+                             final long releaseDate, final Algorithm algorithm,
+                             final CallPreservationStrategy strategy, final String exclusions,
+                             final String pluginVersion) {
+        return Checksum.sha256((jarChecksum + ":" + coordinate + ":" + releaseDate + ":"
+            + algorithm.label + ":" + strategy.name() + ":" + exclusions + ":" + pluginVersion)
+            .getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get a cached result.
+     *
+     * @param key Cache key
+     * @return Cached result or empty if there is no such entry
+     */
+    public Optional<byte[]> get(final String key) {
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                misses.incrementAndGet();
+                return Optional.empty();
+            }
+        }
+        final var file = directory.resolve(key + SUFFIX);
+        try {
+            final var result = Files.readAllBytes(file);
+            Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+            hits.incrementAndGet();
+            return Optional.of(result);
+        } catch (IOException e) {
+            logger.warn("Could not read cached result {}", file);
+            synchronized (this) {
+                remove(key);
+            }
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Store a result, evicting least recently used entries if the cache is full.
+     *
+     * @param key    Cache key
+     * @param bytes  Serialized call graph
+     */
+    public void put(final String key, final byte[] bytes) {
+        if (bytes.length > maxBytes) {
+            return;
+        }
+        final var file = directory.resolve(key + SUFFIX);
+        try {
+            Files.createDirectories(directory);
+            final var temp = Files.createTempFile(directory, "result", ".tmp");
+            try {
+                Files.write(temp, bytes);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not cache result {}", file);
+            return;
+        }
+
+        synchronized (this) {
+            remove(key);
+            entries.put(key, (long) bytes.length);
+            totalBytes += bytes.length;
+            evict();
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    private void evict() {
+        final var iterator = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && iterator.hasNext()) {
+            final var eldest = iterator.next();
+            iterator.remove();
+            totalBytes -= eldest.getValue();
+            try {
+                Files.deleteIfExists(directory.resolve(eldest.getKey() + SUFFIX));
+            } catch (IOException e) {
+                logger.warn("Could not evict cached result {}", eldest.getKey());
+            }
+        }
+    }
+
+    private void remove(final String key) {
+        final var size = entries.remove(key);
+        if (size != null) {
+            totalBytes -= size;
+        }
+    }
+
+    /**
+     * Index results stored by previous runs, using modification times as access order.
+     */
+    private void loadIndex() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        final List<Path> files;
+        try (Stream<Path> stream = Files.list(directory)) {
+            files = stream
+                .filter(file -> file.getFileName().toString().endsWith(SUFFIX))
+                .sorted(Comparator.comparingLong(ResultCache::lastModified))
+                .collect(Collectors.toList());
+        } catch (IOException e) {
+            logger.warn("Could not read result cache {}", directory);
+            return;
+        }
+        for (final var file : files) {
+            final var name = file.getFileName().toString();
+            try {
+                final var size = Files.size(file);
+                entries.put(name.substring(0, name.length() - SUFFIX.length()), size);
+                totalBytes += size;
+            } catch (IOException e) {
+                logger.warn("Could not read cached result {}", file);
+            }
+        }
+        evict();
+    }
+
+    private static long lastModified(final Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ResultCache{" + "hits=" + hits.get() + ", misses=" + misses.get()
+            + ", entries=" + size() + ", bytes=" + getTotalBytes() + '}';
+    }
+
+    /**
+     * Get cached keys.
+     *
+     * @return Keys in the order of access, least recently used first
+     */
+    synchronized List<String> keys() {
+        return new ArrayList<>(entries.keySet());
+    }
+}
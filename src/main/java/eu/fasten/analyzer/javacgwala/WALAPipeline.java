@@ -0,0 +1,373 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala;
+
+import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.core.plugins.PipelinedKafkaPlugin;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.HeapAdmissionController;
+import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates call graphs for several records at the same time. Every record goes through three
+ * stages, each served by its own threads:
+ * <ol>
+ *     <li>download: fetches the JAR file and serves cached results, running ahead of analysis
+ *     </li>
+ *     <li>analysis: generates the call graph once the {@link HeapAdmissionController} of the
+ *     plugin admits it, so that large artifacts analyzed together do not exhaust the heap</li>
+ *     <li>serialization: converts the call graph to JSON and stores it in the cache</li>
+ * </ol>
+ * Stages are connected with bounded queues, so a slow stage blocks the ones before it and
+ * eventually {@link #submit(String)}, which keeps the consumer from running ahead.
+ */
+public class WALAPipeline implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WALAPipeline.class);
+
+    private static final Job POISON = new Job(null);
+
+    private final ResultCache resultCache;
+    private final String pluginVersion;
+
+    private final BlockingQueue<Job> downloads;
+    private final BlockingQueue<Job> analyses;
+    private final BlockingQueue<Job> serializations;
+    private final BlockingQueue<Job> results;
+
+    private final List<Thread> workers;
+    private final AtomicInteger pending;
+
+    private volatile boolean closed;
+
+    /**
+     * Construct and start the pipeline.
+     *
+     * @param resultCache         Cache of serialized call graphs, may be null
+     * @param pluginVersion       Version of the plugin, part of the cache key
+     * @param downloadThreads     Number of threads downloading JAR files
+     * @param analysisThreads     Number of threads generating call graphs
+     * @param serializationThreads Number of threads serializing call graphs
+     * @param queueCapacity       Capacity of the queue in front of every stage
+     */
+    public WALAPipeline(final ResultCache resultCache, final String pluginVersion,
+                        final int downloadThreads, final int analysisThreads,
+                        final int serializationThreads, final int queueCapacity) {
+        this.resultCache = resultCache;
+        this.pluginVersion = pluginVersion;
+        this.downloads = new ArrayBlockingQueue<>(queueCapacity);
+        this.analyses = new ArrayBlockingQueue<>(queueCapacity);
+        this.serializations = new ArrayBlockingQueue<>(queueCapacity);
+        this.results = new ArrayBlockingQueue<>(queueCapacity);
+        this.workers = new ArrayList<>();
+        this.pending = new AtomicInteger();
+
+        final var downloadStage = new Stage("download", downloads, analyses,
+            downloadThreads, this::download);
+        final var analysisStage = new Stage("analysis", analyses, serializations,
+            analysisThreads, this::analyze);
+        final var serializationStage = new Stage("serialization", serializations, results,
+            serializationThreads, this::serialize);
+
+        downloadStage.start();
+        analysisStage.start();
+        serializationStage.start();
+    }
+
+    /**
+     * Construct and start the pipeline sized for the available processors.
+     *
+     * @param resultCache   Cache of serialized call graphs, may be null
+     * @param pluginVersion Version of the plugin, part of the cache key
+     */
+    public WALAPipeline(final ResultCache resultCache, final String pluginVersion) {
+        this(resultCache, pluginVersion, 2, Runtime.getRuntime().availableProcessors(), 2,
+            2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Submit a record, blocking while the download queue is full.
+     *
+     * @param record Kafka record with a Maven coordinate
+     * @throws InterruptedException interrupted while waiting for capacity
+     */
+    public void submit(final String record) throws InterruptedException {
+        if (closed) {
+            throw new IllegalStateException("Pipeline is closed");
+        }
+        pending.incrementAndGet();
+        downloads.put(new Job(record));
+    }
+
+    /**
+     * Retrieve a processed record.
+     *
+     * @param timeout how long to wait
+     * @param unit    unit of the timeout
+     * @return result or empty if none became available in time
+     * @throws InterruptedException interrupted while waiting
+     */
+    public Optional<PipelinedKafkaPlugin.Result> poll(final long timeout, final TimeUnit unit)
+        throws InterruptedException {
+        final var job = results.poll(timeout, unit);
+        if (job == null || job == POISON) {
+            return Optional.empty();
+        }
+        pending.decrementAndGet();
+        return Optional.of(job);
+    }
+
+    /**
+     * Get the number of submitted records whose results were not retrieved yet.
+     *
+     * @return Number of records in the pipeline
+     */
+    public int pending() {
+        return pending.get();
+    }
+
+    /**
+     * Stop accepting records and wait until the records already submitted pass all stages.
+     * Results that were not retrieved are discarded, so {@link #pending()} is zero afterwards.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            // results nobody retrieves would keep the stages, and so the download queue, blocked
+            while (!downloads.offer(POISON, 100, TimeUnit.MILLISECONDS)) {
+                discard(results);
+            }
+            for (final var worker : workers) {
+                while (worker.isAlive()) {
+                    discard(results);
+                    worker.join(100);
+                }
+            }
+            discard(results);
+        } catch (InterruptedException e) {
+            workers.forEach(Thread::interrupt);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Drop the jobs in a queue, which are then no longer pending.
+     *
+     * @param queue Queue to empty
+     */
+    private void discard(final BlockingQueue<Job> queue) {
+        final List<Job> jobs = new ArrayList<>();
+        queue.drainTo(jobs);
+        for (final var job : jobs) {
+            if (job != POISON) {
+                pending.decrementAndGet();
+            }
+        }
+    }
+
+    private void download(final Job job) {
+        final var json = new JSONObject(job.record);
+        job.coordinate = new MavenCoordinate(json.get("groupId").toString(),
+            json.get("artifactId").toString(), json.get("version").toString());
+        job.releaseDate = json.optLong("releaseDate", -1);
+        job.jar = WALAPlugin.WALA.downloadJar(job.coordinate);
+
+        job.algorithm = WALAPlugin.ALG;
+        if (resultCache != null) {
+            job.algorithm = WALAPlugin.WALA.selectAlgorithm(job.jar);
+            try {
+                job.cacheKey = WALAPlugin.WALA.cacheKey(job.jar, job.coordinate,
+                    job.releaseDate, job.algorithm, pluginVersion);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            resultCache.get(job.cacheKey).ifPresent(cached -> job.encoded = cached);
+        }
+    }
+
+    private void analyze(final Job job) {
+        if (job.encoded != null) {
+            return;
+        }
+        logger.info("Generating call graph for {}", job.coordinate.getCoordinate());
+        job.pcg = PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+            job.coordinate.getProduct(), job.coordinate.getVersionConstraint(),
+            job.releaseDate, Constants.walaGenerator);
+        try (var permit = WALAPlugin.WALA.admit(job.jar)) {
+            if (WALAPlugin.WALA.generateCallGraph(job.jar, job.pcg) != job.algorithm) {
+                // adaptive selection fell back to a cheaper algorithm, do not serve it later
+                job.cacheKey = null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for heap", e);
+        }
+    }
+
+    private void serialize(final Job job) {
+        if (job.encoded == null) {
+            job.encoded = job.pcg.isCallGraphEmpty() ? new byte[0]
+                : WALAPlugin.WALA.encode(job.pcg, job.coordinate);
+            job.pcg = null;
+            if (job.cacheKey != null) {
+                resultCache.put(job.cacheKey, job.encoded);
+            }
+        }
+        if (job.encoded.length == 0) {
+            logger.warn("Empty call graph for {}", job.coordinate.getCoordinate());
+        } else {
+            job.outputPath = WALAPlugin.WALA.getOutputPath(job.coordinate);
+            logger.info("Call graph successfully generated for {}!",
+                job.coordinate.getCoordinate());
+        }
+    }
+
+    /**
+     * A record travelling through the pipeline.
+     */
+    private static class Job implements PipelinedKafkaPlugin.Result {
+
+        private final String record;
+        private MavenCoordinate coordinate;
+        private long releaseDate;
+        private File jar;
+        private Algorithm algorithm;
+        private String cacheKey;
+        private PartialJavaCallGraph pcg;
+        /** Call graph serialized with the output codec, empty if it has no calls. */
+        private byte[] encoded;
+        private String outputPath;
+        private Throwable error;
+
+        Job(final String record) {
+            this.record = record;
+        }
+
+        @Override
+        public String record() {
+            return record;
+        }
+
+        @Override
+        public Optional<String> produce() {
+            return produceEncoded().map(WALAPlugin.WALA.OUTPUT_CODEC::decode);
+        }
+
+        @Override
+        public Optional<byte[]> produceEncoded() {
+            if (encoded == null || encoded.length == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(encoded);
+        }
+
+        @Override
+        public String getOutputPath() {
+            return outputPath;
+        }
+
+        @Override
+        public String getEncodedOutputPath() {
+            return WALAPlugin.WALA.getEncodedOutputPath(outputPath);
+        }
+
+        @Override
+        public Throwable getPluginError() {
+            return error;
+        }
+    }
+
+    /**
+     * Threads that take jobs from one queue, process them and put them into the next queue.
+     * Jobs that failed in an earlier stage are passed through untouched. The last thread of a
+     * stage to see the poison pill forwards it to the next stage.
+     */
+    private class Stage {
+
+        private final String name;
+        private final BlockingQueue<Job> input;
+        private final BlockingQueue<Job> output;
+        private final int threads;
+        private final Consumer<Job> action;
+        private final AtomicInteger running;
+
+        Stage(final String name, final BlockingQueue<Job> input, final BlockingQueue<Job> output,
+              final int threads, final Consumer<Job> action) {
+            this.name = name;
+            this.input = input;
+            this.output = output;
+            this.threads = Math.max(1, threads);
+            this.action = action;
+            this.running = new AtomicInteger(this.threads);
+        }
+
+        void start() {
+            for (int i = 0; i < threads; i++) {
+                final var worker = new Thread(this::work, "wala-" + name + "-" + i);
+                worker.setDaemon(true);
+                workers.add(worker);
+                worker.start();
+            }
+        }
+
+        private void work() {
+            try {
+                while (true) {
+                    final var job = input.take();
+                    if (job == POISON) {
+                        // let the other threads of this stage see the pill as well
+                        input.put(POISON);
+                        if (running.decrementAndGet() == 0) {
+                            discard(input);
+                            output.put(POISON);
+                        }
+                        return;
+                    }
+                    if (job.error == null) {
+                        try {
+                            action.accept(job);
+                        } catch (Throwable e) {
+                            logger.error("Failed to process {} in {} stage", job.record, name, e);
+                            job.error = e;
+                        }
+                    }
+                    output.put(job);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -19,17 +19,33 @@
 package eu.fasten.analyzer.javacgwala;
 
 import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
-import eu.fasten.analyzer.javacgwala.core.plugins.KafkaPlugin;
+import eu.fasten.analyzer.javacgwala.core.plugins.PipelinedKafkaPlugin;
+import eu.fasten.analyzer.javacgwala.data.Checksum;
+import eu.fasten.analyzer.javacgwala.data.callgraph.AdaptiveCallGraphGenerator;
 import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.ExclusionSet;
+import eu.fasten.analyzer.javacgwala.data.callgraph.HeapAdmissionController;
 import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.ArtifactProfile;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CostModel;
+import eu.fasten.analyzer.javacgwala.data.output.CompressionStats;
+import eu.fasten.analyzer.javacgwala.data.output.OutputCodec;
 import eu.fasten.core.data.CallPreservationStrategy;
 import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.JSONUtils;
 import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.pf4j.Extension;
@@ -43,19 +59,82 @@ public class WALAPlugin extends Plugin {
     public static final Algorithm ALG = Algorithm.CHA;
     public static final CallPreservationStrategy STRATEGY = CallPreservationStrategy.ONLY_STATIC_CALLSITES;
 
+    /**
+     * Directory of the result cache, set to "none" to disable caching.
+     */
+    public static final String CACHE_DIR_PROPERTY = "fasten.wala.cache.dir";
+
+    /**
+     * Maximum size of the result cache in megabytes.
+     */
+    public static final String CACHE_SIZE_PROPERTY = "fasten.wala.cache.size";
+
+    /**
+     * Time budget in seconds of adaptive algorithm selection. If it is not set, {@link #ALG} is
+     * used for every artifact.
+     */
+    public static final String ADAPTIVE_BUDGET_PROPERTY = "fasten.wala.adaptive.budget";
+
+    /**
+     * Compression of produced call graphs, one of {@link OutputCodec}. Defaults to NONE.
+     */
+    public static final String OUTPUT_CODEC_PROPERTY = "fasten.wala.output.codec";
+
+    /**
+     * Compression level of produced call graphs, the default of the codec if it is not set.
+     */
+    public static final String OUTPUT_LEVEL_PROPERTY = "fasten.wala.output.level";
+
+    /**
+     * Heap in megabytes that call graph generations running at the same time may use together.
+     * Defaults to three quarters of the maximum heap.
+     */
+    public static final String HEAP_BUDGET_PROPERTY = "fasten.wala.heap.budget";
+
     public WALAPlugin(PluginWrapper wrapper) {
         super(wrapper);
     }
 
     @Extension
-    public static class WALA implements KafkaPlugin {
+    public static class WALA implements PipelinedKafkaPlugin {
+
+        /** Shared by all instances so the cost model learns from every artifact. */
+        private static final CostModel COST_MODEL = new CostModel();
+
+        private static final AdaptiveCallGraphGenerator ADAPTIVE_GENERATOR =
+            createAdaptiveGenerator();
+
+        static final HeapAdmissionController ADMISSION = createAdmissionController();
+
+        static final OutputCodec OUTPUT_CODEC = OutputCodec.valueOf(
+            System.getProperty(OUTPUT_CODEC_PROPERTY, OutputCodec.NONE.name()).toUpperCase());
+
+        static final int OUTPUT_LEVEL =
+            Integer.getInteger(OUTPUT_LEVEL_PROPERTY, OutputCodec.DEFAULT_LEVEL);
 
         private final Logger logger = LoggerFactory.getLogger(getClass());
 
         private String consumeTopic = "fasten.maven.pkg";
         private Throwable pluginError;
         private PartialJavaCallGraph pcg;
+        /** Call graph serialized with {@link #OUTPUT_CODEC}, empty if it has no calls. */
+        private byte[] encoded;
         private String outputPath;
+        private final ResultCache resultCache;
+        private WALAPipeline pipeline;
+
+        public WALA() {
+            this(createResultCache());
+        }
+
+        /**
+         * Construct plugin.
+         *
+         * @param resultCache Cache of serialized call graphs, may be null
+         */
+        WALA(final ResultCache resultCache) {
+            this.resultCache = resultCache;
+        }
 
         @Override
         public Optional<List<String>> consumeTopic() {
@@ -65,51 +144,325 @@ public class WALAPlugin extends Plugin {
         @Override
         public void consume(String kafkaRecord) {
             pluginError = null;
+            pcg = null;
+            encoded = null;
             try {
                 final var kafkaConsumedJson = new JSONObject(kafkaRecord);
                 final var mavenCoordinate = getMavenCoordinate(kafkaConsumedJson);
 
                 logger.info("Generating call graph for {}", mavenCoordinate.getCoordinate());
 
-                this.pcg = PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
-                    mavenCoordinate.getProduct(), mavenCoordinate.getVersionConstraint(),
-                    kafkaConsumedJson.optLong("releaseDate", -1),
-                    Constants.walaGenerator);
-
-                PartialCallGraphGenerator.generateFromCoordinate(mavenCoordinate, ALG, this.pcg, STRATEGY);
+                consume(kafkaConsumedJson, mavenCoordinate, downloadJar(mavenCoordinate));
+            } catch (Exception e) {
+                setPluginError(e);
+                logger.error("", e);
+            }
+        }
 
-                if (pcg == null || pcg.isCallGraphEmpty()) {
-                    logger.warn("Empty call graph for {}", mavenCoordinate.getCoordinate());
+        /**
+         * Generate the call graph of a downloaded JAR file or serve it from the cache.
+         *
+         * @param kafkaConsumedJson Consumed record
+         * @param mavenCoordinate   Coordinate of the record
+         * @param jar               Downloaded JAR file
+         * @throws IOException cannot compute the checksum of the JAR file
+         */
+        void consume(final JSONObject kafkaConsumedJson, final MavenCoordinate mavenCoordinate,
+                     final File jar) throws IOException {
+            final var releaseDate = kafkaConsumedJson.optLong("releaseDate", -1);
+            final var algorithm = resultCache == null ? ALG : selectAlgorithm(jar);
+            String cacheKey = resultCache == null ? null
+                : cacheKey(jar, mavenCoordinate, releaseDate, algorithm, cacheVersion());
+            if (cacheKey != null) {
+                final var cached = resultCache.get(cacheKey);
+                if (cached.isPresent()) {
+                    logger.info("Serving cached call graph for {}, {}",
+                        mavenCoordinate.getCoordinate(), resultCache);
+                    encoded = cached.get();
+                    if (encoded.length == 0) {
+                        logger.warn("Empty call graph for {}",
+                            mavenCoordinate.getCoordinate());
+                        return;
+                    }
+                    outputPath = getOutputPath(mavenCoordinate);
                     return;
                 }
+            }
 
-                var groupId = pcg.product.split(":")[0];
-                var artifactId = pcg.product.split(":")[1];
-                var version = pcg.version;
-                var product = artifactId + "_" + groupId + "_" + version;
-
-                var firstLetter = artifactId.substring(0, 1);
+            this.pcg = PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+                mavenCoordinate.getProduct(), mavenCoordinate.getVersionConstraint(),
+                releaseDate, Constants.walaGenerator);
 
-                outputPath = File.separator + "mvn" + File.separator
-                        + firstLetter + File.separator
-                        + artifactId + File.separator + product + ".json";
+            if (generateCallGraph(jar, this.pcg) != algorithm) {
+                // adaptive selection fell back to a cheaper algorithm, do not serve it later
+                cacheKey = null;
+            }
 
-                logger.info("Call graph successfully generated for {}!",
-                        mavenCoordinate.getCoordinate());
+            if (pcg == null || pcg.isCallGraphEmpty()) {
+                logger.warn("Empty call graph for {}", mavenCoordinate.getCoordinate());
+                if (cacheKey != null) {
+                    resultCache.put(cacheKey, new byte[0]);
+                }
+                return;
+            }
 
-            } catch (Exception e) {
-                setPluginError(e);
-                logger.error("", e);
+            encoded = encode(pcg, mavenCoordinate);
+            if (cacheKey != null) {
+                resultCache.put(cacheKey, encoded);
             }
+            outputPath = getOutputPath(mavenCoordinate);
+
+            logger.info("Call graph successfully generated for {}!",
+                mavenCoordinate.getCoordinate());
         }
 
+        /**
+         * Get the serialized call graph as text, to be written to {@link #getOutputPath()}. It is
+         * only kept encoded, so it is decoded on every call; prefer {@link #produceEncoded()}
+         * with {@link #getEncodedOutputPath()}.
+         *
+         * @return Serialized call graph or empty if there is none
+         */
         @Override
         public Optional<String> produce() {
-            if (!this.pcg.isCallGraphEmpty()) {
-                return Optional.of(pcg.toJSON().toString());
-            } else {
+            return produceEncoded().map(OUTPUT_CODEC::decode);
+        }
+
+        @Override
+        public Optional<byte[]> produceEncoded() {
+            if (encoded == null || encoded.length == 0) {
                 return Optional.empty();
             }
+            return Optional.of(encoded);
+        }
+
+        @Override
+        public void submit(String record) throws InterruptedException {
+            WALAPipeline current;
+            synchronized (this) {
+                if (pipeline == null) {
+                    pipeline = new WALAPipeline(resultCache, cacheVersion());
+                }
+                current = pipeline;
+            }
+            current.submit(record);
+        }
+
+        @Override
+        public Optional<Result> poll(long timeout, TimeUnit unit) throws InterruptedException {
+            WALAPipeline current;
+            synchronized (this) {
+                current = pipeline;
+            }
+            if (current == null) {
+                unit.sleep(timeout);
+                return Optional.empty();
+            }
+            return current.poll(timeout, unit);
+        }
+
+        /**
+         * Download the JAR file of a coordinate.
+         *
+         * @param mavenCoordinate Maven coordinate
+         * @return Downloaded JAR file
+         */
+        static File downloadJar(final MavenCoordinate mavenCoordinate) {
+            try {
+                return MavenCoordinate.MavenResolver.downloadJar(mavenCoordinate)
+                    .orElseThrow(RuntimeException::new);
+            } catch (FileNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        /**
+         * Get the relative path of the output file of a coordinate.
+         *
+         * @param mavenCoordinate Maven coordinate
+         * @return Output path of the plain JSON call graph
+         */
+        static String getOutputPath(final MavenCoordinate mavenCoordinate) {
+            var groupId = mavenCoordinate.getGroupID();
+            var artifactId = mavenCoordinate.getArtifactID();
+            var version = mavenCoordinate.getVersionConstraint();
+            var product = artifactId + "_" + groupId + "_" + version;
+
+            var firstLetter = artifactId.substring(0, 1);
+
+            return File.separator + "mvn" + File.separator
+                    + firstLetter + File.separator
+                    + artifactId + File.separator + product + ".json";
+        }
+
+        /**
+         * Get the path of the encoded output of an output path.
+         *
+         * @param outputPath Output path of the plain call graph, or null
+         * @return Output path with the extension of {@link #OUTPUT_CODEC}
+         */
+        static String getEncodedOutputPath(final String outputPath) {
+            return outputPath == null ? null : outputPath + OUTPUT_CODEC.getExtension();
+        }
+
+        /**
+         * Serialize a call graph with {@link JSONUtils}, like the uncompressed output of
+         * {@code Main}, and compress the text with {@link #OUTPUT_CODEC} while it is written.
+         *
+         * @param pcg             Call graph
+         * @param mavenCoordinate Coordinate of the call graph, for logging
+         * @return Serialized call graph, compressed unless the codec is NONE
+         */
+        static byte[] encode(final PartialJavaCallGraph pcg,
+                             final MavenCoordinate mavenCoordinate) {
+            final var out = new ByteArrayOutputStream();
+            try {
+                logStats(mavenCoordinate, OUTPUT_CODEC.write(JSONUtils.toJSONString(pcg), out,
+                    OUTPUT_LEVEL));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+
+        private static void logStats(final MavenCoordinate mavenCoordinate,
+                                     final CompressionStats stats) {
+            LoggerFactory.getLogger(WALA.class).info("Encoded call graph of {} with {}",
+                mavenCoordinate.getCoordinate(), stats);
+        }
+
+        /**
+         * Generate the call graph of a JAR file with {@link #ALG} or, if configured, with the
+         * algorithm chosen by adaptive selection.
+         *
+         * @param jar Downloaded JAR file
+         * @param pcg Partial call graph to fill
+         * @return Algorithm that produced the call graph
+         */
+        static Algorithm generateCallGraph(final File jar, final PartialJavaCallGraph pcg) {
+            if (ADAPTIVE_GENERATOR == null) {
+                PartialCallGraphGenerator.generateFromFile(jar.getAbsolutePath(), ALG, pcg,
+                    STRATEGY);
+                return ALG;
+            }
+            return ADAPTIVE_GENERATOR.generateFromFile(jar.getAbsolutePath(),
+                Collections.emptyList(), pcg, STRATEGY);
+        }
+
+        /**
+         * Choose the algorithm for a JAR file the way {@link #generateCallGraph} does.
+         *
+         * @param jar Downloaded JAR file
+         * @return {@link #ALG} or the algorithm chosen by adaptive selection
+         */
+        static Algorithm selectAlgorithm(final File jar) {
+            if (ADAPTIVE_GENERATOR == null) {
+                return ALG;
+            }
+            try {
+                return ADAPTIVE_GENERATOR.select(
+                    ArtifactProfile.of(jar, Collections.emptyList()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        /**
+         * Create the cache key of a record.
+         *
+         * @param jar             Downloaded JAR file
+         * @param mavenCoordinate Coordinate of the record
+         * @param releaseDate     Release date of the record
+         * @param algorithm       Algorithm the call graph is generated with
+         * @param pluginVersion   Version under which results are cached
+         * @return Cache key
+         * @throws IOException cannot compute the checksum of the JAR file
+         */
+        static String cacheKey(final File jar, final MavenCoordinate mavenCoordinate,
+                               final long releaseDate, final Algorithm algorithm,
+                               final String pluginVersion) throws IOException {
+            return ResultCache.key(Checksum.sha256(jar), mavenCoordinate.getCoordinate(),
+                releaseDate, algorithm, STRATEGY, ExclusionSet.getDefault().getChecksum(),
+                pluginVersion);
+        }
+
+        /**
+         * Get the version under which results are cached. Results depend on the plugin version
+         * and on the budget of adaptive selection, and are stored in the format of
+         * {@link #OUTPUT_CODEC}.
+         *
+         * @return Cache version
+         */
+        private String cacheVersion() {
+            final var adaptive = ADAPTIVE_GENERATOR == null ? ""
+                : ":adaptive=" + System.getProperty(ADAPTIVE_BUDGET_PROPERTY);
+            return version() + adaptive + ":codec=" + OUTPUT_CODEC;
+        }
+
+        /**
+         * Create the adaptive generator configured by system properties.
+         *
+         * @return Adaptive generator or null if adaptive selection is disabled
+         */
+        static AdaptiveCallGraphGenerator createAdaptiveGenerator() {
+            final var seconds = Long.getLong(ADAPTIVE_BUDGET_PROPERTY);
+            if (seconds == null) {
+                return null;
+            }
+            return new AdaptiveCallGraphGenerator(COST_MODEL, Duration.ofSeconds(seconds));
+        }
+
+        /**
+         * Create the admission controller configured by system properties. With adaptive
+         * selection the adaptive generator already records every run in the cost model.
+         *
+         * @return Admission controller
+         */
+        static HeapAdmissionController createAdmissionController() {
+            final var megabytes = Long.getLong(HEAP_BUDGET_PROPERTY,
+                Runtime.getRuntime().maxMemory() / 4 * 3 >> 20);
+            return new HeapAdmissionController(COST_MODEL, megabytes << 20,
+                ADAPTIVE_GENERATOR == null);
+        }
+
+        /**
+         * Wait until the heap budget leaves room for the call graph generation of a JAR file.
+         *
+         * @param jar Downloaded JAR file
+         * @return Permit to close once the call graph is generated
+         * @throws InterruptedException interrupted while waiting
+         */
+        static HeapAdmissionController.Permit admit(final File jar)
+            throws InterruptedException {
+            final ArtifactProfile profile;
+            try {
+                profile = ArtifactProfile.of(jar, Collections.emptyList());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            final var algorithm = ADAPTIVE_GENERATOR == null ? ALG
+                : ADAPTIVE_GENERATOR.select(profile);
+            return ADMISSION.acquire(algorithm, profile);
+        }
+
+        /**
+         * Create the result cache configured by system properties.
+         *
+         * @return Result cache or null if caching is disabled
+         */
+        static ResultCache createResultCache() {
+            final var directory = System.getProperty(CACHE_DIR_PROPERTY,
+                Paths.get(System.getProperty("java.io.tmpdir"), "fasten-wala-results")
+                    .toString());
+            if (directory.equals("none")) {
+                return null;
+            }
+            final var maxMegabytes = Long.getLong(CACHE_SIZE_PROPERTY, 1024);
+            return new ResultCache(Paths.get(directory), maxMegabytes * 1024 * 1024);
+        }
+
+        public ResultCache getResultCache() {
+            return resultCache;
         }
 
         @Override
@@ -117,6 +470,11 @@ public class WALAPlugin extends Plugin {
             return outputPath;
         }
 
+        @Override
+        public String getEncodedOutputPath() {
+            return getEncodedOutputPath(outputPath);
+        }
+
         /**
          * Convert consumed JSON from Kafka to {@link MavenCoordinate}.
          *
@@ -158,6 +516,14 @@ public class WALAPlugin extends Plugin {
 
         @Override
         public void stop() {
+            WALAPipeline current;
+            synchronized (this) {
+                current = pipeline;
+                pipeline = null;
+            }
+            if (current != null) {
+                current.close();
+            }
         }
 
         @Override
@@ -171,6 +537,8 @@ public class WALAPlugin extends Plugin {
 
         @Override
         public void freeResource() {
+            pcg = null;
+            encoded = null;
         }
 
         @Override
@@ -0,0 +1,284 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.core;
+
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntIterators;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Internal calls of a revision in compressed sparse row form. The targets of node {@code n} are
+ * {@code targets[offsets[n]]} to {@code targets[offsets[n + 1] - 1]} in ascending order, and a
+ * reverse index of the same shape lists the callers of every node. Method IDs are used as node
+ * indices directly, so the graph has {@code maxId + 1} nodes; IDs in a {@link RevisionCallGraph}
+ * are dense, which keeps the offset arrays small. Duplicate calls are kept only once.
+ */
+public class CompactCallGraph {
+
+    private final int[] offsets;
+    private final int[] targets;
+    private final int[] reverseOffsets;
+    private final int[] sources;
+
+    private CompactCallGraph(final int[] offsets, final int[] targets,
+                             final int[] reverseOffsets, final int[] sources) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.reverseOffsets = reverseOffsets;
+        this.sources = sources;
+    }
+
+    /**
+     * Build a compact graph of the internal calls of a graph.
+     *
+     * @param graph Graph of a revision
+     * @return Compact graph
+     */
+    public static CompactCallGraph of(final RevisionCallGraph.Graph graph) {
+        final var calls = graph.getInternalCalls();
+        if (calls instanceof IntPairList) {
+            final var pairs = (IntPairList) calls;
+            return of(Arrays.copyOf(pairs.elements(), 2 * pairs.size()), pairs.size());
+        }
+        final var pairs = new int[2 * calls.size()];
+        for (int i = 0; i < calls.size(); i++) {
+            pairs[2 * i] = calls.get(i).get(0);
+            pairs[2 * i + 1] = calls.get(i).get(1);
+        }
+        return of(pairs, calls.size());
+    }
+
+    /**
+     * Build a compact graph from (source, target) pairs. The array is sorted in place.
+     *
+     * @param pairs Sources at even and targets at odd positions, all non-negative
+     * @param size  Number of pairs
+     * @return Compact graph
+     */
+    public static CompactCallGraph of(final int[] pairs, final int size) {
+        sortPairs(pairs, size);
+
+        var nodes = 0;
+        var edges = 0;
+        for (int i = 0; i < size; i++) {
+            final var source = pairs[2 * i];
+            final var target = pairs[2 * i + 1];
+            if (source < 0 || target < 0) {
+                throw new IllegalArgumentException("Negative method ID in call " + source
+                    + " -> " + target);
+            }
+            nodes = Math.max(nodes, Math.max(source, target) + 1);
+            if (i == 0 || source != pairs[2 * i - 2] || target != pairs[2 * i - 1]) {
+                edges++;
+            }
+        }
+
+        final var offsets = new int[nodes + 1];
+        final var targets = new int[edges];
+        final var inDegrees = new int[nodes + 1];
+        var edge = 0;
+        for (int i = 0; i < size; i++) {
+            final var source = pairs[2 * i];
+            final var target = pairs[2 * i + 1];
+            if (i > 0 && source == pairs[2 * i - 2] && target == pairs[2 * i - 1]) {
+                continue;
+            }
+            offsets[source + 1]++;
+            inDegrees[target + 1]++;
+            targets[edge++] = target;
+        }
+        for (int n = 0; n < nodes; n++) {
+            offsets[n + 1] += offsets[n];
+            inDegrees[n + 1] += inDegrees[n];
+        }
+
+        // Sources come out sorted because the calls are visited in source order
+        final var reverseOffsets = Arrays.copyOf(inDegrees, nodes + 1);
+        final var sources = new int[edges];
+        for (int n = 0; n < nodes; n++) {
+            for (int e = offsets[n]; e < offsets[n + 1]; e++) {
+                sources[inDegrees[targets[e]]++] = n;
+            }
+        }
+        return new CompactCallGraph(offsets, targets, reverseOffsets, sources);
+    }
+
+    /**
+     * Sort (source, target) pairs numerically by source and then by target, using a least
+     * significant digit radix sort.
+     *
+     * @param pairs Sources at even and targets at odd positions
+     * @param size  Number of pairs
+     */
+    public static void sortPairs(final int[] pairs, final int size) {
+        var keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = ((long) (pairs[2 * i] ^ Integer.MIN_VALUE) << 32)
+                | ((pairs[2 * i + 1] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+        }
+        var buffer = new long[size];
+        final var counts = new int[1 << 16];
+        for (int shift = 0; shift < 64; shift += 16) {
+            Arrays.fill(counts, 0);
+            for (int i = 0; i < size; i++) {
+                counts[(int) (keys[i] >>> shift) & 0xFFFF]++;
+            }
+            if (size == 0 || counts[(int) (keys[0] >>> shift) & 0xFFFF] == size) {
+                continue;
+            }
+            for (int d = 0, total = 0; d < counts.length; d++) {
+                final var count = counts[d];
+                counts[d] = total;
+                total += count;
+            }
+            for (int i = 0; i < size; i++) {
+                buffer[counts[(int) (keys[i] >>> shift) & 0xFFFF]++] = keys[i];
+            }
+            final var swap = keys;
+            keys = buffer;
+            buffer = swap;
+        }
+        for (int i = 0; i < size; i++) {
+            pairs[2 * i] = (int) (keys[i] >>> 32) ^ Integer.MIN_VALUE;
+            pairs[2 * i + 1] = (int) keys[i] ^ Integer.MIN_VALUE;
+        }
+    }
+
+    public int getNodeCount() {
+        return offsets.length - 1;
+    }
+
+    public int getEdgeCount() {
+        return targets.length;
+    }
+
+    public int outDegree(final int node) {
+        return node < getNodeCount() ? offsets[node + 1] - offsets[node] : 0;
+    }
+
+    public int inDegree(final int node) {
+        return node < getNodeCount() ? reverseOffsets[node + 1] - reverseOffsets[node] : 0;
+    }
+
+    /**
+     * Iterate over the methods called by a method.
+     *
+     * @param node Method ID
+     * @return Callee IDs in ascending order
+     */
+    public IntIterator successors(final int node) {
+        if (node >= getNodeCount()) {
+            return IntIterators.EMPTY_ITERATOR;
+        }
+        return IntIterators.wrap(targets, offsets[node], outDegree(node));
+    }
+
+    /**
+     * Iterate over the methods calling a method.
+     *
+     * @param node Method ID
+     * @return Caller IDs in ascending order
+     */
+    public IntIterator predecessors(final int node) {
+        if (node >= getNodeCount()) {
+            return IntIterators.EMPTY_ITERATOR;
+        }
+        return IntIterators.wrap(sources, reverseOffsets[node], inDegree(node));
+    }
+
+    /**
+     * Check whether a method calls another one.
+     *
+     * @param source Caller ID
+     * @param target Callee ID
+     * @return true if the call exists
+     */
+    public boolean hasCall(final int source, final int target) {
+        if (source >= getNodeCount()) {
+            return false;
+        }
+        return Arrays.binarySearch(targets, offsets[source], offsets[source + 1], target) >= 0;
+    }
+
+    /**
+     * Find all methods reachable from the given ones, including themselves.
+     *
+     * @param roots Method IDs to start from
+     * @return Reachable method IDs
+     */
+    public BitSet reachableFrom(final int... roots) {
+        final var reached = new BitSet(getNodeCount());
+        final var queue = new IntArrayFIFOQueue();
+        for (final var root : roots) {
+            if (!reached.get(root)) {
+                reached.set(root);
+                queue.enqueue(root);
+            }
+        }
+        while (!queue.isEmpty()) {
+            final var node = queue.dequeueInt();
+            if (node >= getNodeCount()) {
+                continue;
+            }
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                if (!reached.get(targets[e])) {
+                    reached.set(targets[e]);
+                    queue.enqueue(targets[e]);
+                }
+            }
+        }
+        return reached;
+    }
+
+    /**
+     * View the calls in the representation of {@link RevisionCallGraph.Graph#getInternalCalls()},
+     * sorted by source and target. Pairs are created when they are read.
+     *
+     * @return Read-only list of (source, target) pairs
+     */
+    public List<List<Integer>> asList() {
+        return new AbstractList<>() {
+            @Override
+            public List<Integer> get(final int index) {
+                if (index < 0 || index >= targets.length) {
+                    throw new IndexOutOfBoundsException("Call " + index + " of " + targets.length);
+                }
+                var source = Arrays.binarySearch(offsets, index);
+                if (source < 0) {
+                    source = -source - 2;
+                } else {
+                    // skip nodes without calls that share the offset
+                    while (offsets[source + 1] == index) {
+                        source++;
+                    }
+                }
+                return Arrays.asList(source, targets[index]);
+            }
+
+            @Override
+            public int size() {
+                return targets.length;
+            }
+        };
+    }
+}
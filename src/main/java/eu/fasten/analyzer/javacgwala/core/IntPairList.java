@@ -0,0 +1,116 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.core;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A list of (source, target) pairs stored in a single flat int array. It can be used wherever
+ * {@link RevisionCallGraph.Graph} expects its internal calls as {@code List<List<Integer>>},
+ * but only boxes the pairs that are actually read.
+ */
+public class IntPairList extends AbstractList<List<Integer>> {
+
+    /** Sources at even and targets at odd positions. */
+    private final IntArrayList pairs;
+
+    /**
+     * Construct an empty list.
+     */
+    public IntPairList() {
+        this.pairs = new IntArrayList();
+    }
+
+    /**
+     * Construct an empty list with room for a number of pairs.
+     *
+     * @param capacity Expected number of pairs
+     */
+    public IntPairList(final int capacity) {
+        this.pairs = new IntArrayList(2 * capacity);
+    }
+
+    /**
+     * Append a pair.
+     *
+     * @param source Source ID
+     * @param target Target ID
+     */
+    public void add(final int source, final int target) {
+        pairs.add(source);
+        pairs.add(target);
+    }
+
+    public int getSource(final int index) {
+        return pairs.getInt(2 * index);
+    }
+
+    public int getTarget(final int index) {
+        return pairs.getInt(2 * index + 1);
+    }
+
+    /**
+     * Get the underlying array, sources at even and targets at odd positions. Only the first
+     * {@code 2 * size()} elements are valid.
+     *
+     * @return Backing array
+     */
+    public int[] elements() {
+        return pairs.elements();
+    }
+
+    @Override
+    public List<Integer> get(final int index) {
+        return Arrays.asList(getSource(index), getTarget(index));
+    }
+
+    @Override
+    public boolean add(final List<Integer> pair) {
+        add(pair.get(0), pair.get(1));
+        return true;
+    }
+
+    @Override
+    public List<Integer> set(final int index, final List<Integer> pair) {
+        final var previous = get(index);
+        pairs.set(2 * index, (int) pair.get(0));
+        pairs.set(2 * index + 1, (int) pair.get(1));
+        return previous;
+    }
+
+    @Override
+    public List<Integer> remove(final int index) {
+        final var previous = get(index);
+        pairs.removeElements(2 * index, 2 * index + 2);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        pairs.clear();
+    }
+
+    @Override
+    public int size() {
+        return pairs.size() / 2;
+    }
+}
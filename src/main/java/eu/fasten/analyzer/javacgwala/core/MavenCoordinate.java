@@ -167,6 +167,20 @@ public class MavenCoordinate {
     public static class MavenResolver {
         private static final Logger logger = LoggerFactory.getLogger(MavenResolver.class);
 
+        /**
+         * Skip dependencies that Maven does not propagate transitively (test, provided and
+         * system scopes, optional dependencies).
+         */
+        private final boolean runtimeOnly;
+
+        public MavenResolver() {
+            this(false);
+        }
+
+        public MavenResolver(final boolean runtimeOnly) {
+            this.runtimeOnly = runtimeOnly;
+        }
+
         /**
          * Returns information about the dependencies of the indicated artifact.
          *
@@ -180,6 +194,20 @@ public class MavenCoordinate {
             return resolver.getDependencies(mavenCoordinate);
         }
 
+        /**
+         * Returns the dependencies of the indicated artifact that are visible to its dependents,
+         * i.e. the ones that have to be followed when computing a transitive closure.
+         *
+         * @param mavenCoordinate Maven Coordinate
+         * @return A java List of a given artifact's runtime dependencies
+         */
+        public static List<List<RevisionCallGraph.Dependency>> resolveRuntimeDependencies(
+                final MavenCoordinate mavenCoordinate) {
+
+            var resolver = new MavenResolver(true);
+            return resolver.getDependencies(mavenCoordinate);
+        }
+
         /**
          * Returns information about the dependencies of the indicated artifact.
          *
@@ -255,6 +283,9 @@ public class MavenCoordinate {
             final var depList = new ArrayList<RevisionCallGraph.Dependency>();
 
             for (final var depNode : node.selectNodes("./*[local-name() = 'dependency']")) {
+                if (runtimeOnly && !isTransitive(depNode)) {
+                    continue;
+                }
                 final var groupId = depNode
                         .selectSingleNode("./*[local-name() = 'groupId']").getStringValue();
                 final var artifactId = depNode
@@ -283,6 +314,30 @@ public class MavenCoordinate {
             return depList;
         }
 
+        /**
+         * Check if a dependency declared in a POM file is propagated to the dependents of the
+         * declaring artifact.
+         *
+         * @param depNode Dependency node from pom.xml
+         * @return true if the dependency is a transitive one, false otherwise
+         */
+        private static boolean isTransitive(final Node depNode) {
+            final var scope = depNode.selectSingleNode("./*[local-name() = 'scope']");
+            if (scope != null) {
+                switch (scope.getStringValue().trim()) {
+                    case "test":
+                    case "provided":
+                    case "system":
+                    case "import":
+                        return false;
+                    default:
+                        break;
+                }
+            }
+            final var optional = depNode.selectSingleNode("./*[local-name() = 'optional']");
+            return optional == null || !Boolean.parseBoolean(optional.getStringValue().trim());
+        }
+
         /**
          * Download a POM file indicated by the provided Maven coordinate.
          *
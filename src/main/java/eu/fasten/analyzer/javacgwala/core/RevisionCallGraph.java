@@ -348,15 +348,21 @@ public class RevisionCallGraph {
     }
 
     /**
-     * Sorts the internal calls of this revision call graph.
+     * Sorts the internal calls of this revision call graph numerically by source and target.
      * @implNote since we use {@link Set} in the process of computing the internal calls and
      *     sets doesn't keep the order it might be needed to sort the edges
      */
     public void sortInternalCalls() {
-        final var sortedList = new ArrayList<>(this.graph.internalCalls);
-        sortedList.sort(Comparator.comparing(o -> (o.get(0).toString() + o.get(1))));
-        this.graph.internalCalls.clear();
-        this.graph.internalCalls.addAll(sortedList);
+        final var calls = this.graph.internalCalls;
+        if (calls instanceof IntPairList) {
+            CompactCallGraph.sortPairs(((IntPairList) calls).elements(), calls.size());
+            return;
+        }
+        final var sortedList = new ArrayList<>(calls);
+        sortedList.sort(Comparator.<List<Integer>>comparingInt(o -> o.get(0))
+            .thenComparingInt(o -> o.get(1)));
+        calls.clear();
+        calls.addAll(sortedList);
     }
 
     /**
@@ -545,6 +551,15 @@ public class RevisionCallGraph {
             return internalCalls.size() + externalCalls.size();
         }
 
+        /**
+         * Builds a compact representation of the internal calls with successor and predecessor
+         * indices.
+         * @return the internal calls in compressed sparse row form.
+         */
+        public CompactCallGraph toCompactGraph() {
+            return CompactCallGraph.of(this);
+        }
+
     }
 
     /** Each type is a class or an interface. */
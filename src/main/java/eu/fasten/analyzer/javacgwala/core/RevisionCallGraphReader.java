@@ -0,0 +1,394 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.core;
+
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONTokener;
+
+/**
+ * Reads the JSON representation of a {@link RevisionCallGraph} without building a
+ * {@link org.json.JSONObject} of the whole document first. The input is pulled token by token
+ * and handed to a {@link RevisionCallGraphVisitor}, so a consumer that does not keep the graph
+ * only needs memory for the current element. {@link #load(Reader)} uses the same path to build
+ * a {@link RevisionCallGraph} with internal calls in an {@link IntPairList} and type URIs that
+ * are shared between all their occurrences.
+ */
+public class RevisionCallGraphReader {
+
+    private final JSONTokener tokener;
+
+    private final RevisionCallGraphVisitor visitor;
+
+    /** URIs of types and external methods, which repeat throughout a document. */
+    private final Map<String, FastenURI> uris;
+
+    private RevisionCallGraphReader(final Reader reader, final RevisionCallGraphVisitor visitor) {
+        this.tokener = new JSONTokener(reader);
+        this.visitor = visitor;
+        this.uris = new HashMap<>();
+    }
+
+    /**
+     * Read a revision call graph and pass its parts to a visitor.
+     *
+     * @param reader  JSON representation of a revision call graph
+     * @param visitor visitor receiving the parts of the graph
+     * @throws JSONException the input is not a valid revision call graph
+     */
+    public static void read(final Reader reader, final RevisionCallGraphVisitor visitor)
+        throws JSONException {
+        new RevisionCallGraphReader(reader, visitor).readRevision();
+    }
+
+    /**
+     * Read a revision call graph.
+     *
+     * @param reader JSON representation of a revision call graph
+     * @return Revision call graph
+     * @throws JSONException the input is not a valid revision call graph
+     */
+    public static RevisionCallGraph load(final Reader reader) throws JSONException {
+        final var builder = new Builder();
+        read(reader, builder);
+        return builder.build();
+    }
+
+    private void readRevision() {
+        expect('{');
+        if (!isEmpty('}')) {
+            do {
+                final var key = readString();
+                expect(':');
+                switch (key) {
+                    case "forge":
+                    case "product":
+                    case "version":
+                    case "generator":
+                        visitor.visitProperty(key, readString());
+                        break;
+                    case "timestamp":
+                        visitor.visitProperty(key, readScalar());
+                        break;
+                    case "depset":
+                        visitor.visitDepset(
+                            RevisionCallGraph.Dependency.depset((JSONArray) tokener.nextValue()));
+                        break;
+                    case "cha":
+                        readClassHierarchy();
+                        break;
+                    case "graph":
+                        readGraph();
+                        break;
+                    default:
+                        tokener.nextValue();
+                }
+            } while (hasNext('}'));
+        }
+    }
+
+    private void readClassHierarchy() {
+        expect('{');
+        if (isEmpty('}')) {
+            return;
+        }
+        do {
+            final var type = intern(readString());
+            expect(':');
+            readType(type);
+        } while (hasNext('}'));
+    }
+
+    private void readType(final FastenURI type) {
+        String sourceFile = null;
+        List<FastenURI> superClasses = Collections.emptyList();
+        List<FastenURI> superInterfaces = Collections.emptyList();
+
+        expect('{');
+        if (!isEmpty('}')) {
+            do {
+                final var key = readString();
+                expect(':');
+                switch (key) {
+                    case "sourceFile":
+                        sourceFile = readString();
+                        break;
+                    case "methods":
+                        readMethods(type);
+                        break;
+                    case "superClasses":
+                        superClasses = readUris();
+                        break;
+                    case "superInterfaces":
+                        superInterfaces = readUris();
+                        break;
+                    default:
+                        tokener.nextValue();
+                }
+            } while (hasNext('}'));
+        }
+        visitor.visitType(type, sourceFile, superClasses, superInterfaces);
+    }
+
+    private void readMethods(final FastenURI type) {
+        expect('{');
+        if (isEmpty('}')) {
+            return;
+        }
+        do {
+            final var id = Integer.parseInt(readString());
+            expect(':');
+            visitor.visitMethod(type, id, FastenURI.create(readString()));
+        } while (hasNext('}'));
+    }
+
+    private List<FastenURI> readUris() {
+        final List<FastenURI> result = new ArrayList<>();
+        expect('[');
+        if (isEmpty(']')) {
+            return result;
+        }
+        do {
+            result.add(intern(readString()));
+        } while (hasNext(']'));
+        return result;
+    }
+
+    private void readGraph() {
+        expect('{');
+        if (isEmpty('}')) {
+            return;
+        }
+        do {
+            final var key = readString();
+            expect(':');
+            switch (key) {
+                case "internalCalls":
+                    readInternalCalls();
+                    break;
+                case "externalCalls":
+                    readExternalCalls();
+                    break;
+                default:
+                    tokener.nextValue();
+            }
+        } while (hasNext('}'));
+    }
+
+    private void readInternalCalls() {
+        expect('[');
+        if (isEmpty(']')) {
+            return;
+        }
+        do {
+            expect('[');
+            final var source = readInt();
+            expect(',');
+            final var target = readInt();
+            expect(']');
+            visitor.visitInternalCall(source, target);
+        } while (hasNext(']'));
+    }
+
+    private void readExternalCalls() {
+        expect('[');
+        if (isEmpty(']')) {
+            return;
+        }
+        do {
+            expect('[');
+            final var source = readInt();
+            expect(',');
+            final var target = intern(readString());
+            expect(',');
+            final Map<String, String> metadata = new HashMap<>();
+            expect('{');
+            if (!isEmpty('}')) {
+                do {
+                    final var key = readString();
+                    expect(':');
+                    metadata.put(key, readScalar());
+                } while (hasNext('}'));
+            }
+            expect(']');
+            visitor.visitExternalCall(source, target, metadata);
+        } while (hasNext(']'));
+    }
+
+    /**
+     * Read an integer, either as a number or as a quoted string.
+     */
+    private int readInt() {
+        var c = tokener.nextClean();
+        if (c == '"') {
+            return Integer.parseInt(tokener.nextString('"'));
+        }
+        final var negative = c == '-';
+        if (negative) {
+            c = tokener.next();
+        }
+        if (c < '0' || c > '9') {
+            throw tokener.syntaxError("Expected a number");
+        }
+        int value = 0;
+        while (c >= '0' && c <= '9') {
+            value = 10 * value + (c - '0');
+            c = tokener.next();
+        }
+        tokener.back();
+        return negative ? -value : value;
+    }
+
+    private String readString() {
+        if (tokener.nextClean() != '"') {
+            throw tokener.syntaxError("Expected a string");
+        }
+        return tokener.nextString('"');
+    }
+
+    /**
+     * Read a string, number or literal and return its textual form.
+     */
+    private String readScalar() {
+        final var c = tokener.nextClean();
+        if (c == '"') {
+            return tokener.nextString('"');
+        }
+        tokener.back();
+        return tokener.nextValue().toString();
+    }
+
+    private void expect(final char expected) {
+        if (tokener.nextClean() != expected) {
+            throw tokener.syntaxError("Expected '" + expected + "'");
+        }
+    }
+
+    /**
+     * Check whether an object or array is closed right after it was opened.
+     */
+    private boolean isEmpty(final char close) {
+        if (tokener.nextClean() == close) {
+            return true;
+        }
+        tokener.back();
+        return false;
+    }
+
+    /**
+     * Consume the separator after an element and check whether another element follows.
+     */
+    private boolean hasNext(final char close) {
+        final var c = tokener.nextClean();
+        if (c == ',') {
+            return true;
+        }
+        if (c != close) {
+            throw tokener.syntaxError("Expected ',' or '" + close + "'");
+        }
+        return false;
+    }
+
+    private FastenURI intern(final String uri) {
+        return uris.computeIfAbsent(uri, FastenURI::create);
+    }
+
+    /**
+     * Collects the parts of a revision call graph.
+     */
+    private static class Builder implements RevisionCallGraphVisitor {
+
+        private final RevisionCallGraph.ExtendedBuilder builder =
+            RevisionCallGraph.extendedBuilder().timestamp(-1);
+        private final Map<FastenURI, RevisionCallGraph.Type> classHierarchy = new HashMap<>();
+        private Map<Integer, FastenURI> methods = new Int2ObjectOpenHashMap<>();
+        private final IntPairList internalCalls = new IntPairList();
+        private final Map<Pair<Integer, FastenURI>, Map<String, String>> externalCalls =
+            new HashMap<>();
+
+        @Override
+        public void visitProperty(final String name, final String value) {
+            switch (name) {
+                case "forge":
+                    builder.forge(value);
+                    break;
+                case "product":
+                    builder.product(value);
+                    break;
+                case "version":
+                    builder.version(value);
+                    break;
+                case "generator":
+                    builder.cgGenerator(value);
+                    break;
+                case "timestamp":
+                    builder.timestamp(Long.parseLong(value));
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        @Override
+        public void visitDepset(final List<List<RevisionCallGraph.Dependency>> depset) {
+            builder.depset(depset);
+        }
+
+        @Override
+        public void visitMethod(final FastenURI type, final int id, final FastenURI method) {
+            methods.put(id, method);
+        }
+
+        @Override
+        public void visitType(final FastenURI type, final String sourceFile,
+                              final List<FastenURI> superClasses,
+                              final List<FastenURI> superInterfaces) {
+            classHierarchy.put(type, new RevisionCallGraph.Type(sourceFile, methods,
+                new LinkedList<>(superClasses), superInterfaces));
+            methods = new Int2ObjectOpenHashMap<>();
+        }
+
+        @Override
+        public void visitInternalCall(final int source, final int target) {
+            internalCalls.add(source, target);
+        }
+
+        @Override
+        public void visitExternalCall(final int source, final FastenURI target,
+                                      final Map<String, String> metadata) {
+            externalCalls.put(new MutablePair<>(source, target), metadata);
+        }
+
+        RevisionCallGraph build() {
+            return builder.classHierarchy(classHierarchy)
+                .graph(new RevisionCallGraph.Graph(internalCalls, externalCalls))
+                .build();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.core;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Receives the parts of a {@link RevisionCallGraph} while {@link RevisionCallGraphReader} reads
+ * its JSON representation. Callbacks are made in document order and all methods do nothing by
+ * default, so consumers only override what they need.
+ */
+public interface RevisionCallGraphVisitor {
+
+    /**
+     * Visit a top level attribute: forge, product, version, generator or timestamp.
+     *
+     * @param name  name of the attribute
+     * @param value value of the attribute
+     */
+    default void visitProperty(final String name, final String value) {
+    }
+
+    /**
+     * Visit the depset of the revision.
+     *
+     * @param depset the depset
+     */
+    default void visitDepset(final List<List<RevisionCallGraph.Dependency>> depset) {
+    }
+
+    /**
+     * Visit a method of a type. All methods of a type are visited before the type itself.
+     *
+     * @param type   URI of the type declaring the method
+     * @param id     ID of the method
+     * @param method URI of the method
+     */
+    default void visitMethod(final FastenURI type, final int id, final FastenURI method) {
+    }
+
+    /**
+     * Visit a type of the class hierarchy.
+     *
+     * @param type            URI of the type
+     * @param sourceFile      name of the source file
+     * @param superClasses    classes that the type extends
+     * @param superInterfaces interfaces that the type implements
+     */
+    default void visitType(final FastenURI type, final String sourceFile,
+                           final List<FastenURI> superClasses,
+                           final List<FastenURI> superInterfaces) {
+    }
+
+    /**
+     * Visit a call between two methods of the revision.
+     *
+     * @param source ID of the caller
+     * @param target ID of the callee
+     */
+    default void visitInternalCall(final int source, final int target) {
+    }
+
+    /**
+     * Visit a call to a method outside of the revision.
+     *
+     * @param source   ID of the caller
+     * @param target   URI of the callee
+     * @param metadata metadata of the call
+     */
+    default void visitExternalCall(final int source, final FastenURI target,
+                                   final Map<String, String> metadata) {
+    }
+}
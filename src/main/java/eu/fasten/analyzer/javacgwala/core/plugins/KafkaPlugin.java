@@ -18,6 +18,7 @@
 
 package eu.fasten.analyzer.javacgwala.core.plugins;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
 
@@ -55,6 +56,17 @@ public interface KafkaPlugin extends FastenPlugin {
      */
     Optional<String> produce();
 
+    /**
+     * Return the result of the computation as it should be written to
+     * {@link #getEncodedOutputPath()}, e.g. compressed. By default these are the UTF-8 bytes of
+     * {@link #produce()}.
+     *
+     * @return optional encoded result of the computation
+     */
+    default Optional<byte[]> produceEncoded() {
+        return produce().map(result -> result.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * Returns a relative path to a file, the result of processing
      * a record should be written to. THe path has the following hierarchy:
@@ -63,4 +75,15 @@ public interface KafkaPlugin extends FastenPlugin {
      * @return relative path to the output file
      */
     String getOutputPath();
+
+    /**
+     * Returns a relative path to a file the result of {@link #produceEncoded()} should be
+     * written to, with the extension of its encoding. By default this is
+     * {@link #getOutputPath()}.
+     *
+     * @return relative path to the encoded output file
+     */
+    default String getEncodedOutputPath() {
+        return getOutputPath();
+    }
 }
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.core.plugins;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link KafkaPlugin} that can process several records at the same time. Records are handed
+ * over with {@link #submit(String)} and results are collected with {@link #poll(long, TimeUnit)},
+ * possibly in a different order than the records were submitted.
+ */
+public interface PipelinedKafkaPlugin extends KafkaPlugin {
+
+    /**
+     * Outcome of processing a single record.
+     */
+    interface Result {
+
+        /**
+         * Returns the record this is the result of.
+         *
+         * @return consumed record
+         */
+        String record();
+
+        /**
+         * Returns the result of the computation, see {@link KafkaPlugin#produce()}.
+         *
+         * @return optional result of the computation
+         */
+        Optional<String> produce();
+
+        /**
+         * Returns the encoded result, see {@link KafkaPlugin#produceEncoded()}.
+         *
+         * @return optional encoded result of the computation
+         */
+        default Optional<byte[]> produceEncoded() {
+            return produce().map(result -> result.getBytes(StandardCharsets.UTF_8));
+        }
+
+        /**
+         * Returns the output path of the result, see {@link KafkaPlugin#getOutputPath()}.
+         *
+         * @return relative path to the output file
+         */
+        String getOutputPath();
+
+        /**
+         * Returns the output path of the encoded result, see
+         * {@link KafkaPlugin#getEncodedOutputPath()}.
+         *
+         * @return relative path to the encoded output file
+         */
+        default String getEncodedOutputPath() {
+            return getOutputPath();
+        }
+
+        /**
+         * Returns an Exception or Error that was encountered while processing the record.
+         *
+         * @return exception or error
+         */
+        Throwable getPluginError();
+    }
+
+    /**
+     * Hand over a record for processing. Blocks while the plug-in is saturated, so the consumer
+     * does not fetch more records than the plug-in can handle.
+     *
+     * @param record a record to process
+     * @throws InterruptedException interrupted while waiting for capacity
+     */
+    void submit(String record) throws InterruptedException;
+
+    /**
+     * Retrieve the result of a processed record, waiting up to the given time if none is
+     * available.
+     *
+     * @param timeout how long to wait
+     * @param unit    unit of the timeout
+     * @return result or empty if none became available in time
+     * @throws InterruptedException interrupted while waiting
+     */
+    Optional<Result> poll(long timeout, TimeUnit unit) throws InterruptedException;
+}
@@ -0,0 +1,207 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data;
+
+import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.core.RevisionCallGraph;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Resolves the transitive dependency closure of a Maven artifact. POM files of every level of
+ * the dependency tree are fetched in parallel, every product is resolved only once and version
+ * conflicts are mediated the same way Maven does it: the declaration nearest to the root wins,
+ * and among declarations at the same depth the first one wins.
+ */
+public class DependencyResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyResolver.class);
+
+    private final Function<MavenCoordinate, List<List<RevisionCallGraph.Dependency>>> fetcher;
+
+    private final int parallelism;
+
+    /**
+     * Construct dependency resolver backed by {@link MavenCoordinate.MavenResolver}.
+     *
+     * @param parallelism Number of POM and JAR files fetched concurrently
+     */
+    public DependencyResolver(final int parallelism) {
+        this(MavenCoordinate.MavenResolver::resolveRuntimeDependencies, parallelism);
+    }
+
+    /**
+     * Construct dependency resolver.
+     *
+     * @param fetcher     Function returning direct dependencies of a coordinate
+     * @param parallelism Number of POM and JAR files fetched concurrently
+     */
+    DependencyResolver(
+        final Function<MavenCoordinate, List<List<RevisionCallGraph.Dependency>>> fetcher,
+        final int parallelism) {
+        this.fetcher = fetcher;
+        this.parallelism = Math.max(1, parallelism);
+    }
+
+    /**
+     * Compute the transitive dependency closure of a given coordinate. The root coordinate itself
+     * is not part of the result.
+     *
+     * @param root Maven coordinate of the analyzed artifact
+     * @return Mediated dependencies in breadth-first order
+     */
+    public List<MavenCoordinate> resolveClosure(final MavenCoordinate root) {
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            return resolveClosure(root, executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Compute the transitive dependency closure of a given coordinate and download JAR files of
+     * all the resolved dependencies. Dependencies that cannot be downloaded are skipped.
+     *
+     * @param root Maven coordinate of the analyzed artifact
+     * @return Downloaded JAR files of the dependencies
+     */
+    public List<File> resolveJars(final MavenCoordinate root) {
+        final ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        try {
+            final var closure = resolveClosure(root, executor);
+            final var downloads = closure.stream()
+                .map(coordinate -> CompletableFuture
+                    .supplyAsync(() -> download(coordinate), executor))
+                .collect(Collectors.toList());
+
+            final List<File> jars = new ArrayList<>();
+            for (final var download : downloads) {
+                download.join().ifPresent(jars::add);
+            }
+            logger.info("Resolved {} dependencies of {}, {} of them could be downloaded",
+                closure.size(), root.getCoordinate(), jars.size());
+            return jars;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private List<MavenCoordinate> resolveClosure(final MavenCoordinate root,
+                                                 final ExecutorService executor) {
+        final Map<String, MavenCoordinate> resolved = new LinkedHashMap<>();
+        resolved.put(root.getProduct(), root);
+
+        List<MavenCoordinate> level = Collections.singletonList(root);
+        while (!level.isEmpty()) {
+            final var requests = level.stream()
+                .map(coordinate -> CompletableFuture
+                    .supplyAsync(() -> directDependencies(coordinate), executor))
+                .collect(Collectors.toList());
+
+            // Results are joined in declaration order, so the mediation is deterministic
+            // regardless of which POM file arrives first.
+            final List<MavenCoordinate> next = new ArrayList<>();
+            for (final var request : requests) {
+                for (final var dependency : request.join()) {
+                    if (!resolved.containsKey(dependency.getProduct())) {
+                        resolved.put(dependency.getProduct(), dependency);
+                        next.add(dependency);
+                    }
+                }
+            }
+            level = next;
+        }
+
+        resolved.remove(root.getProduct());
+        return new ArrayList<>(resolved.values());
+    }
+
+    /**
+     * Fetch direct dependencies of a coordinate, skipping the ones without a concrete version.
+     *
+     * @param coordinate Maven coordinate
+     * @return Direct dependencies
+     */
+    private List<MavenCoordinate> directDependencies(final MavenCoordinate coordinate) {
+        final List<MavenCoordinate> result = new ArrayList<>();
+        final List<List<RevisionCallGraph.Dependency>> depset;
+        try {
+            depset = fetcher.apply(coordinate);
+        } catch (RuntimeException e) {
+            logger.warn("Could not resolve dependencies of {}", coordinate.getCoordinate());
+            return result;
+        }
+
+        for (final var clause : depset) {
+            for (final var dependency : clause) {
+                final var version = concreteVersion(dependency);
+                final var product = dependency.product.split(":");
+                if (version == null || product.length != 2) {
+                    logger.debug("Skipping dependency without concrete version: {}",
+                        dependency.product);
+                    continue;
+                }
+                result.add(new MavenCoordinate(coordinate.getMavenRepos(),
+                    product[0], product[1], version));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Get a version that can be downloaded as is, i.e. not a range nor an unresolved property.
+     *
+     * @param dependency Dependency
+     * @return Version or null if there is no concrete version
+     */
+    private static String concreteVersion(final RevisionCallGraph.Dependency dependency) {
+        if (dependency.constraints.isEmpty()) {
+            return null;
+        }
+        final var version = dependency.constraints.get(0).lowerBound;
+        if (version == null || version.isEmpty() || version.equals("*")
+            || version.startsWith("$") || version.startsWith("[") || version.startsWith("(")) {
+            return null;
+        }
+        return version;
+    }
+
+    private static Optional<File> download(final MavenCoordinate coordinate) {
+        try {
+            return MavenCoordinate.MavenResolver.downloadJar(coordinate);
+        } catch (FileNotFoundException e) {
+            logger.warn("No JAR file for dependency {}", coordinate.getCoordinate());
+            return Optional.empty();
+        }
+    }
+}
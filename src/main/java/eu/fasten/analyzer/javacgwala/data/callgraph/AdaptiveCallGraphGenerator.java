@@ -0,0 +1,200 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.data.DependencyResolver;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.WalaResultAnalyzer;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.ArtifactProfile;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CallGraphBuilders;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CostModel;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates call graphs with the most precise {@link Algorithm} that is expected to fit a time
+ * and memory budget. The artifact is profiled up front and a {@link CostModel} predicts the cost
+ * of every algorithm. When a generation exceeds the time left or runs out of memory, the next
+ * cheaper algorithm is tried, down to CHA, which always runs to completion. Finished generations
+ * are fed back into the cost model.
+ */
+public class AdaptiveCallGraphGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdaptiveCallGraphGenerator.class);
+
+    private final CostModel costModel;
+
+    private final Duration timeBudget;
+
+    private final long memoryBudget;
+
+    /**
+     * Construct adaptive generator that may use three quarters of the maximum heap.
+     *
+     * @param costModel  Cost model, shared between generators to learn from all runs
+     * @param timeBudget Maximum duration of a generation
+     */
+    public AdaptiveCallGraphGenerator(final CostModel costModel, final Duration timeBudget) {
+        this(costModel, timeBudget, Runtime.getRuntime().maxMemory() / 4 * 3);
+    }
+
+    /**
+     * Construct adaptive generator.
+     *
+     * @param costModel    Cost model, shared between generators to learn from all runs
+     * @param timeBudget   Maximum duration of a generation
+     * @param memoryBudget Maximum heap usage of a generation in bytes
+     */
+    public AdaptiveCallGraphGenerator(final CostModel costModel, final Duration timeBudget,
+                                      final long memoryBudget) {
+        this.costModel = costModel;
+        this.timeBudget = timeBudget;
+        this.memoryBudget = memoryBudget;
+    }
+
+    /**
+     * Choose the most precise algorithm predicted to fit the budget.
+     *
+     * @param profile Profile of the artifact
+     * @return Algorithm, CHA if nothing else fits
+     */
+    public Algorithm select(final ArtifactProfile profile) {
+        final var algorithms = Algorithm.values();
+        for (int i = algorithms.length - 1; i > 0; i--) {
+            if (costModel.predictMillis(algorithms[i], profile) <= timeBudget.toMillis()
+                && costModel.predictBytes(algorithms[i], profile) <= memoryBudget) {
+                return algorithms[i];
+            }
+        }
+        return Algorithm.CHA;
+    }
+
+    /**
+     * Generate a call graph of a Maven coordinate.
+     *
+     * @param coordinate          Coordinate
+     * @param result              Partial call graph to fill
+     * @param strategy            Call preservation strategy
+     * @param resolveDependencies analyze the artifact together with its transitive dependencies
+     * @return Algorithm that produced the call graph
+     */
+    public Algorithm generateFromCoordinate(final MavenCoordinate coordinate,
+                                            final PartialJavaCallGraph result,
+                                            final CallPreservationStrategy strategy,
+                                            final boolean resolveDependencies) {
+        final List<File> dependencies = resolveDependencies
+            ? new DependencyResolver(CallGraphConstructor.DEPENDENCY_FETCH_PARALLELISM)
+                .resolveJars(coordinate)
+            : Collections.emptyList();
+        final File jar;
+        try {
+            jar = MavenCoordinate.MavenResolver.downloadJar(coordinate)
+                .orElseThrow(RuntimeException::new);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        return generateFromFile(jar.getAbsolutePath(), dependencies, result, strategy);
+    }
+
+    /**
+     * Generate a call graph of a JAR file.
+     *
+     * @param path         Path to the JAR file
+     * @param dependencies JAR files of the dependencies
+     * @param result       Partial call graph to fill
+     * @param strategy     Call preservation strategy
+     * @return Algorithm that produced the call graph
+     */
+    public Algorithm generateFromFile(final String path, final List<File> dependencies,
+                                      final PartialJavaCallGraph result,
+                                      final CallPreservationStrategy strategy) {
+        try {
+            final var profile = ArtifactProfile.of(new File(path), dependencies);
+            var algorithm = select(profile);
+            logger.info("Selected {} for {}, {}", algorithm, path, profile);
+
+            final var deadline = System.nanoTime() + timeBudget.toNanos();
+            while (true) {
+                final var callGraph = tryGenerate(path, dependencies, algorithm, profile,
+                    Duration.ofNanos(Math.max(1, deadline - System.nanoTime())));
+                if (callGraph != null) {
+                    WalaResultAnalyzer.wrap(callGraph, result, strategy);
+                    return algorithm;
+                }
+                if (algorithm == Algorithm.CHA) {
+                    throw new IllegalStateException("Cannot generate a call graph for " + path);
+                }
+                algorithm = Algorithm.values()[algorithm.ordinal() - 1];
+                logger.warn("Falling back to {} for {}", algorithm, path);
+            }
+        } catch (IOException | ClassHierarchyException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Generate a call graph with one algorithm within the time left.
+     *
+     * @return Call graph or null if the algorithm exceeded the budget
+     */
+    private CallGraph tryGenerate(final String path, final List<File> dependencies,
+                                  final Algorithm algorithm, final ArtifactProfile profile,
+                                  final Duration timeLeft)
+        throws IOException, ClassHierarchyException {
+        final var strategy = CallGraphBuilders.get(algorithm);
+        var budget = strategy.getDefaultBudget();
+        if (algorithm != Algorithm.CHA
+            && (!budget.hasTimeout() || budget.getTimeout().compareTo(timeLeft) > 0)) {
+            budget = budget.withTimeout(timeLeft);
+        }
+
+        final var runtime = Runtime.getRuntime();
+        final var usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        final long startTime = System.currentTimeMillis();
+        try {
+            final var callGraph = CallGraphConstructor.generateCallGraph(path, dependencies,
+                algorithm, strategy.getDefaultEntryPoints(), budget);
+            costModel.record(algorithm, profile, System.currentTimeMillis() - startTime,
+                Math.max(0, runtime.totalMemory() - runtime.freeMemory() - usedBefore));
+            return callGraph;
+        } catch (CancelException e) {
+            logger.warn("{} exceeded the budget for {}: {}", algorithm, path, e.getMessage());
+            // the run was cut short, so its real duration is unknown but longer
+            costModel.record(algorithm, profile, 2 * (System.currentTimeMillis() - startTime),
+                (long) costModel.predictBytes(algorithm, profile));
+        } catch (OutOfMemoryError e) {
+            // the partial call graph is unreachable once we return, so the heap is free again
+            logger.warn("{} ran out of memory for {}", algorithm, path);
+            costModel.record(algorithm, profile,
+                (long) costModel.predictMillis(algorithm, profile), 2 * memoryBudget);
+        }
+        return null;
+    }
+}
@@ -17,9 +17,16 @@
  */
 package eu.fasten.analyzer.javacgwala.data.callgraph;
 
+/**
+ * Call graph generation algorithms, from the cheapest to the most precise. Their builders are
+ * registered in {@link eu.fasten.analyzer.javacgwala.data.callgraph.builder.CallGraphBuilders}.
+ */
 public enum Algorithm {
     CHA("CHA"),
-    ZERO_CFA("ZERO_CFA");
+    RTA("RTA"),
+    ZERO_CFA("ZERO_CFA"),
+    ZERO_ONE_CFA("ZERO_ONE_CFA"),
+    ZERO_ONE_CONTAINER_CFA("ZERO_ONE_CONTAINER_CFA");
 
     public final String label;
 
@@ -0,0 +1,179 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.ShrikeClass;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.shrikeCT.ClassReader;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.types.ClassLoaderReference;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.AnalysisContext;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.CallGraphAnalyzer;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.CallSiteDecoder;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.CanonicalNumbering;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.ClassHierarchyAnalyzer;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.JavaGraph;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates call graphs with {@link CallPreservationStrategy#ONLY_STATIC_CALLSITES} by scanning
+ * the bytecode of application classes, without constructing a WALA call graph.
+ *
+ * <p>Static call sites are the invoke instructions of a method together with their declared
+ * targets, program counters and line numbers, all of which Shrike reads from the class file.
+ * A {@link Algorithm#CHA} call graph with every application method as entry point has one node
+ * per application method and reports exactly these call sites, so entry point creation and
+ * dispatch resolution can be skipped. The class hierarchy is still built, as it decides which
+ * class loader a call target belongs to.
+ *
+ * <p>The class files are decoded in parallel by {@link CallSiteDecoder}, from Shrike readers
+ * that are fetched on one thread. The decoded call sites are then turned into WALA references
+ * and resolved in the class hierarchy on one thread, as WALA fills its caches without
+ * synchronization.
+ */
+public class BytecodeCallGraphGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BytecodeCallGraphGenerator.class);
+
+    /**
+     * Set to false to always construct a WALA call graph.
+     */
+    public static final String ENABLED_PROPERTY = "fasten.wala.bytecode.enabled";
+
+    private BytecodeCallGraphGenerator() {
+    }
+
+    /**
+     * Check whether a call graph can be generated from bytecode alone.
+     *
+     * @param algorithm Call graph generation algorithm
+     * @param strategy  Call preservation strategy
+     * @return true if the result equals the one of the WALA call graph
+     */
+    public static boolean supports(final Algorithm algorithm,
+                                   final CallPreservationStrategy strategy) {
+        return algorithm == Algorithm.CHA
+            && strategy == CallPreservationStrategy.ONLY_STATIC_CALLSITES
+            && Boolean.parseBoolean(System.getProperty(ENABLED_PROPERTY, "true"));
+    }
+
+    /**
+     * Generate the static call sites of a class or JAR file.
+     *
+     * @param path         Path to class or jar file
+     * @param dependencies JAR files of the dependencies
+     * @param result       Partial call graph to fill
+     */
+    public static void generateFromFile(final String path, final List<File> dependencies,
+                                        final PartialJavaCallGraph result) {
+        try {
+            generate(path, dependencies, result);
+        } catch (IOException | ClassHierarchyException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void generate(final String path, final List<File> dependencies,
+                                 final PartialJavaCallGraph result)
+        throws IOException, ClassHierarchyException {
+        final NumberFormat timeFormatter = new DecimalFormat("#0.000");
+        final long startTime = System.currentTimeMillis();
+
+        final var scope = CallGraphConstructor.makeAnalysisScope(path, dependencies);
+        final var cha = ClassHierarchyFactory.makeWithRoot(scope);
+
+        final var analysisContext = new AnalysisContext(cha);
+        final var classHierarchyAnalyzer = new ClassHierarchyAnalyzer(cha, analysisContext);
+        classHierarchyAnalyzer.resolveCHA();
+        final var callGraphAnalyzer =
+            new CallGraphAnalyzer(cha, analysisContext, classHierarchyAnalyzer);
+
+        final List<IClass> classes = new ArrayList<>();
+        cha.getLoader(ClassLoaderReference.Application).iterateAllClasses()
+            .forEachRemaining(classes::add);
+        final List<ClassReader> readers = new ArrayList<>();
+        for (final var klass : classes) {
+            readers.add(klass instanceof ShrikeClass ? ((ShrikeClass) klass).getReader() : null);
+        }
+        final List<Map<String, List<CallSiteDecoder.Invoke>>> decoded = new ArrayList<>(
+            Collections.nCopies(classes.size(), null));
+        IntStream.range(0, classes.size()).parallel().forEach(i -> {
+            if (readers.get(i) == null) {
+                return;
+            }
+            try {
+                decoded.set(i, CallSiteDecoder.decodeClass(readers.get(i)));
+            } catch (InvalidClassFileException e) {
+                throw new IllegalStateException("Invalid bytecode in " + classes.get(i), e);
+            }
+        });
+        readers.clear();
+
+        var callSites = 0;
+        for (int i = 0; i < classes.size(); i++) {
+            final var invokes = decoded.get(i);
+            decoded.set(i, null);
+            for (final var method : classes.get(i).getDeclaredMethods()) {
+                if (method.isAbstract() || method.isNative()) {
+                    continue;
+                }
+                if (invokes == null) {
+                    try {
+                        for (final var callSite : callGraphAnalyzer.extractCallSites(method)) {
+                            callGraphAnalyzer.addCallSite(callSite);
+                            callSites++;
+                        }
+                    } catch (InvalidClassFileException e) {
+                        throw new IllegalStateException("Invalid bytecode in " + method, e);
+                    }
+                    continue;
+                }
+                for (final var invoke : invokes.getOrDefault(method.getSelector().toString(),
+                    Collections.emptyList())) {
+                    callGraphAnalyzer.addCallSite(
+                        callGraphAnalyzer.toCallSiteRecord(method.getReference(), invoke));
+                    callSites++;
+                }
+            }
+        }
+
+        final var canonical = new CanonicalNumbering(classHierarchyAnalyzer.classHierarchy,
+            callGraphAnalyzer.graph);
+        result.setClassHierarchy(canonical.getClassHierarchy());
+        result.setGraph(new JavaGraph(canonical.getGraph()));
+
+        logger.info("Scanned {} call sites of {} classes of {} in {} seconds", callSites,
+            classes.size(), path,
+            timeFormatter.format((System.currentTimeMillis() - startTime) / 1000d));
+    }
+}
@@ -18,29 +18,42 @@
 
 package eu.fasten.analyzer.javacgwala.data.callgraph;
 
-import com.ibm.wala.classLoader.Language;
-import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
-import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
 import com.ibm.wala.ipa.callgraph.CallGraph;
-import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
 import com.ibm.wala.ipa.callgraph.Entrypoint;
-import com.ibm.wala.ipa.callgraph.cha.CHACallGraph;
-import com.ibm.wala.ipa.callgraph.impl.Util;
-import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.util.CancelException;
 import com.ibm.wala.util.config.AnalysisScopeReader;
 import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.data.DependencyResolver;
 import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.WalaResultAnalyzer;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.Budget;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CallGraphBuilders;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.EntryPointPruner;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.ParallelChaCallGraph;
+import eu.fasten.analyzer.javacgwala.data.callgraph.hierarchy.ClassHierarchySnapshot;
+import eu.fasten.analyzer.javacgwala.data.callgraph.hierarchy.ClassHierarchySnapshotStore;
+import eu.fasten.analyzer.javacgwala.data.callgraph.hierarchy.FilteredJarFileModule;
 import eu.fasten.core.data.CallPreservationStrategy;
 import eu.fasten.core.data.PartialJavaCallGraph;
 import java.io.File;
 import java.io.IOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Predicate;
 import java.util.jar.JarFile;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,6 +62,8 @@ public class CallGraphConstructor {
 
     private static Logger logger = LoggerFactory.getLogger(CallGraphConstructor.class);
 
+    static final int DEPENDENCY_FETCH_PARALLELISM = 8;
+
     /**
      * Build a {@link PartialJavaCallGraph} given classpath.
      *
@@ -61,14 +76,48 @@ public class CallGraphConstructor {
                              final PartialJavaCallGraph result,
                              final CallPreservationStrategy strategy)
         throws IOException, ClassHierarchyException, CancelException {
+        build(coordinate, algorithm, result, strategy, false);
+    }
+
+    /**
+     * Build a {@link PartialJavaCallGraph} given classpath.
+     *
+     * @param strategy            call preservation strategy
+     * @param coordinate          Coordinate
+     * @param algorithm           call graph generation algorithm
+     * @param resolveDependencies analyze the artifact together with its transitive dependencies
+     */
+    public static void build(final MavenCoordinate coordinate,
+                             final Algorithm algorithm,
+                             final PartialJavaCallGraph result,
+                             final CallPreservationStrategy strategy,
+                             final boolean resolveDependencies)
+        throws IOException, ClassHierarchyException, CancelException {
         final NumberFormat timeFormatter = new DecimalFormat("#0.000");
         logger.info("Generating call graph for the Maven coordinate using WALA: {}",
             coordinate.getCoordinate());
         final long startTime = System.currentTimeMillis();
 
-        final var rawGraph = generateCallGraph(MavenCoordinate.MavenResolver
-            .downloadJar(coordinate).orElseThrow(RuntimeException::new)
-            .getAbsolutePath(), algorithm);
+        final List<File> dependencies = resolveDependencies
+            ? new DependencyResolver(DEPENDENCY_FETCH_PARALLELISM).resolveJars(coordinate)
+            : Collections.emptyList();
+
+        final var jar = MavenCoordinate.MavenResolver.downloadJar(coordinate)
+            .orElseThrow(RuntimeException::new).getAbsolutePath();
+        if (BytecodeCallGraphGenerator.supports(algorithm, strategy)) {
+            BytecodeCallGraphGenerator.generateFromFile(jar, dependencies, result);
+            logger.info("Generated the call graph in {} seconds.",
+                timeFormatter.format((System.currentTimeMillis() - startTime) / 1000d));
+            return;
+        }
+        if (algorithm == Algorithm.CHA) {
+            final var chaGraph = generateChaCallGraph(jar, dependencies);
+            logger.info("Generated the call graph in {} seconds.",
+                timeFormatter.format((System.currentTimeMillis() - startTime) / 1000d));
+            WalaResultAnalyzer.wrap(chaGraph, result, strategy);
+            return;
+        }
+        final var rawGraph = generateCallGraph(jar, dependencies, algorithm);
 
         logger.info("Generated the call graph in {} seconds.",
             timeFormatter.format((System.currentTimeMillis() - startTime) / 1000d));
@@ -83,38 +132,230 @@ public class CallGraphConstructor {
      */
     public static CallGraph generateCallGraph(String classpath, Algorithm alg)
         throws IOException, ClassHierarchyException, CancelException {
-        final var classLoader = Thread.currentThread().getContextClassLoader();
-        final var exclusionFile = new File(Objects.requireNonNull(classLoader
-            .getResource("Java60RegressionExclusions.txt")).getFile());
+        return generateCallGraph(classpath, Collections.emptyList(), alg);
+    }
+
+    /**
+     * Create a call graph instance given a class path and JAR files of its dependencies.
+     *
+     * @param classpath    Path to class or jar file
+     * @param dependencies JAR files of the dependencies, added to the extension class loader
+     * @return Call Graph
+     */
+    public static CallGraph generateCallGraph(String classpath, final List<File> dependencies,
+                                              Algorithm alg)
+        throws IOException, ClassHierarchyException, CancelException {
+        final var strategy = CallGraphBuilders.get(alg);
+        return generateCallGraph(classpath, dependencies, alg, strategy.getDefaultEntryPoints(),
+            strategy.getDefaultBudget());
+    }
+
+    /**
+     * Create a call graph instance given a class path, JAR files of its dependencies and the
+     * methods to start from.
+     *
+     * @param classpath    Path to class or jar file
+     * @param dependencies JAR files of the dependencies, added to the extension class loader
+     * @param entryPoints  Selects the methods of application classes used as entry points
+     * @return Call Graph
+     */
+    public static CallGraph generateCallGraph(String classpath, final List<File> dependencies,
+                                              Algorithm alg,
+                                              final Predicate<IMethod> entryPoints)
+        throws IOException, ClassHierarchyException, CancelException {
+        return generateCallGraph(classpath, dependencies, alg, entryPoints,
+            CallGraphBuilders.get(alg).getDefaultBudget());
+    }
+
+    /**
+     * Create a call graph instance within a budget.
+     *
+     * @param classpath    Path to class or jar file
+     * @param dependencies JAR files of the dependencies, added to the extension class loader
+     * @param entryPoints  Selects the methods of application classes used as entry points
+     * @param budget       Limits of the generation
+     * @return Call Graph
+     * @throws CancelException the generation exceeded its budget
+     */
+    public static CallGraph generateCallGraph(String classpath, final List<File> dependencies,
+                                              Algorithm alg,
+                                              final Predicate<IMethod> entryPoints,
+                                              final Budget budget)
+        throws IOException, ClassHierarchyException, CancelException {
+        final var scope = makeAnalysisScope(classpath, dependencies);
+        return CallGraphBuilders.get(alg).build(scope, entryPoints, budget);
+    }
+
+    /**
+     * Create call graphs of several algorithms from one analysis scope and class hierarchy.
+     *
+     * <p>Algorithms are built from the cheapest to the most precise. Entry points are created
+     * once per {@link EntryPointPolicy} and shared. When {@link Algorithm#CHA} is among the
+     * algorithms, its call graph is used to leave trivial entry points out of the points-to
+     * based ones; RTA always keeps all of its entry points (see {@link EntryPointPruner}). The
+     * class hierarchy is made with a root for classes whose super classes are missing, as CHA
+     * needs, so propagation based call graphs may contain a few more classes than when they are
+     * generated on their own. An algorithm that exceeds its default budget is left out of the
+     * result.
+     *
+     * @param classpath    Path to class or jar file
+     * @param dependencies JAR files of the dependencies, added to the extension class loader
+     * @param algorithms   Call graph generation algorithms
+     * @return Call graph by algorithm
+     */
+    public static Map<Algorithm, CallGraph> generateCallGraphs(String classpath,
+                                                               final List<File> dependencies,
+                                                               final Set<Algorithm> algorithms)
+        throws IOException, ClassHierarchyException {
+        final var sorted = EnumSet.copyOf(algorithms);
+        final var scope = makeAnalysisScope(classpath, dependencies);
+        final var cha = ClassHierarchyFactory.makeWithRoot(scope);
+        final var entryPointsGenerator = new EntryPointsGenerator(cha);
+        final Map<EntryPointPolicy, List<Entrypoint>> entryPoints =
+            new EnumMap<>(EntryPointPolicy.class);
+
+        final Map<Algorithm, CallGraph> result = new EnumMap<>(Algorithm.class);
+        EntryPointPruner pruner = null;
+        for (final var alg : sorted) {
+            final var strategy = CallGraphBuilders.get(alg);
+            var algEntryPoints = entryPoints.computeIfAbsent(strategy.getDefaultEntryPoints(),
+                policy -> {
+                    final List<Entrypoint> list = new ArrayList<>();
+                    entryPointsGenerator.getEntryPoints(policy).forEach(list::add);
+                    return list;
+                });
+            if (pruner != null && EntryPointPruner.appliesTo(alg)) {
+                algEntryPoints = pruner.prune(algEntryPoints);
+            }
+            try {
+                final var callGraph = strategy.build(cha, algEntryPoints,
+                    strategy.getDefaultBudget());
+                result.put(alg, callGraph);
+                if (alg == Algorithm.CHA) {
+                    pruner = new EntryPointPruner(callGraph);
+                }
+            } catch (CancelException e) {
+                logger.warn("{} exceeded its budget for {}", alg, classpath);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create a CHA call graph in parallel on the common fork/join pool. It has the same nodes
+     * and edges as the {@link Algorithm#CHA} call graph of
+     * {@link #generateCallGraph(String, List, Algorithm)}.
+     *
+     * @param classpath    Path to class or jar file
+     * @param dependencies JAR files of the dependencies, added to the extension class loader
+     * @return CHA call graph
+     */
+    public static ParallelChaCallGraph generateChaCallGraph(String classpath,
+                                                            final List<File> dependencies)
+        throws IOException, ClassHierarchyException, CancelException {
+        final var scope = makeAnalysisScope(classpath, dependencies);
+        final var cha = ClassHierarchyFactory.makeWithRoot(scope);
+        final var strategy = CallGraphBuilders.get(Algorithm.CHA);
+        return ParallelChaCallGraph.make(cha,
+            new EntryPointsGenerator(cha).getEntryPoints(strategy.getDefaultEntryPoints()),
+            strategy.getDefaultBudget(), ForkJoinPool.commonPool());
+    }
 
+    /**
+     * Create an analysis scope in which the analyzed artifact is loaded by the application class
+     * loader and its dependencies by the extension class loader, so calls into dependencies are
+     * resolved against their actual class hierarchy.
+     *
+     * <p>Only dependency classes reachable from the artifact are added to the scope. They are
+     * found using {@link ClassHierarchySnapshot}s of the artifact and its dependencies, which are
+     * taken from {@link ClassHierarchySnapshotStore#getDefault()} and so parsed once across
+     * artifacts. Super types, subtypes and constant pool references are followed transitively
+     * through the dependencies for every algorithm, so that the methods called by dependency code
+     * and their dispatch targets are in the class hierarchy. Dependencies without reachable
+     * classes are left out of the scope and never opened. The other dependencies are still
+     * opened and their entries listed, but WALA neither parses nor adds their unreachable classes
+     * to the class hierarchy (see {@link FilteredJarFileModule}).
+     *
+     * <p>Classes matching {@link ExclusionSet#getDefault()} are left out of the scope.
+     *
+     * @param classpath    Path to class or jar file
+     * @param dependencies JAR files of the dependencies
+     * @return Analysis scope
+     */
+    public static AnalysisScope makeAnalysisScope(String classpath, final List<File> dependencies)
+        throws IOException {
         classpath = correctFileNameIfWrong(classpath);
 
-        final var scope = AnalysisScopeReader
-            .makeJavaBinaryAnalysisScope(classpath, exclusionFile);
-
-        CallGraph cg = null;
-        switch (alg) {
-            case CHA:
-                final var ch = ClassHierarchyFactory.makeWithRoot(scope);
-                final var entryPointsGenerator = new EntryPointsGenerator(ch);
-                final var entryPoints = entryPointsGenerator.getEntryPoints();
-                cg = new CHACallGraph(ch);
-                ((CHACallGraph) cg).init(entryPoints);
-                break;
-            case ZERO_CFA:
-
-                final var cha = ClassHierarchyFactory.make(scope);
-                final var epg = new EntryPointsGenerator(cha);
-                AnalysisOptions options = new AnalysisOptions(scope, epg.getPublicEntryPoints());
-                CallGraphBuilder<InstanceKey>
-                    builder = Util.makeZeroCFABuilder(Language.JAVA, options,
-                    new AnalysisCacheImpl(), cha, scope);
-                cg = builder.makeCallGraph(options, null);
-
-                break;
+        final var scope = AnalysisScopeReader.makeJavaBinaryAnalysisScope(classpath, null);
+        scope.setExclusions(ExclusionSet.getDefault());
+
+        if (dependencies.isEmpty()) {
+            return scope;
+        }
+
+        final var reachable = reachableDependencyClasses(classpath, dependencies);
+        for (final var dependency : dependencies) {
+            if (reachable == null) {
+                scope.addToScope(ClassLoaderReference.Extension, new JarFile(dependency));
+            } else if (!reachable.get(dependency).isEmpty()) {
+                scope.addToScope(ClassLoaderReference.Extension,
+                    new FilteredJarFileModule(new JarFile(dependency),
+                        reachable.get(dependency)));
+            }
         }
+        return scope;
+    }
 
-        return cg;
+    /**
+     * Find dependency classes reachable from the classes of the analyzed artifact.
+     *
+     * @param classpath    Path to the analyzed jar file
+     * @param dependencies JAR files of the dependencies
+     * @return Names of reachable classes by the dependency defining them, the first one for
+     *     classes defined by several, or null if they cannot be computed
+     */
+    private static Map<File, Set<String>> reachableDependencyClasses(
+        final String classpath, final List<File> dependencies) {
+        if (!classpath.endsWith(".jar")) {
+            return null;
+        }
+        try {
+            final var store = ClassHierarchySnapshotStore.getDefault();
+            final var artifact = store.get(new File(classpath));
+            final Set<String> roots = new HashSet<>();
+            for (final var className : artifact.getClassNames()) {
+                roots.add(artifact.getSuperclass(className));
+                roots.addAll(artifact.getInterfaces(className));
+                roots.addAll(artifact.getReferencedTypes(className));
+            }
+            roots.removeAll(artifact.getClassNames());
+
+            final List<ClassHierarchySnapshot> layers = new ArrayList<>();
+            for (final var dependency : dependencies) {
+                layers.add(store.get(dependency));
+            }
+            final var reachable =
+                ClassHierarchySnapshot.reachableClasses(roots, layers, true);
+            final Map<File, Set<String>> result = new HashMap<>();
+            for (final var dependency : dependencies) {
+                result.putIfAbsent(dependency, new HashSet<>());
+            }
+            for (final var className : reachable) {
+                for (int i = 0; i < layers.size(); i++) {
+                    if (layers.get(i).contains(className)) {
+                        result.get(dependencies.get(i)).add(className);
+                        break;
+                    }
+                }
+            }
+            logger.info("{} classes of {} of {} dependencies are reachable from {}",
+                reachable.size(), result.values().stream().filter(c -> !c.isEmpty()).count(),
+                dependencies.size(), classpath);
+            return result;
+        } catch (IOException e) {
+            logger.warn("Could not compute reachable dependency classes, using whole JARs", e);
+            return null;
+        }
     }
 
 
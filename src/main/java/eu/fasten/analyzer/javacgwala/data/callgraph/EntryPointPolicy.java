@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import com.ibm.wala.classLoader.IMethod;
+import java.util.function.Predicate;
+
+/**
+ * Selects the methods of application classes that are used as entry points of call graph
+ * generation.
+ */
+public enum EntryPointPolicy implements Predicate<IMethod> {
+
+    /** Every declared method. */
+    ALL {
+        @Override
+        public boolean test(final IMethod method) {
+            return true;
+        }
+    },
+
+    /** Public, non-abstract methods of public classes that are not interfaces. */
+    PUBLIC_API {
+        @Override
+        public boolean test(final IMethod method) {
+            final var klass = method.getDeclaringClass();
+            return klass.isPublic() && !klass.isInterface()
+                && method.isPublic() && !method.isAbstract();
+        }
+    },
+
+    /** {@code public static void main(String[])} methods. */
+    MAIN {
+        @Override
+        public boolean test(final IMethod method) {
+            return method.isPublic() && method.isStatic()
+                && method.getSelector().toString().equals("main([Ljava/lang/String;)V");
+        }
+    }
+}
@@ -24,10 +24,11 @@ import com.ibm.wala.ipa.callgraph.Entrypoint;
 import com.ibm.wala.ipa.callgraph.impl.DefaultEntrypoint;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.types.ClassLoaderReference;
-import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
 public class EntryPointsGenerator {
@@ -44,53 +45,37 @@ public class EntryPointsGenerator {
      * @return List of entry points
      */
     public Set<Entrypoint> getEntryPoints() {
-
-        return StreamSupport.stream(cha.spliterator(), false)
-//                .filter(EntryPointsGenerator::isPublicClass)
-            .flatMap(klass -> klass.getAllMethods().parallelStream())
-//                .filter(EntryPointsGenerator::isPublicMethod)
-            .map(m -> new DefaultEntrypoint(m, cha))
-            .collect(Collectors.toCollection(HashSet::new));
+        return collect(EntryPointPolicy.ALL);
     }
+
     public Set<Entrypoint> getPublicEntryPoints() {
-        return StreamSupport.stream(cha.spliterator(), false)
-                .filter(EntryPointsGenerator::isPublicClass)
-            .flatMap(klass -> klass.getAllMethods().parallelStream())
-                .filter(EntryPointsGenerator::isPublicMethod)
-            .map(m -> new DefaultEntrypoint(m, cha))
-            .collect(Collectors.toCollection(HashSet::new));
+        return collect(EntryPointPolicy.PUBLIC_API);
     }
+
     /**
-     * Check if given class is public.
+     * Lazily create entry points for the methods of application classes. Nothing is computed up
+     * front; every iteration walks the application class loader again and creates the entry
+     * points of one class at a time, so consumers that iterate once, like
+     * {@link com.ibm.wala.ipa.callgraph.cha.CHACallGraph#init(Iterable)}, never hold all of
+     * them.
      *
-     * @param klass Class to check
-     * @return true if class is public, false otherwise
+     * @param filter Selects the declared methods that become entry points
+     * @return Entry points
      */
-    private static boolean isPublicClass(final IClass klass) {
-        return isApplication(klass)
-                && !klass.isInterface()
-                && klass.isPublic();
+    public Iterable<Entrypoint> getEntryPoints(final Predicate<IMethod> filter) {
+        return () -> stream(filter).iterator();
     }
 
-    /**
-     * Check if given method is public.
-     *
-     * @param method Method to check
-     * @return true if method is public, false otherwise
-     */
-    private static boolean isPublicMethod(final IMethod method) {
-        return isApplication(method.getDeclaringClass())
-                && method.isPublic()
-                && !method.isAbstract();
+    private Stream<Entrypoint> stream(final Predicate<IMethod> filter) {
+        final var loader = cha.getLoader(ClassLoaderReference.Application);
+        final Iterable<IClass> classes = loader::iterateAllClasses;
+        return StreamSupport.stream(classes.spliterator(), false)
+            .flatMap(klass -> klass.getDeclaredMethods().stream())
+            .filter(filter)
+            .map(m -> new DefaultEntrypoint(m, cha));
     }
 
-    /**
-     * Check if given class "belongs" to the application loader.
-     *
-     * @param klass Class to check
-     * @return true if class "belongs", false otherwise
-     */
-    private static Boolean isApplication(final IClass klass) {
-        return klass.getClassLoader().getReference().equals(ClassLoaderReference.Application);
+    private Set<Entrypoint> collect(final Predicate<IMethod> filter) {
+        return stream(filter).collect(Collectors.toCollection(HashSet::new));
     }
 }
@@ -0,0 +1,280 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import com.ibm.wala.util.config.SetOfClasses;
+import eu.fasten.analyzer.javacgwala.data.Checksum;
+import it.unimi.dsi.fastutil.chars.Char2ObjectOpenHashMap;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Classes excluded from the analysis scope, in the regular expression format of WALA exclusion
+ * files. Patterns that only describe a prefix, like {@code java\/awt\/.*}, are compiled into a
+ * character trie that is walked once per class name; other patterns are matched as regular
+ * expressions. Every pattern counts the classes it excluded, which shows how much of the scope
+ * each exclusion prunes.
+ */
+public class ExclusionSet extends SetOfClasses {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExclusionSet.class);
+
+    /**
+     * Comma separated exclusion patterns added to the default set.
+     */
+    public static final String EXCLUSIONS_PROPERTY = "fasten.wala.exclusions";
+
+    private static final String DEFAULT_RESOURCE = "Java60RegressionExclusions.txt";
+
+    private static ExclusionSet defaultSet;
+
+    private final List<String> patterns;
+
+    private final List<LongAdder> hits;
+
+    private final Node prefixes;
+
+    private final List<Pattern> regexes;
+
+    /** Index in {@link #patterns} of every element of {@link #regexes}. */
+    private final List<Integer> regexPatterns;
+
+    /**
+     * Construct exclusion set.
+     *
+     * @param patterns Exclusion patterns
+     */
+    public ExclusionSet(final Collection<String> patterns) {
+        this.patterns = new ArrayList<>();
+        this.hits = new ArrayList<>();
+        this.prefixes = new Node();
+        this.regexes = new ArrayList<>();
+        this.regexPatterns = new ArrayList<>();
+        patterns.forEach(this::add);
+    }
+
+    /**
+     * Get the exclusions shipped with the analyzer together with the patterns given in the
+     * {@value #EXCLUSIONS_PROPERTY} system property. The set is loaded once per process.
+     *
+     * @return Default exclusion set
+     */
+    public static synchronized ExclusionSet getDefault() {
+        if (defaultSet == null) {
+            final var classLoader = ExclusionSet.class.getClassLoader();
+            try (var in = classLoader.getResourceAsStream(DEFAULT_RESOURCE)) {
+                if (in == null) {
+                    throw new IllegalStateException(DEFAULT_RESOURCE + " is missing");
+                }
+                final var patterns = read(in);
+                final var extra = System.getProperty(EXCLUSIONS_PROPERTY, "");
+                if (!extra.isBlank()) {
+                    patterns.addAll(Arrays.asList(extra.split(",")));
+                }
+                defaultSet = new ExclusionSet(patterns);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return defaultSet;
+    }
+
+    /**
+     * Replace the default exclusion set, e.g. with one extended by {@link #with(Collection)}.
+     *
+     * @param exclusions New default exclusion set
+     */
+    public static synchronized void setDefault(final ExclusionSet exclusions) {
+        defaultSet = exclusions;
+    }
+
+    /**
+     * Read exclusion patterns, one per line. Blank lines and lines starting with {@code #} are
+     * skipped.
+     *
+     * @param in Content of an exclusion file
+     * @return Patterns
+     * @throws IOException cannot read the input
+     */
+    public static List<String> read(final InputStream in) throws IOException {
+        final List<String> result = new ArrayList<>();
+        final var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.strip();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                result.add(line);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Create a set that excludes everything this one does and more. Hit counters start at zero.
+     *
+     * @param extra Additional patterns
+     * @return New exclusion set
+     */
+    public ExclusionSet with(final Collection<String> extra) {
+        final List<String> all = new ArrayList<>(patterns);
+        all.addAll(extra);
+        return new ExclusionSet(all);
+    }
+
+    /**
+     * Check whether a class is excluded and count the hit for the matching pattern.
+     *
+     * @param klassName Class name in internal JVM form without the leading 'L'
+     * @return true if the class is excluded
+     */
+    @Override
+    public boolean contains(final String klassName) {
+        var node = prefixes;
+        for (int i = 0; node != null; i++) {
+            if (node.pattern >= 0) {
+                hits.get(node.pattern).increment();
+                return true;
+            }
+            if (i == klassName.length()) {
+                break;
+            }
+            node = node.children.get(klassName.charAt(i));
+        }
+        for (int i = 0; i < regexes.size(); i++) {
+            if (regexes.get(i).matcher(klassName).matches()) {
+                hits.get(regexPatterns.get(i)).increment();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Add an exclusion pattern. Patterns must not be added while the set is in use.
+     *
+     * @param pattern Regular expression over class names in internal JVM form
+     */
+    @Override
+    public void add(final String pattern) {
+        final var index = patterns.size();
+        patterns.add(pattern);
+        hits.add(new LongAdder());
+
+        final var prefix = literalPrefix(pattern);
+        if (prefix == null) {
+            regexes.add(Pattern.compile(pattern));
+            regexPatterns.add(index);
+            return;
+        }
+        var node = prefixes;
+        for (int i = 0; i < prefix.length(); i++) {
+            node = node.children.computeIfAbsent(prefix.charAt(i), c -> new Node());
+        }
+        if (node.pattern < 0) {
+            node.pattern = index;
+        }
+    }
+
+    public List<String> getPatterns() {
+        return patterns;
+    }
+
+    /**
+     * Get the number of classes excluded by every pattern. A class matching several patterns is
+     * counted for the shortest matching prefix, or else for the first matching expression.
+     *
+     * @return Hits by pattern in the order the patterns were added
+     */
+    public Map<String, Long> getHits() {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < patterns.size(); i++) {
+            result.merge(patterns.get(i), hits.get(i).sum(), Long::sum);
+        }
+        return result;
+    }
+
+    /**
+     * Log the number of classes excluded by every pattern that excluded any.
+     */
+    public void logHits() {
+        getHits().forEach((pattern, count) -> {
+            if (count > 0) {
+                logger.info("Exclusion {} pruned {} classes", pattern, count);
+            }
+        });
+    }
+
+    /**
+     * Get a checksum of the patterns, which identifies the analysis scope they produce.
+     *
+     * @return Hex encoded checksum
+     */
+    public String getChecksum() {
+        return Checksum.sha256(String.join("\n", patterns).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Get the prefix matched by a pattern of the form {@code prefix.*}.
+     *
+     * @param pattern Exclusion pattern
+     * @return Unescaped prefix or null if the pattern is not a plain prefix
+     */
+    static String literalPrefix(final String pattern) {
+        if (!pattern.endsWith(".*")) {
+            return null;
+        }
+        final var body = pattern.substring(0, pattern.length() - 2);
+        final var prefix = new StringBuilder();
+        for (int i = 0; i < body.length(); i++) {
+            var c = body.charAt(i);
+            if (c == '\\') {
+                if (++i == body.length() || Character.isLetterOrDigit(body.charAt(i))) {
+                    return null;
+                }
+                c = body.charAt(i);
+            } else if (".[]{}()*+?^$|".indexOf(c) >= 0) {
+                return null;
+            }
+            prefix.append(c);
+        }
+        return prefix.toString();
+    }
+
+    private static class Node {
+
+        private final Char2ObjectOpenHashMap<Node> children = new Char2ObjectOpenHashMap<>(2);
+
+        /** Index of the pattern ending at this node or -1. */
+        private int pattern = -1;
+    }
+}
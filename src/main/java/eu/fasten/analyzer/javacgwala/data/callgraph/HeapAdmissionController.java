@@ -0,0 +1,260 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.ArtifactProfile;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CostModel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Admits call graph generations of several artifacts only while the heap they are predicted to
+ * use together fits a budget. Predictions come from a {@link CostModel} applied to the
+ * {@link ArtifactProfile} of every artifact, which is measured without building a class
+ * hierarchy. An artifact predicted to exceed the budget on its own runs exclusively, once every
+ * other generation finished.
+ *
+ * <p>Generations are admitted in the order they asked, so a large artifact is not starved by a
+ * stream of small ones. Generations that ran without any other generation overlapping them
+ * measure the heap they really used and feed it back into the cost model.
+ */
+public class HeapAdmissionController {
+
+    private static final Logger logger = LoggerFactory.getLogger(HeapAdmissionController.class);
+
+    private final CostModel costModel;
+
+    private final long budget;
+
+    private final boolean learn;
+
+    private final List<Permit> running;
+
+    /** Tickets of generations that stopped waiting before their turn. */
+    private final Set<Long> abandoned;
+
+    private long admittedBytes;
+
+    private long nextTicket;
+
+    /** Ticket of the generation whose turn it is. */
+    private long servedTicket;
+
+    /**
+     * Construct admission controller that learns from generations running alone.
+     *
+     * @param costModel Cost model predicting the heap usage of a generation
+     * @param budget    Heap all admitted generations may use together in bytes
+     */
+    public HeapAdmissionController(final CostModel costModel, final long budget) {
+        this(costModel, budget, true);
+    }
+
+    /**
+     * Construct admission controller.
+     *
+     * @param costModel Cost model predicting the heap usage of a generation
+     * @param budget    Heap all admitted generations may use together in bytes
+     * @param learn     record generations running alone in the cost model, disable if the
+     *                  generator records its runs itself
+     */
+    public HeapAdmissionController(final CostModel costModel, final long budget,
+                                   final boolean learn) {
+        this.costModel = costModel;
+        this.budget = budget;
+        this.learn = learn;
+        this.running = new ArrayList<>();
+        this.abandoned = new HashSet<>();
+    }
+
+    /**
+     * Wait until a generation may start.
+     *
+     * @param algorithm Call graph generation algorithm
+     * @param profile   Profile of the artifact
+     * @return Permit to close once the generation finished
+     * @throws InterruptedException interrupted while waiting
+     */
+    public synchronized Permit acquire(final Algorithm algorithm, final ArtifactProfile profile)
+        throws InterruptedException {
+        final var predicted = (long) costModel.predictBytes(algorithm, profile);
+        final var ticket = nextTicket++;
+        try {
+            while (ticket != servedTicket || !fits(predicted)) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            // give up the turn, otherwise every later generation waits forever
+            if (ticket == servedTicket) {
+                advance();
+            } else {
+                abandoned.add(ticket);
+            }
+            throw e;
+        }
+        return admit(algorithm, profile, predicted);
+    }
+
+    /**
+     * Start a generation if it may start right away.
+     *
+     * @param algorithm Call graph generation algorithm
+     * @param profile   Profile of the artifact
+     * @return Permit to close once the generation finished, empty if the generation has to wait
+     */
+    public synchronized Optional<Permit> tryAcquire(final Algorithm algorithm,
+                                                    final ArtifactProfile profile) {
+        final var predicted = (long) costModel.predictBytes(algorithm, profile);
+        if (nextTicket != servedTicket || !fits(predicted)) {
+            return Optional.empty();
+        }
+        nextTicket++;
+        return Optional.of(admit(algorithm, profile, predicted));
+    }
+
+    public long getBudget() {
+        return budget;
+    }
+
+    /**
+     * Get the heap predicted for the generations running now.
+     *
+     * @return Bytes
+     */
+    public synchronized long getAdmittedBytes() {
+        return admittedBytes;
+    }
+
+    /**
+     * Get the number of generations running now.
+     *
+     * @return Number of open permits
+     */
+    public synchronized int getRunning() {
+        return running.size();
+    }
+
+    private boolean fits(final long predicted) {
+        if (running.isEmpty()) {
+            return true;
+        }
+        if (predicted > budget || running.get(0).isExclusive()) {
+            return false;
+        }
+        return admittedBytes + predicted <= budget;
+    }
+
+    private Permit admit(final Algorithm algorithm, final ArtifactProfile profile,
+                         final long predicted) {
+        advance();
+        final var permit = new Permit(algorithm, profile, predicted);
+        for (final var other : running) {
+            other.alone = false;
+        }
+        permit.alone = running.isEmpty();
+        running.add(permit);
+        admittedBytes += predicted;
+        if (permit.isExclusive()) {
+            logger.info("Running {} exclusively, predicted heap {} MB exceeds budget {} MB",
+                profile, predicted >> 20, budget >> 20);
+        }
+        return permit;
+    }
+
+    /**
+     * Pass the turn to the next generation that is still waiting.
+     */
+    private void advance() {
+        servedTicket++;
+        while (abandoned.remove(servedTicket)) {
+            servedTicket++;
+        }
+        notifyAll();
+    }
+
+    private synchronized void release(final Permit permit) {
+        if (!running.remove(permit)) {
+            return;
+        }
+        admittedBytes -= permit.predicted;
+        notifyAll();
+    }
+
+    /**
+     * Admission of one generation. Closing it lets the generations waiting behind it start.
+     */
+    public class Permit implements AutoCloseable {
+
+        private final Algorithm algorithm;
+
+        private final ArtifactProfile profile;
+
+        private final long predicted;
+
+        private final long startTime;
+
+        private final long usedBefore;
+
+        /** No other generation overlapped this one so far. */
+        private boolean alone;
+
+        private Permit(final Algorithm algorithm, final ArtifactProfile profile,
+                       final long predicted) {
+            this.algorithm = algorithm;
+            this.profile = profile;
+            this.predicted = predicted;
+            this.startTime = System.currentTimeMillis();
+            final var runtime = Runtime.getRuntime();
+            this.usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        }
+
+        public long getPredictedBytes() {
+            return predicted;
+        }
+
+        /**
+         * Check whether the generation is predicted to exceed the budget and therefore runs
+         * without any other generation.
+         *
+         * @return true if the generation runs exclusively
+         */
+        public boolean isExclusive() {
+            return predicted > budget;
+        }
+
+        @Override
+        public void close() {
+            final boolean measured;
+            synchronized (HeapAdmissionController.this) {
+                measured = alone && running.contains(this);
+            }
+            if (learn && measured) {
+                final var runtime = Runtime.getRuntime();
+                costModel.record(algorithm, profile, System.currentTimeMillis() - startTime,
+                    Math.max(0, runtime.totalMemory() - runtime.freeMemory() - usedBefore));
+            }
+            release(this);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.TypeReference;
+import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.data.Checksum;
+import eu.fasten.analyzer.javacgwala.data.DependencyResolver;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.AnalysisContext;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.CallGraphAnalyzer;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.CallSiteRecord;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.CanonicalNumbering;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.ClassHierarchyAnalyzer;
+import eu.fasten.analyzer.javacgwala.data.callgraph.hierarchy.ClassHierarchySnapshot;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.JavaGraph;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.DecimalFormat;
+import java.text.NumberFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.jar.JarFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Generates call graphs of consecutive versions of an artifact, reusing the call sites of
+ * classes that did not change since the previous version.
+ *
+ * <p>Every class is identified by the checksum of its class file together with its hierarchy
+ * context: the class loader each type referenced from its constant pool resolves to. Call sites
+ * of a class depend only on its own bytecode and on where the declaring classes of its call
+ * targets are found, so when both are unchanged the call sites read for the previous version
+ * are added to the new graph as they are. Only changed classes are scanned again. The class
+ * hierarchy is still built for every version, as it is needed to resolve the contexts and the
+ * types of the graph.
+ *
+ * <p>Only {@link Algorithm#CHA} with {@link CallPreservationStrategy#ONLY_STATIC_CALLSITES} can be
+ * generated incrementally. Other combinations and inputs that are not JAR files are analyzed
+ * from scratch.
+ */
+public class IncrementalCallGraphGenerator {
+
+    private static final Logger logger =
+        LoggerFactory.getLogger(IncrementalCallGraphGenerator.class);
+
+    /** Call sites of the classes of the previous version by class key. */
+    private Map<String, List<CallSiteRecord>> previous;
+
+    private int reusedClasses;
+
+    private int analyzedClasses;
+
+    /**
+     * Construct incremental call graph generator without previous versions.
+     */
+    public IncrementalCallGraphGenerator() {
+        this.previous = new HashMap<>();
+    }
+
+    /**
+     * Generate a call graph of a version, reusing results of the version generated before.
+     *
+     * @param path         Path to the JAR file of the version
+     * @param dependencies JAR files of the dependencies
+     * @param algorithm    Call graph generation algorithm
+     * @param result       Partial call graph to fill
+     * @param strategy     Call preservation strategy
+     */
+    public void generateFromFile(final String path, final List<File> dependencies,
+                                 final Algorithm algorithm, final PartialJavaCallGraph result,
+                                 final CallPreservationStrategy strategy) {
+        if (algorithm != Algorithm.CHA
+            || strategy != CallPreservationStrategy.ONLY_STATIC_CALLSITES
+            || !path.endsWith(".jar")) {
+            logger.info("Incremental analysis is not supported for {}, analyzing from scratch",
+                path);
+            PartialCallGraphGenerator.generateFromFile(path, dependencies, algorithm, result,
+                strategy);
+            return;
+        }
+        try {
+            generate(path, dependencies, result);
+        } catch (IOException | ClassHierarchyException | InvalidClassFileException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Generate a call graph of a version given by its Maven coordinate, reusing results of the
+     * version generated before.
+     *
+     * @param coordinate          Coordinate of the version
+     * @param algorithm           Call graph generation algorithm
+     * @param result              Partial call graph to fill
+     * @param strategy            Call preservation strategy
+     * @param resolveDependencies analyze the artifact together with its transitive dependencies
+     */
+    public void generateFromCoordinate(final MavenCoordinate coordinate,
+                                       final Algorithm algorithm,
+                                       final PartialJavaCallGraph result,
+                                       final CallPreservationStrategy strategy,
+                                       final boolean resolveDependencies) {
+        final List<File> dependencies = resolveDependencies
+            ? new DependencyResolver(CallGraphConstructor.DEPENDENCY_FETCH_PARALLELISM)
+                .resolveJars(coordinate)
+            : Collections.emptyList();
+        final File jar;
+        try {
+            jar = MavenCoordinate.MavenResolver.downloadJar(coordinate)
+                .orElseThrow(RuntimeException::new);
+        } catch (FileNotFoundException e) {
+            throw new RuntimeException(e);
+        }
+        generateFromFile(jar.getAbsolutePath(), dependencies, algorithm, result, strategy);
+    }
+
+    public int getReusedClasses() {
+        return reusedClasses;
+    }
+
+    public int getAnalyzedClasses() {
+        return analyzedClasses;
+    }
+
+    private void generate(final String path, final List<File> dependencies,
+                          final PartialJavaCallGraph result)
+        throws IOException, ClassHierarchyException, InvalidClassFileException {
+        final NumberFormat timeFormatter = new DecimalFormat("#0.000");
+        final long startTime = System.currentTimeMillis();
+
+        final var scope = CallGraphConstructor.makeAnalysisScope(path, dependencies);
+        final var cha = ClassHierarchyFactory.makeWithRoot(scope);
+        final var fingerprints = fingerprint(new File(path));
+        final var snapshot = ClassHierarchySnapshot.parse(new File(path));
+
+        final var analysisContext = new AnalysisContext(cha);
+        final var classHierarchyAnalyzer = new ClassHierarchyAnalyzer(cha, analysisContext);
+        classHierarchyAnalyzer.resolveCHA();
+        final var callGraphAnalyzer =
+            new CallGraphAnalyzer(cha, analysisContext, classHierarchyAnalyzer);
+
+        final Map<String, List<CallSiteRecord>> current = new HashMap<>();
+        reusedClasses = 0;
+        analyzedClasses = 0;
+        for (final Iterator<IClass> it = cha.getLoader(ClassLoaderReference.Application)
+            .iterateAllClasses(); it.hasNext(); ) {
+            final var klass = it.next();
+            final var name = klass.getName().toString().substring(1);
+            final var fingerprint = fingerprints.get(name);
+
+            List<CallSiteRecord> callSites = null;
+            String key = null;
+            if (fingerprint != null && snapshot.contains(name)) {
+                key = fingerprint + ":" + context(cha, snapshot, name);
+                callSites = previous.get(key);
+            }
+            if (callSites == null) {
+                callSites = extractCallSites(callGraphAnalyzer, klass);
+                analyzedClasses++;
+            } else {
+                reusedClasses++;
+            }
+            if (key != null) {
+                current.put(key, callSites);
+            }
+            for (final var callSite : callSites) {
+                callGraphAnalyzer.addCallSite(callSite);
+            }
+        }
+        previous = current;
+
+        final var canonical = new CanonicalNumbering(classHierarchyAnalyzer.classHierarchy,
+            callGraphAnalyzer.graph);
+        result.setClassHierarchy(canonical.getClassHierarchy());
+        result.setGraph(new JavaGraph(canonical.getGraph()));
+
+        logger.info("Generated call graph of {} in {} seconds, reused {} and analyzed {} classes",
+            path, timeFormatter.format((System.currentTimeMillis() - startTime) / 1000d),
+            reusedClasses, analyzedClasses);
+    }
+
+    private static List<CallSiteRecord> extractCallSites(final CallGraphAnalyzer analyzer,
+                                                         final IClass klass)
+        throws InvalidClassFileException {
+        final List<CallSiteRecord> result = new ArrayList<>();
+        for (final var method : klass.getDeclaredMethods()) {
+            if (!method.isAbstract() && !method.isNative()) {
+                result.addAll(analyzer.extractCallSites(method));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Describe where the types referenced by a class are found.
+     *
+     * @param cha       Class hierarchy of the current version
+     * @param snapshot  Snapshot of the current version
+     * @param className Class name in internal JVM form
+     * @return Checksum of the sorted referenced types and their class loaders
+     */
+    private static String context(final IClassHierarchy cha,
+                                  final ClassHierarchySnapshot snapshot,
+                                  final String className) {
+        final var context = new StringBuilder();
+        for (final var referenced : new TreeSet<>(snapshot.getReferencedTypes(className))) {
+            final var klass = cha.lookupClass(TypeReference.findOrCreate(
+                ClassLoaderReference.Application, "L" + referenced));
+            context.append(referenced).append('=')
+                .append(klass == null ? "-" : klass.getClassLoader().getName().toString())
+                .append(';');
+        }
+        return Checksum.sha256(context.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Compute checksums of the class files of a JAR file.
+     *
+     * @param jar JAR file
+     * @return Checksums by class name in internal JVM form
+     * @throws IOException cannot read the JAR file
+     */
+    static Map<String, String> fingerprint(final File jar) throws IOException {
+        final Map<String, String> result = new HashMap<>();
+        try (JarFile jarFile = new JarFile(jar)) {
+            final var entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final var entry = entries.nextElement();
+                if (!entry.getName().endsWith(".class")) {
+                    continue;
+                }
+                try (var in = jarFile.getInputStream(entry)) {
+                    final var name = entry.getName();
+                    result.put(name.substring(0, name.length() - ".class".length()),
+                        Checksum.sha256(in.readAllBytes()));
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -21,13 +21,20 @@ package eu.fasten.analyzer.javacgwala.data.callgraph;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.util.CancelException;
 import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.SpillingEdgeBuffer;
 import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.WalaResultAnalyzer;
+import eu.fasten.analyzer.javacgwala.data.output.CallGraphSink;
 import eu.fasten.core.data.CallPreservationStrategy;
 import eu.fasten.core.data.JavaGraph;
 import eu.fasten.core.data.JavaScope;
 import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class PartialCallGraphGenerator {
 
@@ -45,8 +52,17 @@ public class PartialCallGraphGenerator {
                                               final Algorithm algorithm,
                                               final PartialJavaCallGraph result,
                                               final CallPreservationStrategy strategy) {
+        generateFromCoordinate(coordinate, algorithm, result, strategy, false);
+    }
+
+    public static void generateFromCoordinate(final MavenCoordinate coordinate,
+                                              final Algorithm algorithm,
+                                              final PartialJavaCallGraph result,
+                                              final CallPreservationStrategy strategy,
+                                              final boolean resolveDependencies) {
         try {
-            CallGraphConstructor.build(coordinate, algorithm, result, strategy);
+            CallGraphConstructor.build(coordinate, algorithm, result, strategy,
+                resolveDependencies);
         } catch (IOException | CancelException | ClassHierarchyException e) {
             throw new RuntimeException(e);
         }
@@ -56,8 +72,27 @@ public class PartialCallGraphGenerator {
                                         final Algorithm algorithm,
                                         final PartialJavaCallGraph result,
                                         final CallPreservationStrategy strategy) {
+        generateFromFile(path, Collections.emptyList(), algorithm, result, strategy);
+    }
+
+    public static void generateFromFile(final String path,
+                                        final List<File> dependencies,
+                                        final Algorithm algorithm,
+                                        final PartialJavaCallGraph result,
+                                        final CallPreservationStrategy strategy) {
+        if (BytecodeCallGraphGenerator.supports(algorithm, strategy)) {
+            BytecodeCallGraphGenerator.generateFromFile(path, dependencies, result);
+            return;
+        }
         try {
-            final var callgraph = CallGraphConstructor.generateCallGraph(path, algorithm);
+            if (algorithm == Algorithm.CHA) {
+                WalaResultAnalyzer.wrap(
+                    CallGraphConstructor.generateChaCallGraph(path, dependencies), result,
+                    strategy);
+                return;
+            }
+            final var callgraph =
+                CallGraphConstructor.generateCallGraph(path, dependencies, algorithm);
             WalaResultAnalyzer.wrap(callgraph, result, strategy);
 
         } catch (Throwable e) {
@@ -65,6 +100,133 @@ public class PartialCallGraphGenerator {
         }
     }
 
+    /**
+     * Generate one partial call graph per call preservation strategy from a single call graph
+     * generation and a single pass over its call sites. The graphs share their node IDs.
+     *
+     * @param path         Path to the artifact
+     * @param dependencies JAR files of the dependencies
+     * @param algorithm    Call graph generation algorithm
+     * @param results      Partial call graph to fill by call preservation strategy
+     */
+    public static void generateFromFile(final String path,
+                                        final List<File> dependencies,
+                                        final Algorithm algorithm,
+                                        final Map<CallPreservationStrategy, PartialJavaCallGraph> results) {
+        if (results.size() == 1) {
+            final var entry = results.entrySet().iterator().next();
+            generateFromFile(path, dependencies, algorithm, entry.getValue(), entry.getKey());
+            return;
+        }
+        try {
+            if (algorithm == Algorithm.CHA) {
+                WalaResultAnalyzer.wrap(
+                    CallGraphConstructor.generateChaCallGraph(path, dependencies), results);
+                return;
+            }
+            WalaResultAnalyzer.wrap(
+                CallGraphConstructor.generateCallGraph(path, dependencies, algorithm), results);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Generate partial call graphs of several algorithms from one analysis scope and class
+     * hierarchy, see {@link CallGraphConstructor#generateCallGraphs(String, List, Set)}.
+     * Algorithms that exceed their budget leave their partial call graph empty.
+     *
+     * @param path         Path to the artifact
+     * @param dependencies JAR files of the dependencies
+     * @param results      Partial call graph to fill by algorithm
+     * @param strategy     Call preservation strategy
+     */
+    public static void generateFromFile(final String path,
+                                        final List<File> dependencies,
+                                        final Map<Algorithm, PartialJavaCallGraph> results,
+                                        final CallPreservationStrategy strategy) {
+        try {
+            final var callGraphs =
+                CallGraphConstructor.generateCallGraphs(path, dependencies, results.keySet());
+            for (final var callGraph : callGraphs.entrySet()) {
+                WalaResultAnalyzer.wrap(callGraph.getValue(), results.get(callGraph.getKey()),
+                    strategy);
+            }
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Generate a call graph and hand it to a sink in chunks while its calls are resolved, see
+     * {@link WalaResultAnalyzer#wrap(com.ibm.wala.ipa.callgraph.CallGraph, PartialJavaCallGraph,
+     * CallPreservationStrategy, CallGraphSink, int)}.
+     *
+     * @param path         Path to the artifact
+     * @param dependencies JAR files of the dependencies
+     * @param algorithm    Call graph generation algorithm
+     * @param header       Provides forge, product, version, timestamp and generator of the chunks
+     * @param strategy     Call preservation strategy
+     * @param sink         Receives the chunks, not closed
+     * @param batchSize    Maximum number of source nodes per chunk
+     */
+    public static void generateFromFile(final String path,
+                                        final List<File> dependencies,
+                                        final Algorithm algorithm,
+                                        final PartialJavaCallGraph header,
+                                        final CallPreservationStrategy strategy,
+                                        final CallGraphSink sink,
+                                        final int batchSize) {
+        try {
+            if (algorithm == Algorithm.CHA) {
+                WalaResultAnalyzer.wrap(
+                    CallGraphConstructor.generateChaCallGraph(path, dependencies), header,
+                    strategy, sink, batchSize);
+                return;
+            }
+            WalaResultAnalyzer.wrap(
+                CallGraphConstructor.generateCallGraph(path, dependencies, algorithm), header,
+                strategy, sink, batchSize);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Generate a call graph whose calls are accumulated in external memory and hand it to a sink
+     * in chunks, see {@link WalaResultAnalyzer#wrap(com.ibm.wala.ipa.callgraph.CallGraph,
+     * PartialJavaCallGraph, CallPreservationStrategy, CallGraphSink, SpillingEdgeBuffer)}.
+     *
+     * @param path         Path to the artifact
+     * @param dependencies JAR files of the dependencies
+     * @param algorithm    Call graph generation algorithm
+     * @param header       Provides forge, product, version, timestamp and generator of the chunks
+     * @param strategy     Call preservation strategy
+     * @param sink         Receives the chunks, not closed
+     * @param edges        Empty buffer of the calls, not closed
+     */
+    public static void generateFromFile(final String path,
+                                        final List<File> dependencies,
+                                        final Algorithm algorithm,
+                                        final PartialJavaCallGraph header,
+                                        final CallPreservationStrategy strategy,
+                                        final CallGraphSink sink,
+                                        final SpillingEdgeBuffer edges) {
+        try {
+            if (algorithm == Algorithm.CHA) {
+                WalaResultAnalyzer.wrap(
+                    CallGraphConstructor.generateChaCallGraph(path, dependencies), header,
+                    strategy, sink, edges);
+                return;
+            }
+            WalaResultAnalyzer.wrap(
+                CallGraphConstructor.generateCallGraph(path, dependencies, algorithm), header,
+                strategy, sink, edges);
+        } catch (Throwable e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     public static PartialJavaCallGraph generateEmptyPCG(String forge, String coord,
                                                         long timestamp, String generator) {
         final var coordinate = MavenCoordinate.fromString(coord);
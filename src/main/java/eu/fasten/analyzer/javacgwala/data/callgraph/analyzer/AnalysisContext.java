@@ -21,18 +21,29 @@ package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
 import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeName;
 import eu.fasten.analyzer.javacgwala.data.ArtifactResolver;
 import eu.fasten.analyzer.javacgwala.data.core.ExternalMethod;
 import eu.fasten.analyzer.javacgwala.data.core.InternalMethod;
 import eu.fasten.analyzer.javacgwala.data.core.Method;
-import java.util.HashMap;
+import eu.fasten.core.data.FastenURI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
+/**
+ * Methods and type URIs of one analysis, shared by all threads wrapping its call graph. Methods
+ * are found by the name of their declaring type and their selector, which WALA interns, so a
+ * known method is returned without building its ID or any other string. Both maps are concurrent
+ * and locked per bin only, so lookups of known entries never wait on each other.
+ */
 public class AnalysisContext {
 
     private final ArtifactResolver artifactResolver;
 
-    private final HashMap<String, InternalMethod> internalDictionary;
-    private final HashMap<String, ExternalMethod> externalDictionary;
+    private final Map<TypeName, Map<Selector, Method>> internalDictionary;
+    private final Map<TypeName, Map<Selector, Method>> externalDictionary;
+    private final Map<String, FastenURI> typeUris;
 
     /**
      * Construct analysis context.
@@ -40,47 +51,49 @@ public class AnalysisContext {
      * @param cha Class hierarchy analysis
      */
     public AnalysisContext(final IClassHierarchy cha) {
-        this.internalDictionary = new HashMap<>();
-        this.externalDictionary = new HashMap<>();
+        this.internalDictionary = new ConcurrentHashMap<>();
+        this.externalDictionary = new ConcurrentHashMap<>();
+        this.typeUris = new ConcurrentHashMap<>();
         this.artifactResolver = new ArtifactResolver(cha);
     }
 
     /**
      * Check if given method was already added to the list of calls. If call was already added,
-     * return this call.
+     * return this call. References that only differ in the class loader of their declaring type
+     * share one method.
      *
      * @param reference Method reference
      * @return Duplicate or newly created method
      */
     public Method findOrCreate(final MethodReference reference) {
-        if (inApplicationScope(reference)) {
-
-//            final var jarfile = artifactResolver.findJarFileUsingMethod(reference);
-//            final var method = new InternalMethod(reference, jarfile);
-
-            final var method = new InternalMethod(reference);
-
-            final var key = method.toID();
-
-            final var val = internalDictionary.get(key);
-            if (val != null) {
-                return val;
-            }
-
-            internalDictionary.put(key, method);
+        final var internal = inApplicationScope(reference);
+        final var dictionary = internal ? internalDictionary : externalDictionary;
+        final var type = reference.getDeclaringClass().getName();
+        var methods = dictionary.get(type);
+        if (methods == null) {
+            methods = dictionary.computeIfAbsent(type, name -> new ConcurrentHashMap<>());
+        }
+        final var method = methods.get(reference.getSelector());
+        if (method != null) {
             return method;
-        } else {
-            final var method = new ExternalMethod(reference);
-            final var key = method.toID();
-
-            final var val = externalDictionary.get(key);
-            if (val != null) {
-                return val;
-            }
+        }
+        return methods.computeIfAbsent(reference.getSelector(), selector -> internal
+            ? new InternalMethod(reference) : new ExternalMethod(reference));
+    }
 
-            externalDictionary.put(key, method);
-            return method;
+    /**
+     * Get the URI of a type, creating it once per analysis so that types referenced from many
+     * places, like superclasses and interfaces, share a single instance.
+     *
+     * @param uri Type URI
+     * @return Shared FASTEN URI
+     */
+    public FastenURI typeUri(final String uri) {
+        final var known = typeUris.get(uri);
+        if (known != null) {
+            return known;
         }
+        return typeUris.computeIfAbsent(uri, FastenURI::create);
     }
 
     /**
@@ -22,13 +22,19 @@ import static eu.fasten.analyzer.javacgwala.data.core.CallType.DYNAMIC;
 import static it.unimi.dsi.fastutil.objects.Object2ObjectMaps.emptyMap;
 
 import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.CodeScanner;
 import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.CGNode;
 import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.cha.CHACallGraph;
+import com.ibm.wala.ipa.callgraph.impl.ExplicitCallGraph;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
 import com.ibm.wala.shrikeBT.IInvokeInstruction;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.MethodReference;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.ParallelChaCallGraph;
 import eu.fasten.analyzer.javacgwala.data.core.CallType;
 import eu.fasten.analyzer.javacgwala.data.core.ExternalMethod;
 import eu.fasten.analyzer.javacgwala.data.core.InternalMethod;
@@ -37,11 +43,23 @@ import eu.fasten.core.data.CallPreservationStrategy;
 import eu.fasten.core.data.Constants;
 import eu.fasten.core.data.JavaScope;
 import it.unimi.dsi.fastutil.longs.LongLongPair;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class CallGraphAnalyzer {
 
@@ -49,10 +67,29 @@ public class CallGraphAnalyzer {
 
     private final CallGraph rawCallGraph;
 
+    private final ParallelChaCallGraph chaCallGraph;
+
+    /**
+     * Target IDs by declared target, for call graphs whose targets depend only on the declared
+     * target. Null for context-sensitive call graphs.
+     */
+    private final DispatchConeIndex dispatchCones;
+
+    private final IClassHierarchy cha;
+
     private final ClassHierarchyAnalyzer classHierarchyAnalyzer;
 
+    /** Receives the calls instead of the graphs when set. */
+    private SpillingEdgeBuffer edgeBuffer;
+
     public final Map<LongLongPair, Map<Object, Object>> graph;
 
+    /**
+     * Calls by call preservation strategy after {@link #resolveCalls(Set)}. The graph of the
+     * first strategy is {@link #graph}.
+     */
+    public final Map<CallPreservationStrategy, Map<LongLongPair, Map<Object, Object>>> graphs;
+
     /**
      * Analyze raw call graph in Wala format.
      *
@@ -63,9 +100,62 @@ public class CallGraphAnalyzer {
                              final AnalysisContext analysisContext,
                              final ClassHierarchyAnalyzer classHierarchyAnalyzer) {
         this.rawCallGraph = rawCallGraph;
+        this.chaCallGraph = null;
+        this.dispatchCones = rawCallGraph instanceof CHACallGraph ? new DispatchConeIndex() : null;
+        this.cha = rawCallGraph.getClassHierarchy();
         this.analysisContext = analysisContext;
         this.classHierarchyAnalyzer = classHierarchyAnalyzer;
         this.graph = new ConcurrentHashMap<>();
+        this.graphs = new EnumMap<>(CallPreservationStrategy.class);
+    }
+
+    /**
+     * Analyze call graph built by {@link ParallelChaCallGraph}.
+     *
+     * @param chaCallGraph           Parallel CHA call graph
+     * @param classHierarchyAnalyzer classHierarchyAnalyzer
+     */
+    public CallGraphAnalyzer(final ParallelChaCallGraph chaCallGraph,
+                             final AnalysisContext analysisContext,
+                             final ClassHierarchyAnalyzer classHierarchyAnalyzer) {
+        this.rawCallGraph = null;
+        this.chaCallGraph = chaCallGraph;
+        this.dispatchCones = new DispatchConeIndex();
+        this.cha = chaCallGraph.getClassHierarchy();
+        this.analysisContext = analysisContext;
+        this.classHierarchyAnalyzer = classHierarchyAnalyzer;
+        this.graph = new ConcurrentHashMap<>();
+        this.graphs = new EnumMap<>(CallPreservationStrategy.class);
+    }
+
+    /**
+     * Analyze call sites of methods without a call graph. Only
+     * {@link #extractCallSites(IMethod)} and {@link #addCallSite(CallSiteRecord)} can be used.
+     *
+     * @param cha                    Class hierarchy in Wala format
+     * @param classHierarchyAnalyzer classHierarchyAnalyzer
+     */
+    public CallGraphAnalyzer(final IClassHierarchy cha,
+                             final AnalysisContext analysisContext,
+                             final ClassHierarchyAnalyzer classHierarchyAnalyzer) {
+        this.rawCallGraph = null;
+        this.chaCallGraph = null;
+        this.dispatchCones = null;
+        this.cha = cha;
+        this.analysisContext = analysisContext;
+        this.classHierarchyAnalyzer = classHierarchyAnalyzer;
+        this.graph = new ConcurrentHashMap<>();
+        this.graphs = new EnumMap<>(CallPreservationStrategy.class);
+    }
+
+    /**
+     * Add calls to an external memory buffer instead of {@link #graph}, for graphs with more
+     * edges than fit in the heap. Only one call preservation strategy can be resolved then.
+     *
+     * @param edgeBuffer Buffer receiving all calls
+     */
+    public void setEdgeBuffer(final SpillingEdgeBuffer edgeBuffer) {
+        this.edgeBuffer = edgeBuffer;
     }
 
     /**
@@ -76,46 +166,224 @@ public class CallGraphAnalyzer {
      *                 edges of the call graph.
      */
     public void resolveCalls(final CallPreservationStrategy strategy) {
-        this.rawCallGraph.stream().parallel().forEach(sourceNode -> {
-            final var nodeReference = sourceNode.getMethod().getReference();
+        resolveCalls(EnumSet.of(strategy));
+    }
 
-            if (applicationClassLoaderFilter.test(sourceNode)) {
-                return;
-            }
+    /**
+     * Add the calls of several call preservation strategies in one pass over the call sites.
+     * All graphs share the node IDs of the class hierarchy.
+     *
+     * @param strategies Call preservation strategies, the graphs are found in {@link #graphs}
+     */
+    public void resolveCalls(final Set<CallPreservationStrategy> strategies) {
+        for (final var strategy : EnumSet.copyOf(strategies)) {
+            graphs.put(strategy, graphs.isEmpty() ? graph : new ConcurrentHashMap<>());
+        }
+        if (chaCallGraph != null) {
+            chaCallGraph.getNodes().parallelStream().forEach(this::resolveMethod);
+            return;
+        }
+        this.rawCallGraph.stream().parallel().forEach(this::resolveNode);
+    }
 
-            final var source = analysisContext.findOrCreate(nodeReference);
-            source.oroginalLoader = Optional.of(sourceNode.getMethod());
-
-            for (final var callSites = sourceNode.iterateCallSites(); callSites.hasNext(); ) {
-                final var callSite = callSites.next();
-                switch (strategy) {
-                    case INCLUDING_ALL_SUBTYPES:
-                        final var targets = rawCallGraph.getPossibleTargets(sourceNode, callSite);
-                        for (final var possibleTarget : targets) {
-                            final var targetCallSite = analysisContext.findOrCreate(
-                                correctClassLoader(possibleTarget.getMethod().getReference()));
-                            addCallAndType(source, targetCallSite, emptyMap());
-                        }
-                        break;
-                    case ONLY_STATIC_CALLSITES:
-                        final var targetCallSite = analysisContext.findOrCreate(
-                            correctClassLoader(callSite.getDeclaredTarget()));
-                        final var callSiteMetadata =
-                            getCallSiteMetadata(callSite, sourceNode.getMethod());
-                        addCallAndType(source, targetCallSite, callSiteMetadata);
-                        break;
+    /**
+     * Add the calls of one batch of source nodes at a time and hand every batch over as soon as
+     * it is complete, instead of collecting all calls in {@link #graph}. Nodes of a
+     * {@link ParallelChaCallGraph} are released after their batch, and the call site targets of
+     * the nodes of a WALA call graph are cleared.
+     *
+     * @param strategy  Call preservation strategy
+     * @param batchSize Maximum number of source nodes per batch
+     * @param batches   Receives the calls of every batch, the map is not used afterwards
+     */
+    public void resolveCalls(final CallPreservationStrategy strategy, final int batchSize,
+                             final Consumer<Map<LongLongPair, Map<Object, Object>>> batches) {
+        graphs.clear();
+        if (chaCallGraph != null) {
+            final List<IMethod> batch = new ArrayList<>(batchSize);
+            for (final var it = chaCallGraph.getNodes().iterator(); it.hasNext(); ) {
+                batch.add(it.next());
+                if (batch.size() == batchSize || !it.hasNext()) {
+                    final Map<LongLongPair, Map<Object, Object>> calls = new ConcurrentHashMap<>();
+                    graphs.put(strategy, calls);
+                    batch.parallelStream().forEach(this::resolveMethod);
+                    batch.forEach(chaCallGraph::release);
+                    batches.accept(calls);
+                    batch.clear();
+                }
+            }
+            return;
+        }
+        final List<CGNode> batch = new ArrayList<>(batchSize);
+        for (final var it = rawCallGraph.iterator(); it.hasNext(); ) {
+            final var node = it.next();
+            if (!applicationClassLoaderFilter.test(node)) {
+                batch.add(node);
+            }
+            if (!batch.isEmpty() && (batch.size() == batchSize || !it.hasNext())) {
+                final Map<LongLongPair, Map<Object, Object>> calls = new ConcurrentHashMap<>();
+                graphs.put(strategy, calls);
+                batch.parallelStream().forEach(this::resolveNode);
+                for (final var processed : batch) {
+                    if (processed instanceof ExplicitCallGraph.ExplicitNode) {
+                        ((ExplicitCallGraph.ExplicitNode) processed).clearAllTargets();
+                    }
                 }
+                batches.accept(calls);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Add the calls of a node of a {@link ParallelChaCallGraph} to the graphs of all strategies.
+     */
+    private void resolveMethod(final IMethod method) {
+        if (!method.getDeclaringClass().getClassLoader().getReference()
+            .equals(ClassLoaderReference.Application)) {
+            return;
+        }
+        final var source = analysisContext.findOrCreate(method.getReference());
+        source.oroginalLoader = Optional.of(method);
+        for (final var callSite : chaCallGraph.getCallSites(method)) {
+            for (final var strategy : graphs.entrySet()) {
+                resolveCall(source, method, callSite, strategy.getKey(),
+                    () -> chaCallGraph.getPossibleTargets(callSite), strategy.getValue());
             }
-        });
+        }
     }
 
-    private Map<Object, Object> getCallSiteMetadata(final CallSiteReference callSite,
-                                                    final IMethod method) {
-        final var callType = getInvocationLabel(callSite);
-        final var pc = callSite.getProgramCounter();
+    /**
+     * Add the calls of a node of a WALA call graph to the graphs of all strategies.
+     */
+    private void resolveNode(final CGNode sourceNode) {
+        final var nodeReference = sourceNode.getMethod().getReference();
+
+        if (applicationClassLoaderFilter.test(sourceNode)) {
+            return;
+        }
+
+        final var source = analysisContext.findOrCreate(nodeReference);
+        source.oroginalLoader = Optional.of(sourceNode.getMethod());
 
-        final var type = Method.getType(callSite.getDeclaredTarget().getDeclaringClass());
-        final var lineNumber = method.getLineNumber(pc);
+        for (final var callSites = sourceNode.iterateCallSites(); callSites.hasNext(); ) {
+            final var callSite = callSites.next();
+            for (final var strategy : graphs.entrySet()) {
+                resolveCall(source, sourceNode.getMethod(), callSite, strategy.getKey(),
+                    () -> rawCallGraph.getPossibleTargets(sourceNode, callSite).stream()
+                        .map(CGNode::getMethod).collect(Collectors.toList()),
+                    strategy.getValue());
+            }
+        }
+    }
+
+    /**
+     * Add the calls of a call site according to the call preservation strategy.
+     *
+     * @param source        Caller
+     * @param sourceMethod  Method of the caller
+     * @param callSite      Call site in the caller
+     * @param strategy      Call preservation strategy
+     * @param targets       Possible targets of the call site, only needed for
+     *                      {@link CallPreservationStrategy#INCLUDING_ALL_SUBTYPES}
+     * @param calls         Graph of the strategy
+     */
+    private void resolveCall(final Method source, final IMethod sourceMethod,
+                             final CallSiteReference callSite,
+                             final CallPreservationStrategy strategy,
+                             final Supplier<Collection<IMethod>> targets,
+                             final Map<LongLongPair, Map<Object, Object>> calls) {
+        switch (strategy) {
+            case INCLUDING_ALL_SUBTYPES:
+                if (dispatchCones != null) {
+                    final var targetIDs = dispatchCones.getTargets(callSite,
+                        site -> addTargets(targets.get()));
+                    if (targetIDs.length > 0) {
+                        addCalls(classHierarchyAnalyzer.addMethodToScope(source,
+                            source.getReference().getDeclaringClass(), JavaScope.internalTypes),
+                            targetIDs, calls);
+                    }
+                    break;
+                }
+                for (final var possibleTarget : targets.get()) {
+                    final var targetCallSite = analysisContext.findOrCreate(
+                        correctClassLoader(possibleTarget.getReference()));
+                    addCallAndType(source, targetCallSite, emptyMap(), calls);
+                }
+                break;
+            case ONLY_STATIC_CALLSITES:
+                final var targetCallSite = analysisContext.findOrCreate(
+                    correctClassLoader(callSite.getDeclaredTarget()));
+                final var callSiteMetadata = getCallSiteMetadata(callSite.getProgramCounter(),
+                    callSite.getInvocationCode(), callSite.getDeclaredTarget(),
+                    sourceMethod.getLineNumber(callSite.getProgramCounter()));
+                addCallAndType(source, targetCallSite, callSiteMetadata, calls);
+                break;
+        }
+    }
+
+    /**
+     * Read the call sites of a method from its bytecode, the way {@link #resolveCalls} does for
+     * {@link CallPreservationStrategy#ONLY_STATIC_CALLSITES}, without adding them to the graph.
+     *
+     * @param method Method of the application class loader
+     * @return Call sites of the method
+     * @throws InvalidClassFileException cannot read the bytecode of the method
+     */
+    public List<CallSiteRecord> extractCallSites(final IMethod method)
+        throws InvalidClassFileException {
+        final List<CallSiteRecord> result = new ArrayList<>();
+        for (final var callSite : CodeScanner.getCallSites(method)) {
+            result.add(new CallSiteRecord(method.getReference(),
+                correctClassLoader(callSite.getDeclaredTarget()),
+                getCallSiteMetadata(callSite.getProgramCounter(), callSite.getInvocationCode(),
+                    callSite.getDeclaredTarget(),
+                    method.getLineNumber(callSite.getProgramCounter()))));
+        }
+        return result;
+    }
+
+    /**
+     * Turn a call site decoded by {@link CallSiteDecoder} into the record
+     * {@link #extractCallSites(IMethod)} returns for it. Creates WALA references, so it must not
+     * run concurrently with other lookups in the class hierarchy.
+     *
+     * @param source Method containing the call site
+     * @param invoke Decoded call site
+     * @return Call site
+     */
+    public CallSiteRecord toCallSiteRecord(final MethodReference source,
+                                           final CallSiteDecoder.Invoke invoke) {
+        final var declaredTarget = MethodReference.findOrCreate(
+            source.getDeclaringClass().getClassLoader(), invoke.classType, invoke.methodName,
+            invoke.methodSignature);
+        return new CallSiteRecord(source, correctClassLoader(declaredTarget),
+            getCallSiteMetadata(invoke.programCounter, invoke.dispatch, declaredTarget,
+                invoke.lineNumber));
+    }
+
+    /**
+     * Add a call site read by {@link #extractCallSites(IMethod)} to the graph.
+     *
+     * @param callSite Call site
+     */
+    public void addCallSite(final CallSiteRecord callSite) {
+        final var source = analysisContext.findOrCreate(callSite.source);
+        final var sourceMethod = cha.resolveMethod(callSite.source);
+        if (sourceMethod != null) {
+            source.oroginalLoader = Optional.of(sourceMethod);
+        }
+        final var target = analysisContext.findOrCreate(callSite.target);
+        addCallAndType(source, target, callSite.metadata, graph);
+    }
+
+    private Map<Object, Object> getCallSiteMetadata(final int pc,
+                                                    final IInvokeInstruction.IDispatch dispatch,
+                                                    final MethodReference declaredTarget,
+                                                    final int lineNumber) {
+        final var callType = getInvocationLabel(dispatch);
+
+        final var type = Method.getType(declaredTarget.getDeclaringClass());
         final var pcMetadata =
             new HashMap<>() {{
                 put(Constants.CALLSITE_LINE, lineNumber);
@@ -131,9 +399,11 @@ public class CallGraphAnalyzer {
      * @param source   Caller
      * @param target   Callee
      * @param metadata call-site metadata
+     * @param calls    graph to add the call to
      */
     private void addCallAndType(final Method source, final Method target,
-                                final Map<Object, Object> metadata) {
+                                final Map<Object, Object> metadata,
+                                final Map<LongLongPair, Map<Object, Object>> calls) {
 
         int sourceID;
         int targetID;
@@ -153,15 +423,69 @@ public class CallGraphAnalyzer {
             targetID = classHierarchyAnalyzer.addMethodToScope(target,
                 target.getReference().getDeclaringClass(), JavaScope.externalTypes);
         }
-        addCall(sourceID, targetID, metadata);
+        addCall(sourceID, targetID, metadata, calls);
+    }
+
+    /**
+     * Add the possible targets of a call site of an application method to the class hierarchy.
+     *
+     * @param targets Possible targets
+     * @return IDs of the targets
+     */
+    private int[] addTargets(final Collection<IMethod> targets) {
+        final var result = new int[targets.size()];
+        int i = 0;
+        for (final var possibleTarget : targets) {
+            final var target = analysisContext.findOrCreate(
+                correctClassLoader(possibleTarget.getReference()));
+            result[i++] = classHierarchyAnalyzer.addMethodToScope(target,
+                target.getReference().getDeclaringClass(), target instanceof InternalMethod
+                    ? JavaScope.internalTypes : JavaScope.externalTypes);
+        }
+        return result;
+    }
+
+    /**
+     * Add calls without call-site metadata from one source to many targets.
+     *
+     * @param sourceID  ID of the caller
+     * @param targetIDs IDs of the callees
+     * @param calls     Graph to add the calls to
+     */
+    private synchronized void addCalls(final int sourceID, final int[] targetIDs,
+                                       final Map<LongLongPair, Map<Object, Object>> calls) {
+        if (edgeBuffer != null) {
+            for (final var targetID : targetIDs) {
+                spill(sourceID, targetID, Collections.emptyMap());
+            }
+            return;
+        }
+        for (final var targetID : targetIDs) {
+            calls.computeIfAbsent(LongLongPair.of(sourceID, targetID),
+                call -> new HashMap<>());
+        }
     }
 
     private synchronized void addCall(int sourceID, int targetID,
-                                      final Map<Object, Object> metadata) {
-        final var old = this.graph
+                                      final Map<Object, Object> metadata,
+                                      final Map<LongLongPair, Map<Object, Object>> calls) {
+        if (edgeBuffer != null) {
+            spill(sourceID, targetID, metadata);
+            return;
+        }
+        final var old = calls
             .getOrDefault(LongLongPair.of(sourceID, targetID), new HashMap<>());
         old.putAll(metadata);
-        this.graph.put(LongLongPair.of(sourceID, targetID), old);
+        calls.put(LongLongPair.of(sourceID, targetID), old);
+    }
+
+    private void spill(final int sourceID, final int targetID,
+                       final Map<Object, Object> metadata) {
+        try {
+            edgeBuffer.add(sourceID, targetID, metadata);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
     /**
@@ -180,7 +504,7 @@ public class CallGraphAnalyzer {
      * @return Method reference with correct class loader
      */
     private MethodReference correctClassLoader(final MethodReference reference) {
-        IClass klass = rawCallGraph.getClassHierarchy().lookupClass(reference.getDeclaringClass());
+        IClass klass = cha.lookupClass(reference.getDeclaringClass());
 
         if (klass == null) {
             return MethodReference.findOrCreate(ClassLoaderReference.Extension,
@@ -196,12 +520,12 @@ public class CallGraphAnalyzer {
     /**
      * Get call type.
      *
-     * @param callSite Call site
+     * @param dispatch Dispatch of the call site
      * @return Call type
      */
-    private String getInvocationLabel(final CallSiteReference callSite) {
+    private String getInvocationLabel(final IInvokeInstruction.IDispatch dispatch) {
 
-        switch ((IInvokeInstruction.Dispatch) callSite.getInvocationCode()) {
+        switch ((IInvokeInstruction.Dispatch) dispatch) {
             case INTERFACE:
                 return CallType.INTERFACE.label;
             case VIRTUAL:
@@ -0,0 +1,155 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+import com.ibm.wala.shrikeBT.IInstruction;
+import com.ibm.wala.shrikeBT.IInvokeInstruction;
+import com.ibm.wala.shrikeBT.shrikeCT.CTDecoder;
+import com.ibm.wala.shrikeCT.ClassReader;
+import com.ibm.wala.shrikeCT.CodeReader;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.shrikeCT.LineNumberTableReader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads the invoke instructions of methods from a Shrike {@link ClassReader}, the way WALA does
+ * when it scans the call sites of a method, but without touching any WALA type, reference or
+ * class hierarchy.
+ *
+ * <p>WALA fills its bytecode, reference and class hierarchy caches lazily and without
+ * synchronization, so they are only used from one thread at a time. A {@link ClassReader} is
+ * immutable once created, so the call sites of different classes can be decoded from their
+ * readers on many threads, and turned into WALA references afterwards.
+ */
+public final class CallSiteDecoder {
+
+    private CallSiteDecoder() {
+    }
+
+    /**
+     * An invoke instruction, with its declared target in class file format.
+     */
+    public static class Invoke {
+
+        /** Bytecode index of the instruction. */
+        public final int programCounter;
+
+        /** Source line of the instruction, or -1 if it is unknown. */
+        public final int lineNumber;
+
+        /** Declaring class of the target, like {@code Ljava/lang/Object;}. */
+        public final String classType;
+
+        /** Name of the target. */
+        public final String methodName;
+
+        /** Descriptor of the target. */
+        public final String methodSignature;
+
+        /** Dispatch of the instruction. */
+        public final IInvokeInstruction.IDispatch dispatch;
+
+        private Invoke(final int programCounter, final int lineNumber,
+                       final IInvokeInstruction instruction) {
+            this.programCounter = programCounter;
+            this.lineNumber = lineNumber;
+            this.classType = instruction.getClassType();
+            this.methodName = instruction.getMethodName();
+            this.methodSignature = instruction.getMethodSignature();
+            this.dispatch = instruction.getInvocationCode();
+        }
+    }
+
+    /**
+     * Decode the call sites of all methods of a class that have bytecode.
+     *
+     * @param reader Reader of the class file
+     * @return Call sites in bytecode order by the selector of their method, like
+     *     {@code toString()Ljava/lang/String;}
+     * @throws InvalidClassFileException the class file is malformed
+     */
+    public static Map<String, List<Invoke>> decodeClass(final ClassReader reader)
+        throws InvalidClassFileException {
+        final Map<String, List<Invoke>> result = new HashMap<>();
+        for (int i = 0; i < reader.getMethodCount(); i++) {
+            final var callSites = decode(reader, i);
+            if (callSites != null) {
+                result.put(reader.getMethodName(i) + reader.getMethodType(i), callSites);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Decode the call sites of one method of a class.
+     *
+     * @param reader   Reader of the class file
+     * @param selector Name and descriptor of the method, like {@code toString()Ljava/lang/String;}
+     * @return Call sites in bytecode order, empty if the method has no bytecode
+     * @throws InvalidClassFileException the class file is malformed
+     */
+    public static List<Invoke> decodeMethod(final ClassReader reader, final String selector)
+        throws InvalidClassFileException {
+        for (int i = 0; i < reader.getMethodCount(); i++) {
+            if (selector.equals(reader.getMethodName(i) + reader.getMethodType(i))) {
+                final var callSites = decode(reader, i);
+                return callSites == null ? new ArrayList<>() : callSites;
+            }
+        }
+        return new ArrayList<>();
+    }
+
+    /**
+     * Decode the invoke instructions of a method.
+     *
+     * @param reader Reader of the class file
+     * @param method Index of the method in the class file
+     * @return Call sites in bytecode order, or null if the method has no code attribute
+     * @throws InvalidClassFileException the class file is malformed
+     */
+    private static List<Invoke> decode(final ClassReader reader, final int method)
+        throws InvalidClassFileException {
+        final var attributes = new ClassReader.AttrIterator();
+        reader.initMethodAttributeIterator(method, attributes);
+        for (; attributes.isValid(); attributes.advance()) {
+            if (!attributes.getName().equals("Code")) {
+                continue;
+            }
+            final var code = new CodeReader(attributes);
+            final var decoder = new CTDecoder(code);
+            decoder.decode();
+            final IInstruction[] instructions = decoder.getInstructions();
+            final int[] bytecodeIndices = decoder.getInstructionsToBytecodes();
+            final int[] lines = LineNumberTableReader.makeBytecodeToSourceMap(code);
+            final List<Invoke> result = new ArrayList<>();
+            for (int i = 0; i < instructions.length; i++) {
+                if (instructions[i] instanceof IInvokeInstruction) {
+                    final var pc = bytecodeIndices[i];
+                    final var line = lines == null || pc >= lines.length ? -1 : lines[pc];
+                    result.add(new Invoke(pc, line, (IInvokeInstruction) instructions[i]));
+                }
+            }
+            return result;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+import com.ibm.wala.types.MethodReference;
+import java.util.Map;
+
+/**
+ * A call site read from the bytecode of a method, independent of the class hierarchy and call
+ * graph it was read with.
+ */
+public class CallSiteRecord {
+
+    /** Method containing the call site. */
+    public final MethodReference source;
+
+    /** Declared target with the class loader it resolved to. */
+    public final MethodReference target;
+
+    /** Program counter mapped to line, invocation type and receiver type. */
+    public final Map<Object, Object> metadata;
+
+    /**
+     * Construct call site record.
+     *
+     * @param source   Method containing the call site
+     * @param target   Declared target of the call
+     * @param metadata Call-site metadata
+     */
+    public CallSiteRecord(final MethodReference source, final MethodReference target,
+                          final Map<Object, Object> metadata) {
+        this.source = source;
+        this.target = target;
+        this.metadata = metadata;
+    }
+}
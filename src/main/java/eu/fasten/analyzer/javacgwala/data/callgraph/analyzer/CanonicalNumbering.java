@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+import eu.fasten.core.data.JavaNode;
+import eu.fasten.core.data.JavaScope;
+import eu.fasten.core.data.JavaType;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongLongPair;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Renumbers the nodes of a call graph so that identical inputs produce identical output.
+ *
+ * <p>Node IDs handed out while the call graph is resolved depend on the order in which classes
+ * and call sites are reached. This pass sorts the types of every scope by URI and the methods of
+ * every type by URI, and then numbers the methods consecutively, internal types first. Call
+ * sites are ordered by their renumbered source and target. The pass is a sort of the nodes and
+ * of the calls, which is small compared to the analysis itself.
+ */
+public final class CanonicalNumbering {
+
+    private static final Comparator<Map.Entry<Long, JavaNode>> BY_URI =
+        Comparator.<Map.Entry<Long, JavaNode>, String>comparing(
+            method -> method.getValue().getUri().toString())
+            .thenComparing(Map.Entry::getKey);
+
+    private static final Comparator<LongLongPair> BY_SOURCE_AND_TARGET =
+        Comparator.comparingLong(LongLongPair::firstLong)
+            .thenComparingLong(LongLongPair::secondLong);
+
+    private final EnumMap<JavaScope, Map<String, JavaType>> classHierarchy;
+
+    private final List<Map<LongLongPair, Map<Object, Object>>> graphs;
+
+    /**
+     * Construct canonical numbering of a call graph. The methods of the given types are
+     * renumbered in place.
+     *
+     * @param classHierarchy Types by scope
+     * @param graph          Calls between the methods of the types
+     */
+    public CanonicalNumbering(final Map<JavaScope, Map<String, JavaType>> classHierarchy,
+                              final Map<LongLongPair, Map<Object, Object>> graph) {
+        this(classHierarchy, List.of(graph));
+    }
+
+    /**
+     * Construct canonical numbering of several call graphs over the same types, e.g. of
+     * different call preservation strategies. The methods of the given types are renumbered in
+     * place.
+     *
+     * @param classHierarchy Types by scope
+     * @param graphs         Calls between the methods of the types
+     */
+    public CanonicalNumbering(final Map<JavaScope, Map<String, JavaType>> classHierarchy,
+                              final List<Map<LongLongPair, Map<Object, Object>>> graphs) {
+        this.classHierarchy = new EnumMap<>(JavaScope.class);
+        final var ids = new Long2LongOpenHashMap();
+        ids.defaultReturnValue(-1);
+        for (final var scope : JavaScope.values()) {
+            final var types = classHierarchy.get(scope);
+            if (types == null) {
+                continue;
+            }
+            final var sorted = new TreeMap<>(types);
+            for (final var type : sorted.values()) {
+                renumber(type, ids);
+            }
+            this.classHierarchy.put(scope, sorted);
+        }
+
+        this.graphs = new ArrayList<>(graphs.size());
+        for (final var graph : graphs) {
+            final Map<LongLongPair, Map<Object, Object>> renumbered =
+                new TreeMap<>(BY_SOURCE_AND_TARGET);
+            for (final var call : graph.entrySet()) {
+                final var key = LongLongPair.of(id(ids, call.getKey().firstLong()),
+                    id(ids, call.getKey().secondLong()));
+                renumbered.put(key, call.getValue());
+            }
+            this.graphs.add(new LinkedHashMap<>(renumbered));
+        }
+    }
+
+    /**
+     * Get the types with renumbered methods, sorted by URI within every scope.
+     *
+     * @return Types by scope
+     */
+    public EnumMap<JavaScope, Map<String, JavaType>> getClassHierarchy() {
+        return classHierarchy;
+    }
+
+    /**
+     * Get the calls between renumbered methods, sorted by source and target.
+     *
+     * @return Calls and their call sites
+     */
+    public Map<LongLongPair, Map<Object, Object>> getGraph() {
+        return graphs.get(0);
+    }
+
+    /**
+     * Get all renumbered graphs in the order they were given.
+     *
+     * @return Calls and their call sites of every graph
+     */
+    public List<Map<LongLongPair, Map<Object, Object>>> getGraphs() {
+        return graphs;
+    }
+
+    private static void renumber(final JavaType type, final Long2LongOpenHashMap ids) {
+        final var methods = type.getMethods();
+        // copied, as the entries of open hash maps are views that do not survive clear()
+        final List<Map.Entry<Long, JavaNode>> sorted = new ArrayList<>(methods.size());
+        methods.forEach((id, node) -> sorted.add(new AbstractMap.SimpleImmutableEntry<>(id, node)));
+        sorted.sort(BY_URI);
+        methods.clear();
+        for (final var method : sorted) {
+            methods.put(id(ids, method.getKey()), method.getValue());
+        }
+    }
+
+    /**
+     * Get the new ID of a node, assigning the next free one on first use.
+     */
+    private static long id(final Long2LongOpenHashMap ids, final long old) {
+        var id = ids.get(old);
+        if (id < 0) {
+            id = ids.size();
+            ids.put(old, id);
+        }
+        return id;
+    }
+}
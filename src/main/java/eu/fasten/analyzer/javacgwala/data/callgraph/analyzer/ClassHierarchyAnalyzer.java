@@ -24,6 +24,7 @@ import com.ibm.wala.classLoader.IClass;
 import com.ibm.wala.classLoader.IClassLoader;
 import com.ibm.wala.classLoader.IMethod;
 import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
 import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.types.Selector;
 import com.ibm.wala.types.TypeReference;
@@ -37,6 +38,7 @@ import eu.fasten.core.data.JavaType;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -45,15 +47,23 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
+import org.apache.commons.lang3.tuple.Pair;
 
 public class ClassHierarchyAnalyzer {
 
-    private final CallGraph rawCallGraph;
+    private final IClassHierarchy cha;
     private final AnalysisContext analysisContext;
     private int counter;
     public final Map<JavaScope, Map<String, JavaType>> classHierarchy;
     public Set<Integer> methodsWithMetadata;
     public Map<Integer, Integer> methodKeys;
+
+    /** Scope and URI of the type of every method not released yet, see {@link #indexTypes}. */
+    private Long2ObjectOpenHashMap<Pair<JavaScope, String>> typeOf;
+
+    /** IDs of the methods handed over by {@link #release}. */
+    private BitSet released;
+
     /**
      * Construct class hierarchy analyzer.
      *
@@ -61,7 +71,17 @@ public class ClassHierarchyAnalyzer {
      */
     public ClassHierarchyAnalyzer(final CallGraph rawCallGraph,
                                   final AnalysisContext analysisContext) {
-        this.rawCallGraph = rawCallGraph;
+        this(rawCallGraph.getClassHierarchy(), analysisContext);
+    }
+
+    /**
+     * Construct class hierarchy analyzer.
+     *
+     * @param cha Class hierarchy in Wala format
+     */
+    public ClassHierarchyAnalyzer(final IClassHierarchy cha,
+                                  final AnalysisContext analysisContext) {
+        this.cha = cha;
         this.analysisContext = analysisContext;
         this.counter = -1;
         this.classHierarchy = new ConcurrentHashMap<>();
@@ -76,8 +96,7 @@ public class ClassHierarchyAnalyzer {
      * Add all classes in application scope to class hierarchy.
      */
     public void resolveCHA() throws NullPointerException {
-        IClassLoader classLoader = rawCallGraph.getClassHierarchy()
-            .getLoader(ClassLoaderReference.Application);
+        IClassLoader classLoader = cha.getLoader(ClassLoaderReference.Application);
         for (Iterator<IClass> it = classLoader.iterateAllClasses(); it.hasNext(); ) {
             IClass klass = it.next();
             processClass(klass);
@@ -96,7 +115,7 @@ public class ClassHierarchyAnalyzer {
      */
     public synchronized int addMethodToScope(final Method method, final TypeReference klassRef,
                                 final JavaScope scope) {
-        final var klass = this.rawCallGraph.getClassHierarchy().lookupClass(klassRef);
+        final var klass = this.cha.lookupClass(klassRef);
 
         final var typeMap = classHierarchy.get(scope);
         final var classURI = getClassURI(method);
@@ -110,7 +129,55 @@ public class ClassHierarchyAnalyzer {
         }
         final var javaTypeOfKlass = typeMap.get(classURI);
 
-        return addMethodToTypeIfNotExists(method, javaTypeOfKlass);
+        return addMethodToTypeIfNotExists(method, scope, classURI, javaTypeOfKlass);
+    }
+
+    /**
+     * Start keeping track of the type of every method, as its ID is assigned, until the method
+     * is released. Used to hand the class hierarchy over in parts while calls are resolved.
+     */
+    public synchronized void indexTypes() {
+        typeOf = new Long2ObjectOpenHashMap<>();
+        released = new BitSet();
+        for (final var scope : classHierarchy.entrySet()) {
+            for (final var type : scope.getValue().entrySet()) {
+                final var key = Pair.of(scope.getKey(), type.getKey());
+                for (final var id : type.getValue().getMethods().keySet()) {
+                    typeOf.put((long) id, key);
+                }
+            }
+        }
+    }
+
+    /**
+     * Find the type of a method that has not been released yet.
+     *
+     * @param id ID of the method
+     * @return Scope and URI of the type or null if the method is unknown or released
+     */
+    public synchronized Pair<JavaScope, String> getTypeOf(final long id) {
+        return typeOf.get(id);
+    }
+
+    /**
+     * Drop the methods of types that have been handed over. The types stay in the class
+     * hierarchy and only collect methods added afterwards. Released methods are never added
+     * again, with or without metadata, so every method is handed over once. The methods of
+     * application classes get their metadata in {@link #resolveCHA()}, before any is released.
+     *
+     * @param types Types by scope
+     */
+    public synchronized void release(final Map<JavaScope, Map<String, JavaType>> types) {
+        for (final var scope : types.values()) {
+            for (final var type : scope.values()) {
+                for (final var id : type.getMethods().keySet()) {
+                    released.set(id.intValue());
+                    typeOf.remove((long) id);
+                }
+                type.getMethods().clear();
+                type.getDefinedMethods().clear();
+            }
+        }
     }
 
     private void addClassRefToCHA(final JavaScope scope,
@@ -212,11 +279,12 @@ public class ClassHierarchyAnalyzer {
                 addClassToCHA(method.getDeclaringClass(), scope, classURI);
             }
             var type = classHierarchy.get(scope).get(classURI);
-            addMethodToTypeIfNotExists(methodNode, type);
+            addMethodToTypeIfNotExists(methodNode, scope, classURI, type);
         }
     }
 
-    private int addMethodToTypeIfNotExists(final Method method, JavaType type) {
+    private int addMethodToTypeIfNotExists(final Method method, final JavaScope scope,
+                                           final String classURI, JavaType type) {
 
         final var hashCode = method.hashCode();
         int key;
@@ -227,6 +295,9 @@ public class ClassHierarchyAnalyzer {
 
         if (methodKeys.containsKey(hashCode)) {
             key = methodKeys.get(hashCode);
+            if (released != null && released.get(key)) {
+                return key;
+            }
         } else {
             key = ++counter;
             methodKeys.put(hashCode, key);
@@ -235,19 +306,23 @@ public class ClassHierarchyAnalyzer {
         if (method.oroginalLoader.isPresent()) {
             final var metadata = extractNodeMetadata(method.oroginalLoader.get());
             final var javaNode = new JavaNode(method.toSchemalessURI(), metadata);
-            addMethodToType(type, javaNode, key);
+            addMethodToType(scope, classURI, type, javaNode, key);
             methodsWithMetadata.add(hashCode);
             if (((boolean) metadata.getOrDefault(Constants.IS_DEFINED, "false"))) {
                 type.addDefinedMethod(javaNode.getSignature(), javaNode);
             }
         } else {
-            addMethodToType(type, getJavaNodeWithEmptyMetadata(method), key);
+            addMethodToType(scope, classURI, type, getJavaNodeWithEmptyMetadata(method), key);
         }
         return key;
     }
 
-    private synchronized void addMethodToType(JavaType type, JavaNode method, int key) {
+    private synchronized void addMethodToType(final JavaScope scope, final String classURI,
+                                              JavaType type, JavaNode method, int key) {
         type.addMethod(method, key);
+        if (typeOf != null) {
+            typeOf.put(key, Pair.of(scope, classURI));
+        }
     }
 
     private Map<String, Object> extractNodeMetadata(final IMethod loader) {
@@ -297,7 +372,8 @@ public class ClassHierarchyAnalyzer {
         final List<FastenURI> interfaces = new ArrayList<>();
 
         for (final var implementedInterface : klass.getAllImplementedInterfaces()) {
-            interfaces.add(FastenURI.create(getClassURI(implementedInterface.getReference())));
+            interfaces.add(
+                analysisContext.typeUri(getClassURI(implementedInterface.getReference())));
         }
 
         final var superclass = klass.getSuperclass();
@@ -324,7 +400,7 @@ public class ClassHierarchyAnalyzer {
      */
     private LinkedList<FastenURI> superClassHierarchy(final IClass klass,
                                                       final LinkedList<FastenURI> aux) {
-        aux.add(FastenURI.create(getClassURI(klass.getReference())));
+        aux.add(analysisContext.typeUri(getClassURI(klass.getReference())));
         if (klass.getSuperclass() == null) {
             return aux;
         }
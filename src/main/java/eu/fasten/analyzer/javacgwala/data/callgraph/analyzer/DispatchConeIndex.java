@@ -0,0 +1,63 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.types.MethodReference;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Node IDs of the possible targets of call sites by declared target. In a CHA call graph the
+ * targets of a call site depend only on its declared target, the receiver type and selector,
+ * and on whether it dispatches, so the cone of a hot method such as {@code Iterator.next} is
+ * resolved and added to the class hierarchy once and then shared by all its call sites.
+ *
+ * <p>The returned arrays are shared and must not be modified.
+ */
+public class DispatchConeIndex {
+
+    private final Map<MethodReference, int[]> dispatchTargets = new ConcurrentHashMap<>();
+
+    private final Map<MethodReference, int[]> staticTargets = new ConcurrentHashMap<>();
+
+    /**
+     * Get the target IDs of a call site, resolving them on first use of its declared target.
+     *
+     * @param callSite Call site
+     * @param resolver Resolves the target IDs of a call site
+     * @return IDs of the possible targets
+     */
+    public int[] getTargets(final CallSiteReference callSite,
+                            final Function<CallSiteReference, int[]> resolver) {
+        final var targets = callSite.isDispatch() ? dispatchTargets : staticTargets;
+        return targets.computeIfAbsent(callSite.getDeclaredTarget(),
+            target -> resolver.apply(callSite));
+    }
+
+    /**
+     * Get the number of distinct declared targets resolved so far.
+     *
+     * @return Number of cones
+     */
+    public int size() {
+        return dispatchTargets.size() + staticTargets.size();
+    }
+}
@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Accumulates calls in external memory, for call graphs with more edges than fit in the heap.
+ *
+ * <p>Every call is packed into a 16 byte record of its source and target ID and a reference to
+ * its call-site metadata, and appended to a fixed-size direct buffer. Full buffers are sorted
+ * and kept as runs. When the runs exceed the memory budget, or the heap is nearly full, they
+ * are merged into one sorted run file in the temporary directory and their buffers are reused.
+ * {@link #merge(EdgeConsumer)} finally merges all runs and hands every distinct call over once,
+ * in the order of source and target ID.
+ *
+ * <p>Only the call-site metadata, which calls of {@code INCLUDING_ALL_SUBTYPES} graphs do not
+ * have, stays on the heap.
+ */
+public class SpillingEdgeBuffer implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpillingEdgeBuffer.class);
+
+    static final int RECORD_BYTES = 16;
+
+    /** Fraction of the maximum heap in use above which runs are spilled early. */
+    private static final double HEAP_PRESSURE = 0.85;
+
+    private static final long NO_METADATA = -1;
+
+    /**
+     * Receives merged calls.
+     */
+    @FunctionalInterface
+    public interface EdgeConsumer {
+
+        /**
+         * Receive a call.
+         *
+         * @param source   Source node ID
+         * @param target   Target node ID
+         * @param metadata Call-site metadata of all records of the call, may be empty
+         * @throws IOException cannot process the call
+         */
+        void accept(long source, long target, Map<Object, Object> metadata) throws IOException;
+    }
+
+    private final Path directory;
+
+    private final int chunkRecords;
+
+    private final long memoryBudget;
+
+    private final List<ByteBuffer> runs;
+
+    private final List<ByteBuffer> free;
+
+    private final List<Path> spilled;
+
+    private final List<Map<Object, Object>> metadata;
+
+    private ByteBuffer current;
+
+    private long records;
+
+    /**
+     * Construct spilling edge buffer.
+     *
+     * @param directory    Directory of the run files
+     * @param chunkRecords Number of records per direct buffer
+     * @param memoryBudget Maximum bytes of direct buffers held before runs are spilled
+     */
+    public SpillingEdgeBuffer(final Path directory, final int chunkRecords,
+                              final long memoryBudget) {
+        if (chunkRecords < 1 || (long) chunkRecords * RECORD_BYTES > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid number of records per chunk: "
+                + chunkRecords);
+        }
+        this.directory = directory;
+        this.chunkRecords = chunkRecords;
+        this.memoryBudget = memoryBudget;
+        this.runs = new ArrayList<>();
+        this.free = new ArrayList<>();
+        this.spilled = new ArrayList<>();
+        this.metadata = new ArrayList<>();
+    }
+
+    /**
+     * Add a call. The same call may be added several times, its metadata is merged.
+     *
+     * @param source   Source node ID
+     * @param target   Target node ID
+     * @param metadata Call-site metadata, not copied
+     * @throws IOException cannot spill runs
+     */
+    public synchronized void add(final long source, final long target,
+                                 final Map<Object, Object> metadata) throws IOException {
+        if (current == null) {
+            current = free.isEmpty()
+                ? ByteBuffer.allocateDirect(chunkRecords * RECORD_BYTES)
+                : free.remove(free.size() - 1);
+        }
+        var ref = NO_METADATA;
+        if (metadata != null && !metadata.isEmpty()) {
+            ref = this.metadata.size();
+            this.metadata.add(metadata);
+        }
+        current.putLong(source << 32 | (target & 0xFFFFFFFFL));
+        current.putLong(ref);
+        records++;
+        if (!current.hasRemaining()) {
+            finishChunk();
+        }
+    }
+
+    public int getChunkRecords() {
+        return chunkRecords;
+    }
+
+    /**
+     * Get the number of records added, including duplicates.
+     *
+     * @return Number of records
+     */
+    public synchronized long size() {
+        return records;
+    }
+
+    /**
+     * Get the number of run files written.
+     *
+     * @return Number of spilled runs
+     */
+    public synchronized int getSpilledRuns() {
+        return spilled.size();
+    }
+
+    /**
+     * Merge all runs and hand every distinct call over in the order of source and target ID.
+     *
+     * @param consumer Receives the calls
+     * @throws IOException cannot read a run file or the consumer failed
+     */
+    public synchronized void merge(final EdgeConsumer consumer) throws IOException {
+        if (current != null && current.position() > 0) {
+            finishChunk();
+        }
+        final PriorityQueue<Cursor> queue = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.key, b.key));
+        final List<Cursor> cursors = new ArrayList<>();
+        try {
+            for (final var run : runs) {
+                cursors.add(new BufferCursor(run.duplicate().flip()));
+            }
+            for (final var file : spilled) {
+                cursors.add(new FileCursor(file));
+            }
+            for (final var cursor : cursors) {
+                if (cursor.next()) {
+                    queue.add(cursor);
+                }
+            }
+            while (!queue.isEmpty()) {
+                final var key = queue.peek().key;
+                Map<Object, Object> merged = null;
+                while (!queue.isEmpty() && queue.peek().key == key) {
+                    final var cursor = queue.poll();
+                    if (cursor.meta != NO_METADATA) {
+                        final var callSites = metadata.get((int) cursor.meta);
+                        if (merged == null) {
+                            merged = new HashMap<>(callSites);
+                        } else {
+                            merged.putAll(callSites);
+                        }
+                    }
+                    if (cursor.next()) {
+                        queue.add(cursor);
+                    }
+                }
+                consumer.accept(key >>> 32, key & 0xFFFFFFFFL,
+                    merged == null ? new HashMap<>() : merged);
+            }
+        } finally {
+            for (final var cursor : cursors) {
+                cursor.close();
+            }
+        }
+    }
+
+    /**
+     * Delete the run files and release the buffers.
+     *
+     * @throws IOException cannot delete a run file
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (final var file : spilled) {
+            Files.deleteIfExists(file);
+        }
+        spilled.clear();
+        runs.clear();
+        free.clear();
+        metadata.clear();
+        current = null;
+    }
+
+    /**
+     * Sort the current buffer into a run and spill the runs if they exceed the budget.
+     */
+    private void finishChunk() throws IOException {
+        sort(current);
+        runs.add(current);
+        current = null;
+        final var runtime = Runtime.getRuntime();
+        final var usedHeap = runtime.totalMemory() - runtime.freeMemory();
+        if ((long) runs.size() * chunkRecords * RECORD_BYTES > memoryBudget
+            || usedHeap > HEAP_PRESSURE * runtime.maxMemory()) {
+            spill();
+        }
+    }
+
+    /**
+     * Sort the records of a buffer by source and target.
+     */
+    private static void sort(final ByteBuffer buffer) {
+        final var count = buffer.position() / RECORD_BYTES;
+        final var keys = new long[count];
+        final var metas = new long[count];
+        buffer.flip();
+        for (int i = 0; i < count; i++) {
+            keys[i] = buffer.getLong();
+            metas[i] = buffer.getLong();
+        }
+        LongArrays.radixSort(keys, metas);
+        buffer.clear();
+        for (int i = 0; i < count; i++) {
+            buffer.putLong(keys[i]);
+            buffer.putLong(metas[i]);
+        }
+    }
+
+    /**
+     * Merge the runs held in memory into one run file and reuse their buffers.
+     */
+    private void spill() throws IOException {
+        final var file = Files.createTempFile(directory, "edges-", ".run");
+        file.toFile().deleteOnExit();
+        final PriorityQueue<BufferCursor> queue = new PriorityQueue<>(
+            (a, b) -> Long.compare(a.key, b.key));
+        for (final var run : runs) {
+            final var cursor = new BufferCursor(run.duplicate().flip());
+            if (cursor.next()) {
+                queue.add(cursor);
+            }
+        }
+        try (var out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            while (!queue.isEmpty()) {
+                final var cursor = queue.poll();
+                out.writeLong(cursor.key);
+                out.writeLong(cursor.meta);
+                if (cursor.next()) {
+                    queue.add(cursor);
+                }
+            }
+        }
+        spilled.add(file);
+        logger.info("Spilled {} records to {}", (long) runs.size() * chunkRecords, file);
+        for (final var run : runs) {
+            run.clear();
+            free.add(run);
+        }
+        runs.clear();
+    }
+
+    /**
+     * Position in a sorted run.
+     */
+    private abstract static class Cursor implements Closeable {
+
+        long key;
+
+        long meta;
+
+        abstract boolean next() throws IOException;
+
+        @Override
+        public void close() throws IOException {
+        }
+    }
+
+    private static class BufferCursor extends Cursor {
+
+        private final ByteBuffer buffer;
+
+        BufferCursor(final ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        boolean next() {
+            if (buffer.remaining() < RECORD_BYTES) {
+                return false;
+            }
+            key = buffer.getLong();
+            meta = buffer.getLong();
+            return true;
+        }
+    }
+
+    private static class FileCursor extends Cursor {
+
+        private final DataInputStream in;
+
+        FileCursor(final Path file) throws IOException {
+            this.in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        }
+
+        @Override
+        boolean next() throws IOException {
+            try {
+                key = in.readLong();
+                meta = in.readLong();
+                return true;
+            } catch (EOFException e) {
+                return false;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
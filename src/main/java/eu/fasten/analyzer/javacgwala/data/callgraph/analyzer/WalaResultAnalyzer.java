@@ -20,12 +20,24 @@ package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
 
 import com.ibm.wala.ipa.callgraph.CallGraph;
 import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.ParallelChaCallGraph;
+import eu.fasten.analyzer.javacgwala.data.output.CallGraphSink;
 import eu.fasten.core.data.CallPreservationStrategy;
 import eu.fasten.core.data.JavaGraph;
+import eu.fasten.core.data.JavaScope;
+import eu.fasten.core.data.JavaType;
 import eu.fasten.core.data.PartialJavaCallGraph;
+import it.unimi.dsi.fastutil.longs.LongLongPair;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -43,7 +55,19 @@ public class WalaResultAnalyzer {
     public static void wrap(final CallGraph rawCallGraph,
                             final PartialJavaCallGraph result,
                             final CallPreservationStrategy preservationStrategy) {
-        final NumberFormat timeFormatter = new DecimalFormat("#0.000");
+        wrap(rawCallGraph, Map.of(preservationStrategy, result));
+    }
+
+    /**
+     * Convert raw Wala call graph to one {@link PartialJavaCallGraph} per call preservation
+     * strategy in a single pass over the call sites. The graphs share their class hierarchy and
+     * node IDs.
+     *
+     * @param rawCallGraph Raw call graph in Wala format
+     * @param results      Partial call graph to fill by call preservation strategy
+     */
+    public static void wrap(final CallGraph rawCallGraph,
+                            final Map<CallPreservationStrategy, PartialJavaCallGraph> results) {
         logger.info("Wrapping call graph with {} nodes...", rawCallGraph.getNumberOfNodes());
         final long startTime = System.currentTimeMillis();
 
@@ -53,15 +77,293 @@ public class WalaResultAnalyzer {
             new ClassHierarchyAnalyzer(rawCallGraph, analysisContext);
         classHierarchyAnalyzer.resolveCHA();
         final var callGraphAnalyzer = new CallGraphAnalyzer(rawCallGraph, analysisContext, classHierarchyAnalyzer);
-        callGraphAnalyzer.resolveCalls(preservationStrategy);
+        callGraphAnalyzer.resolveCalls(results.keySet());
+
+        fill(classHierarchyAnalyzer, callGraphAnalyzer, results, startTime);
+    }
+
+    /**
+     * Convert call graph built by {@link ParallelChaCallGraph} to {@link PartialJavaCallGraph}.
+     *
+     * @param chaCallGraph         Parallel CHA call graph
+     * @param result               Partial call graph to fill
+     * @param preservationStrategy specifies if wrapper should only return call sites or resolved
+     *                             edges of the call graph.
+     */
+    public static void wrap(final ParallelChaCallGraph chaCallGraph,
+                            final PartialJavaCallGraph result,
+                            final CallPreservationStrategy preservationStrategy) {
+        wrap(chaCallGraph, Map.of(preservationStrategy, result));
+    }
+
+    /**
+     * Convert call graph built by {@link ParallelChaCallGraph} to one
+     * {@link PartialJavaCallGraph} per call preservation strategy in a single pass over the call
+     * sites. The graphs share their class hierarchy and node IDs.
+     *
+     * @param chaCallGraph Parallel CHA call graph
+     * @param results      Partial call graph to fill by call preservation strategy
+     */
+    public static void wrap(final ParallelChaCallGraph chaCallGraph,
+                            final Map<CallPreservationStrategy, PartialJavaCallGraph> results) {
+        logger.info("Wrapping call graph with {} nodes...", chaCallGraph.getNumberOfNodes());
+        final long startTime = System.currentTimeMillis();
+
+        final var analysisContext = new AnalysisContext(chaCallGraph.getClassHierarchy());
 
-        result.setClassHierarchy(new EnumMap<>(classHierarchyAnalyzer.classHierarchy));
-        result.setGraph(new JavaGraph(callGraphAnalyzer.graph));
+        final var classHierarchyAnalyzer =
+            new ClassHierarchyAnalyzer(chaCallGraph.getClassHierarchy(), analysisContext);
+        classHierarchyAnalyzer.resolveCHA();
+        final var callGraphAnalyzer =
+            new CallGraphAnalyzer(chaCallGraph, analysisContext, classHierarchyAnalyzer);
+        callGraphAnalyzer.resolveCalls(results.keySet());
 
-        logger.info("Wrapped call graph in {} seconds [calls/callsites: {}]",
+        fill(classHierarchyAnalyzer, callGraphAnalyzer, results, startTime);
+    }
+
+    /**
+     * Convert raw Wala call graph to chunks of a {@link PartialJavaCallGraph} that are handed to
+     * a sink as soon as their calls are resolved, so that the calls of the whole graph are never
+     * held at once. Node IDs are assigned in the order methods are found and are not canonical.
+     *
+     * @param rawCallGraph Raw call graph in Wala format
+     * @param header       Provides forge, product, version, timestamp and generator of the chunks
+     * @param strategy     Call preservation strategy
+     * @param sink         Receives the chunks
+     * @param batchSize    Maximum number of source nodes per chunk
+     * @throws IOException the sink cannot write a chunk
+     */
+    public static void wrap(final CallGraph rawCallGraph, final PartialJavaCallGraph header,
+                            final CallPreservationStrategy strategy, final CallGraphSink sink,
+                            final int batchSize) throws IOException {
+        final var analysisContext = new AnalysisContext(rawCallGraph.getClassHierarchy());
+        final var classHierarchyAnalyzer =
+            new ClassHierarchyAnalyzer(rawCallGraph, analysisContext);
+        classHierarchyAnalyzer.resolveCHA();
+        stream(classHierarchyAnalyzer,
+            new CallGraphAnalyzer(rawCallGraph, analysisContext, classHierarchyAnalyzer),
+            header, strategy, sink, batchSize);
+    }
+
+    /**
+     * Convert call graph built by {@link ParallelChaCallGraph} to chunks of a
+     * {@link PartialJavaCallGraph}, see
+     * {@link #wrap(CallGraph, PartialJavaCallGraph, CallPreservationStrategy, CallGraphSink, int)}.
+     * Nodes are released from the call graph once their chunk is written.
+     *
+     * @param chaCallGraph Parallel CHA call graph
+     * @param header       Provides forge, product, version, timestamp and generator of the chunks
+     * @param strategy     Call preservation strategy
+     * @param sink         Receives the chunks
+     * @param batchSize    Maximum number of source nodes per chunk
+     * @throws IOException the sink cannot write a chunk
+     */
+    public static void wrap(final ParallelChaCallGraph chaCallGraph,
+                            final PartialJavaCallGraph header,
+                            final CallPreservationStrategy strategy, final CallGraphSink sink,
+                            final int batchSize) throws IOException {
+        final var analysisContext = new AnalysisContext(chaCallGraph.getClassHierarchy());
+        final var classHierarchyAnalyzer =
+            new ClassHierarchyAnalyzer(chaCallGraph.getClassHierarchy(), analysisContext);
+        classHierarchyAnalyzer.resolveCHA();
+        stream(classHierarchyAnalyzer,
+            new CallGraphAnalyzer(chaCallGraph, analysisContext, classHierarchyAnalyzer),
+            header, strategy, sink, batchSize);
+    }
+
+    /**
+     * Convert raw Wala call graph to chunks of a {@link PartialJavaCallGraph}, accumulating all
+     * calls in external memory first, see {@link SpillingEdgeBuffer}. Chunks hold the calls in
+     * the order of source and target ID. Node IDs are not canonical.
+     *
+     * @param rawCallGraph Raw call graph in Wala format
+     * @param header       Provides forge, product, version, timestamp and generator of the chunks
+     * @param strategy     Call preservation strategy
+     * @param sink         Receives the chunks
+     * @param edges        Empty buffer of the calls, one chunk holds up to its chunk size of calls
+     * @throws IOException the sink or the buffer failed
+     */
+    public static void wrap(final CallGraph rawCallGraph, final PartialJavaCallGraph header,
+                            final CallPreservationStrategy strategy, final CallGraphSink sink,
+                            final SpillingEdgeBuffer edges) throws IOException {
+        final var analysisContext = new AnalysisContext(rawCallGraph.getClassHierarchy());
+        final var classHierarchyAnalyzer =
+            new ClassHierarchyAnalyzer(rawCallGraph, analysisContext);
+        classHierarchyAnalyzer.resolveCHA();
+        spill(classHierarchyAnalyzer,
+            new CallGraphAnalyzer(rawCallGraph, analysisContext, classHierarchyAnalyzer),
+            header, strategy, sink, edges);
+    }
+
+    /**
+     * Convert call graph built by {@link ParallelChaCallGraph} to chunks of a
+     * {@link PartialJavaCallGraph}, accumulating all calls in external memory first, see
+     * {@link #wrap(CallGraph, PartialJavaCallGraph, CallPreservationStrategy, CallGraphSink,
+     * SpillingEdgeBuffer)}.
+     *
+     * @param chaCallGraph Parallel CHA call graph
+     * @param header       Provides forge, product, version, timestamp and generator of the chunks
+     * @param strategy     Call preservation strategy
+     * @param sink         Receives the chunks
+     * @param edges        Empty buffer of the calls, one chunk holds up to its chunk size of calls
+     * @throws IOException the sink or the buffer failed
+     */
+    public static void wrap(final ParallelChaCallGraph chaCallGraph,
+                            final PartialJavaCallGraph header,
+                            final CallPreservationStrategy strategy, final CallGraphSink sink,
+                            final SpillingEdgeBuffer edges) throws IOException {
+        final var analysisContext = new AnalysisContext(chaCallGraph.getClassHierarchy());
+        final var classHierarchyAnalyzer =
+            new ClassHierarchyAnalyzer(chaCallGraph.getClassHierarchy(), analysisContext);
+        classHierarchyAnalyzer.resolveCHA();
+        spill(classHierarchyAnalyzer,
+            new CallGraphAnalyzer(chaCallGraph, analysisContext, classHierarchyAnalyzer),
+            header, strategy, sink, edges);
+    }
+
+    private static void stream(final ClassHierarchyAnalyzer classHierarchyAnalyzer,
+                               final CallGraphAnalyzer callGraphAnalyzer,
+                               final PartialJavaCallGraph header,
+                               final CallPreservationStrategy strategy,
+                               final CallGraphSink sink, final int batchSize)
+        throws IOException {
+        final NumberFormat timeFormatter = new DecimalFormat("#0.000");
+        final long startTime = System.currentTimeMillis();
+        final var emitter = new ChunkEmitter(classHierarchyAnalyzer, header, sink);
+        try {
+            callGraphAnalyzer.resolveCalls(strategy, batchSize, batch -> {
+                try {
+                    emitter.emit(batch);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        emitter.finish();
+        logger.info("Streamed call graph in {} seconds [{}: {}]",
+            timeFormatter.format((System.currentTimeMillis() - startTime) / 1000d),
+            strategy, emitter.calls);
+    }
+
+    private static void spill(final ClassHierarchyAnalyzer classHierarchyAnalyzer,
+                              final CallGraphAnalyzer callGraphAnalyzer,
+                              final PartialJavaCallGraph header,
+                              final CallPreservationStrategy strategy,
+                              final CallGraphSink sink, final SpillingEdgeBuffer edges)
+        throws IOException {
+        final NumberFormat timeFormatter = new DecimalFormat("#0.000");
+        final long startTime = System.currentTimeMillis();
+        callGraphAnalyzer.setEdgeBuffer(edges);
+        try {
+            callGraphAnalyzer.resolveCalls(strategy);
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        final var emitter = new ChunkEmitter(classHierarchyAnalyzer, header, sink);
+        final Map<LongLongPair, Map<Object, Object>> batch = new HashMap<>();
+        edges.merge((source, target, metadata) -> {
+            batch.put(LongLongPair.of(source, target), metadata);
+            if (batch.size() == edges.getChunkRecords()) {
+                emitter.emit(batch);
+                batch.clear();
+            }
+        });
+        emitter.emit(batch);
+        emitter.finish();
+        logger.info("Wrapped call graph through external memory in {} seconds "
+                + "[{}: {} calls, {} records, {} spilled runs]",
             timeFormatter.format((System.currentTimeMillis() - startTime) / 1000d),
-            callGraphAnalyzer.graph.size());
+            strategy, emitter.calls, edges.size(), edges.getSpilledRuns());
+    }
+
+    /**
+     * Hands batches of calls to a sink as chunks that carry the types the calls reference.
+     * Every method is handed over once, in the first chunk that references its type, and is
+     * released from the class hierarchy afterwards.
+     */
+    private static class ChunkEmitter {
 
+        private final ClassHierarchyAnalyzer classHierarchyAnalyzer;
+
+        private final PartialJavaCallGraph header;
+
+        private final CallGraphSink sink;
+
+        private long calls;
+
+        ChunkEmitter(final ClassHierarchyAnalyzer classHierarchyAnalyzer,
+                     final PartialJavaCallGraph header, final CallGraphSink sink) {
+            this.classHierarchyAnalyzer = classHierarchyAnalyzer;
+            this.header = header;
+            this.sink = sink;
+            classHierarchyAnalyzer.indexTypes();
+        }
+
+        void emit(final Map<LongLongPair, Map<Object, Object>> batch) throws IOException {
+            if (batch.isEmpty()) {
+                return;
+            }
+            final var hierarchy = classHierarchyAnalyzer.classHierarchy;
+            final var types = new EnumMap<JavaScope, Map<String, JavaType>>(JavaScope.class);
+            hierarchy.keySet().forEach(scope -> types.put(scope, new HashMap<>()));
+            for (final var call : batch.keySet()) {
+                for (final var id : new long[] {call.firstLong(), call.secondLong()}) {
+                    final var type = classHierarchyAnalyzer.getTypeOf(id);
+                    if (type != null) {
+                        types.get(type.getLeft()).put(type.getRight(),
+                            hierarchy.get(type.getLeft()).get(type.getRight()));
+                    }
+                }
+            }
+            calls += batch.size();
+            sink.accept(chunk(types, new JavaGraph(batch)));
+            classHierarchyAnalyzer.release(types);
+        }
+
+        /**
+         * Hand over the last chunk, which holds the methods no call has referenced so far.
+         */
+        void finish() throws IOException {
+            final var types = new EnumMap<JavaScope, Map<String, JavaType>>(JavaScope.class);
+            for (final var scope : classHierarchyAnalyzer.classHierarchy.entrySet()) {
+                final Map<String, JavaType> remaining = new HashMap<>();
+                scope.getValue().forEach((uri, type) -> {
+                    if (!type.getMethods().isEmpty()) {
+                        remaining.put(uri, type);
+                    }
+                });
+                types.put(scope.getKey(), remaining);
+            }
+            sink.accept(chunk(types, new JavaGraph()));
+            classHierarchyAnalyzer.release(types);
+        }
+
+        private PartialJavaCallGraph chunk(final EnumMap<JavaScope, Map<String, JavaType>> types,
+                                           final JavaGraph graph) {
+            return new PartialJavaCallGraph(header.forge, header.product, header.version,
+                header.timestamp, header.cgGenerator, types, graph);
+        }
+    }
+
+    private static void fill(final ClassHierarchyAnalyzer classHierarchyAnalyzer,
+                             final CallGraphAnalyzer callGraphAnalyzer,
+                             final Map<CallPreservationStrategy, PartialJavaCallGraph> results,
+                             final long startTime) {
+        final NumberFormat timeFormatter = new DecimalFormat("#0.000");
+        final List<CallPreservationStrategy> strategies =
+            new ArrayList<>(callGraphAnalyzer.graphs.keySet());
+        final var canonical = new CanonicalNumbering(classHierarchyAnalyzer.classHierarchy,
+            strategies.stream().map(callGraphAnalyzer.graphs::get).collect(Collectors.toList()));
+        for (int i = 0; i < strategies.size(); i++) {
+            final var result = results.get(strategies.get(i));
+            result.setClassHierarchy(new EnumMap<>(canonical.getClassHierarchy()));
+            result.setGraph(new JavaGraph(canonical.getGraphs().get(i)));
+            logger.info("Wrapped call graph in {} seconds [{} calls/callsites: {}]",
+                timeFormatter.format((System.currentTimeMillis() - startTime) / 1000d),
+                strategies.get(i), canonical.getGraphs().get(i).size());
+        }
     }
 
     public static void wrap(final CallGraph rawCallGraph, final PartialJavaCallGraph pcg) {
@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.hierarchy.ClassHierarchySnapshotStore;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.jar.JarFile;
+
+/**
+ * Size of an artifact, measured without building a class hierarchy. Class and method counts
+ * come from the cached class hierarchy snapshot of the artifact, sizes from the JAR
+ * directories.
+ */
+public class ArtifactProfile {
+
+    private final int classCount;
+
+    private final int methodCount;
+
+    private final long bytecodeSize;
+
+    private final int dependencyCount;
+
+    private final long dependencySize;
+
+    /**
+     * Construct artifact profile.
+     *
+     * @param classCount      Number of classes
+     * @param methodCount     Number of declared methods
+     * @param bytecodeSize    Uncompressed size of the class files in bytes
+     * @param dependencyCount Number of dependency JAR files
+     * @param dependencySize  Uncompressed size of the class files of the dependencies in bytes
+     */
+    public ArtifactProfile(final int classCount, final int methodCount, final long bytecodeSize,
+                           final int dependencyCount, final long dependencySize) {
+        this.classCount = classCount;
+        this.methodCount = methodCount;
+        this.bytecodeSize = bytecodeSize;
+        this.dependencyCount = dependencyCount;
+        this.dependencySize = dependencySize;
+    }
+
+    /**
+     * Measure an artifact and its dependencies.
+     *
+     * @param jar          JAR file of the artifact
+     * @param dependencies JAR files of the dependencies
+     * @return Profile of the artifact
+     * @throws IOException cannot read one of the JAR files
+     */
+    public static ArtifactProfile of(final File jar, final List<File> dependencies)
+        throws IOException {
+        final var snapshot = ClassHierarchySnapshotStore.getDefault().get(jar);
+        var methodCount = 0;
+        for (final var className : snapshot.getClassNames()) {
+            methodCount += snapshot.getMethods(className).size();
+        }
+        var dependencySize = 0L;
+        for (final var dependency : dependencies) {
+            dependencySize += bytecodeSize(dependency);
+        }
+        return new ArtifactProfile(snapshot.getClassCount(), methodCount, bytecodeSize(jar),
+            dependencies.size(), dependencySize);
+    }
+
+    private static long bytecodeSize(final File jar) throws IOException {
+        var result = 0L;
+        try (JarFile jarFile = new JarFile(jar)) {
+            final var entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final var entry = entries.nextElement();
+                if (entry.getName().endsWith(".class")) {
+                    result += Math.max(entry.getSize(), entry.getCompressedSize());
+                }
+            }
+        }
+        return result;
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    public int getMethodCount() {
+        return methodCount;
+    }
+
+    public long getBytecodeSize() {
+        return bytecodeSize;
+    }
+
+    public int getDependencyCount() {
+        return dependencyCount;
+    }
+
+    public long getDependencySize() {
+        return dependencySize;
+    }
+
+    /**
+     * Get the amount of bytecode that ends up in the analysis scope, which drives the cost of
+     * every algorithm.
+     *
+     * @return Size in kilobytes
+     */
+    public double getAnalyzedKilobytes() {
+        return (bytecodeSize + dependencySize) / 1024d;
+    }
+
+    @Override
+    public String toString() {
+        return "ArtifactProfile{classes=" + classCount + ", methods=" + methodCount
+            + ", bytecode=" + bytecodeSize + ", dependencies=" + dependencyCount
+            + ", dependencyBytecode=" + dependencySize + "}";
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import java.time.Duration;
+
+/**
+ * Limits of a single call graph generation. A generation that exceeds its budget is canceled
+ * with a {@link com.ibm.wala.util.CancelException}.
+ */
+public final class Budget {
+
+    /** Budget without limits. */
+    public static final Budget UNLIMITED = new Budget(Duration.ZERO, 0);
+
+    private final Duration timeout;
+
+    private final long maxNodes;
+
+    /**
+     * Construct budget.
+     *
+     * @param timeout  Maximum duration of the generation, zero for no limit
+     * @param maxNodes Maximum number of call graph nodes, zero for no limit
+     */
+    public Budget(final Duration timeout, final long maxNodes) {
+        if (timeout.isNegative() || maxNodes < 0) {
+            throw new IllegalArgumentException("Budget limits must not be negative");
+        }
+        this.timeout = timeout;
+        this.maxNodes = maxNodes;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public boolean hasTimeout() {
+        return !timeout.isZero();
+    }
+
+    public boolean hasMaxNodes() {
+        return maxNodes > 0;
+    }
+
+    /**
+     * Create a budget with the same node limit and a different timeout.
+     *
+     * @param timeout Maximum duration of the generation, zero for no limit
+     * @return New budget
+     */
+    public Budget withTimeout(final Duration timeout) {
+        return new Budget(timeout, maxNodes);
+    }
+
+    @Override
+    public String toString() {
+        return "Budget{timeout=" + (hasTimeout() ? timeout : "none")
+            + ", maxNodes=" + (hasMaxNodes() ? maxNodes : "none") + "}";
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.EntryPointPolicy;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Builds a WALA call graph for an analysis scope. Strategies are registered per
+ * {@link eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm} in {@link CallGraphBuilders}.
+ */
+public interface CallGraphBuilderStrategy {
+
+    /**
+     * How the cost of a strategy grows with the size of the analyzed code.
+     */
+    enum Cost {
+        /** Proportional to the number of call sites, no points-to analysis. */
+        LINEAR,
+        /** Fixed point over allocated types or context-insensitive points-to sets. */
+        PROPAGATION,
+        /** Points-to analysis that distinguishes allocation sites or receivers. */
+        CONTEXT_SENSITIVE
+    }
+
+    Cost getCost();
+
+    /**
+     * Get the budget used when the caller does not give one.
+     *
+     * @return Default budget
+     */
+    Budget getDefaultBudget();
+
+    /**
+     * Get the entry points used when the caller does not choose them.
+     *
+     * @return Default entry point policy
+     */
+    EntryPointPolicy getDefaultEntryPoints();
+
+    /**
+     * Build a call graph.
+     *
+     * @param scope       Analysis scope
+     * @param entryPoints Selects the methods of application classes used as entry points
+     * @param budget      Limits of the generation
+     * @return Call graph
+     * @throws ClassHierarchyException cannot build the class hierarchy
+     * @throws CancelException         the generation exceeded its budget
+     */
+    CallGraph build(AnalysisScope scope, Predicate<IMethod> entryPoints, Budget budget)
+        throws ClassHierarchyException, CancelException;
+
+    /**
+     * Build a call graph on a class hierarchy that is shared with other builds. Strategies that
+     * cannot reuse a hierarchy build their own one from its scope.
+     *
+     * @param cha         Class hierarchy
+     * @param entryPoints Entry points
+     * @param budget      Limits of the generation
+     * @return Call graph
+     * @throws ClassHierarchyException cannot build the class hierarchy
+     * @throws CancelException         the generation exceeded its budget
+     */
+    default CallGraph build(final IClassHierarchy cha, final Iterable<Entrypoint> entryPoints,
+                            final Budget budget)
+        throws ClassHierarchyException, CancelException {
+        final Set<MethodReference> methods = new HashSet<>();
+        entryPoints.forEach(entryPoint -> methods.add(entryPoint.getMethod().getReference()));
+        return build(cha.getScope(), method -> methods.contains(method.getReference()), budget);
+    }
+}
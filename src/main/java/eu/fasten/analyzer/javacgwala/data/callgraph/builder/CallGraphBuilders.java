@@ -0,0 +1,93 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import com.ibm.wala.classLoader.Language;
+import com.ibm.wala.ipa.callgraph.impl.Util;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CallGraphBuilderStrategy.Cost;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Registry of the call graph builder strategy of every {@link Algorithm}.
+ *
+ * <p>Default budgets grow with the precision of the algorithm: CHA cannot be interrupted, RTA
+ * and 0-CFA may run for {@value #PROPAGATION_TIMEOUT_MINUTES} minutes, and the context
+ * sensitive variants are also limited to {@value #CONTEXT_SENSITIVE_MAX_NODES} call graph nodes
+ * because their size is hard to predict.
+ */
+public class CallGraphBuilders {
+
+    static final long PROPAGATION_TIMEOUT_MINUTES = 15;
+
+    static final long CONTEXT_SENSITIVE_MAX_NODES = 500_000;
+
+    private static final Map<Algorithm, CallGraphBuilderStrategy> strategies =
+        new EnumMap<>(Algorithm.class);
+
+    static {
+        final var propagationBudget =
+            new Budget(Duration.ofMinutes(PROPAGATION_TIMEOUT_MINUTES), 0);
+        final var contextSensitiveBudget = new Budget(
+            Duration.ofMinutes(PROPAGATION_TIMEOUT_MINUTES), CONTEXT_SENSITIVE_MAX_NODES);
+
+        register(Algorithm.CHA, new ChaBuilderStrategy());
+        register(Algorithm.RTA, new PropagationBuilderStrategy(Cost.PROPAGATION,
+            propagationBudget, Util::makeRTABuilder));
+        register(Algorithm.ZERO_CFA, new PropagationBuilderStrategy(Cost.PROPAGATION,
+            propagationBudget, (options, cache, cha, scope) ->
+                Util.makeZeroCFABuilder(Language.JAVA, options, cache, cha, scope)));
+        register(Algorithm.ZERO_ONE_CFA, new PropagationBuilderStrategy(
+            Cost.CONTEXT_SENSITIVE, contextSensitiveBudget, (options, cache, cha, scope) ->
+                Util.makeZeroOneCFABuilder(Language.JAVA, options, cache, cha, scope)));
+        register(Algorithm.ZERO_ONE_CONTAINER_CFA, new PropagationBuilderStrategy(
+            Cost.CONTEXT_SENSITIVE, contextSensitiveBudget,
+            Util::makeZeroOneContainerCFABuilder));
+    }
+
+    private CallGraphBuilders() {
+    }
+
+    /**
+     * Get the strategy of an algorithm.
+     *
+     * @param algorithm Call graph generation algorithm
+     * @return Builder strategy
+     */
+    public static synchronized CallGraphBuilderStrategy get(final Algorithm algorithm) {
+        final var strategy = strategies.get(algorithm);
+        if (strategy == null) {
+            throw new IllegalArgumentException("No call graph builder for " + algorithm);
+        }
+        return strategy;
+    }
+
+    /**
+     * Register the strategy of an algorithm, replacing the current one.
+     *
+     * @param algorithm Call graph generation algorithm
+     * @param strategy  Builder strategy
+     */
+    public static synchronized void register(final Algorithm algorithm,
+                                             final CallGraphBuilderStrategy strategy) {
+        strategies.put(algorithm, strategy);
+    }
+}
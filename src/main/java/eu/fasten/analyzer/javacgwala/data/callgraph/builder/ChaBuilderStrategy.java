@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.cha.CHACallGraph;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.EntryPointPolicy;
+import eu.fasten.analyzer.javacgwala.data.callgraph.EntryPointsGenerator;
+import java.util.function.Predicate;
+
+/**
+ * Class hierarchy analysis: every call site may dispatch to every override of its declared
+ * target. WALA gives no way to interrupt it, so budgets are not enforced.
+ */
+public class ChaBuilderStrategy implements CallGraphBuilderStrategy {
+
+    @Override
+    public Cost getCost() {
+        return Cost.LINEAR;
+    }
+
+    @Override
+    public Budget getDefaultBudget() {
+        return Budget.UNLIMITED;
+    }
+
+    @Override
+    public EntryPointPolicy getDefaultEntryPoints() {
+        return EntryPointPolicy.ALL;
+    }
+
+    @Override
+    public CallGraph build(final AnalysisScope scope, final Predicate<IMethod> entryPoints,
+                           final Budget budget)
+        throws ClassHierarchyException, CancelException {
+        final var cha = ClassHierarchyFactory.makeWithRoot(scope);
+        return build(cha, new EntryPointsGenerator(cha).getEntryPoints(entryPoints), budget);
+    }
+
+    @Override
+    public CallGraph build(final IClassHierarchy cha, final Iterable<Entrypoint> entryPoints,
+                           final Budget budget)
+        throws CancelException {
+        final var callGraph = new CHACallGraph(cha);
+        callGraph.init(entryPoints);
+        return callGraph;
+    }
+}
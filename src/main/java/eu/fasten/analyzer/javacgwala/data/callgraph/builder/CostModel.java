@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Predicts the time and memory an algorithm needs for an artifact. Both grow linearly with the
+ * analyzed bytecode on top of a fixed cost for loading the JDK. The slopes start at conservative
+ * priors and follow the observed runs as an exponential moving average, so predictions adapt to
+ * the machine and the kind of artifacts processed.
+ */
+public class CostModel {
+
+    /** Time to load the primordial classes, paid by every algorithm. */
+    static final double BASE_MILLIS = 3_000;
+
+    /** Heap used by the primordial classes. */
+    static final double BASE_BYTES = 256d * 1024 * 1024;
+
+    /** Weight of a new observation. */
+    static final double SMOOTHING = 0.3;
+
+    private final Map<Algorithm, double[]> slopes;
+
+    /**
+     * Construct cost model with the default priors.
+     */
+    public CostModel() {
+        this.slopes = new EnumMap<>(Algorithm.class);
+        // milliseconds and bytes of heap per kilobyte of analyzed bytecode
+        slopes.put(Algorithm.CHA, new double[] {1, 40 * 1024});
+        slopes.put(Algorithm.RTA, new double[] {4, 100 * 1024});
+        slopes.put(Algorithm.ZERO_CFA, new double[] {15, 300 * 1024});
+        slopes.put(Algorithm.ZERO_ONE_CFA, new double[] {60, 1024 * 1024});
+        slopes.put(Algorithm.ZERO_ONE_CONTAINER_CFA, new double[] {120, 2 * 1024 * 1024});
+    }
+
+    /**
+     * Predict the duration of a call graph generation.
+     *
+     * @param algorithm Call graph generation algorithm
+     * @param profile   Profile of the artifact
+     * @return Predicted duration in milliseconds
+     */
+    public synchronized double predictMillis(final Algorithm algorithm,
+                                             final ArtifactProfile profile) {
+        return BASE_MILLIS + slopes.get(algorithm)[0] * profile.getAnalyzedKilobytes();
+    }
+
+    /**
+     * Predict the heap used by a call graph generation.
+     *
+     * @param algorithm Call graph generation algorithm
+     * @param profile   Profile of the artifact
+     * @return Predicted heap usage in bytes
+     */
+    public synchronized double predictBytes(final Algorithm algorithm,
+                                            final ArtifactProfile profile) {
+        return BASE_BYTES + slopes.get(algorithm)[1] * profile.getAnalyzedKilobytes();
+    }
+
+    /**
+     * Learn from a finished call graph generation.
+     *
+     * @param algorithm Call graph generation algorithm
+     * @param profile   Profile of the artifact
+     * @param millis    Observed duration in milliseconds
+     * @param bytes     Observed heap usage in bytes
+     */
+    public synchronized void record(final Algorithm algorithm, final ArtifactProfile profile,
+                                    final long millis, final long bytes) {
+        final var kilobytes = profile.getAnalyzedKilobytes();
+        if (kilobytes < 1) {
+            return;
+        }
+        final var slope = slopes.get(algorithm);
+        slope[0] = update(slope[0], (millis - BASE_MILLIS) / kilobytes);
+        slope[1] = update(slope[1], (bytes - BASE_BYTES) / kilobytes);
+    }
+
+    private static double update(final double current, final double observed) {
+        return (1 - SMOOTHING) * current + SMOOTHING * Math.max(0, observed);
+    }
+
+    /**
+     * Load the slopes learned in earlier runs. Algorithms missing from the file keep their
+     * current slopes.
+     *
+     * @param file Properties file written by {@link #save(Path)}
+     * @throws IOException cannot read the file
+     */
+    public synchronized void load(final Path file) throws IOException {
+        final var properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        for (final var entry : slopes.entrySet()) {
+            final var millis = properties.getProperty(entry.getKey().label + ".millis");
+            final var bytes = properties.getProperty(entry.getKey().label + ".bytes");
+            if (millis != null && bytes != null) {
+                entry.getValue()[0] = Double.parseDouble(millis);
+                entry.getValue()[1] = Double.parseDouble(bytes);
+            }
+        }
+    }
+
+    /**
+     * Store the learned slopes.
+     *
+     * @param file Properties file
+     * @throws IOException cannot write the file
+     */
+    public synchronized void save(final Path file) throws IOException {
+        final var properties = new Properties();
+        for (final var entry : slopes.entrySet()) {
+            properties.setProperty(entry.getKey().label + ".millis",
+                Double.toString(entry.getValue()[0]));
+            properties.setProperty(entry.getKey().label + ".bytes",
+                Double.toString(entry.getValue()[1]));
+        }
+        try (OutputStream out = Files.newOutputStream(file)) {
+            properties.store(out, "Call graph generation cost per kilobyte of bytecode");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import com.ibm.wala.util.MonitorUtil.IProgressMonitor;
+import java.time.Duration;
+
+/**
+ * Progress monitor that cancels a WALA computation once a deadline has passed. WALA polls
+ * {@link #isCanceled()} between propagation steps and aborts with a
+ * {@link com.ibm.wala.util.CancelException}.
+ */
+public class DeadlineMonitor implements IProgressMonitor {
+
+    private final long deadline;
+
+    private volatile boolean canceled;
+
+    /**
+     * Construct monitor with a deadline relative to now.
+     *
+     * @param timeout Time after which the computation is canceled
+     */
+    public DeadlineMonitor(final Duration timeout) {
+        this.deadline = System.nanoTime() + timeout.toNanos();
+    }
+
+    @Override
+    public void beginTask(final String task, final int totalWork) {
+    }
+
+    @Override
+    public void subTask(final String subTask) {
+    }
+
+    @Override
+    public void cancel() {
+        canceled = true;
+    }
+
+    @Override
+    public boolean isCanceled() {
+        if (!canceled && System.nanoTime() - deadline > 0) {
+            canceled = true;
+        }
+        return canceled;
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void worked(final int units) {
+    }
+
+    @Override
+    public String getCancelMessage() {
+        return "Call graph generation exceeded its time budget";
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import com.ibm.wala.classLoader.CodeScanner;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.types.ClassLoaderReference;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import java.util.ArrayList;
+import java.util.List;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Removes entry points that cannot contribute calls to a points-to based call graph, using a CHA
+ * call graph of the same class hierarchy.
+ *
+ * <p>An entry point is trivial if CHA finds no call sites in it and it writes neither fields nor
+ * arrays. Its arguments, allocated by the fake root, then cannot flow anywhere. Allocating the
+ * receiver and the arguments also runs the class initializers of their types, so an entry point
+ * is only trivial if none of these types, nor their super classes, has an initializer outside of
+ * the JDK. Initializers of the JDK do not call application code.
+ *
+ * <p>Pruning is only sound for {@link #appliesTo(Algorithm) points-to analyses}. RTA keeps one
+ * global set of instantiated classes, so dropping the parameter allocations of an entry point
+ * can remove dispatch targets of unrelated call sites.
+ */
+public class EntryPointPruner {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntryPointPruner.class);
+
+    private final CallGraph chaCallGraph;
+
+    /**
+     * Construct entry point pruner.
+     *
+     * @param chaCallGraph CHA call graph built on the same class hierarchy as the pruned entry
+     *                     points
+     */
+    public EntryPointPruner(final CallGraph chaCallGraph) {
+        this.chaCallGraph = chaCallGraph;
+    }
+
+    /**
+     * Check whether trivial entry points can be left out of a call graph without losing calls.
+     *
+     * @param algorithm Call graph generation algorithm
+     * @return true for points-to analyses, false for CHA and RTA
+     */
+    public static boolean appliesTo(final Algorithm algorithm) {
+        return algorithm.compareTo(Algorithm.ZERO_CFA) >= 0;
+    }
+
+    /**
+     * Remove trivial entry points.
+     *
+     * @param entryPoints Entry points
+     * @return Entry points that are not trivial, in their original order
+     */
+    public List<Entrypoint> prune(final Iterable<Entrypoint> entryPoints) {
+        final List<Entrypoint> result = new ArrayList<>();
+        int pruned = 0;
+        for (final var entryPoint : entryPoints) {
+            if (isTrivial(entryPoint)) {
+                pruned++;
+            } else {
+                result.add(entryPoint);
+            }
+        }
+        logger.info("Pruned {} trivial entry points, {} are left", pruned, result.size());
+        return result;
+    }
+
+    /**
+     * Check whether an entry point cannot contribute calls.
+     *
+     * @param entryPoint Entry point
+     * @return true if the entry point can be left out
+     */
+    boolean isTrivial(final Entrypoint entryPoint) {
+        final var method = entryPoint.getMethod();
+        if (method.isNative() || method.isAbstract()) {
+            return false;
+        }
+        final var nodes = chaCallGraph.getNodes(method.getReference());
+        if (nodes.isEmpty()) {
+            return false;
+        }
+        for (final var node : nodes) {
+            if (node.iterateCallSites().hasNext()) {
+                return false;
+            }
+        }
+        if (initializes(method.getDeclaringClass())) {
+            return false;
+        }
+        final var cha = chaCallGraph.getClassHierarchy();
+        for (int i = 0; i < method.getNumberOfParameters(); i++) {
+            final var type = method.getParameterType(i).getInnermostElementType();
+            if (type.isPrimitiveType()) {
+                continue;
+            }
+            final var klass = cha.lookupClass(type);
+            // abstract types are replaced by allocations of their implementations
+            if (klass == null || klass.isAbstract() || klass.isInterface()
+                || initializes(klass)) {
+                return false;
+            }
+        }
+        try {
+            return CodeScanner.getFieldsWritten(method).isEmpty()
+                && CodeScanner.getArraysWritten(method).isEmpty();
+        } catch (InvalidClassFileException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Check whether allocating a class runs a class initializer outside of the JDK.
+     *
+     * @param klass Allocated class
+     * @return true if the class or one of its super classes has such an initializer
+     */
+    private static boolean initializes(final IClass klass) {
+        for (var current = klass; current != null; current = current.getSuperclass()) {
+            if (!current.getClassLoader().getReference().equals(ClassLoaderReference.Primordial)
+                && current.getClassInitializer() != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
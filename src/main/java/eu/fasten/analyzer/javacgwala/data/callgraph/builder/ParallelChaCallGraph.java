@@ -0,0 +1,312 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.classLoader.CodeScanner;
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.classLoader.ShrikeClass;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.cha.CHACallGraph;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.shrikeCT.ClassReader;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.CallSiteDecoder;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * CHA call graph with the nodes and edges of {@link CHACallGraph}, constructed in parallel.
+ *
+ * <p>{@link CHACallGraph#init(Iterable)} visits the methods reachable from the entry points one
+ * at a time. Here the reachable methods are discovered level by level: the call sites of all
+ * methods found in the previous level are read and resolved on a {@link ForkJoinPool}, and
+ * targets not seen before form the next level. Virtual and interface calls are resolved against
+ * a {@link SubtypeConeIndex} built before the traversal, and the targets of every declared
+ * target are cached, as {@link CHACallGraph} does per call site.
+ *
+ * <p>WALA fills its bytecode, reference and class hierarchy caches without synchronization, so
+ * they are only used from the thread calling {@link #make} or under the lock of the
+ * {@link SubtypeConeIndex}. The call sites of a level are decoded by {@link CallSiteDecoder} in
+ * parallel, from Shrike readers fetched beforehand, and turned into WALA references on the
+ * calling thread.
+ */
+public class ParallelChaCallGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParallelChaCallGraph.class);
+
+    private final IClassHierarchy cha;
+
+    private final SubtypeConeIndex cones;
+
+    private final Map<IMethod, List<CallSiteReference>> nodes;
+
+    private final Map<MethodReference, Set<IMethod>> dispatchTargets;
+
+    private final Map<MethodReference, Set<IMethod>> staticTargets;
+
+    private ParallelChaCallGraph(final IClassHierarchy cha) {
+        this.cha = cha;
+        this.cones = new SubtypeConeIndex(cha);
+        this.nodes = new ConcurrentHashMap<>();
+        this.dispatchTargets = new ConcurrentHashMap<>();
+        this.staticTargets = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Construct the call graph of the methods reachable from entry points.
+     *
+     * @param cha         Class hierarchy
+     * @param entryPoints Entry points of the call graph
+     * @param budget      Limits of the construction
+     * @param pool        Pool resolving the call sites
+     * @return Call graph
+     * @throws CancelException the construction exceeded its budget
+     */
+    public static ParallelChaCallGraph make(final IClassHierarchy cha,
+                                            final Iterable<Entrypoint> entryPoints,
+                                            final Budget budget, final ForkJoinPool pool)
+        throws CancelException {
+        final var callGraph = new ParallelChaCallGraph(cha);
+        callGraph.init(entryPoints, budget, pool);
+        return callGraph;
+    }
+
+    private void init(final Iterable<Entrypoint> entryPoints, final Budget budget,
+                      final ForkJoinPool pool) throws CancelException {
+        final var monitor = budget.hasTimeout() ? new DeadlineMonitor(budget.getTimeout()) : null;
+        final Set<IMethod> visited = ConcurrentHashMap.newKeySet();
+        List<IMethod> level = new ArrayList<>();
+        int programCounter = 0;
+        for (final var entryPoint : entryPoints) {
+            for (final var target : getPossibleTargets(entryPoint.makeSite(programCounter++))) {
+                if (visited.add(target)) {
+                    level.add(target);
+                }
+            }
+        }
+
+        int levels = 0;
+        while (!level.isEmpty()) {
+            if (monitor != null && monitor.isCanceled()) {
+                throw CancelException.make("CHA call graph exceeded " + budget);
+            }
+            if (budget.hasMaxNodes() && visited.size() > budget.getMaxNodes()) {
+                throw CancelException.make("CHA call graph exceeded " + budget);
+            }
+            final var current = level;
+            final var readers = getReaders(current);
+            final List<List<CallSiteDecoder.Invoke>> invokes =
+                new ArrayList<>(Collections.nCopies(current.size(), null));
+            run(pool, () -> IntStream.range(0, current.size()).parallel().forEach(i -> {
+                if (readers.get(i) == null) {
+                    return;
+                }
+                try {
+                    invokes.set(i, CallSiteDecoder.decodeMethod(readers.get(i),
+                        current.get(i).getSelector().toString()));
+                } catch (InvalidClassFileException e) {
+                    throw new IllegalStateException("Invalid bytecode in " + current.get(i), e);
+                }
+            }));
+            final List<List<CallSiteReference>> callSites = new ArrayList<>(current.size());
+            for (int i = 0; i < current.size(); i++) {
+                callSites.add(makeCallSites(current.get(i), invokes.get(i)));
+            }
+
+            final var next = new ConcurrentLinkedQueue<IMethod>();
+            run(pool, () -> IntStream.range(0, current.size()).parallel().forEach(i -> {
+                for (final var target : addNode(current.get(i), callSites.get(i))) {
+                    if (visited.add(target)) {
+                        next.add(target);
+                    }
+                }
+            }));
+            level = new ArrayList<>(next);
+            levels++;
+        }
+        logger.info("Built CHA call graph with {} nodes in {} levels", nodes.size(), levels);
+    }
+
+    /**
+     * Run a task on the pool and wait for it.
+     *
+     * @param pool Pool running the task
+     * @param task Task
+     * @throws CancelException the calling thread was interrupted
+     */
+    private static void run(final ForkJoinPool pool, final Runnable task)
+        throws CancelException {
+        try {
+            pool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw CancelException.make("Interrupted while building the CHA call graph");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Get the class file readers of the declaring classes of methods, once per class.
+     *
+     * @param methods Methods
+     * @return Reader of every method, null for classes not read by Shrike
+     */
+    private static List<ClassReader> getReaders(final List<IMethod> methods) {
+        final Map<IClass, ClassReader> readers = new HashMap<>();
+        final List<ClassReader> result = new ArrayList<>(methods.size());
+        for (final var method : methods) {
+            final var klass = method.getDeclaringClass();
+            if (!(klass instanceof ShrikeClass)) {
+                result.add(null);
+                continue;
+            }
+            var reader = readers.get(klass);
+            if (reader == null) {
+                reader = ((ShrikeClass) klass).getReader();
+                readers.put(klass, reader);
+            }
+            result.add(reader);
+        }
+        return result;
+    }
+
+    /**
+     * Create the call sites of a method, the way {@link CodeScanner} does.
+     *
+     * @param method  Reachable method
+     * @param invokes Decoded call sites of the method, or null to scan it with {@link CodeScanner}
+     * @return Call sites in bytecode order
+     */
+    private static List<CallSiteReference> makeCallSites(
+        final IMethod method, final List<CallSiteDecoder.Invoke> invokes) {
+        final List<CallSiteReference> result = new ArrayList<>();
+        if (invokes == null) {
+            try {
+                result.addAll(CodeScanner.getCallSites(method));
+            } catch (InvalidClassFileException e) {
+                throw new IllegalStateException("Invalid bytecode in " + method, e);
+            }
+            return result;
+        }
+        final var loader = method.getReference().getDeclaringClass().getClassLoader();
+        for (final var invoke : invokes) {
+            result.add(CallSiteReference.make(invoke.programCounter,
+                MethodReference.findOrCreate(loader, invoke.classType, invoke.methodName,
+                    invoke.methodSignature), invoke.dispatch));
+        }
+        return result;
+    }
+
+    /**
+     * Add a method with its call sites and resolve their targets.
+     *
+     * @param method    Reachable method
+     * @param callSites Call sites of the method
+     * @return Targets of all call sites of the method
+     */
+    private List<IMethod> addNode(final IMethod method, final List<CallSiteReference> callSites) {
+        final List<IMethod> targets = new ArrayList<>();
+        for (final var callSite : callSites) {
+            targets.addAll(getPossibleTargets(callSite));
+        }
+        nodes.put(method, callSites);
+        return targets;
+    }
+
+    public IClassHierarchy getClassHierarchy() {
+        return cha;
+    }
+
+    /**
+     * Get the methods reachable from the entry points.
+     *
+     * @return Nodes of the call graph
+     */
+    public Set<IMethod> getNodes() {
+        return nodes.keySet();
+    }
+
+    public int getNumberOfNodes() {
+        return nodes.size();
+    }
+
+    /**
+     * Get the call sites of a node.
+     *
+     * @param method Node of the call graph
+     * @return Call sites in bytecode order
+     */
+    public List<CallSiteReference> getCallSites(final IMethod method) {
+        return nodes.getOrDefault(method, Collections.emptyList());
+    }
+
+    /**
+     * Drop the call sites of a node that is no longer needed. The node is removed from the call
+     * graph.
+     *
+     * @param method Node of the call graph
+     */
+    public void release(final IMethod method) {
+        nodes.remove(method);
+    }
+
+    /**
+     * Get the non-abstract methods a call site can invoke.
+     *
+     * @param callSite Call site
+     * @return Possible targets
+     */
+    public Set<IMethod> getPossibleTargets(final CallSiteReference callSite) {
+        final var target = callSite.getDeclaredTarget();
+        if (callSite.isDispatch()) {
+            return dispatchTargets.computeIfAbsent(target,
+                t -> concrete(cones.getPossibleTargets(t)));
+        }
+        return staticTargets.computeIfAbsent(target, t -> {
+            final var resolved = cones.resolveMethod(t);
+            return resolved == null || resolved.isAbstract()
+                ? Collections.emptySet() : Collections.singleton(resolved);
+        });
+    }
+
+    private static Set<IMethod> concrete(final Set<IMethod> methods) {
+        return methods.stream().filter(method -> !method.isAbstract())
+            .collect(Collectors.toUnmodifiableSet());
+    }
+}
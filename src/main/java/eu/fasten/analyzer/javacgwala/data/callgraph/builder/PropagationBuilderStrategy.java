@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.AnalysisCacheImpl;
+import com.ibm.wala.ipa.callgraph.AnalysisOptions;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.callgraph.CallGraphBuilder;
+import com.ibm.wala.ipa.callgraph.Entrypoint;
+import com.ibm.wala.ipa.callgraph.IAnalysisCacheView;
+import com.ibm.wala.ipa.callgraph.propagation.InstanceKey;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.EntryPointPolicy;
+import eu.fasten.analyzer.javacgwala.data.callgraph.EntryPointsGenerator;
+import java.util.function.Predicate;
+
+/**
+ * Call graph built by one of WALA's propagation based builders, e.g. RTA or k-CFA. The time
+ * budget is enforced with a {@link DeadlineMonitor}, the node budget by WALA itself.
+ */
+public class PropagationBuilderStrategy implements CallGraphBuilderStrategy {
+
+    /**
+     * Creates a WALA call graph builder, matching the factory methods of
+     * {@link com.ibm.wala.ipa.callgraph.impl.Util}.
+     */
+    @FunctionalInterface
+    public interface BuilderFactory {
+        CallGraphBuilder<InstanceKey> create(AnalysisOptions options, IAnalysisCacheView cache,
+                                             IClassHierarchy cha, AnalysisScope scope);
+    }
+
+    private final Cost cost;
+
+    private final Budget defaultBudget;
+
+    private final BuilderFactory factory;
+
+    /**
+     * Construct propagation builder strategy.
+     *
+     * @param cost          Cost class of the builder
+     * @param defaultBudget Budget used when the caller does not give one
+     * @param factory       Creates the WALA builder
+     */
+    public PropagationBuilderStrategy(final Cost cost, final Budget defaultBudget,
+                                      final BuilderFactory factory) {
+        this.cost = cost;
+        this.defaultBudget = defaultBudget;
+        this.factory = factory;
+    }
+
+    @Override
+    public Cost getCost() {
+        return cost;
+    }
+
+    @Override
+    public Budget getDefaultBudget() {
+        return defaultBudget;
+    }
+
+    @Override
+    public EntryPointPolicy getDefaultEntryPoints() {
+        return EntryPointPolicy.PUBLIC_API;
+    }
+
+    @Override
+    public CallGraph build(final AnalysisScope scope, final Predicate<IMethod> entryPoints,
+                           final Budget budget)
+        throws ClassHierarchyException, CancelException {
+        final var cha = ClassHierarchyFactory.make(scope);
+        return build(cha, new EntryPointsGenerator(cha).getEntryPoints(entryPoints), budget);
+    }
+
+    @Override
+    public CallGraph build(final IClassHierarchy cha, final Iterable<Entrypoint> entryPoints,
+                           final Budget budget)
+        throws CancelException {
+        final var scope = cha.getScope();
+        final var options = new AnalysisOptions(scope, entryPoints);
+        if (budget.hasMaxNodes()) {
+            options.setMaxNumberOfNodes(budget.getMaxNodes());
+        }
+        final var builder = factory.create(options, new AnalysisCacheImpl(), cha, scope);
+        return builder.makeCallGraph(options,
+            budget.hasTimeout() ? new DeadlineMonitor(budget.getTimeout()) : null);
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import com.ibm.wala.classLoader.IClass;
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.cha.IClassHierarchy;
+import com.ibm.wala.types.MethodReference;
+import com.ibm.wala.types.Selector;
+import com.ibm.wala.types.TypeReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dispatch targets of virtual and interface calls, resolved the way
+ * {@link IClassHierarchy#getPossibleTargets(MethodReference)} does, but safe to query from
+ * several threads.
+ *
+ * <p>The cone of every class, the class itself and all its subclasses, and of every interface,
+ * its concrete implementors, is computed once up front. Looking up a class or a method lets WALA
+ * fill unsynchronized caches of the class hierarchy and of every super class and interface it
+ * visits, so all lookups are serialized on one lock. Their results are memoized in concurrent
+ * maps, so the lock is taken once per class and once per method of a class.
+ */
+public class SubtypeConeIndex {
+
+    private final IClassHierarchy cha;
+
+    private final Map<IClass, List<IClass>> cones;
+
+    /** Guards every lookup in the class hierarchy. */
+    private final Object lock;
+
+    private final Map<TypeReference, Optional<IClass>> classes;
+
+    private final Map<IClass, Map<Selector, Optional<IMethod>>> methods;
+
+    /**
+     * Construct the cone index of a class hierarchy.
+     *
+     * @param cha Class hierarchy
+     */
+    public SubtypeConeIndex(final IClassHierarchy cha) {
+        this.cha = cha;
+        this.cones = new HashMap<>();
+        this.lock = new Object();
+        this.classes = new ConcurrentHashMap<>();
+        this.methods = new ConcurrentHashMap<>();
+        for (final var klass : cha) {
+            if (klass.isInterface()) {
+                continue;
+            }
+            for (var superclass = klass; superclass != null;
+                 superclass = superclass.getSuperclass()) {
+                cones.computeIfAbsent(superclass, k -> new ArrayList<>()).add(klass);
+            }
+            if (!klass.isAbstract()) {
+                for (final var implemented : klass.getAllImplementedInterfaces()) {
+                    cones.computeIfAbsent(implemented, k -> new ArrayList<>()).add(klass);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the classes a call on a receiver of the given type can dispatch to.
+     *
+     * @param klass Declared receiver type
+     * @return Subclasses of a class including itself or concrete implementors of an interface
+     */
+    public List<IClass> getCone(final IClass klass) {
+        return cones.getOrDefault(klass, Collections.emptyList());
+    }
+
+    /**
+     * Get the methods a virtual or interface call can dispatch to.
+     *
+     * @param target Declared target of the call
+     * @return Possible targets, abstract ones included
+     */
+    public Set<IMethod> getPossibleTargets(final MethodReference target) {
+        final var declaringClass = lookupClass(target.getDeclaringClass());
+        if (declaringClass == null) {
+            return Collections.emptySet();
+        }
+        if (target.isInit()) {
+            final var resolved = getMethod(declaringClass, target.getSelector());
+            return resolved == null ? Collections.emptySet() : Collections.singleton(resolved);
+        }
+        final Set<IMethod> result = new LinkedHashSet<>();
+        for (final var klass : getCone(declaringClass)) {
+            final var method = getMethod(klass, target.getSelector());
+            if (method != null) {
+                result.add(method);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolve the method a static or special call invokes.
+     *
+     * @param target Declared target of the call
+     * @return Resolved method or null if it is not found
+     */
+    public IMethod resolveMethod(final MethodReference target) {
+        final var declaringClass = lookupClass(target.getDeclaringClass());
+        return declaringClass == null ? null : getMethod(declaringClass, target.getSelector());
+    }
+
+    /**
+     * Look up a class.
+     */
+    private IClass lookupClass(final TypeReference type) {
+        var result = classes.get(type);
+        if (result == null) {
+            synchronized (lock) {
+                result = Optional.ofNullable(cha.lookupClass(type));
+            }
+            classes.putIfAbsent(type, result);
+        }
+        return result.orElse(null);
+    }
+
+    private IMethod getMethod(final IClass klass, final Selector selector) {
+        final var declared = methods.computeIfAbsent(klass, k -> new ConcurrentHashMap<>());
+        var result = declared.get(selector);
+        if (result == null) {
+            synchronized (lock) {
+                result = Optional.ofNullable(klass.getMethod(selector));
+            }
+            declared.putIfAbsent(selector, result);
+        }
+        return result.orElse(null);
+    }
+}
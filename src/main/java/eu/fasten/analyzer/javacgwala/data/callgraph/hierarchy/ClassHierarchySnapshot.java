@@ -0,0 +1,403 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.hierarchy;
+
+import com.ibm.wala.shrikeCT.ClassConstants;
+import com.ibm.wala.shrikeCT.ClassReader;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.jar.JarFile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Class metadata of a single JAR file: class names, super classes, implemented interfaces,
+ * declared methods and types referenced from the constant pool. Class names use the internal
+ * JVM form, e.g. "java/lang/String".
+ *
+ * <p>The snapshot is stored in a compact binary form that can be memory-mapped:
+ * <pre>
+ *   int magic, int version, int stringCount, int classCount
+ *   int[stringCount + 1] string offsets
+ *   int[classCount] class record offsets
+ *   byte[] UTF-8 string data
+ *   class records: name, super (-1 if none), interfaces, references, methods
+ * </pre>
+ * All references inside class records are indices into the string table.
+ */
+public class ClassHierarchySnapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassHierarchySnapshot.class);
+
+    private static final int MAGIC = 0x46434853;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int classCount;
+    private final int stringOffsets;
+    private final int classOffsets;
+    private final Map<String, Integer> classIndex;
+
+    private ClassHierarchySnapshot(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a class hierarchy snapshot");
+        }
+        this.stringCount = buffer.getInt(8);
+        this.classCount = buffer.getInt(12);
+        this.stringOffsets = HEADER_SIZE;
+        this.classOffsets = stringOffsets + 4 * (stringCount + 1);
+
+        this.classIndex = new HashMap<>(classCount * 2);
+        for (int i = 0; i < classCount; i++) {
+            classIndex.put(string(buffer.getInt(recordOffset(i))), i);
+        }
+    }
+
+    /**
+     * Parse class files of a JAR file.
+     *
+     * @param jar JAR file
+     * @return Snapshot held on heap
+     * @throws IOException cannot read the JAR file
+     */
+    public static ClassHierarchySnapshot parse(final File jar) throws IOException {
+        final var encoder = new Encoder();
+        try (JarFile jarFile = new JarFile(jar)) {
+            final var entries = jarFile.entries();
+            while (entries.hasMoreElements()) {
+                final var entry = entries.nextElement();
+                if (!entry.getName().endsWith(".class")
+                    || entry.getName().endsWith("module-info.class")) {
+                    continue;
+                }
+                try (var in = jarFile.getInputStream(entry)) {
+                    encoder.addClass(new ClassReader(in.readAllBytes()));
+                } catch (InvalidClassFileException | IllegalArgumentException e) {
+                    logger.debug("Skipping invalid class file {} in {}", entry.getName(), jar);
+                }
+            }
+        }
+        return new ClassHierarchySnapshot(ByteBuffer.wrap(encoder.encode()));
+    }
+
+    /**
+     * Memory-map a snapshot stored in a file.
+     *
+     * @param file Snapshot file
+     * @return Snapshot backed by the mapped file
+     * @throws IOException cannot read the file or it is not a snapshot
+     */
+    public static ClassHierarchySnapshot load(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ClassHierarchySnapshot(
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Write the snapshot to a file.
+     *
+     * @param file Destination
+     * @throws IOException cannot write to the file
+     */
+    public void write(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            final var content = buffer.duplicate();
+            content.clear();
+            while (content.hasRemaining()) {
+                channel.write(content);
+            }
+        }
+    }
+
+    public Set<String> getClassNames() {
+        return Collections.unmodifiableSet(classIndex.keySet());
+    }
+
+    public boolean contains(final String className) {
+        return classIndex.containsKey(className);
+    }
+
+    public int getClassCount() {
+        return classCount;
+    }
+
+    /**
+     * Get the super class of a class.
+     *
+     * @param className Class name
+     * @return Super class name or null for java/lang/Object and unknown classes
+     */
+    public String getSuperclass(final String className) {
+        final var index = classIndex.get(className);
+        if (index == null) {
+            return null;
+        }
+        final var superclass = buffer.getInt(recordOffset(index) + 4);
+        return superclass < 0 ? null : string(superclass);
+    }
+
+    public List<String> getInterfaces(final String className) {
+        return list(className, 0);
+    }
+
+    public List<String> getReferencedTypes(final String className) {
+        return list(className, 1);
+    }
+
+    public List<String> getMethods(final String className) {
+        return list(className, 2);
+    }
+
+    /**
+     * Compute classes reachable from the given roots through super types and, optionally,
+     * through constant pool references. Subtypes of reachable dependency classes are reachable
+     * as well, since they are possible dispatch targets of calls on their super types. Subtypes
+     * of classes outside the layers, e.g. java/lang/Object, are not followed, otherwise nearly
+     * every class would be reachable. When a class is defined in several layers the first layer
+     * wins.
+     *
+     * @param roots            Class names to start from
+     * @param layers           Snapshots of the dependencies
+     * @param followReferences follow constant pool references in addition to super types
+     * @return Names of reachable classes defined in the layers
+     */
+    public static Set<String> reachableClasses(final Collection<String> roots,
+                                               final List<ClassHierarchySnapshot> layers,
+                                               final boolean followReferences) {
+        final Map<String, ClassHierarchySnapshot> definitions = new HashMap<>();
+        final Map<String, List<String>> subtypes = new HashMap<>();
+        for (final var layer : layers) {
+            for (final var className : layer.getClassNames()) {
+                if (definitions.putIfAbsent(className, layer) != null) {
+                    continue;
+                }
+                final var superclass = layer.getSuperclass(className);
+                if (superclass != null) {
+                    subtypes.computeIfAbsent(superclass, k -> new ArrayList<>()).add(className);
+                }
+                for (final var implemented : layer.getInterfaces(className)) {
+                    subtypes.computeIfAbsent(implemented, k -> new ArrayList<>()).add(className);
+                }
+            }
+        }
+
+        final Set<String> visited = new HashSet<>();
+        final Set<String> result = new LinkedHashSet<>();
+        final var worklist = new ArrayDeque<String>();
+        for (final var root : roots) {
+            if (root != null) {
+                worklist.add(root);
+            }
+        }
+
+        while (!worklist.isEmpty()) {
+            final var className = worklist.poll();
+            if (!visited.add(className)) {
+                continue;
+            }
+            final var layer = definitions.get(className);
+            if (layer == null) {
+                continue;
+            }
+            result.add(className);
+            worklist.addAll(subtypes.getOrDefault(className, Collections.emptyList()));
+            final var superclass = layer.getSuperclass(className);
+            if (superclass != null) {
+                worklist.add(superclass);
+            }
+            worklist.addAll(layer.getInterfaces(className));
+            if (followReferences) {
+                worklist.addAll(layer.getReferencedTypes(className));
+            }
+        }
+        return result;
+    }
+
+    private int recordOffset(final int classIndex) {
+        return buffer.getInt(classOffsets + 4 * classIndex);
+    }
+
+    /**
+     * Read one of the variable length lists of a class record.
+     *
+     * @param className Class name
+     * @param list      0 for interfaces, 1 for references and 2 for methods
+     * @return List of strings
+     */
+    private List<String> list(final String className, final int list) {
+        final var index = classIndex.get(className);
+        if (index == null) {
+            return Collections.emptyList();
+        }
+        int position = recordOffset(index) + 8;
+        for (int i = 0; i < list; i++) {
+            position += 4 + 4 * buffer.getInt(position);
+        }
+        final var size = buffer.getInt(position);
+        final List<String> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(string(buffer.getInt(position + 4 + 4 * i)));
+        }
+        return result;
+    }
+
+    private String string(final int index) {
+        final var start = buffer.getInt(stringOffsets + 4 * index);
+        final var end = buffer.getInt(stringOffsets + 4 * (index + 1));
+        final var bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Converts parsed class files to the binary snapshot format.
+     */
+    private static class Encoder {
+
+        private final Map<String, Integer> strings = new LinkedHashMap<>();
+        private final List<int[][]> classes = new ArrayList<>();
+
+        void addClass(final ClassReader reader) throws InvalidClassFileException {
+            final var name = intern(reader.getName());
+            final var superName = reader.getSuperName();
+            final var superclass = superName == null ? -1 : intern(superName);
+
+            final var interfaceNames = reader.getInterfaceNames();
+            final var interfaces = new int[interfaceNames.length];
+            for (int i = 0; i < interfaceNames.length; i++) {
+                interfaces[i] = intern(interfaceNames[i]);
+            }
+
+            final var cp = reader.getCP();
+            final Set<Integer> references = new LinkedHashSet<>();
+            for (int i = 1; i < cp.getItemCount(); i++) {
+                if (cp.getItemType(i) == ClassConstants.CONSTANT_Class) {
+                    final var referenced = toClassName(cp.getCPClass(i));
+                    if (referenced != null && !referenced.equals(reader.getName())) {
+                        references.add(intern(referenced));
+                    }
+                }
+            }
+
+            final var methods = new int[reader.getMethodCount()];
+            for (int i = 0; i < methods.length; i++) {
+                methods[i] = intern(reader.getMethodName(i) + reader.getMethodType(i));
+            }
+
+            classes.add(new int[][] {{name, superclass}, interfaces,
+                references.stream().mapToInt(Integer::intValue).toArray(), methods});
+        }
+
+        byte[] encode() throws IOException {
+            final var stringData = new ByteArrayOutputStream();
+            final var stringOffsets = new int[strings.size() + 1];
+            int i = 0;
+            for (final var string : strings.keySet()) {
+                stringOffsets[i++] = stringData.size();
+                stringData.write(string.getBytes(StandardCharsets.UTF_8));
+            }
+            stringOffsets[i] = stringData.size();
+
+            final var dataStart = HEADER_SIZE + 4 * (stringOffsets.length + classes.size());
+            final var recordsStart = dataStart + stringData.size();
+
+            final var records = new ByteArrayOutputStream();
+            final var recordsOut = new DataOutputStream(records);
+            final var recordOffsets = new int[classes.size()];
+            for (int c = 0; c < classes.size(); c++) {
+                recordOffsets[c] = recordsStart + recordsOut.size();
+                final var record = classes.get(c);
+                recordsOut.writeInt(record[0][0]);
+                recordsOut.writeInt(record[0][1]);
+                for (int list = 1; list < record.length; list++) {
+                    recordsOut.writeInt(record[list].length);
+                    for (final var value : record[list]) {
+                        recordsOut.writeInt(value);
+                    }
+                }
+            }
+            recordsOut.flush();
+
+            final var result = new ByteArrayOutputStream(recordsStart + records.size());
+            final var out = new DataOutputStream(result);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(strings.size());
+            out.writeInt(classes.size());
+            for (final var offset : stringOffsets) {
+                out.writeInt(dataStart + offset);
+            }
+            for (final var offset : recordOffsets) {
+                out.writeInt(offset);
+            }
+            stringData.writeTo(out);
+            records.writeTo(out);
+            out.flush();
+            return result.toByteArray();
+        }
+
+        private int intern(final String string) {
+            return strings.computeIfAbsent(string, s -> strings.size());
+        }
+
+        /**
+         * Convert a constant pool class entry to a class name, e.g. "[Ljava/lang/String;" to
+         * "java/lang/String".
+         *
+         * @param entry Constant pool class entry
+         * @return Class name or null for arrays of primitive types
+         */
+        private static String toClassName(final String entry) {
+            var name = entry;
+            while (name.startsWith("[")) {
+                name = name.substring(1);
+            }
+            if (name.startsWith("L") && name.endsWith(";")) {
+                return name.substring(1, name.length() - 1);
+            }
+            return name.length() == 1 && entry.startsWith("[") ? null : name;
+        }
+    }
+}
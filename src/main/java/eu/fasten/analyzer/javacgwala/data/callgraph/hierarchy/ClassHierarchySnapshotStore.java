@@ -0,0 +1,127 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.hierarchy;
+
+import eu.fasten.analyzer.javacgwala.data.Checksum;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps {@link ClassHierarchySnapshot}s of dependency JAR files on disk, keyed by the checksum
+ * of the JAR file, so a dependency shared by many analyzed artifacts is parsed only once.
+ * Snapshots that were already used by this process are kept memory-mapped.
+ */
+public class ClassHierarchySnapshotStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(ClassHierarchySnapshotStore.class);
+
+    private static final String SUFFIX = ".chs";
+
+    private static ClassHierarchySnapshotStore defaultStore;
+
+    private final Path directory;
+
+    private final Map<String, ClassHierarchySnapshot> loaded;
+
+    /**
+     * Construct snapshot store.
+     *
+     * @param directory Directory in which snapshots are stored
+     */
+    public ClassHierarchySnapshotStore(final Path directory) {
+        this.directory = directory;
+        this.loaded = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Get a store located in the temporary directory of the system.
+     *
+     * @return Default store
+     */
+    public static synchronized ClassHierarchySnapshotStore getDefault() {
+        if (defaultStore == null) {
+            defaultStore = new ClassHierarchySnapshotStore(
+                Paths.get(System.getProperty("java.io.tmpdir"), "fasten-cha-snapshots"));
+        }
+        return defaultStore;
+    }
+
+    /**
+     * Get snapshot of a JAR file, parsing and storing it if it is not in the store yet.
+     *
+     * @param jar JAR file
+     * @return Snapshot
+     * @throws IOException cannot read the JAR file
+     */
+    public ClassHierarchySnapshot get(final File jar) throws IOException {
+        final var checksum = Checksum.sha256(jar);
+        final var cached = loaded.get(checksum);
+        if (cached != null) {
+            return cached;
+        }
+
+        final var file = directory.resolve(checksum + SUFFIX);
+        ClassHierarchySnapshot snapshot = null;
+        if (Files.exists(file)) {
+            try {
+                snapshot = ClassHierarchySnapshot.load(file);
+            } catch (IOException e) {
+                logger.warn("Corrupted class hierarchy snapshot {}, re-parsing {}", file, jar);
+            }
+        }
+        if (snapshot == null) {
+            snapshot = ClassHierarchySnapshot.parse(jar);
+            store(snapshot, file);
+        }
+
+        final var previous = loaded.putIfAbsent(checksum, snapshot);
+        return previous == null ? snapshot : previous;
+    }
+
+    /**
+     * Write a snapshot to the store. The file is written under a temporary name and moved in
+     * place, so concurrent workers sharing the directory never see a partial snapshot.
+     *
+     * @param snapshot Snapshot
+     * @param file     Destination
+     */
+    private void store(final ClassHierarchySnapshot snapshot, final Path file) {
+        try {
+            Files.createDirectories(directory);
+            final var temp = Files.createTempFile(directory, "snapshot", ".tmp");
+            try {
+                snapshot.write(temp);
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE,
+                    StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not store class hierarchy snapshot {}", file);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.hierarchy;
+
+import com.ibm.wala.classLoader.JarFileModule;
+import com.ibm.wala.classLoader.ModuleEntry;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.jar.JarFile;
+
+/**
+ * JAR file module that exposes only a given subset of its classes to WALA. The JAR file is still
+ * opened and its entries listed, but hidden classes are never parsed or added to the class
+ * hierarchy.
+ */
+public class FilteredJarFileModule extends JarFileModule {
+
+    private final Set<String> classNames;
+
+    /**
+     * Construct filtered JAR file module.
+     *
+     * @param jarFile    JAR file
+     * @param classNames Names of the classes to keep, e.g. "java/lang/String"
+     */
+    public FilteredJarFileModule(final JarFile jarFile, final Set<String> classNames) {
+        super(jarFile);
+        this.classNames = classNames;
+    }
+
+    @Override
+    public Iterator<ModuleEntry> getEntries() {
+        final List<ModuleEntry> result = new ArrayList<>();
+        for (Iterator<? extends ModuleEntry> it = super.getEntries(); it.hasNext(); ) {
+            final var entry = it.next();
+            if (entry.isClassFile() && classNames.contains(entry.getClassName())) {
+                result.add(entry);
+            }
+        }
+        return result.iterator();
+    }
+}
@@ -32,10 +32,11 @@ public abstract class Method {
 
     public Optional<IMethod> oroginalLoader;
 
-    private final String namespace;
-
     private final Selector symbol;
 
+    /** Hash of the namespace and the symbol, the namespace itself is built on demand. */
+    private final int hashCode;
+
     private final MethodReference reference;
 
     /**
@@ -45,9 +46,8 @@ public abstract class Method {
      */
     public Method(final MethodReference reference) {
         this.reference = reference;
-        this.namespace = getPackageName(reference.getDeclaringClass()) + "."
-                + getClassName(reference.getDeclaringClass());
         this.symbol = reference.getSelector();
+        this.hashCode = Objects.hash(getNamespace(), symbol);
         this.oroginalLoader = Optional.empty();
     }
 
@@ -56,7 +56,8 @@ public abstract class Method {
     }
 
     public String getNamespace() {
-        return namespace;
+        return getPackageName(reference.getDeclaringClass()) + "."
+                + getClassName(reference.getDeclaringClass());
     }
 
     public Selector getSymbol() {
@@ -234,12 +235,13 @@ public abstract class Method {
             return false;
         }
         Method method = (Method) o;
-        return Objects.equals(namespace, method.namespace)
-                && Objects.equals(symbol, method.symbol);
+        return hashCode == method.hashCode
+                && Objects.equals(symbol, method.symbol)
+                && Objects.equals(getNamespace(), method.getNamespace());
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(namespace, symbol);
+        return hashCode;
     }
 }
@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+import static eu.fasten.analyzer.javacgwala.data.output.BinaryCallGraphWriter.CALL_SITE_SIZE;
+import static eu.fasten.analyzer.javacgwala.data.output.BinaryCallGraphWriter.FLAG_DEFINED;
+import static eu.fasten.analyzer.javacgwala.data.output.BinaryCallGraphWriter.FLAG_METADATA;
+import static eu.fasten.analyzer.javacgwala.data.output.BinaryCallGraphWriter.FLAG_SYNTHETIC;
+import static eu.fasten.analyzer.javacgwala.data.output.BinaryCallGraphWriter.MAGIC;
+import static eu.fasten.analyzer.javacgwala.data.output.BinaryCallGraphWriter.NODE_SIZE;
+import static eu.fasten.analyzer.javacgwala.data.output.BinaryCallGraphWriter.VERSION;
+import static eu.fasten.analyzer.javacgwala.data.output.BinaryCallGraphWriter.WALA_SYNTHETIC;
+
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.JavaScope;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Random access to a call graph written by {@link BinaryCallGraphWriter}. The file is
+ * memory-mapped and nothing is decoded up front: nodes are located by a binary search over
+ * their sorted IDs and only the requested records and strings are read.
+ */
+public class BinaryCallGraphReader {
+
+    private final ByteBuffer buffer;
+    private final int stringCount;
+    private final int nodeCount;
+    private final long edgeCount;
+    private final int callSiteCount;
+    private final int stringOffsets;
+    private final int stringData;
+    private final int nodes;
+    private final int edges;
+    private final int callSites;
+
+    private BinaryCallGraphReader(final ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < BinaryCallGraphWriter.HEADER_SIZE
+            || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a binary call graph");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IOException("Unsupported binary call graph version " + buffer.getInt(4));
+        }
+        this.stringCount = buffer.getInt(32);
+        this.nodeCount = buffer.getInt(36);
+        this.edgeCount = buffer.getLong(40);
+        this.callSiteCount = buffer.getInt(48);
+        this.stringOffsets = (int) buffer.getLong(56);
+        this.stringData = (int) buffer.getLong(64);
+        this.nodes = (int) buffer.getLong(72);
+        this.edges = (int) buffer.getLong(80);
+        this.callSites = (int) buffer.getLong(88);
+    }
+
+    /**
+     * Memory-map a binary call graph.
+     *
+     * @param file Binary call graph
+     * @return Reader
+     * @throws IOException cannot read the file or it is not a binary call graph
+     */
+    public static BinaryCallGraphReader open(final Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Binary call graph is too large to be mapped: " + file);
+            }
+            return new BinaryCallGraphReader(
+                channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read a binary call graph from a buffer.
+     *
+     * @param buffer Content of a binary call graph
+     * @return Reader
+     * @throws IOException the buffer does not contain a binary call graph
+     */
+    public static BinaryCallGraphReader wrap(final ByteBuffer buffer) throws IOException {
+        return new BinaryCallGraphReader(buffer.duplicate());
+    }
+
+    public String getForge() {
+        return getString(buffer.getInt(8));
+    }
+
+    public String getProduct() {
+        return getString(buffer.getInt(12));
+    }
+
+    public String getVersion() {
+        return getString(buffer.getInt(16));
+    }
+
+    public String getGenerator() {
+        return getString(buffer.getInt(20));
+    }
+
+    public long getTimestamp() {
+        return buffer.getLong(24);
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    public int getCallSiteCount() {
+        return callSiteCount;
+    }
+
+    /**
+     * Get the ID of the node at a position of the sorted node index.
+     *
+     * @param index Position, between 0 and {@link #getNodeCount()}
+     * @return Node ID
+     */
+    public long getNodeId(final int index) {
+        return buffer.getLong(node(index));
+    }
+
+    /**
+     * Check whether the graph contains a node.
+     *
+     * @param id Node ID
+     * @return true if the node exists
+     */
+    public boolean contains(final long id) {
+        return indexOf(id) >= 0;
+    }
+
+    /**
+     * Get the FASTEN URI of a node.
+     *
+     * @param id Node ID
+     * @return URI of the method
+     */
+    public String getUri(final long id) {
+        return getString(buffer.getInt(record(id) + 8));
+    }
+
+    /**
+     * Get the URI of the type declaring a node.
+     *
+     * @param id Node ID
+     * @return URI of the type
+     */
+    public String getType(final long id) {
+        return getString(buffer.getInt(record(id) + 12));
+    }
+
+    /**
+     * Get the scope of the type declaring a node.
+     *
+     * @param id Node ID
+     * @return Scope
+     */
+    public JavaScope getScope(final long id) {
+        return JavaScope.values()[buffer.get(record(id) + 16)];
+    }
+
+    /**
+     * Get the metadata of a node.
+     *
+     * @param id Node ID
+     * @return Metadata, empty for nodes without metadata
+     */
+    public Map<String, Object> getMetadata(final long id) {
+        final var record = record(id);
+        final int flags = buffer.get(record + 17);
+        if ((flags & FLAG_METADATA) == 0) {
+            return Collections.emptyMap();
+        }
+        final Map<String, Object> metadata = new HashMap<>();
+        metadata.put(Constants.FIRST_LINE, buffer.getInt(record + 20));
+        metadata.put(Constants.LAST_LINE, buffer.getInt(record + 24));
+        metadata.put(Constants.ACCESS_MODIFIER, getString(buffer.getInt(record + 28)));
+        metadata.put(Constants.IS_DEFINED, (flags & FLAG_DEFINED) != 0);
+        metadata.put(WALA_SYNTHETIC, (flags & FLAG_SYNTHETIC) != 0);
+        return metadata;
+    }
+
+    /**
+     * Get the targets of all calls made by a node.
+     *
+     * @param id Node ID
+     * @return Target IDs in ascending order
+     */
+    public long[] getTargets(final long id) {
+        final var record = record(id);
+        var position = edges + buffer.getInt(record + 32);
+        final var targets = new long[buffer.getInt(record + 36)];
+
+        long previous = 0;
+        for (int i = 0; i < targets.length; i++) {
+            long value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buffer.get(position++);
+                value |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+
+            targets[i] = i == 0 ? (value >>> 1) ^ -(value & 1) : previous + value;
+            previous = targets[i];
+        }
+        return targets;
+    }
+
+    /**
+     * Get all call sites of a node.
+     *
+     * @param id Node ID
+     * @return Call sites sorted by target and program counter
+     */
+    public List<CallSite> getCallSites(final long id) {
+        final var record = record(id);
+        final var start = buffer.getInt(record + 40);
+        final var count = buffer.getInt(record + 44);
+        final List<CallSite> result = new ArrayList<>(count);
+        for (int i = start; i < start + count; i++) {
+            result.add(callSite(i));
+        }
+        return result;
+    }
+
+    /**
+     * Get the call sites of the calls from one node to another.
+     *
+     * @param source Source node ID
+     * @param target Target node ID
+     * @return Call sites sorted by program counter, empty if the call has none
+     */
+    public List<CallSite> getCallSites(final long source, final long target) {
+        final var record = record(source);
+        final var start = buffer.getInt(record + 40);
+        final var end = start + buffer.getInt(record + 44);
+
+        var low = start;
+        var high = end;
+        while (low < high) {
+            final var middle = (low + high) >>> 1;
+            if (buffer.getLong(callSites + middle * CALL_SITE_SIZE) < target) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        final List<CallSite> result = new ArrayList<>();
+        for (int i = low; i < end
+            && buffer.getLong(callSites + i * CALL_SITE_SIZE) == target; i++) {
+            result.add(callSite(i));
+        }
+        return result;
+    }
+
+    /**
+     * Get an entry of the string table.
+     *
+     * @param index Index of the string
+     * @return String or null for index -1
+     */
+    public String getString(final int index) {
+        if (index < 0) {
+            return null;
+        }
+        if (index >= stringCount) {
+            throw new IndexOutOfBoundsException("String " + index + " of " + stringCount);
+        }
+        final var start = buffer.getInt(stringOffsets + 4 * index);
+        final var end = buffer.getInt(stringOffsets + 4 * (index + 1));
+        final var bytes = new byte[end - start];
+        buffer.duplicate().position(stringData + start).get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private CallSite callSite(final int index) {
+        final var position = callSites + index * CALL_SITE_SIZE;
+        return new CallSite(buffer.getLong(position), buffer.getInt(position + 8),
+            buffer.getInt(position + 12), getString(buffer.getInt(position + 16)),
+            getString(buffer.getInt(position + 20)));
+    }
+
+    private int node(final int index) {
+        return nodes + index * NODE_SIZE;
+    }
+
+    private int indexOf(final long id) {
+        var low = 0;
+        var high = nodeCount - 1;
+        while (low <= high) {
+            final var middle = (low + high) >>> 1;
+            final var current = buffer.getLong(node(middle));
+            if (current < id) {
+                low = middle + 1;
+            } else if (current > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    private int record(final long id) {
+        final var index = indexOf(id);
+        if (index < 0) {
+            throw new IllegalArgumentException("No node with ID " + id);
+        }
+        return node(index);
+    }
+
+    /**
+     * A call site of a call.
+     */
+    public static class CallSite {
+
+        public final long target;
+        public final int pc;
+        public final int line;
+        public final String invocationType;
+        public final String receiverType;
+
+        CallSite(final long target, final int pc, final int line, final String invocationType,
+                 final String receiverType) {
+            this.target = target;
+            this.pc = pc;
+            this.line = line;
+            this.invocationType = invocationType;
+            this.receiverType = receiverType;
+        }
+
+        /**
+         * Convert to the metadata map used by {@code JavaGraph}.
+         *
+         * @return Call-site metadata
+         */
+        public Map<String, Object> toMetadata() {
+            final Map<String, Object> metadata = new HashMap<>();
+            metadata.put(Constants.CALLSITE_LINE, line);
+            metadata.put(Constants.INVOCATION_TYPE, invocationType);
+            metadata.put(Constants.RECEIVER_TYPE, receiverType);
+            return metadata;
+        }
+    }
+}
@@ -0,0 +1,350 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.JavaNode;
+import eu.fasten.core.data.JavaScope;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import it.unimi.dsi.fastutil.longs.LongLongPair;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes a {@link PartialJavaCallGraph} in a compact binary form that can be read back with
+ * {@link BinaryCallGraphReader} without parsing the whole file. All numbers are big-endian.
+ * <pre>
+ *   header (96 bytes):
+ *     int magic, int version,
+ *     int forge, int product, int version, int generator (string indices), long timestamp,
+ *     int stringCount, int nodeCount, long edgeCount, int callSiteCount, int reserved,
+ *     long positions of: string offsets, string data, nodes, edges, call sites
+ *   int[stringCount + 1] string offsets, relative to the string data
+ *   byte[] UTF-8 string data
+ *   node records (48 bytes each), sorted by node ID:
+ *     long id, int uri, int type, byte scope, byte flags, short reserved,
+ *     int firstLine, int lastLine, int accessModifier,
+ *     int edgeOffset, int outDegree, int callSiteStart, int callSiteCount
+ *   edges: per source node, targets sorted by ID, the first one as a zig-zag varint and the
+ *     following ones as varint deltas to their predecessor
+ *   call site records (24 bytes each), grouped by source node and sorted by target and pc:
+ *     long target, int pc, int line, int invocationType, int receiverType
+ * </pre>
+ * URIs, type names and call-site labels are stored once in the string table and referenced by
+ * their index. Node metadata is limited to the keys produced by the class hierarchy analyzer.
+ */
+public class BinaryCallGraphWriter {
+
+    static final int MAGIC = 0x46434742;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 96;
+    static final int NODE_SIZE = 48;
+    static final int CALL_SITE_SIZE = 24;
+
+    static final int FLAG_METADATA = 1;
+    static final int FLAG_DEFINED = 2;
+    static final int FLAG_SYNTHETIC = 4;
+
+    static final String WALA_SYNTHETIC = "walaSynthetic";
+
+    private BinaryCallGraphWriter() {
+    }
+
+    /**
+     * Write a call graph to a file.
+     *
+     * @param graph Call graph
+     * @param file  Output file
+     * @throws IOException cannot write to the file
+     */
+    public static void write(final PartialJavaCallGraph graph, final Path file)
+        throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            write(graph, out);
+        }
+    }
+
+    /**
+     * Write a call graph to a stream. The stream is flushed but not closed.
+     *
+     * @param graph Call graph
+     * @param out   Output stream
+     * @throws IOException cannot write to the stream
+     */
+    public static void write(final PartialJavaCallGraph graph, final OutputStream out)
+        throws IOException {
+        final var strings = new StringTable();
+        final var forge = strings.index(graph.forge);
+        final var product = strings.index(graph.product);
+        final var version = strings.index(graph.version);
+        final var generator = strings.index(graph.cgGenerator);
+
+        final var nodes = collectNodes(graph, strings);
+        final var edges = collectEdges(graph);
+
+        final var edgeData = new ByteArrayOutputStream();
+        final var callSiteData = new ByteArrayOutputStream();
+        final var callSiteOut = new DataOutputStream(callSiteData);
+        final var nodeData = new ByteArrayOutputStream(nodes.size() * NODE_SIZE);
+        final var nodeOut = new DataOutputStream(nodeData);
+        long edgeCount = 0;
+        int callSiteCount = 0;
+
+        for (final var node : nodes) {
+            final var targets = edges.getOrDefault(node.id, new HashMap<>());
+            final var sortedTargets = new ArrayList<>(targets.keySet());
+            sortedTargets.sort(Long::compare);
+
+            final var edgeOffset = edgeData.size();
+            final var callSiteStart = callSiteCount;
+            long previous = 0;
+            for (int i = 0; i < sortedTargets.size(); i++) {
+                final long target = sortedTargets.get(i);
+                if (i == 0) {
+                    writeVarLong(edgeData, (target << 1) ^ (target >> 63));
+                } else {
+                    writeVarLong(edgeData, target - previous);
+                }
+                previous = target;
+                callSiteCount += writeCallSites(callSiteOut, target, targets.get(target),
+                    strings);
+            }
+            edgeCount += sortedTargets.size();
+
+            nodeOut.writeLong(node.id);
+            nodeOut.writeInt(node.uri);
+            nodeOut.writeInt(node.type);
+            nodeOut.writeByte(node.scope);
+            nodeOut.writeByte(node.flags);
+            nodeOut.writeShort(0);
+            nodeOut.writeInt(node.firstLine);
+            nodeOut.writeInt(node.lastLine);
+            nodeOut.writeInt(node.accessModifier);
+            nodeOut.writeInt(edgeOffset);
+            nodeOut.writeInt(sortedTargets.size());
+            nodeOut.writeInt(callSiteStart);
+            nodeOut.writeInt(callSiteCount - callSiteStart);
+        }
+        callSiteOut.flush();
+
+        final var encodedStrings = strings.encode();
+        final long stringOffsetsPos = HEADER_SIZE;
+        final long stringDataPos = stringOffsetsPos + 4L * (strings.size() + 1);
+        final long nodesPos = stringDataPos + encodedStrings.size();
+        final long edgesPos = nodesPos + nodeData.size();
+        final long callSitesPos = edgesPos + edgeData.size();
+
+        final var data = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(forge);
+        data.writeInt(product);
+        data.writeInt(version);
+        data.writeInt(generator);
+        data.writeLong(graph.timestamp);
+        data.writeInt(strings.size());
+        data.writeInt(nodes.size());
+        data.writeLong(edgeCount);
+        data.writeInt(callSiteCount);
+        data.writeInt(0);
+        data.writeLong(stringOffsetsPos);
+        data.writeLong(stringDataPos);
+        data.writeLong(nodesPos);
+        data.writeLong(edgesPos);
+        data.writeLong(callSitesPos);
+
+        var offset = 0;
+        for (final var bytes : strings.bytes) {
+            data.writeInt(offset);
+            offset += bytes.length;
+        }
+        data.writeInt(offset);
+        encodedStrings.writeTo(data);
+        nodeData.writeTo(data);
+        edgeData.writeTo(data);
+        callSiteData.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Collect all methods of the class hierarchy, sorted by their IDs.
+     */
+    private static List<NodeRecord> collectNodes(final PartialJavaCallGraph graph,
+                                                 final StringTable strings) {
+        final List<NodeRecord> nodes = new ArrayList<>();
+        for (final var scope : graph.getClassHierarchy().entrySet()) {
+            for (final var type : scope.getValue().entrySet()) {
+                final var typeIndex = strings.index(type.getKey());
+                for (final var method : type.getValue().getMethods().long2ObjectEntrySet()) {
+                    nodes.add(new NodeRecord(method.getLongKey(), method.getValue(),
+                        scope.getKey(), typeIndex, strings));
+                }
+            }
+        }
+        nodes.sort(Comparator.comparingLong(node -> node.id));
+        return nodes;
+    }
+
+    /**
+     * Group call sites by source and target.
+     */
+    private static Map<Long, Map<Long, Map<Object, Object>>> collectEdges(
+        final PartialJavaCallGraph graph) {
+        final Map<Long, Map<Long, Map<Object, Object>>> edges = new HashMap<>();
+        for (final Map.Entry<LongLongPair, Map<Object, Object>> call
+            : graph.getGraph().getCallSites().entrySet()) {
+            edges.computeIfAbsent(call.getKey().firstLong(), k -> new HashMap<>())
+                .put(call.getKey().secondLong(), call.getValue());
+        }
+        return edges;
+    }
+
+    private static int writeCallSites(final DataOutputStream out, final long target,
+                                      final Map<Object, Object> metadata,
+                                      final StringTable strings) throws IOException {
+        if (metadata == null || metadata.isEmpty()) {
+            return 0;
+        }
+        final Map<Integer, Map<?, ?>> byPc = new TreeMap<>();
+        for (final var entry : metadata.entrySet()) {
+            byPc.put(toInt(entry.getKey()), (Map<?, ?>) entry.getValue());
+        }
+        for (final var callSite : byPc.entrySet()) {
+            out.writeLong(target);
+            out.writeInt(callSite.getKey());
+            out.writeInt(toInt(callSite.getValue().get(Constants.CALLSITE_LINE)));
+            out.writeInt(strings.index(callSite.getValue().get(Constants.INVOCATION_TYPE)));
+            out.writeInt(strings.index(callSite.getValue().get(Constants.RECEIVER_TYPE)));
+        }
+        return byPc.size();
+    }
+
+    private static int toInt(final Object value) {
+        if (value == null) {
+            return -1;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return Integer.parseInt(value.toString());
+    }
+
+    private static void writeVarLong(final ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    /**
+     * Node record before it is written.
+     */
+    private static class NodeRecord {
+
+        private final long id;
+        private final int uri;
+        private final int type;
+        private final int scope;
+        private final int flags;
+        private final int firstLine;
+        private final int lastLine;
+        private final int accessModifier;
+
+        NodeRecord(final long id, final JavaNode node, final JavaScope scope, final int type,
+                   final StringTable strings) {
+            this.id = id;
+            this.uri = strings.index(node.getUri().toString());
+            this.type = type;
+            this.scope = scope.ordinal();
+
+            final var metadata = node.getMetadata();
+            if (metadata == null || metadata.isEmpty()) {
+                this.flags = 0;
+                this.firstLine = -1;
+                this.lastLine = -1;
+                this.accessModifier = -1;
+                return;
+            }
+            var flags = FLAG_METADATA;
+            if (Boolean.parseBoolean(String.valueOf(metadata.get(Constants.IS_DEFINED)))) {
+                flags |= FLAG_DEFINED;
+            }
+            if (Boolean.parseBoolean(String.valueOf(metadata.get(WALA_SYNTHETIC)))) {
+                flags |= FLAG_SYNTHETIC;
+            }
+            this.flags = flags;
+            this.firstLine = toInt(metadata.get(Constants.FIRST_LINE));
+            this.lastLine = toInt(metadata.get(Constants.LAST_LINE));
+            this.accessModifier = strings.index(metadata.get(Constants.ACCESS_MODIFIER));
+        }
+    }
+
+    /**
+     * Strings in the order of their first use.
+     */
+    private static class StringTable {
+
+        private final Object2IntOpenHashMap<String> indices = new Object2IntOpenHashMap<>();
+        private final List<byte[]> bytes = new ArrayList<>();
+
+        StringTable() {
+            indices.defaultReturnValue(-1);
+        }
+
+        int index(final Object value) {
+            if (value == null) {
+                return -1;
+            }
+            final var string = value.toString();
+            var index = indices.getInt(string);
+            if (index == -1) {
+                index = bytes.size();
+                indices.put(string, index);
+                bytes.add(string.getBytes(StandardCharsets.UTF_8));
+            }
+            return index;
+        }
+
+        int size() {
+            return bytes.size();
+        }
+
+        ByteArrayOutputStream encode() {
+            final var out = new ByteArrayOutputStream();
+            for (final var string : bytes) {
+                out.write(string, 0, string.length);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Receives a call graph in chunks while it is being wrapped, see
+ * {@link eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.WalaResultAnalyzer#wrap(
+ * com.ibm.wala.ipa.callgraph.CallGraph, PartialJavaCallGraph,
+ * eu.fasten.core.data.CallPreservationStrategy, CallGraphSink, int)}.
+ *
+ * <p>Every chunk holds a batch of calls together with the methods of the types they reference
+ * that no earlier chunk has held, so a call may reference a method of an earlier chunk. The last
+ * chunk holds no calls but the methods no call has referenced. The union of the calls and the
+ * types of all chunks is the whole call graph. Chunks share the types of the wrapper, which are
+ * emptied and keep growing after a chunk is accepted, so a sink must be done with a chunk when
+ * {@link #accept} returns.
+ */
+@FunctionalInterface
+public interface CallGraphSink extends Closeable {
+
+    /**
+     * Receive the next chunk.
+     *
+     * @param chunk Partial call graph
+     * @throws IOException cannot write the chunk
+     */
+    void accept(PartialJavaCallGraph chunk) throws IOException;
+
+    @Override
+    default void close() throws IOException {
+    }
+}
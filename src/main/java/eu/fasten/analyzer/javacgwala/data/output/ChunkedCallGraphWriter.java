@@ -0,0 +1,149 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+
+import eu.fasten.core.data.JavaGraph;
+import eu.fasten.core.data.JavaScope;
+import eu.fasten.core.data.JavaType;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import it.unimi.dsi.fastutil.longs.LongLongPair;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.json.JSONObject;
+
+/**
+ * Writes every chunk received as a {@link CallGraphSink} to its own JSON file
+ * {@code chunk-NNNN.json} in a directory, optionally compressed.
+ */
+public class ChunkedCallGraphWriter implements CallGraphSink {
+
+    private static final String PREFIX = "chunk-";
+
+    private final Path directory;
+
+    private final OutputCodec codec;
+
+    private final int level;
+
+    private int chunks;
+
+    private CompressionStats stats;
+
+    /**
+     * Construct chunked call graph writer.
+     *
+     * @param directory Output directory, created if it does not exist
+     * @param codec     Compression of the chunks
+     * @param level     Compression level or {@link OutputCodec#DEFAULT_LEVEL}
+     * @throws IOException cannot create the directory
+     */
+    public ChunkedCallGraphWriter(final Path directory, final OutputCodec codec,
+                                  final int level) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.codec = codec;
+        this.level = level;
+    }
+
+    @Override
+    public void accept(final PartialJavaCallGraph chunk) throws IOException {
+        final var file = directory.resolve(
+            String.format(PREFIX + "%04d.json", chunks++) + codec.getExtension());
+        final var written = codec.write(chunk.toJSON(), Files.newOutputStream(file), level);
+        stats = stats == null ? written : stats.plus(written);
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Get the sizes of all chunks written so far.
+     *
+     * @return Statistics or null if nothing was written
+     */
+    public CompressionStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Read the chunks of a directory back into one call graph.
+     *
+     * @param directory Directory written by a {@link ChunkedCallGraphWriter}
+     * @return Call graph with the calls and the methods of all chunks
+     * @throws IOException cannot read one of the chunks
+     */
+    public static PartialJavaCallGraph read(final Path directory) throws IOException {
+        final List<Path> files;
+        try (Stream<Path> list = Files.list(directory)) {
+            files = list.filter(file -> file.getFileName().toString().startsWith(PREFIX))
+                .sorted(Comparator.comparingLong(ChunkedCallGraphWriter::index))
+                .collect(Collectors.toCollection(ArrayList::new));
+        }
+        if (files.isEmpty()) {
+            throw new IOException("No chunks in " + directory);
+        }
+        final Map<LongLongPair, Map<Object, Object>> calls = new HashMap<>();
+        final var types = new EnumMap<JavaScope, Map<String, JavaType>>(JavaScope.class);
+        PartialJavaCallGraph last = null;
+        for (final var file : files) {
+            try (var in = OutputCodec.forFile(file.getFileName().toString())
+                .unwrap(Files.newInputStream(file))) {
+                last = new PartialJavaCallGraph(new JSONObject(
+                    new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+            }
+            calls.putAll(last.getGraph().getCallSites());
+            for (final var scope : last.getClassHierarchy().entrySet()) {
+                final var merged = types.computeIfAbsent(scope.getKey(), s -> new HashMap<>());
+                for (final var type : scope.getValue().entrySet()) {
+                    final var existing = merged.putIfAbsent(type.getKey(), type.getValue());
+                    if (existing != null) {
+                        type.getValue().getMethods().long2ObjectEntrySet().forEach(method ->
+                            existing.addMethod(method.getValue(), method.getLongKey()));
+                        type.getValue().getDefinedMethods().forEach(existing::addDefinedMethod);
+                    }
+                }
+            }
+        }
+        return new PartialJavaCallGraph(last.forge, last.product, last.version, last.timestamp,
+            last.cgGenerator, types, new JavaGraph(calls));
+    }
+
+    /**
+     * Find the position of a chunk from its file name.
+     *
+     * @param file Chunk file
+     * @return Index of the chunk
+     */
+    static long index(final Path file) {
+        final var name = file.getFileName().toString();
+        final var end = name.indexOf('.', PREFIX.length());
+        return Long.parseLong(name.substring(PREFIX.length(), end < 0 ? name.length() : end));
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+/**
+ * Sizes and duration of writing a compressed call graph.
+ */
+public class CompressionStats {
+
+    private final OutputCodec codec;
+
+    private final long rawBytes;
+
+    private final long compressedBytes;
+
+    private final long nanos;
+
+    /**
+     * Construct compression statistics.
+     *
+     * @param codec           Codec used
+     * @param rawBytes        Size of the serialized data
+     * @param compressedBytes Size after compression
+     * @param nanos           Time spent serializing and compressing
+     */
+    public CompressionStats(final OutputCodec codec, final long rawBytes,
+                            final long compressedBytes, final long nanos) {
+        this.codec = codec;
+        this.rawBytes = rawBytes;
+        this.compressedBytes = compressedBytes;
+        this.nanos = nanos;
+    }
+
+    public OutputCodec getCodec() {
+        return codec;
+    }
+
+    public long getRawBytes() {
+        return rawBytes;
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    /**
+     * Get the compressed size relative to the raw size.
+     *
+     * @return Ratio between 0 and 1 for data that compresses, 1 for empty data
+     */
+    public double getRatio() {
+        return rawBytes == 0 ? 1 : (double) compressedBytes / rawBytes;
+    }
+
+    /**
+     * Combine the statistics of several writes with the same codec.
+     *
+     * @param other Statistics of another write
+     * @return Sum of both
+     */
+    public CompressionStats plus(final CompressionStats other) {
+        return new CompressionStats(codec, rawBytes + other.rawBytes,
+            compressedBytes + other.compressedBytes, nanos + other.nanos);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: %d bytes raw, %d bytes compressed (%.1f%%) in %.3f seconds",
+            codec, rawBytes, compressedBytes, 100 * getRatio(), nanos / 1e9);
+    }
+}
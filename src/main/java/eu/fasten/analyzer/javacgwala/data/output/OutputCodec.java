@@ -0,0 +1,274 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FrameInputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import net.jpountz.xxhash.XXHashFactory;
+import org.json.JSONObject;
+
+/**
+ * Compression applied to serialized call graphs. All codecs are streaming, so a call graph is
+ * compressed while it is serialized, without an uncompressed copy in memory.
+ */
+public enum OutputCodec {
+
+    /** No compression. */
+    NONE("") {
+        @Override
+        public OutputStream wrap(final OutputStream out, final int level) {
+            return out;
+        }
+
+        @Override
+        public InputStream unwrap(final InputStream in) {
+            return in;
+        }
+    },
+
+    /** GZIP, levels 1 to 9. */
+    GZIP(".gz") {
+        @Override
+        public OutputStream wrap(final OutputStream out, final int level) throws IOException {
+            return new GZIPOutputStream(out, BUFFER_SIZE) {
+                {
+                    def.setLevel(level);
+                }
+            };
+        }
+
+        @Override
+        public InputStream unwrap(final InputStream in) throws IOException {
+            return new GZIPInputStream(in, BUFFER_SIZE);
+        }
+    },
+
+    /** Zlib stream, levels 1 to 9. Smaller header than GZIP. */
+    DEFLATE(".deflate") {
+        @Override
+        public OutputStream wrap(final OutputStream out, final int level) {
+            final var deflater = new Deflater(level);
+            return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        deflater.end();
+                    }
+                }
+            };
+        }
+
+        @Override
+        public InputStream unwrap(final InputStream in) {
+            return new InflaterInputStream(in);
+        }
+    },
+
+    /**
+     * LZ4 frame format. Much faster than GZIP at a lower ratio; levels above 0 use the high
+     * compression mode. Uses the pure Java implementation when native code is not available.
+     */
+    LZ4(".lz4") {
+        @Override
+        public OutputStream wrap(final OutputStream out, final int level) throws IOException {
+            final var factory = LZ4Factory.fastestInstance();
+            return new LZ4FrameOutputStream(out, LZ4FrameOutputStream.BLOCKSIZE.SIZE_4MB, -1L,
+                level > 0 ? factory.highCompressor(level) : factory.fastCompressor(),
+                XXHashFactory.fastestInstance().hash32(),
+                LZ4FrameOutputStream.FLG.Bits.BLOCK_INDEPENDENCE);
+        }
+
+        @Override
+        public InputStream unwrap(final InputStream in) throws IOException {
+            return new LZ4FrameInputStream(in);
+        }
+    };
+
+    /** Level that selects the default of the codec. */
+    public static final int DEFAULT_LEVEL = -1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final String extension;
+
+    OutputCodec(final String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Wrap a stream so that everything written to it is compressed. Closing the returned stream
+     * closes the given one.
+     *
+     * @param out   Stream receiving compressed data
+     * @param level Compression level or {@link #DEFAULT_LEVEL}
+     * @return Stream accepting uncompressed data
+     * @throws IOException cannot write the header of the format
+     */
+    public abstract OutputStream wrap(OutputStream out, int level) throws IOException;
+
+    /**
+     * Wrap a stream of compressed data.
+     *
+     * @param in Stream of compressed data
+     * @return Stream of uncompressed data
+     * @throws IOException cannot read the header of the format
+     */
+    public abstract InputStream unwrap(InputStream in) throws IOException;
+
+    /**
+     * Get the suffix appended to the names of files in this format, empty for {@link #NONE}.
+     *
+     * @return File name suffix
+     */
+    public String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Find the codec of a file by its name.
+     *
+     * @param fileName File name
+     * @return Codec whose extension the name ends with, {@link #NONE} otherwise
+     */
+    public static OutputCodec forFile(final String fileName) {
+        for (final var codec : values()) {
+            if (codec != NONE && fileName.endsWith(codec.extension)) {
+                return codec;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Serialize a JSON object directly into a compressed stream.
+     *
+     * @param json  JSON object
+     * @param out   Stream receiving compressed data, closed when done
+     * @param level Compression level or {@link #DEFAULT_LEVEL}
+     * @return Sizes and duration of the compression
+     * @throws IOException cannot write to the stream
+     */
+    public CompressionStats write(final JSONObject json, final OutputStream out, final int level)
+        throws IOException {
+        return write(json::write, out, level);
+    }
+
+    /**
+     * Compress already serialized text.
+     *
+     * @param text  Serialized call graph
+     * @param out   Stream receiving compressed data, closed when done
+     * @param level Compression level or {@link #DEFAULT_LEVEL}
+     * @return Sizes and duration of the compression
+     * @throws IOException cannot write to the stream
+     */
+    public CompressionStats write(final String text, final OutputStream out, final int level)
+        throws IOException {
+        return write(writer -> writer.write(text), out, level);
+    }
+
+    /**
+     * Compress a serialized call graph in memory.
+     *
+     * @param text  Serialized call graph
+     * @param level Compression level or {@link #DEFAULT_LEVEL}
+     * @return Compressed bytes
+     */
+    public byte[] encode(final String text, final int level) {
+        final var out = new ByteArrayOutputStream();
+        try {
+            write(text, out, level);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decompress a serialized call graph in memory.
+     *
+     * @param bytes Compressed bytes
+     * @return Serialized call graph
+     */
+    public String decode(final byte[] bytes) {
+        try (var in = unwrap(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompressionStats write(final WriterAction action, final OutputStream out,
+                                   final int level) throws IOException {
+        final long startTime = System.nanoTime();
+        final var compressed = new CountingOutputStream(out);
+        final var raw = new CountingOutputStream(wrap(compressed, level));
+        try (Writer writer = new BufferedWriter(
+            new OutputStreamWriter(raw, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+            action.write(writer);
+        }
+        return new CompressionStats(this, raw.count, compressed.count,
+            System.nanoTime() - startTime);
+    }
+
+    private interface WriterAction {
+
+        void write(Writer writer) throws IOException;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(final OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Index of a call graph written in shards by {@link ShardedCallGraphWriter}. It lists for every
+ * shard the packages of its internal types and the ranges of node IDs it defines, so a consumer
+ * can load only the shards it needs.
+ */
+public class ShardManifest {
+
+    /** Name of the manifest file in the output directory. */
+    public static final String FILE_NAME = "manifest.json";
+
+    private final JSONObject header;
+
+    private final List<Shard> shards;
+
+    /**
+     * Describes one shard of a call graph.
+     */
+    public static class Shard {
+
+        public final String file;
+        public final List<String> packages;
+        public final int types;
+        public final int methods;
+        public final int calls;
+
+        /** Sorted, disjoint and inclusive ranges of the internal node IDs of the shard. */
+        public final long[][] idRanges;
+
+        /**
+         * Construct shard description.
+         *
+         * @param file     File name relative to the manifest
+         * @param packages Packages of the internal types in the shard
+         * @param types    Number of internal types
+         * @param methods  Number of internal methods
+         * @param calls    Number of calls
+         * @param idRanges Sorted, disjoint and inclusive ranges of internal node IDs
+         */
+        public Shard(final String file, final List<String> packages, final int types,
+                     final int methods, final int calls, final long[][] idRanges) {
+            this.file = file;
+            this.packages = packages;
+            this.types = types;
+            this.methods = methods;
+            this.calls = calls;
+            this.idRanges = idRanges;
+        }
+
+        /**
+         * Check whether a node is defined in this shard.
+         *
+         * @param id Node ID
+         * @return true if the ID is in one of the ranges
+         */
+        public boolean contains(final long id) {
+            int low = 0;
+            int high = idRanges.length - 1;
+            while (low <= high) {
+                final var middle = (low + high) >>> 1;
+                if (idRanges[middle][1] < id) {
+                    low = middle + 1;
+                } else if (idRanges[middle][0] > id) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        JSONObject toJSON() {
+            final var ranges = new JSONArray();
+            for (final var range : idRanges) {
+                ranges.put(new JSONArray().put(range[0]).put(range[1]));
+            }
+            return new JSONObject()
+                .put("file", file)
+                .put("packages", new JSONArray(packages))
+                .put("types", types)
+                .put("methods", methods)
+                .put("calls", calls)
+                .put("idRanges", ranges);
+        }
+
+        static Shard fromJSON(final JSONObject json) {
+            final List<String> packages = new ArrayList<>();
+            for (final var p : json.getJSONArray("packages")) {
+                packages.add((String) p);
+            }
+            final var ranges = json.getJSONArray("idRanges");
+            final var idRanges = new long[ranges.length()][];
+            for (int i = 0; i < idRanges.length; i++) {
+                final var range = ranges.getJSONArray(i);
+                idRanges[i] = new long[] {range.getLong(0), range.getLong(1)};
+            }
+            return new Shard(json.getString("file"), packages, json.getInt("types"),
+                json.getInt("methods"), json.getInt("calls"), idRanges);
+        }
+    }
+
+    /**
+     * Construct manifest.
+     *
+     * @param graph  Sharded call graph, only its attributes are kept
+     * @param shards Shards in order
+     */
+    public ShardManifest(final PartialJavaCallGraph graph, final List<Shard> shards) {
+        this(new JSONObject()
+            .put("forge", graph.forge)
+            .put("product", graph.product)
+            .put("version", graph.version)
+            .put("generator", graph.cgGenerator)
+            .put("timestamp", graph.timestamp), shards);
+    }
+
+    private ShardManifest(final JSONObject header, final List<Shard> shards) {
+        this.header = header;
+        this.shards = Collections.unmodifiableList(shards);
+    }
+
+    /**
+     * Read the manifest of a sharded call graph.
+     *
+     * @param directory Directory written by {@link ShardedCallGraphWriter}
+     * @return Manifest
+     * @throws IOException cannot read the manifest
+     */
+    public static ShardManifest load(final Path directory) throws IOException {
+        final var json = new JSONObject(
+            Files.readString(directory.resolve(FILE_NAME), StandardCharsets.UTF_8));
+        final List<Shard> shards = new ArrayList<>();
+        for (final var shard : json.getJSONArray("shards")) {
+            shards.add(Shard.fromJSON((JSONObject) shard));
+        }
+        json.remove("shards");
+        return new ShardManifest(json, shards);
+    }
+
+    /**
+     * Load one shard as a self-contained partial call graph. It holds the internal types of the
+     * shard, the calls from their methods and the calls from external methods into them, and
+     * the types of all other methods these calls reference.
+     *
+     * @param directory Directory written by {@link ShardedCallGraphWriter}
+     * @param index     Index of the shard
+     * @return Partial call graph of the shard
+     * @throws IOException cannot read the shard
+     */
+    public PartialJavaCallGraph loadShard(final Path directory, final int index)
+        throws IOException {
+        final var file = shards.get(index).file;
+        try (var in = OutputCodec.forFile(file).unwrap(
+            Files.newInputStream(directory.resolve(file)))) {
+            return new PartialJavaCallGraph(new JSONObject(
+                new String(in.readAllBytes(), StandardCharsets.UTF_8)));
+        }
+    }
+
+    /**
+     * Find the shard that defines an internal node.
+     *
+     * @param id Node ID
+     * @return Index of the shard or -1 if no shard defines the node
+     */
+    public int findShard(final long id) {
+        for (int i = 0; i < shards.size(); i++) {
+            if (shards.get(i).contains(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public String getProduct() {
+        return header.getString("product");
+    }
+
+    public String getVersion() {
+        return header.getString("version");
+    }
+
+    /**
+     * Write the manifest.
+     *
+     * @param directory Output directory
+     * @throws IOException cannot write the manifest
+     */
+    void write(final Path directory) throws IOException {
+        final var json = new JSONObject(header.toString());
+        final var shardsJson = new JSONArray();
+        shards.forEach(shard -> shardsJson.put(shard.toJSON()));
+        json.put("shards", shardsJson);
+        Files.writeString(directory.resolve(FILE_NAME), json.toString(), StandardCharsets.UTF_8);
+    }
+}
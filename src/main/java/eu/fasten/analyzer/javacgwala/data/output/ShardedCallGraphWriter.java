@@ -0,0 +1,263 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+import eu.fasten.core.data.JSONUtils;
+import eu.fasten.core.data.JavaGraph;
+import eu.fasten.core.data.JavaScope;
+import eu.fasten.core.data.JavaType;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import it.unimi.dsi.fastutil.longs.Long2IntOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongLongPair;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.apache.commons.lang3.tuple.Pair;
+
+/**
+ * Writes a {@link PartialJavaCallGraph} as several JSON files that can be loaded independently,
+ * together with a {@link ShardManifest}.
+ *
+ * <p>Internal types are grouped by package and whole packages are assigned to shards in name
+ * order, so that every shard holds about the same number of internal methods. A call belongs to
+ * the shard of its internal source or, for calls from external methods, of its internal target.
+ * Every shard also carries the external and resolved types its calls reference, so it is a
+ * valid partial call graph on its own. Shards are written in parallel.
+ */
+public class ShardedCallGraphWriter {
+
+    private ShardedCallGraphWriter() {
+    }
+
+    /**
+     * Write a call graph in shards.
+     *
+     * @param graph     Call graph
+     * @param directory Output directory, created if it does not exist
+     * @param shards    Maximum number of shards, fewer are written if there are fewer packages
+     * @return Manifest of the written shards
+     * @throws IOException cannot write one of the files
+     */
+    public static ShardManifest write(final PartialJavaCallGraph graph, final Path directory,
+                                      final int shards) throws IOException {
+        return write(graph, directory, shards, OutputCodec.NONE, OutputCodec.DEFAULT_LEVEL);
+    }
+
+    /**
+     * Write a call graph in compressed shards. The manifest itself is not compressed.
+     *
+     * @param graph     Call graph
+     * @param directory Output directory, created if it does not exist
+     * @param shards    Maximum number of shards, fewer are written if there are fewer packages
+     * @param codec     Compression of the shards
+     * @param level     Compression level or {@link OutputCodec#DEFAULT_LEVEL}
+     * @return Manifest of the written shards
+     * @throws IOException cannot write one of the files
+     */
+    public static ShardManifest write(final PartialJavaCallGraph graph, final Path directory,
+                                      final int shards, final OutputCodec codec,
+                                      final int level) throws IOException {
+        if (shards < 1) {
+            throw new IllegalArgumentException("Number of shards must be positive: " + shards);
+        }
+        Files.createDirectories(directory);
+
+        final var internalTypes = graph.getClassHierarchy().get(JavaScope.internalTypes);
+        final var partition = partition(internalTypes, shards);
+
+        // shard of every internal method, scope and type of every other method
+        final var shardOf = new Long2IntOpenHashMap();
+        shardOf.defaultReturnValue(-1);
+        for (int shard = 0; shard < partition.size(); shard++) {
+            for (final var type : partition.get(shard).values()) {
+                for (final var id : type.getMethods().keySet()) {
+                    shardOf.put((long) id, shard);
+                }
+            }
+        }
+        final var typeOf = new Long2ObjectOpenHashMap<Pair<JavaScope, String>>();
+        for (final var scope : graph.getClassHierarchy().entrySet()) {
+            if (scope.getKey() == JavaScope.internalTypes) {
+                continue;
+            }
+            for (final var type : scope.getValue().entrySet()) {
+                for (final var id : type.getValue().getMethods().keySet()) {
+                    typeOf.put((long) id, Pair.of(scope.getKey(), type.getKey()));
+                }
+            }
+        }
+
+        final List<Map<LongLongPair, Map<Object, Object>>> calls = new ArrayList<>();
+        partition.forEach(p -> calls.add(new HashMap<>()));
+        for (final var call : graph.getGraph().getCallSites().entrySet()) {
+            var shard = shardOf.get(call.getKey().firstLong());
+            if (shard < 0) {
+                shard = Math.max(0, shardOf.get(call.getKey().secondLong()));
+            }
+            calls.get(shard).put(call.getKey(), call.getValue());
+        }
+
+        final var executor = Executors.newFixedThreadPool(
+            Math.min(partition.size(), Runtime.getRuntime().availableProcessors()));
+        try {
+            final List<Future<ShardManifest.Shard>> futures = new ArrayList<>();
+            for (int i = 0; i < partition.size(); i++) {
+                final var index = i;
+                futures.add(executor.submit(() -> writeShard(graph, directory, index,
+                    partition.get(index), calls.get(index), typeOf, codec, level)));
+            }
+            final List<ShardManifest.Shard> written = new ArrayList<>();
+            for (final var future : futures) {
+                written.add(future.get());
+            }
+            final var manifest = new ShardManifest(graph, written);
+            manifest.write(directory);
+            return manifest;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing shards", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Split internal types into shards of whole packages with similar numbers of methods.
+     *
+     * @param types  Internal types by URI
+     * @param shards Maximum number of shards
+     * @return Types of every shard, at least one shard
+     */
+    static List<Map<String, JavaType>> partition(final Map<String, JavaType> types,
+                                                 final int shards) {
+        final Map<String, Map<String, JavaType>> packages = new TreeMap<>();
+        var methods = 0;
+        for (final var type : types.entrySet()) {
+            packages.computeIfAbsent(packageOf(type.getKey()), k -> new TreeMap<>())
+                .put(type.getKey(), type.getValue());
+            methods += type.getValue().getMethods().size();
+        }
+        final var target = Math.max(1, (methods + shards - 1) / shards);
+
+        final List<Map<String, JavaType>> result = new ArrayList<>();
+        Map<String, JavaType> current = new TreeMap<>();
+        var currentMethods = 0;
+        for (final var typesOfPackage : packages.values()) {
+            if (currentMethods >= target && result.size() < shards - 1) {
+                result.add(current);
+                current = new TreeMap<>();
+                currentMethods = 0;
+            }
+            current.putAll(typesOfPackage);
+            for (final var type : typesOfPackage.values()) {
+                currentMethods += type.getMethods().size();
+            }
+        }
+        result.add(current);
+        return result;
+    }
+
+    /**
+     * Get the package part of a type URI, e.g. "/com.example/" of "/com.example/Foo".
+     */
+    static String packageOf(final String typeUri) {
+        final var end = typeUri.indexOf('/', 1);
+        return end < 0 ? "" : typeUri.substring(0, end + 1);
+    }
+
+    private static ShardManifest.Shard writeShard(
+        final PartialJavaCallGraph graph, final Path directory, final int index,
+        final Map<String, JavaType> internalTypes,
+        final Map<LongLongPair, Map<Object, Object>> calls,
+        final Long2ObjectOpenHashMap<Pair<JavaScope, String>> typeOf,
+        final OutputCodec codec, final int level) throws IOException {
+        final var classHierarchy = new EnumMap<JavaScope, Map<String, JavaType>>(JavaScope.class);
+        for (final var scope : graph.getClassHierarchy().entrySet()) {
+            classHierarchy.put(scope.getKey(), new HashMap<>());
+        }
+        classHierarchy.put(JavaScope.internalTypes, internalTypes);
+        for (final var call : calls.keySet()) {
+            for (final var id : new long[] {call.firstLong(), call.secondLong()}) {
+                final var type = typeOf.get(id);
+                if (type != null) {
+                    classHierarchy.get(type.getLeft()).put(type.getRight(),
+                        graph.getClassHierarchy().get(type.getLeft()).get(type.getRight()));
+                }
+            }
+        }
+
+        final var shard = new PartialJavaCallGraph(graph.forge, graph.product, graph.version,
+            graph.timestamp, graph.cgGenerator, classHierarchy, new JavaGraph(calls));
+        final var file = String.format("shard-%04d.json", index) + codec.getExtension();
+        final var json = JSONUtils.toJSONString(shard);
+        if (codec == OutputCodec.NONE) {
+            Files.writeString(directory.resolve(file), json, StandardCharsets.UTF_8);
+        } else {
+            codec.write(json, Files.newOutputStream(directory.resolve(file)), level);
+        }
+
+        final var ids = new LongArrayList();
+        final List<String> packages = new ArrayList<>();
+        var methods = 0;
+        for (final var type : internalTypes.entrySet()) {
+            type.getValue().getMethods().keySet().forEach(id -> ids.add((long) id));
+            methods += type.getValue().getMethods().size();
+            final var name = packageOf(type.getKey());
+            if (packages.isEmpty() || !packages.get(packages.size() - 1).equals(name)) {
+                packages.add(name);
+            }
+        }
+        return new ShardManifest.Shard(file, packages, internalTypes.size(), methods,
+            calls.size(), ranges(ids));
+    }
+
+    /**
+     * Merge IDs into sorted, disjoint and inclusive ranges.
+     */
+    static long[][] ranges(final LongArrayList ids) {
+        ids.sort(null);
+        final List<long[]> result = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i++) {
+            final var id = ids.getLong(i);
+            if (!result.isEmpty() && result.get(result.size() - 1)[1] >= id - 1) {
+                result.get(result.size() - 1)[1] = Math.max(id, result.get(result.size() - 1)[1]);
+            } else {
+                result.add(new long[] {id, id});
+            }
+        }
+        return result.toArray(new long[0][]);
+    }
+}
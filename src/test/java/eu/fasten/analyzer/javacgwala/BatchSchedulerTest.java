@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CostModel;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class BatchSchedulerTest {
+
+    private static final List<MavenCoordinate> COORDINATES = List.of(
+        new MavenCoordinate("org.big", "giant", "1.0"),
+        new MavenCoordinate("org.web", "server", "1.0"),
+        new MavenCoordinate("org.small", "tiny", "1.0"),
+        new MavenCoordinate("org.web", "client", "1.0"),
+        new MavenCoordinate("org.other", "unknown", "1.0"));
+
+    private static final Map<String, Long> SIZES = Map.of(
+        "giant", 50_000_000L, "server", 200_000L, "tiny", 10_000L, "client", 100_000L,
+        "unknown", -1L);
+
+    private static final Map<String, Collection<String>> DEPENDENCIES = Map.of(
+        "giant", List.of("com.google:guava"),
+        "server", List.of("io.netty:netty", "org.slf4j:slf4j-api"),
+        "tiny", List.of("org.slf4j:slf4j-api"),
+        "client", List.of("io.netty:netty"),
+        "unknown", List.of("com.google:guava"));
+
+    private static BatchScheduler scheduler(final BatchScheduler.Policy policy) {
+        return new BatchScheduler(policy, new CostModel(), Algorithm.CHA,
+            coordinate -> SIZES.get(coordinate.getArtifactID()),
+            coordinate -> DEPENDENCIES.get(coordinate.getArtifactID()));
+    }
+
+    private static List<String> order(final List<BatchScheduler.Job> jobs) {
+        return jobs.stream().map(job -> job.getCoordinate().getArtifactID())
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    void fifoKeepsInputOrder() {
+        assertEquals(List.of("giant", "server", "tiny", "client", "unknown"),
+            order(scheduler(BatchScheduler.Policy.FIFO).schedule(COORDINATES)));
+    }
+
+    @Test
+    void fifoDoesNotScanCoordinates() {
+        final var scheduler = new BatchScheduler(BatchScheduler.Policy.FIFO, new CostModel(),
+            Algorithm.CHA, coordinate -> {
+                throw new AssertionError("scanned " + coordinate.getCoordinate());
+            }, coordinate -> {
+                throw new AssertionError("scanned " + coordinate.getCoordinate());
+            });
+        final var jobs = scheduler.schedule(COORDINATES);
+        assertEquals(List.of("giant", "server", "tiny", "client", "unknown"), order(jobs));
+        jobs.forEach(scheduler::completed);
+        final var curve = scheduler.completionCurve();
+        assertTrue(curve.get(COORDINATES.size() - 1).startsWith("100% (5 jobs): actual"));
+    }
+
+    @Test
+    void shortestFirstPutsUnknownSizesLast() {
+        assertEquals(List.of("tiny", "client", "server", "giant", "unknown"),
+            order(scheduler(BatchScheduler.Policy.SHORTEST_FIRST).schedule(COORDINATES)));
+    }
+
+    @Test
+    void localityGroupsSharedDependencies() {
+        assertEquals(List.of("giant", "unknown", "server", "client", "tiny"),
+            order(scheduler(BatchScheduler.Policy.DEPENDENCY_LOCALITY).schedule(COORDINATES)));
+    }
+
+    @Test
+    void reportsCompletionCurve() {
+        final var scheduler = scheduler(BatchScheduler.Policy.SHORTEST_FIRST);
+        final var jobs = scheduler.schedule(COORDINATES);
+        var previous = 0L;
+        for (final var job : jobs) {
+            assertTrue(job.getExpectedMillis() >= previous);
+            previous = job.getExpectedMillis();
+            scheduler.completed(job);
+        }
+        final var curve = scheduler.completionCurve();
+        assertEquals(COORDINATES.size() + 1, curve.size());
+        assertTrue(curve.get(COORDINATES.size() - 1).startsWith("100% (5 jobs)"));
+        assertTrue(curve.get(COORDINATES.size()).startsWith("mean completion"));
+    }
+}
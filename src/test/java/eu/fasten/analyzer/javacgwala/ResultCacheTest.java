@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.core.data.CallPreservationStrategy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResultCacheTest {
+
+    private Path directory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("result-cache");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    private static byte[] bytes(final String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void keyDependsOnAllInputs() {
+        final var key = ResultCache.key("abc", "g:a:1", 1L, Algorithm.CHA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES, "x", "0.0.1");
+
+        assertEquals(key, ResultCache.key("abc", "g:a:1", 1L, Algorithm.CHA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES, "x", "0.0.1"));
+        assertNotEquals(key, ResultCache.key("abd", "g:a:1", 1L, Algorithm.CHA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES, "x", "0.0.1"));
+        assertNotEquals(key, ResultCache.key("abc", "g:b:1", 1L, Algorithm.CHA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES, "x", "0.0.1"));
+        assertNotEquals(key, ResultCache.key("abc", "g:a:1", 2L, Algorithm.CHA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES, "x", "0.0.1"));
+        assertNotEquals(key, ResultCache.key("abc", "g:a:1", 1L, Algorithm.ZERO_CFA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES, "x", "0.0.1"));
+        assertNotEquals(key, ResultCache.key("abc", "g:a:1", 1L, Algorithm.CHA,
+            CallPreservationStrategy.INCLUDING_ALL_SUBTYPES, "x", "0.0.1"));
+        assertNotEquals(key, ResultCache.key("abc", "g:a:1", 1L, Algorithm.CHA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES, "y", "0.0.1"));
+        assertNotEquals(key, ResultCache.key("abc", "g:a:1", 1L, Algorithm.CHA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES, "x", "0.0.2"));
+    }
+
+    @Test
+    void countsHitsAndMisses() {
+        final var cache = new ResultCache(directory, 1024);
+
+        assertEquals(Optional.empty(), cache.get("a"));
+        cache.put("a", bytes("{}"));
+        assertArrayEquals(bytes("{}"), cache.get("a").orElseThrow());
+
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void evictsLeastRecentlyUsed() {
+        final var cache = new ResultCache(directory, 10);
+        cache.put("a", bytes("aaaa"));
+        cache.put("b", bytes("bbbb"));
+        cache.get("a");
+        cache.put("c", bytes("cccc"));
+
+        assertEquals(Arrays.asList("a", "c"), cache.keys());
+        assertEquals(8, cache.getTotalBytes());
+        assertTrue(cache.get("b").isEmpty());
+    }
+
+    @Test
+    void entriesSurviveRestart() {
+        new ResultCache(directory, 1024).put("a", bytes("content"));
+
+        final var cache = new ResultCache(directory, 1024);
+
+        assertArrayEquals(bytes("content"), cache.get("a").orElseThrow());
+        assertEquals(1, cache.size());
+    }
+}
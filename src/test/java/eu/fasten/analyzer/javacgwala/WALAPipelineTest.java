@@ -0,0 +1,79 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.json.JSONException;
+import org.junit.jupiter.api.Test;
+
+class WALAPipelineTest {
+
+    @Test
+    void failedRecordsAreReportedWithTheirError() throws InterruptedException {
+        try (final var pipeline = new WALAPipeline(null, "0.0.1", 1, 2, 1, 1)) {
+            final var records = Set.of("{", "{\"groupId\": \"g\"}", "not json");
+            for (final var record : records) {
+                pipeline.submit(record);
+            }
+
+            final Set<String> returned = new HashSet<>();
+            for (int i = 0; i < records.size(); i++) {
+                final var result = pipeline.poll(10, TimeUnit.SECONDS).orElseThrow();
+                returned.add(result.record());
+                assertNotNull(result.getPluginError());
+                assertTrue(result.getPluginError() instanceof JSONException);
+                assertFalse(result.produce().isPresent());
+            }
+
+            assertEquals(records, returned);
+            assertEquals(0, pipeline.pending());
+        }
+    }
+
+    @Test
+    void closedPipelineRejectsRecords() {
+        final var pipeline = new WALAPipeline(null, "0.0.1", 1, 1, 1, 1);
+        pipeline.close();
+
+        assertThrows(IllegalStateException.class, () -> pipeline.submit("{}"));
+    }
+
+    @Test
+    void closeDoesNotWaitForUnretrievedResults() throws InterruptedException {
+        final var pipeline = new WALAPipeline(null, "0.0.1", 1, 1, 1, 1);
+        // one record for every queue and every worker, none of them is polled
+        for (int i = 0; i < 7; i++) {
+            pipeline.submit("not json " + i);
+        }
+        Thread.sleep(500);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(10), pipeline::close);
+        assertEquals(0, pipeline.pending());
+    }
+}
@@ -33,7 +33,10 @@ import eu.fasten.core.data.PartialJavaCallGraph;
 import eu.fasten.core.data.callableindex.SourceCallSites;
 import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.LongLongPair;
+import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -43,6 +46,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mockito;
 
 class WALAPluginTest {
@@ -91,6 +95,46 @@ class WALAPluginTest {
         assertTrue(walaPlugin.produce().isPresent());
         final var actual = new PartialJavaCallGraph(new JSONObject(walaPlugin.produce().get()));
         pcgAssert(expected, actual);
+        assertTrue(walaPlugin.getOutputPath().endsWith(".json"));
+        assertEquals(walaPlugin.getOutputPath() + WALAPlugin.WALA.OUTPUT_CODEC.getExtension(),
+            walaPlugin.getEncodedOutputPath());
+    }
+
+    @Test
+    public void cachedResultsKeepTheHeaderOfTheirRecord(@TempDir Path cacheDir)
+        throws IOException {
+        final var jar = new File(Thread.currentThread().getContextClassLoader()
+            .getResource("SingleSourceToTarget.jar").getFile());
+        final var cache = new ResultCache(cacheDir, 64L * 1024 * 1024);
+        final var plugin = new WALAPlugin.WALA(cache);
+
+        final var first = new JSONObject("{\"groupId\": \"org.first\", "
+            + "\"artifactId\": \"sst\", \"version\": \"1.0\", \"releaseDate\": 1}");
+        final var relocated = new JSONObject("{\"groupId\": \"org.second\", "
+            + "\"artifactId\": \"sst\", \"version\": \"2.0\", \"releaseDate\": 2}");
+
+        plugin.consume(first, getMavenCoordinate(first), jar);
+        final var firstResult = new JSONObject(plugin.produce().orElseThrow());
+        plugin.consume(relocated, getMavenCoordinate(relocated), jar);
+        final var relocatedResult = new JSONObject(plugin.produce().orElseThrow());
+        assertEquals(0, cache.getHits());
+
+        assertEquals("org.first:sst", firstResult.getString("product"));
+        assertEquals("1.0", firstResult.getString("version"));
+        assertEquals(1, firstResult.getLong("timestamp"));
+        assertEquals("org.second:sst", relocatedResult.getString("product"));
+        assertEquals("2.0", relocatedResult.getString("version"));
+        assertEquals(2, relocatedResult.getLong("timestamp"));
+
+        plugin.consume(first, getMavenCoordinate(first), jar);
+        assertEquals(1, cache.getHits());
+        assertEquals("org.first:sst",
+            new JSONObject(plugin.produce().orElseThrow()).getString("product"));
+    }
+
+    private static MavenCoordinate getMavenCoordinate(final JSONObject record) {
+        return new MavenCoordinate(record.getString("groupId"), record.getString("artifactId"),
+            record.getString("version"));
     }
 
     private PartialJavaCallGraph generateForCoordinate(final String groupID,
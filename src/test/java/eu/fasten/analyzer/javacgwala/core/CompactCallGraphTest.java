@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.core;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class CompactCallGraphTest {
+
+    private static int[] toArray(final IntIterator iterator) {
+        final var result = new IntArrayList();
+        iterator.forEachRemaining((int value) -> result.add(value));
+        return result.toIntArray();
+    }
+
+    @Test
+    void sortPairsIsNumeric() {
+        final var pairs = new int[] {10, 2, 2, 10, 2, 9, 1, 100000, 1, 3};
+
+        CompactCallGraph.sortPairs(pairs, 5);
+
+        assertArrayEquals(new int[] {1, 3, 1, 100000, 2, 9, 2, 10, 10, 2}, pairs);
+    }
+
+    @Test
+    void successorsAndPredecessors() {
+        final var graph = CompactCallGraph.of(new int[] {0, 2, 3, 1, 0, 1, 1, 2, 0, 2}, 5);
+
+        assertEquals(4, graph.getNodeCount());
+        assertEquals(4, graph.getEdgeCount());
+        assertArrayEquals(new int[] {1, 2}, toArray(graph.successors(0)));
+        assertArrayEquals(new int[] {0, 1}, toArray(graph.predecessors(2)));
+        assertArrayEquals(new int[] {0, 3}, toArray(graph.predecessors(1)));
+        assertArrayEquals(new int[0], toArray(graph.successors(2)));
+        assertArrayEquals(new int[0], toArray(graph.successors(7)));
+        assertTrue(graph.hasCall(3, 1));
+        assertFalse(graph.hasCall(1, 3));
+    }
+
+    @Test
+    void reachability() {
+        final var graph = CompactCallGraph.of(new int[] {0, 1, 1, 2, 3, 4, 4, 3}, 4);
+
+        assertEquals("{0, 1, 2}", graph.reachableFrom(0).toString());
+        assertEquals("{3, 4}", graph.reachableFrom(4).toString());
+    }
+
+    @Test
+    void listViewMatchesSortedCalls() {
+        final List<List<Integer>> calls = new ArrayList<>();
+        calls.add(Arrays.asList(5, 1));
+        calls.add(Arrays.asList(0, 5));
+        calls.add(Arrays.asList(5, 0));
+        calls.add(Arrays.asList(0, 3));
+        final var graph = new RevisionCallGraph.Graph(calls, Collections.emptyMap());
+
+        assertEquals(Arrays.asList(Arrays.asList(0, 3), Arrays.asList(0, 5),
+            Arrays.asList(5, 0), Arrays.asList(5, 1)), graph.toCompactGraph().asList());
+    }
+
+    @Test
+    void sortInternalCallsOfIntPairList() {
+        final var calls = new IntPairList();
+        calls.add(12, 3);
+        calls.add(2, 30);
+        calls.add(2, 4);
+        final var revision = RevisionCallGraph.extendedBuilder()
+            .forge("mvn").product("g:a").version("1")
+            .classHierarchy(Collections.emptyMap())
+            .graph(new RevisionCallGraph.Graph(calls, Collections.emptyMap()))
+            .build();
+
+        revision.sortInternalCalls();
+
+        assertEquals(Arrays.asList(Arrays.asList(2, 4), Arrays.asList(2, 30),
+            Arrays.asList(12, 3)), revision.getGraph().getInternalCalls());
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.core;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import org.apache.commons.lang3.tuple.MutablePair;
+import org.apache.commons.lang3.tuple.Pair;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class RevisionCallGraphReaderTest {
+
+    private static String json;
+
+    @BeforeAll
+    static void setUp() {
+        final Map<Integer, FastenURI> methods = new HashMap<>();
+        methods.put(0, FastenURI.create("/name.space/A.%3Cinit%3E()%2Fjava.lang%2FVoidType"));
+        methods.put(1, FastenURI.create("/name.space/A.run()%2Fjava.lang%2FVoidType"));
+        final var superClasses = new LinkedList<>(
+            Collections.singletonList(FastenURI.create("/java.lang/Object")));
+        final Map<FastenURI, RevisionCallGraph.Type> cha = new HashMap<>();
+        cha.put(FastenURI.create("/name.space/A"), new RevisionCallGraph.Type("A.java", methods,
+            superClasses, Collections.singletonList(FastenURI.create("/java.lang/Runnable"))));
+
+        final List<List<Integer>> internalCalls = new ArrayList<>();
+        internalCalls.add(Arrays.asList(1, 0));
+        internalCalls.add(Arrays.asList(0, 1));
+        final Map<Pair<Integer, FastenURI>, Map<String, String>> externalCalls = new HashMap<>();
+        externalCalls.put(new MutablePair<>(0,
+            FastenURI.create("///java.lang/Object.%3Cinit%3E()VoidType")),
+            Map.of("invokespecial", "1"));
+
+        json = RevisionCallGraph.extendedBuilder()
+            .forge("mvn").product("g:a").version("1.0").cgGenerator("WALA").timestamp(42)
+            .depset(RevisionCallGraph.Dependency.depset(new JSONArray(
+                "[[{\"forge\":\"mvn\",\"product\":\"g:b\",\"constraints\":[\"[1.0]\"]}]]")))
+            .classHierarchy(cha)
+            .graph(new RevisionCallGraph.Graph(internalCalls, externalCalls))
+            .build()
+            .toJSON()
+            .toString(2);
+    }
+
+    @Test
+    void loadMatchesDomParser() {
+        final var expected = new RevisionCallGraph(new JSONObject(json));
+        final var actual = RevisionCallGraphReader.load(new StringReader(json));
+
+        assertTrue(expected.toJSON().similar(actual.toJSON()));
+        assertEquals(42, actual.timestamp);
+        assertEquals(expected.getClassHierarchy().keySet(), actual.getClassHierarchy().keySet());
+        assertEquals(expected.mapOfAllMethods(), actual.mapOfAllMethods());
+        assertEquals(expected.getGraph().getInternalCalls(),
+            actual.getGraph().getInternalCalls());
+        assertEquals(expected.getGraph().getExternalCalls(),
+            actual.getGraph().getExternalCalls());
+    }
+
+    @Test
+    void urisAreParsed() {
+        final var graph = RevisionCallGraphReader.load(new StringReader(json));
+        final var type = graph.getClassHierarchy().entrySet().iterator().next();
+        final var target = graph.getGraph().getExternalCalls().keySet().iterator().next();
+
+        assertEquals(FastenURI.create("/name.space/A"), type.getKey());
+        assertEquals(FastenURI.create("/java.lang/Object"),
+            type.getValue().getSuperClasses().getFirst());
+        assertEquals(FastenURI.create("///java.lang/Object.%3Cinit%3E()VoidType"),
+            target.getValue());
+    }
+
+    @Test
+    void visitorReceivesCallsInDocumentOrder() {
+        final List<Integer> calls = new ArrayList<>();
+        RevisionCallGraphReader.read(new StringReader(json), new RevisionCallGraphVisitor() {
+            @Override
+            public void visitInternalCall(final int source, final int target) {
+                calls.add(source);
+                calls.add(target);
+            }
+        });
+
+        assertEquals(Arrays.asList(1, 0, 0, 1), calls);
+    }
+
+    @Test
+    void malformedInputIsRejected() {
+        final var malformed = "{\"graph\": {\"internalCalls\": [[1 2]]}}";
+
+        assertThrows(JSONException.class,
+            () -> RevisionCallGraphReader.load(new StringReader(malformed)));
+    }
+}
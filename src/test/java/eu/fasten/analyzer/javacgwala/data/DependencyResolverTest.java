@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.fasten.analyzer.javacgwala.core.MavenCoordinate;
+import eu.fasten.analyzer.javacgwala.core.RevisionCallGraph;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class DependencyResolverTest {
+
+    private static RevisionCallGraph.Dependency dependency(final String product,
+                                                           final String version) {
+        return new RevisionCallGraph.Dependency("mvn", product,
+            Collections.singletonList(new RevisionCallGraph.Constraint(version, version)));
+    }
+
+    private static List<String> resolve(final Map<String, List<RevisionCallGraph.Dependency>> pom,
+                                        final String root) {
+        final var resolver = new DependencyResolver(coordinate -> Collections.singletonList(
+            pom.getOrDefault(coordinate.getCoordinate(), Collections.emptyList())), 4);
+        return resolver.resolveClosure(MavenCoordinate.fromString(root)).stream()
+            .map(MavenCoordinate::getCoordinate)
+            .collect(Collectors.toList());
+    }
+
+    @Test
+    void nearestDeclarationWins() {
+        final Map<String, List<RevisionCallGraph.Dependency>> pom = new HashMap<>();
+        pom.put("g:a:1", Arrays.asList(dependency("g:b", "1"), dependency("g:c", "1")));
+        pom.put("g:b:1", Arrays.asList(dependency("g:d", "1"), dependency("g:c", "2")));
+        pom.put("g:c:1", Collections.singletonList(dependency("g:d", "2")));
+
+        assertEquals(Arrays.asList("g:b:1", "g:c:1", "g:d:1"), resolve(pom, "g:a:1"));
+    }
+
+    @Test
+    void cyclesAndUnresolvedVersionsAreSkipped() {
+        final Map<String, List<RevisionCallGraph.Dependency>> pom = new HashMap<>();
+        pom.put("g:a:1", Arrays.asList(dependency("g:b", "1"), dependency("g:e", "*"),
+            dependency("g:f", null)));
+        pom.put("g:b:1", Collections.singletonList(dependency("g:a", "2")));
+
+        assertEquals(Collections.singletonList("g:b:1"), resolve(pom, "g:a:1"));
+    }
+
+    @Test
+    void failingPomDoesNotAbortResolution() {
+        final var resolver = new DependencyResolver(coordinate -> {
+            if (coordinate.getArtifactID().equals("b")) {
+                throw new RuntimeException("POM not found");
+            }
+            return Collections.singletonList(Arrays.asList(dependency("g:b", "1"),
+                dependency("g:c", "1")));
+        }, 2);
+
+        final var closure = resolver.resolveClosure(MavenCoordinate.fromString("g:a:1"));
+
+        assertEquals(2, closure.size());
+        assertTrue(closure.stream().anyMatch(c -> c.getCoordinate().equals("g:c:1")));
+    }
+}
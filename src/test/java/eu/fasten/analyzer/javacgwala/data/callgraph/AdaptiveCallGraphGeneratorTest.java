@@ -0,0 +1,132 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ibm.wala.classLoader.IMethod;
+import com.ibm.wala.ipa.callgraph.AnalysisScope;
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.ArtifactProfile;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.Budget;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CallGraphBuilderStrategy;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CallGraphBuilders;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CostModel;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.Constants;
+import java.io.File;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.function.Predicate;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class AdaptiveCallGraphGeneratorTest {
+
+    private static final ArtifactProfile SMALL = new ArtifactProfile(10, 50, 20 * 1024, 0, 0);
+
+    private static final ArtifactProfile HUGE =
+        new ArtifactProfile(50_000, 400_000, 200L * 1024 * 1024, 100, 800L * 1024 * 1024);
+
+    @Test
+    void selectsMostPreciseAlgorithmWithinBudget() {
+        final var generator = new AdaptiveCallGraphGenerator(new CostModel(),
+            Duration.ofMinutes(10), Long.MAX_VALUE);
+        assertEquals(Algorithm.ZERO_ONE_CONTAINER_CFA, generator.select(SMALL));
+        assertEquals(Algorithm.CHA, generator.select(HUGE));
+
+        final var lowMemory = new AdaptiveCallGraphGenerator(new CostModel(),
+            Duration.ofMinutes(10), 270L * 1024 * 1024);
+        assertTrue(lowMemory.select(SMALL).compareTo(Algorithm.ZERO_ONE_CONTAINER_CFA) < 0);
+    }
+
+    @Test
+    void costModelLearnsFromRuns() {
+        final var model = new CostModel();
+        final var before = model.predictMillis(Algorithm.RTA, SMALL);
+        for (int i = 0; i < 20; i++) {
+            model.record(Algorithm.RTA, SMALL, 60_000, 1024L * 1024 * 1024);
+        }
+        assertTrue(model.predictMillis(Algorithm.RTA, SMALL) > before);
+        assertEquals(60_000, model.predictMillis(Algorithm.RTA, SMALL), 1_000);
+    }
+
+    @Test
+    void costModelIsStored(@TempDir final Path directory) throws Exception {
+        final var model = new CostModel();
+        model.record(Algorithm.ZERO_CFA, SMALL, 50_000, 0);
+        final var file = directory.resolve("model.properties");
+        model.save(file);
+
+        final var loaded = new CostModel();
+        loaded.load(file);
+        assertEquals(model.predictMillis(Algorithm.ZERO_CFA, SMALL),
+            loaded.predictMillis(Algorithm.ZERO_CFA, SMALL), 1e-6);
+        assertEquals(model.predictMillis(Algorithm.CHA, SMALL),
+            loaded.predictMillis(Algorithm.CHA, SMALL), 1e-6);
+    }
+
+    @Test
+    void fallsBackToCheaperAlgorithm() {
+        final var path = new File(Thread.currentThread().getContextClassLoader()
+            .getResource("SingleSourceToTarget.jar").getFile()).getAbsolutePath();
+        final var original = CallGraphBuilders.get(Algorithm.ZERO_ONE_CONTAINER_CFA);
+        CallGraphBuilders.register(Algorithm.ZERO_ONE_CONTAINER_CFA,
+            new CallGraphBuilderStrategy() {
+                @Override
+                public Cost getCost() {
+                    return original.getCost();
+                }
+
+                @Override
+                public Budget getDefaultBudget() {
+                    return original.getDefaultBudget();
+                }
+
+                @Override
+                public EntryPointPolicy getDefaultEntryPoints() {
+                    return original.getDefaultEntryPoints();
+                }
+
+                @Override
+                public CallGraph build(final AnalysisScope scope,
+                                       final Predicate<IMethod> entryPoints,
+                                       final Budget budget) throws CancelException {
+                    throw CancelException.make("Budget exceeded");
+                }
+            });
+        try {
+            final var generator = new AdaptiveCallGraphGenerator(new CostModel(),
+                Duration.ofMinutes(10), Long.MAX_VALUE);
+            final var result = PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+                "group:artifact:1.0", -1, Constants.walaGenerator);
+            final var algorithm = generator.generateFromFile(path, Collections.emptyList(),
+                result, CallPreservationStrategy.ONLY_STATIC_CALLSITES);
+
+            assertEquals(Algorithm.ZERO_ONE_CFA, algorithm);
+            assertFalse(result.isCallGraphEmpty());
+        } finally {
+            CallGraphBuilders.register(Algorithm.ZERO_ONE_CONTAINER_CFA, original);
+        }
+    }
+}
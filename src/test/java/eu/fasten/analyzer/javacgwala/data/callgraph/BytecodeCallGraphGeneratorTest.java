@@ -0,0 +1,110 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.WalaResultAnalyzer;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.JSONUtils;
+import eu.fasten.core.data.JavaScope;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+
+class BytecodeCallGraphGeneratorTest {
+
+    private static String getPath(final String resource) {
+        return new File(Thread.currentThread().getContextClassLoader()
+            .getResource(resource).getFile()).getAbsolutePath();
+    }
+
+    private static PartialJavaCallGraph emptyPCG() {
+        return PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+            "group:artifact:1.0", -1, Constants.walaGenerator);
+    }
+
+    /**
+     * Describe the calls of a call graph by the URIs of their endpoints, which unlike node IDs
+     * do not depend on how the graph was generated.
+     */
+    private static Map<String, Map<Object, Object>> calls(final PartialJavaCallGraph pcg) {
+        final var methods = pcg.mapOfAllMethods();
+        final Map<String, Map<Object, Object>> result = new HashMap<>();
+        for (final var call : pcg.getGraph().getCallSites().entrySet()) {
+            result.put(methods.get(call.getKey().firstLong()).getUri() + " -> "
+                + methods.get(call.getKey().secondLong()).getUri(), call.getValue());
+        }
+        return result;
+    }
+
+    private static Map<JavaScope, Set<String>> methods(final PartialJavaCallGraph pcg) {
+        final Map<JavaScope, Set<String>> result = new EnumMap<>(JavaScope.class);
+        for (final var scope : pcg.getClassHierarchy().entrySet()) {
+            result.put(scope.getKey(), scope.getValue().values().stream()
+                .flatMap(type -> type.getMethods().values().stream())
+                .map(node -> node.getUri().toString())
+                .collect(Collectors.toSet()));
+        }
+        return result;
+    }
+
+    @Test
+    void matchesWalaCallGraph() throws IOException, ClassHierarchyException, CancelException {
+        for (final var jar : List.of("SingleSourceToTarget.jar", "ClassInit.jar",
+            "LambdaExample.jar", "ArrayExample.jar", "ArrayExtensiveTest.jar",
+            "MetadataExample.jar", "CallPreservation.jar")) {
+            final var path = getPath(jar);
+
+            final var expected = emptyPCG();
+            WalaResultAnalyzer.wrap(CallGraphConstructor.generateCallGraph(path, Algorithm.CHA),
+                expected, CallPreservationStrategy.ONLY_STATIC_CALLSITES);
+            final var actual = emptyPCG();
+            BytecodeCallGraphGenerator.generateFromFile(path, Collections.emptyList(), actual);
+
+            assertFalse(actual.isCallGraphEmpty(), jar);
+            assertEquals(calls(expected), calls(actual), jar);
+            assertEquals(methods(expected), methods(actual), jar);
+            assertEquals(JSONUtils.toJSONString(expected), JSONUtils.toJSONString(actual), jar);
+        }
+    }
+
+    @Test
+    void supportsOnlyChaStaticCallSites() {
+        assertTrue(BytecodeCallGraphGenerator.supports(Algorithm.CHA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES));
+        assertFalse(BytecodeCallGraphGenerator.supports(Algorithm.RTA,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES));
+        assertFalse(BytecodeCallGraphGenerator.supports(Algorithm.CHA,
+            CallPreservationStrategy.INCLUDING_ALL_SUBTYPES));
+    }
+}
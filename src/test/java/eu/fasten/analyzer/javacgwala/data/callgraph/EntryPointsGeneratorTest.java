@@ -1,13 +1,18 @@
 package eu.fasten.analyzer.javacgwala.data.callgraph;
 
 import static eu.fasten.analyzer.javacgwala.data.callgraph.CallGraphConstructor.correctFileNameIfWrong;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import com.ibm.wala.ipa.callgraph.Entrypoint;
 import com.ibm.wala.ipa.cha.ClassHierarchyException;
 import com.ibm.wala.ipa.cha.ClassHierarchyFactory;
+import com.ibm.wala.types.ClassLoaderReference;
 import com.ibm.wala.util.config.AnalysisScopeReader;
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
 import org.junit.jupiter.api.Test;
 
 class EntryPointsGeneratorTest {
@@ -31,4 +36,29 @@ class EntryPointsGeneratorTest {
                 "attemptUnmanagePooledDataSource")));
     }
 
+    @Test
+    void testLazyEntryPointsOfApplicationClasses() throws IOException, ClassHierarchyException {
+        final var exclusionFile = new File("src/main/resources/Java60RegressionExclusions.txt");
+        final var classpath = new File(Thread.currentThread().getContextClassLoader()
+            .getResource("SingleSourceToTarget.jar").getFile()).getAbsolutePath();
+        final var scope = AnalysisScopeReader
+            .makeJavaBinaryAnalysisScope(classpath, exclusionFile);
+        final var ch = ClassHierarchyFactory.makeWithRoot(scope);
+        final var entryPointsGenerator = new EntryPointsGenerator(ch);
+
+        final var all = new HashSet<Entrypoint>();
+        entryPointsGenerator.getEntryPoints(EntryPointPolicy.ALL).forEach(all::add);
+        assertFalse(all.isEmpty());
+        assertTrue(all.stream().allMatch(entrypoint -> entrypoint.getMethod()
+            .getDeclaringClass().getClassLoader().getReference()
+            .equals(ClassLoaderReference.Application)));
+        assertEquals(all, entryPointsGenerator.getEntryPoints());
+
+        final var publicApi = new HashSet<Entrypoint>();
+        entryPointsGenerator.getEntryPoints(EntryPointPolicy.PUBLIC_API).forEach(publicApi::add);
+        assertTrue(all.containsAll(publicApi));
+
+        assertFalse(entryPointsGenerator.getEntryPoints(method -> false).iterator().hasNext());
+    }
+
 }
\ No newline at end of file
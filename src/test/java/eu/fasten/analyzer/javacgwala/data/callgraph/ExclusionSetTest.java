@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ibm.wala.util.config.FileOfClasses;
+import java.io.ByteArrayInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ExclusionSetTest {
+
+    private static final String EXCLUSIONS = "src/main/resources/Java60RegressionExclusions.txt";
+
+    @Test
+    void literalPrefix() {
+        assertEquals("java/awt/", ExclusionSet.literalPrefix("java\\/awt\\/.*"));
+        assertEquals("", ExclusionSet.literalPrefix(".*"));
+        assertNull(ExclusionSet.literalPrefix("java\\/io\\/ObjectStreamClass*"));
+        assertNull(ExclusionSet.literalPrefix("java\\/.*\\/Foo.*"));
+        assertNull(ExclusionSet.literalPrefix("java\\w.*"));
+    }
+
+    @Test
+    void matchesLikeWala() throws IOException {
+        final FileOfClasses wala;
+        final ExclusionSet exclusions;
+        try (var in = new FileInputStream(EXCLUSIONS)) {
+            wala = new FileOfClasses(in);
+        }
+        try (var in = new FileInputStream(EXCLUSIONS)) {
+            exclusions = new ExclusionSet(ExclusionSet.read(in));
+        }
+        for (final var name : List.of("java/awt/Frame", "java/lang/Object", "sun/misc/Unsafe",
+            "java/io/ObjectStreamClass", "java/io/ObjectStreamClas", "java/io/File",
+            "javax/swing/JFrame", "javax", "org/w3c/dom/Node", "com/sun/Foo", "com/example/A",
+            "")) {
+            assertEquals(wala.contains(name), exclusions.contains(name), name);
+        }
+    }
+
+    @Test
+    void countsHits() {
+        final var exclusions = new ExclusionSet(List.of("org\\/.*", "org\\/apache\\/.*",
+            "com\\/example\\/Gen[0-9]+"));
+        assertTrue(exclusions.contains("org/apache/Foo"));
+        assertTrue(exclusions.contains("org/Bar"));
+        assertTrue(exclusions.contains("com/example/Gen12"));
+        assertFalse(exclusions.contains("com/example/Gen"));
+        assertFalse(exclusions.contains("or"));
+
+        final var hits = exclusions.getHits();
+        assertEquals(2L, hits.get("org\\/.*"));
+        assertEquals(0L, hits.get("org\\/apache\\/.*"));
+        assertEquals(1L, hits.get("com\\/example\\/Gen[0-9]+"));
+    }
+
+    @Test
+    void extendedSet() throws IOException {
+        final var base = new ExclusionSet(ExclusionSet.read(new ByteArrayInputStream(
+            "# comment\n\njava\\/awt\\/.*\n".getBytes(StandardCharsets.UTF_8))));
+        assertEquals(List.of("java\\/awt\\/.*"), base.getPatterns());
+
+        final var extended = base.with(List.of("org\\/springframework\\/.*"));
+        assertTrue(extended.contains("org/springframework/Bean"));
+        assertFalse(base.contains("org/springframework/Bean"));
+        assertNotEquals(base.getChecksum(), extended.getChecksum());
+    }
+
+    @Test
+    void defaultSetIsLoadedOnce() {
+        assertTrue(ExclusionSet.getDefault() == ExclusionSet.getDefault());
+        assertTrue(ExclusionSet.getDefault().contains("javax/swing/JFrame"));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.ArtifactProfile;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CostModel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+class HeapAdmissionControllerTest {
+
+    /** Predicted to use the heap of the primordial classes, 256 MB, with CHA. */
+    private static final ArtifactProfile SMALL = new ArtifactProfile(10, 50, 0, 0, 0);
+
+    private static final ArtifactProfile HUGE =
+        new ArtifactProfile(50_000, 400_000, 200L * 1024 * 1024, 100, 800L * 1024 * 1024);
+
+    private static final long BUDGET = 600L * 1024 * 1024;
+
+    @Test
+    void admitsWhilePredictionFitsBudget() {
+        final var controller = new HeapAdmissionController(new CostModel(), BUDGET, false);
+        final var first = controller.tryAcquire(Algorithm.CHA, SMALL).orElseThrow();
+        final var second = controller.tryAcquire(Algorithm.CHA, SMALL).orElseThrow();
+        assertFalse(controller.tryAcquire(Algorithm.CHA, SMALL).isPresent());
+        assertEquals(2, controller.getRunning());
+        assertEquals(first.getPredictedBytes() + second.getPredictedBytes(),
+            controller.getAdmittedBytes());
+
+        first.close();
+        try (var third = controller.tryAcquire(Algorithm.CHA, SMALL).orElseThrow()) {
+            assertEquals(2, controller.getRunning());
+        }
+        second.close();
+        assertEquals(0, controller.getRunning());
+        assertEquals(0, controller.getAdmittedBytes());
+    }
+
+    @Test
+    void runsOversizedArtifactsExclusively() {
+        final var controller = new HeapAdmissionController(new CostModel(), BUDGET, false);
+        final var small = controller.tryAcquire(Algorithm.CHA, SMALL).orElseThrow();
+        assertFalse(controller.tryAcquire(Algorithm.CHA, HUGE).isPresent());
+        small.close();
+
+        final var huge = controller.tryAcquire(Algorithm.CHA, HUGE).orElseThrow();
+        assertTrue(huge.isExclusive());
+        assertFalse(controller.tryAcquire(Algorithm.CHA, SMALL).isPresent());
+        huge.close();
+        controller.tryAcquire(Algorithm.CHA, SMALL).orElseThrow().close();
+    }
+
+    @Test
+    void admitsInOrderOfArrival() throws InterruptedException {
+        final var controller = new HeapAdmissionController(new CostModel(), BUDGET, false);
+        final var small = controller.tryAcquire(Algorithm.CHA, SMALL).orElseThrow();
+        final var admitted = new CountDownLatch(1);
+        final var waiter = new Thread(() -> {
+            try (var huge = controller.acquire(Algorithm.CHA, HUGE)) {
+                admitted.countDown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        // the small artifact would fit, but the huge one asked first
+        assertFalse(controller.tryAcquire(Algorithm.CHA, SMALL).isPresent());
+        assertFalse(admitted.await(50, TimeUnit.MILLISECONDS));
+
+        small.close();
+        assertTrue(admitted.await(10, TimeUnit.SECONDS));
+        waiter.join();
+        controller.tryAcquire(Algorithm.CHA, SMALL).orElseThrow().close();
+    }
+
+    @Test
+    void abandonedTurnIsPassedOn() throws InterruptedException {
+        final var controller = new HeapAdmissionController(new CostModel(), BUDGET, false);
+        final var huge = controller.tryAcquire(Algorithm.CHA, HUGE).orElseThrow();
+        final var waiter = new Thread(() -> {
+            try {
+                controller.acquire(Algorithm.CHA, SMALL).close();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        waiter.start();
+        while (waiter.getState() != Thread.State.WAITING) {
+            Thread.sleep(10);
+        }
+        waiter.interrupt();
+        waiter.join();
+        huge.close();
+        controller.tryAcquire(Algorithm.CHA, SMALL).orElseThrow().close();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class IncrementalCallGraphGeneratorTest {
+
+    private static String getPath(final String resource) {
+        return new File(Thread.currentThread().getContextClassLoader()
+            .getResource(resource).getFile()).getAbsolutePath();
+    }
+
+    private static PartialJavaCallGraph generate(final IncrementalCallGraphGenerator generator,
+                                                 final String path) {
+        final var result = PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+            "group:artifact:1.0", -1, Constants.walaGenerator);
+        generator.generateFromFile(path, Collections.emptyList(), Algorithm.CHA, result,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES);
+        return result;
+    }
+
+    @Test
+    void secondRunReusesAllClasses() {
+        final var path = getPath("MetadataExample.jar");
+        final var generator = new IncrementalCallGraphGenerator();
+
+        final var first = generate(generator, path);
+        assertEquals(0, generator.getReusedClasses());
+        assertTrue(generator.getAnalyzedClasses() > 0);
+        final var analyzed = generator.getAnalyzedClasses();
+
+        final var second = generate(generator, path);
+        assertEquals(analyzed, generator.getReusedClasses());
+        assertEquals(0, generator.getAnalyzedClasses());
+
+        assertFalse(first.isCallGraphEmpty());
+        assertEquals(first.getGraph().getCallSites(), second.getGraph().getCallSites());
+        assertEquals(first.mapOfAllMethods().size(), second.mapOfAllMethods().size());
+    }
+
+    @Test
+    void otherJarIsAnalyzed() {
+        final var generator = new IncrementalCallGraphGenerator();
+        generate(generator, getPath("MetadataExample.jar"));
+        generate(generator, getPath("SingleSourceToTarget.jar"));
+        assertEquals(0, generator.getReusedClasses());
+        assertTrue(generator.getAnalyzedClasses() > 0);
+    }
+
+    @Test
+    void fingerprintListsClasses() throws IOException {
+        final var fingerprints =
+            IncrementalCallGraphGenerator.fingerprint(new File(getPath("SingleSourceToTarget.jar")));
+        assertFalse(fingerprints.isEmpty());
+        assertTrue(fingerprints.keySet().stream().noneMatch(name -> name.endsWith(".class")));
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.MethodReference;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.CallGraphConstructor;
+import eu.fasten.analyzer.javacgwala.data.core.Method;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class AnalysisContextTest {
+
+    private static CallGraph graph;
+
+    @BeforeAll
+    static void setUp() throws Exception {
+        final var path = new File(Thread.currentThread().getContextClassLoader()
+            .getResource("SingleSourceToTarget.jar").getFile()).getAbsolutePath();
+        graph = CallGraphConstructor.generateCallGraph(path, Algorithm.CHA);
+    }
+
+    @Test
+    void parallelLookupsShareOneMethod() {
+        final var context = new AnalysisContext(graph.getClassHierarchy());
+        final List<MethodReference> references = new ArrayList<>();
+        for (final var node : graph) {
+            references.add(node.getMethod().getReference());
+        }
+        final var parallel = new Method[references.size()];
+        IntStream.range(0, parallel.length).parallel()
+            .forEach(i -> parallel[i] = context.findOrCreate(references.get(i)));
+        for (int i = 0; i < parallel.length; i++) {
+            assertSame(context.findOrCreate(references.get(i)), parallel[i]);
+        }
+    }
+
+    @Test
+    void referencesFromOtherLoadersShareOneMethod() {
+        final var context = new AnalysisContext(graph.getClassHierarchy());
+        final var primordial = MethodReference.findOrCreate(ClassLoaderReference.Primordial,
+            "Ljava/lang/Object", "toString", "()Ljava/lang/String;");
+        final var extension = MethodReference.findOrCreate(ClassLoaderReference.Extension,
+            "Ljava/lang/Object", "toString", "()Ljava/lang/String;");
+        assertSame(context.findOrCreate(primordial), context.findOrCreate(extension));
+    }
+}
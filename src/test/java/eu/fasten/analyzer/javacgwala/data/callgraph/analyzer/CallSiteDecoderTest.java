@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ibm.wala.shrikeBT.IInvokeInstruction;
+import com.ibm.wala.shrikeCT.ClassReader;
+import com.ibm.wala.shrikeCT.InvalidClassFileException;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class CallSiteDecoderTest {
+
+    static class Caller {
+
+        String describe(final int value) {
+            return String.valueOf(value).trim();
+        }
+    }
+
+    private static ClassReader readCaller() throws IOException, InvalidClassFileException {
+        try (var in = CallSiteDecoderTest.class
+            .getResourceAsStream("CallSiteDecoderTest$Caller.class")) {
+            return new ClassReader(in.readAllBytes());
+        }
+    }
+
+    @Test
+    void decodesInvokesInBytecodeOrder() throws IOException, InvalidClassFileException {
+        final var invokes = CallSiteDecoder.decodeClass(readCaller())
+            .get("describe(I)Ljava/lang/String;");
+
+        assertEquals(2, invokes.size());
+        assertEquals("Ljava/lang/String;", invokes.get(0).classType);
+        assertEquals("valueOf", invokes.get(0).methodName);
+        assertEquals("(I)Ljava/lang/String;", invokes.get(0).methodSignature);
+        assertEquals(IInvokeInstruction.Dispatch.STATIC, invokes.get(0).dispatch);
+        assertEquals("trim", invokes.get(1).methodName);
+        assertEquals(IInvokeInstruction.Dispatch.VIRTUAL, invokes.get(1).dispatch);
+        assertTrue(invokes.get(0).programCounter < invokes.get(1).programCounter);
+        assertTrue(invokes.get(0).lineNumber > 0);
+    }
+
+    @Test
+    void constructorCallsSuperConstructor() throws IOException, InvalidClassFileException {
+        final var invokes = CallSiteDecoder.decodeMethod(readCaller(), "<init>()V");
+
+        assertEquals(1, invokes.size());
+        assertEquals("Ljava/lang/Object;", invokes.get(0).classType);
+        assertEquals(IInvokeInstruction.Dispatch.SPECIAL, invokes.get(0).dispatch);
+    }
+
+    @Test
+    void unknownMethodHasNoCallSites() throws IOException, InvalidClassFileException {
+        assertTrue(CallSiteDecoder.decodeMethod(readCaller(), "missing()V").isEmpty());
+    }
+}
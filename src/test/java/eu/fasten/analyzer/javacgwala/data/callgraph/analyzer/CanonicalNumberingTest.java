@@ -0,0 +1,81 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.JSONUtils;
+import eu.fasten.core.data.JavaScope;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class CanonicalNumberingTest {
+
+    private static PartialJavaCallGraph generate() {
+        final var path = new File(Thread.currentThread().getContextClassLoader()
+            .getResource("MetadataExample.jar").getFile()).getAbsolutePath();
+        final var result = PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+            "MetadataExample", "0.0.0", -1, Constants.walaGenerator);
+        PartialCallGraphGenerator.generateFromFile(path, Collections.emptyList(), Algorithm.CHA,
+            result, CallPreservationStrategy.ONLY_STATIC_CALLSITES);
+        return result;
+    }
+
+    @Test
+    void identicalInputsProduceIdenticalOutput() {
+        assertEquals(JSONUtils.toJSONString(generate()), JSONUtils.toJSONString(generate()));
+    }
+
+    @Test
+    void idsAreConsecutiveInSortedOrder() {
+        final var pcg = generate();
+        final Set<Long> seen = new HashSet<>();
+        long expected = 0;
+        for (final var scope : JavaScope.values()) {
+            final var types = pcg.getClassHierarchy().get(scope);
+            if (types == null) {
+                continue;
+            }
+            final List<String> uris = new ArrayList<>(types.keySet());
+            final List<String> sorted = new ArrayList<>(uris);
+            Collections.sort(sorted);
+            assertEquals(sorted, uris);
+            for (final var type : types.values()) {
+                final var ids = new TreeSet<>(type.getMethods().keySet());
+                ids.removeAll(seen);
+                for (final var id : ids) {
+                    assertEquals(expected++, (long) id);
+                }
+                seen.addAll(ids);
+            }
+        }
+        assertEquals(pcg.mapOfAllMethods().size(), expected);
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.ibm.wala.classLoader.CallSiteReference;
+import com.ibm.wala.shrikeBT.IInvokeInstruction;
+import com.ibm.wala.types.ClassLoaderReference;
+import com.ibm.wala.types.MethodReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+class DispatchConeIndexTest {
+
+    private static final MethodReference NEXT = MethodReference.findOrCreate(
+        ClassLoaderReference.Primordial, "Ljava/util/Iterator", "next", "()Ljava/lang/Object;");
+
+    @Test
+    void conesAreResolvedOncePerDeclaredTarget() {
+        final var index = new DispatchConeIndex();
+        final var resolved = new AtomicInteger();
+        final var first = index.getTargets(
+            CallSiteReference.make(3, NEXT, IInvokeInstruction.Dispatch.INTERFACE),
+            site -> new int[] {resolved.incrementAndGet(), 7});
+        final var second = index.getTargets(
+            CallSiteReference.make(12, NEXT, IInvokeInstruction.Dispatch.INTERFACE),
+            site -> new int[] {resolved.incrementAndGet()});
+
+        assertSame(first, second);
+        assertArrayEquals(new int[] {1, 7}, second);
+        assertEquals(1, resolved.get());
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    void staticCallsAreResolvedSeparately() {
+        final var index = new DispatchConeIndex();
+        index.getTargets(CallSiteReference.make(0, NEXT, IInvokeInstruction.Dispatch.INTERFACE),
+            site -> new int[] {1, 2});
+        final var special = index.getTargets(
+            CallSiteReference.make(0, NEXT, IInvokeInstruction.Dispatch.SPECIAL),
+            site -> new int[] {1});
+        assertArrayEquals(new int[] {1}, special);
+        assertEquals(2, index.size());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.CallGraphConstructor;
+import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class MultiStrategyWrapTest {
+
+    private static String getPath(final String resource) {
+        return new File(Thread.currentThread().getContextClassLoader()
+            .getResource(resource).getFile()).getAbsolutePath();
+    }
+
+    private static PartialJavaCallGraph emptyPCG() {
+        return PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+            "group:artifact:1.0", -1, Constants.walaGenerator);
+    }
+
+    private static Map<String, Map<Object, Object>> calls(final PartialJavaCallGraph pcg) {
+        final var methods = pcg.mapOfAllMethods();
+        final Map<String, Map<Object, Object>> result = new HashMap<>();
+        for (final var call : pcg.getGraph().getCallSites().entrySet()) {
+            result.put(methods.get(call.getKey().firstLong()).getUri() + " -> "
+                + methods.get(call.getKey().secondLong()).getUri(), call.getValue());
+        }
+        return result;
+    }
+
+    private static Map<Long, String> ids(final PartialJavaCallGraph pcg) {
+        final Map<Long, String> result = new HashMap<>();
+        for (final var method : pcg.mapOfAllMethods().long2ObjectEntrySet()) {
+            result.put(method.getLongKey(), method.getValue().getUri().toString());
+        }
+        return result;
+    }
+
+    @Test
+    void matchesSeparateWraps() throws IOException, ClassHierarchyException, CancelException {
+        for (final var jar : List.of("SingleSourceToTarget.jar", "MetadataExample.jar",
+            "CallPreservation.jar")) {
+            final var callGraph =
+                CallGraphConstructor.generateCallGraph(getPath(jar), Algorithm.CHA);
+
+            final Map<CallPreservationStrategy, PartialJavaCallGraph> results =
+                new EnumMap<>(CallPreservationStrategy.class);
+            for (final var strategy : CallPreservationStrategy.values()) {
+                results.put(strategy, emptyPCG());
+            }
+            WalaResultAnalyzer.wrap(callGraph, results);
+
+            for (final var strategy : CallPreservationStrategy.values()) {
+                final var expected = emptyPCG();
+                WalaResultAnalyzer.wrap(callGraph, expected, strategy);
+                assertEquals(calls(expected), calls(results.get(strategy)), jar + " " + strategy);
+            }
+
+            final var ids = ids(results.get(CallPreservationStrategy.ONLY_STATIC_CALLSITES));
+            for (final var result : results.values()) {
+                assertFalse(result.isCallGraphEmpty(), jar);
+                assertEquals(ids, ids(result), jar);
+            }
+        }
+    }
+
+    @Test
+    void generatorSharesOneAnalysis() {
+        final Map<CallPreservationStrategy, PartialJavaCallGraph> results =
+            new EnumMap<>(CallPreservationStrategy.class);
+        results.put(CallPreservationStrategy.ONLY_STATIC_CALLSITES, emptyPCG());
+        results.put(CallPreservationStrategy.INCLUDING_ALL_SUBTYPES, emptyPCG());
+        PartialCallGraphGenerator.generateFromFile(getPath("CallPreservation.jar"), List.of(),
+            Algorithm.CHA, results);
+
+        final var dispatch = calls(results.get(CallPreservationStrategy.INCLUDING_ALL_SUBTYPES));
+        final var statics = calls(results.get(CallPreservationStrategy.ONLY_STATIC_CALLSITES));
+        assertTrue(dispatch.keySet().size() >= statics.keySet().size());
+    }
+}
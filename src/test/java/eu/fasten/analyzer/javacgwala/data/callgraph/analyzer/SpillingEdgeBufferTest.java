@@ -0,0 +1,115 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.analyzer;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class SpillingEdgeBufferTest {
+
+    @Test
+    void mergesSpilledRunsInOrder(@TempDir final Path directory) throws IOException {
+        final var random = new Random(42);
+        final Map<List<Long>, Map<Object, Object>> expected = new TreeMap<>((a, b) -> {
+            final var bySource = Long.compare(a.get(0), b.get(0));
+            return bySource != 0 ? bySource : Long.compare(a.get(1), b.get(1));
+        });
+        try (var buffer = new SpillingEdgeBuffer(directory, 16, 64)) {
+            for (int i = 0; i < 1000; i++) {
+                final long source = random.nextInt(50);
+                final long target = random.nextInt(50);
+                final Map<Object, Object> metadata = new HashMap<>();
+                if (random.nextBoolean()) {
+                    metadata.put(String.valueOf(i), Map.of("line", i));
+                }
+                buffer.add(source, target, metadata);
+                expected.computeIfAbsent(List.of(source, target), k -> new HashMap<>())
+                    .putAll(metadata);
+            }
+            assertEquals(1000, buffer.size());
+            assertTrue(buffer.getSpilledRuns() > 1);
+
+            final List<List<Long>> keys = new ArrayList<>();
+            final List<Map<Object, Object>> values = new ArrayList<>();
+            buffer.merge((source, target, metadata) -> {
+                keys.add(List.of(source, target));
+                values.add(metadata);
+            });
+            assertEquals(new ArrayList<>(expected.keySet()), keys);
+            assertEquals(new ArrayList<>(expected.values()), values);
+        }
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    void spilledWrapMatchesWrappedGraph(@TempDir final Path directory) throws IOException {
+        final var path = new File(Thread.currentThread().getContextClassLoader()
+            .getResource("CallPreservation.jar").getFile()).getAbsolutePath();
+        final var expected = emptyPCG();
+        PartialCallGraphGenerator.generateFromFile(path, List.of(), Algorithm.CHA, expected,
+            CallPreservationStrategy.INCLUDING_ALL_SUBTYPES);
+
+        final Set<String> actual = new HashSet<>();
+        try (var edges = new SpillingEdgeBuffer(directory, 4, 8)) {
+            PartialCallGraphGenerator.generateFromFile(path, List.of(), Algorithm.CHA,
+                emptyPCG(), CallPreservationStrategy.INCLUDING_ALL_SUBTYPES,
+                chunk -> actual.addAll(calls(chunk)), edges);
+            assertTrue(edges.getSpilledRuns() > 0);
+        }
+        assertEquals(calls(expected), actual);
+    }
+
+    private static PartialJavaCallGraph emptyPCG() {
+        return PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+            "group:artifact:1.0", -1, Constants.walaGenerator);
+    }
+
+    private static Set<String> calls(final PartialJavaCallGraph pcg) {
+        final var methods = pcg.mapOfAllMethods();
+        final Set<String> result = new HashSet<>();
+        for (final var call : pcg.getGraph().getCallSites().keySet()) {
+            result.add(methods.get(call.firstLong()).getUri() + " -> "
+                + methods.get(call.secondLong()).getUri());
+        }
+        return result;
+    }
+}
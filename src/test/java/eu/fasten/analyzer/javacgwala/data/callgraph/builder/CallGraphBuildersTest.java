@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.CallGraphConstructor;
+import eu.fasten.analyzer.javacgwala.data.callgraph.EntryPointPolicy;
+import eu.fasten.analyzer.javacgwala.data.callgraph.builder.CallGraphBuilderStrategy.Cost;
+import java.io.File;
+import java.time.Duration;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class CallGraphBuildersTest {
+
+    private static String getPath(final String resource) {
+        return new File(Thread.currentThread().getContextClassLoader()
+            .getResource(resource).getFile()).getAbsolutePath();
+    }
+
+    @Test
+    void everyAlgorithmHasAStrategy() {
+        var previous = Cost.LINEAR;
+        for (final var algorithm : Algorithm.values()) {
+            final var strategy = CallGraphBuilders.get(algorithm);
+            assertTrue(strategy.getCost().compareTo(previous) >= 0, algorithm.label);
+            previous = strategy.getCost();
+        }
+        assertEquals(Cost.LINEAR, CallGraphBuilders.get(Algorithm.CHA).getCost());
+        assertFalse(CallGraphBuilders.get(Algorithm.CHA).getDefaultBudget().hasTimeout());
+        assertTrue(CallGraphBuilders.get(Algorithm.ZERO_ONE_CFA).getDefaultBudget()
+            .hasMaxNodes());
+    }
+
+    @Test
+    void rtaGeneratesCallGraph() throws Exception {
+        final var callGraph = CallGraphConstructor.generateCallGraph(
+            getPath("SingleSourceToTarget.jar"), Collections.emptyList(), Algorithm.RTA);
+        assertTrue(callGraph.getNumberOfNodes() > 0);
+    }
+
+    @Test
+    void exceededBudgetCancels() {
+        final var budget = new Budget(Duration.ofNanos(1), 0);
+        assertThrows(CancelException.class, () -> CallGraphConstructor.generateCallGraph(
+            getPath("SingleSourceToTarget.jar"), Collections.emptyList(), Algorithm.ZERO_CFA,
+            EntryPointPolicy.ALL, budget));
+    }
+
+    @Test
+    void deadlineMonitor() throws InterruptedException {
+        assertFalse(new DeadlineMonitor(Duration.ofMinutes(1)).isCanceled());
+        final var monitor = new DeadlineMonitor(Duration.ofMillis(1));
+        Thread.sleep(5);
+        assertTrue(monitor.isCanceled());
+    }
+
+    @Test
+    void negativeBudget() {
+        assertThrows(IllegalArgumentException.class,
+            () -> new Budget(Duration.ofSeconds(-1), 0));
+    }
+}
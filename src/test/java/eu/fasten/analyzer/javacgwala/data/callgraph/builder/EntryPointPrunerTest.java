@@ -0,0 +1,123 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.ibm.wala.ipa.callgraph.impl.DefaultEntrypoint;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.CallGraphConstructor;
+import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class EntryPointPrunerTest {
+
+    private static String getPath(final String resource) {
+        return new File(Thread.currentThread().getContextClassLoader()
+            .getResource(resource).getFile()).getAbsolutePath();
+    }
+
+    private static PartialJavaCallGraph emptyPCG() {
+        return PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+            "group:artifact:1.0", -1, Constants.walaGenerator);
+    }
+
+    private static Set<String> calls(final PartialJavaCallGraph pcg) {
+        final var methods = pcg.mapOfAllMethods();
+        final Set<String> result = new HashSet<>();
+        for (final var call : pcg.getGraph().getCallSites().keySet()) {
+            result.add(methods.get(call.firstLong()).getUri() + " -> "
+                + methods.get(call.secondLong()).getUri());
+        }
+        return result;
+    }
+
+    @Test
+    void sharedRunMatchesSeparateRuns()
+        throws IOException, ClassHierarchyException, CancelException {
+        for (final var jar : List.of("SingleSourceToTarget.jar", "MetadataExample.jar",
+            "CallPreservation.jar")) {
+            final var path = getPath(jar);
+            final Map<Algorithm, PartialJavaCallGraph> results = new EnumMap<>(Algorithm.class);
+            results.put(Algorithm.CHA, emptyPCG());
+            results.put(Algorithm.RTA, emptyPCG());
+            results.put(Algorithm.ZERO_CFA, emptyPCG());
+            PartialCallGraphGenerator.generateFromFile(path, List.of(), results,
+                CallPreservationStrategy.INCLUDING_ALL_SUBTYPES);
+            assertFalse(results.get(Algorithm.CHA).isCallGraphEmpty(), jar);
+
+            for (final var alg : List.of(Algorithm.RTA, Algorithm.ZERO_CFA)) {
+                final Map<Algorithm, PartialJavaCallGraph> alone = new EnumMap<>(Algorithm.class);
+                alone.put(alg, emptyPCG());
+                PartialCallGraphGenerator.generateFromFile(path, List.of(), alone,
+                    CallPreservationStrategy.INCLUDING_ALL_SUBTYPES);
+
+                final var shared = calls(results.get(alg));
+                assertEquals(calls(alone.get(alg)), shared, jar + " " + alg);
+                assertTrue(calls(results.get(Algorithm.CHA)).containsAll(shared), jar);
+            }
+        }
+    }
+
+    @Test
+    void prunesOnlyForPointsToAnalyses() {
+        assertFalse(EntryPointPruner.appliesTo(Algorithm.CHA));
+        assertFalse(EntryPointPruner.appliesTo(Algorithm.RTA));
+        assertTrue(EntryPointPruner.appliesTo(Algorithm.ZERO_CFA));
+        assertTrue(EntryPointPruner.appliesTo(Algorithm.ZERO_ONE_CONTAINER_CFA));
+    }
+
+    @Test
+    void keepsEntryPointsWithCalls() throws IOException, ClassHierarchyException {
+        final var callGraphs = CallGraphConstructor.generateCallGraphs(
+            getPath("SingleSourceToTarget.jar"), List.of(), Set.of(Algorithm.CHA));
+        final var chaCallGraph = callGraphs.get(Algorithm.CHA);
+        final var pruner = new EntryPointPruner(chaCallGraph);
+
+        int trivial = 0;
+        for (final var entryPoint : chaCallGraph.getEntrypointNodes()) {
+            final var method = entryPoint.getMethod();
+            final var hasCalls = entryPoint.iterateCallSites().hasNext();
+            final var isTrivial = pruner.isTrivial(
+                new DefaultEntrypoint(method, chaCallGraph.getClassHierarchy()));
+            if (hasCalls) {
+                assertFalse(isTrivial, method.toString());
+            }
+            if (isTrivial) {
+                trivial++;
+            }
+        }
+        assertTrue(trivial > 0);
+    }
+}
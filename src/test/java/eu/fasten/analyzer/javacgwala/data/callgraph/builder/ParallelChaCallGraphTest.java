@@ -0,0 +1,120 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.builder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import com.ibm.wala.ipa.callgraph.CallGraph;
+import com.ibm.wala.ipa.cha.ClassHierarchyException;
+import com.ibm.wala.util.CancelException;
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.CallGraphConstructor;
+import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.analyzer.javacgwala.data.callgraph.analyzer.WalaResultAnalyzer;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.JSONUtils;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+class ParallelChaCallGraphTest {
+
+    private static final List<String> JARS = List.of("SingleSourceToTarget.jar",
+        "ClassInit.jar", "LambdaExample.jar", "ArrayExample.jar", "ArrayExtensiveTest.jar",
+        "MetadataExample.jar", "CallPreservation.jar");
+
+    private static String getPath(final String resource) {
+        return new File(Thread.currentThread().getContextClassLoader()
+            .getResource(resource).getFile()).getAbsolutePath();
+    }
+
+    /**
+     * Collect the edges of a WALA call graph, leaving out those of its synthetic roots, which
+     * call the entry points.
+     */
+    private static Set<String> edges(final CallGraph callGraph) {
+        final Set<String> result = new HashSet<>();
+        for (final var node : callGraph) {
+            if (node.equals(callGraph.getFakeRootNode())
+                || node.equals(callGraph.getFakeWorldClinitNode())) {
+                continue;
+            }
+            for (final var it = node.iterateCallSites(); it.hasNext(); ) {
+                final var callSite = it.next();
+                for (final var target : callGraph.getPossibleTargets(node, callSite)) {
+                    result.add(node.getMethod().getSignature() + "@"
+                        + callSite.getProgramCounter() + " -> "
+                        + target.getMethod().getSignature());
+                }
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> edges(final ParallelChaCallGraph callGraph) {
+        final Set<String> result = new HashSet<>();
+        for (final var method : callGraph.getNodes()) {
+            for (final var callSite : callGraph.getCallSites(method)) {
+                for (final var target : callGraph.getPossibleTargets(callSite)) {
+                    result.add(method.getSignature() + "@" + callSite.getProgramCounter()
+                        + " -> " + target.getSignature());
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    void sameEdgesAsChaCallGraph()
+        throws IOException, ClassHierarchyException, CancelException {
+        for (final var jar : JARS) {
+            final var path = getPath(jar);
+            final var expected = edges(CallGraphConstructor.generateCallGraph(path,
+                Algorithm.CHA));
+            final var actual = edges(CallGraphConstructor.generateChaCallGraph(path,
+                Collections.emptyList()));
+            assertFalse(actual.isEmpty(), jar);
+            assertEquals(expected, actual, jar);
+        }
+    }
+
+    @Test
+    void sameWrappedCallGraph()
+        throws IOException, ClassHierarchyException, CancelException {
+        for (final var strategy : CallPreservationStrategy.values()) {
+            final var path = getPath("CallPreservation.jar");
+            final var expected = PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+                "group:artifact:1.0", -1, Constants.walaGenerator);
+            WalaResultAnalyzer.wrap(CallGraphConstructor.generateCallGraph(path, Algorithm.CHA),
+                expected, strategy);
+            final var actual = PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+                "group:artifact:1.0", -1, Constants.walaGenerator);
+            WalaResultAnalyzer.wrap(CallGraphConstructor.generateChaCallGraph(path,
+                Collections.emptyList()), actual, strategy);
+            assertEquals(JSONUtils.toJSONString(expected), JSONUtils.toJSONString(actual),
+                strategy.name());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.callgraph.hierarchy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class ClassHierarchySnapshotTest {
+
+    private static ClassHierarchySnapshot snapshot;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        final var jar = new File(Thread.currentThread().getContextClassLoader()
+            .getResource("CallPreservation.jar").getFile());
+        snapshot = ClassHierarchySnapshot.parse(jar);
+    }
+
+    @Test
+    void parse() {
+        assertEquals(4, snapshot.getClassCount());
+        assertEquals("java/lang/Object", snapshot.getSuperclass("name/space/FirstChild"));
+        assertEquals(Collections.singletonList("name/space/Parent"),
+            snapshot.getInterfaces("name/space/FirstChild"));
+        assertTrue(snapshot.getMethods("name/space/CallerClass").contains("callMethod()V"));
+        assertTrue(snapshot.getReferencedTypes("name/space/CallerClass")
+            .contains("name/space/SecondChild"));
+        assertNull(snapshot.getSuperclass("name/space/Unknown"));
+    }
+
+    @Test
+    void writeAndLoad() throws IOException {
+        final var file = Files.createTempFile("snapshot", ".chs");
+        try {
+            snapshot.write(file);
+            final var loaded = ClassHierarchySnapshot.load(file);
+
+            assertEquals(snapshot.getClassNames(), loaded.getClassNames());
+            for (final var className : snapshot.getClassNames()) {
+                assertEquals(snapshot.getSuperclass(className), loaded.getSuperclass(className));
+                assertEquals(snapshot.getInterfaces(className), loaded.getInterfaces(className));
+                assertEquals(snapshot.getMethods(className), loaded.getMethods(className));
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    void reachableClassesIncludeSubtypes() {
+        final var reachable = ClassHierarchySnapshot.reachableClasses(
+            Collections.singletonList("name/space/Parent"),
+            Collections.singletonList(snapshot), false);
+
+        assertEquals(Set.of("name/space/Parent", "name/space/FirstChild",
+            "name/space/SecondChild"), reachable);
+    }
+
+    @Test
+    void reachableClassesFollowReferences() {
+        final var reachable = ClassHierarchySnapshot.reachableClasses(
+            Collections.singletonList("name/space/CallerClass"),
+            Collections.singletonList(snapshot), true);
+
+        assertEquals(snapshot.getClassNames(), reachable);
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+import static eu.fasten.core.data.Constants.mvnForge;
+import static eu.fasten.core.data.Constants.walaGenerator;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.JSONUtils;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class BinaryCallGraphWriterTest {
+
+    private static PartialJavaCallGraph graph;
+    private static byte[] binary;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        graph = PartialCallGraphGenerator.generateEmptyPCG(mvnForge,
+            "MetadataExample", "0.0.0", 42, walaGenerator);
+        final var path = Paths.get(new File(Thread.currentThread().getContextClassLoader()
+            .getResource("MetadataExample.jar").getFile()).getAbsolutePath());
+        PartialCallGraphGenerator.generateFromFile(path.toString(), Algorithm.CHA, graph,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES);
+
+        final var out = new ByteArrayOutputStream();
+        BinaryCallGraphWriter.write(graph, out);
+        binary = out.toByteArray();
+    }
+
+    @Test
+    void headerIsPreserved() throws IOException {
+        final var reader = BinaryCallGraphReader.wrap(ByteBuffer.wrap(binary));
+
+        assertEquals(graph.product, reader.getProduct());
+        assertEquals(graph.version, reader.getVersion());
+        assertEquals(42, reader.getTimestamp());
+        assertEquals(graph.mapOfAllMethods().size(), reader.getNodeCount());
+        assertEquals(graph.getGraph().getCallSites().size(), reader.getEdgeCount());
+    }
+
+    @Test
+    void nodesAndCallsArePreserved() throws IOException {
+        final var reader = BinaryCallGraphReader.wrap(ByteBuffer.wrap(binary));
+
+        for (final var method : graph.mapOfAllMethods().long2ObjectEntrySet()) {
+            assertEquals(method.getValue().getUri().toString(),
+                reader.getUri(method.getLongKey()));
+            assertEquals(method.getValue().getMetadata().isEmpty(),
+                reader.getMetadata(method.getLongKey()).isEmpty());
+        }
+
+        final Map<Long, TreeSet<Long>> targets = new HashMap<>();
+        for (final var call : graph.getGraph().getCallSites().entrySet()) {
+            final var source = call.getKey().firstLong();
+            final var target = call.getKey().secondLong();
+            targets.computeIfAbsent(source, k -> new TreeSet<>()).add(target);
+
+            final var callSites = reader.getCallSites(source, target);
+            assertEquals(call.getValue().size(), callSites.size());
+            for (final var callSite : callSites) {
+                assertEquals(call.getValue().get(callSite.pc), callSite.toMetadata());
+            }
+        }
+        for (final var source : targets.entrySet()) {
+            assertArrayEquals(source.getValue().stream().mapToLong(Long::longValue).toArray(),
+                reader.getTargets(source.getKey()));
+        }
+    }
+
+    @Test
+    void binaryIsSmallerThanJson() {
+        final var json = JSONUtils.toJSONString(graph).getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(binary.length < json.length);
+    }
+
+    @Test
+    void unknownNodesAreNotFound() throws IOException {
+        final var reader = BinaryCallGraphReader.wrap(ByteBuffer.wrap(binary));
+
+        assertFalse(reader.contains(-5));
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.Constants;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ChunkedCallGraphWriterTest {
+
+    private static String getPath(final String resource) {
+        return new File(Thread.currentThread().getContextClassLoader()
+            .getResource(resource).getFile()).getAbsolutePath();
+    }
+
+    private static PartialJavaCallGraph emptyPCG() {
+        return PartialCallGraphGenerator.generateEmptyPCG(Constants.mvnForge,
+            "group:artifact:1.0", -1, Constants.walaGenerator);
+    }
+
+    private static Set<String> calls(final PartialJavaCallGraph pcg) {
+        final var methods = pcg.mapOfAllMethods();
+        final Set<String> result = new HashSet<>();
+        for (final var call : pcg.getGraph().getCallSites().keySet()) {
+            result.add(methods.get(call.firstLong()).getUri() + " -> "
+                + methods.get(call.secondLong()).getUri());
+        }
+        return result;
+    }
+
+    @Test
+    void streamedChunksMatchWrappedGraph(@TempDir final Path directory) throws IOException {
+        final var path = getPath("CallPreservation.jar");
+        for (final var algorithm : List.of(Algorithm.CHA, Algorithm.RTA)) {
+            final var expected = emptyPCG();
+            PartialCallGraphGenerator.generateFromFile(path, List.of(), algorithm, expected,
+                CallPreservationStrategy.INCLUDING_ALL_SUBTYPES);
+
+            final var output = directory.resolve(algorithm.name());
+            final List<PartialJavaCallGraph> chunks = new ArrayList<>();
+            final Set<Long> written = new HashSet<>();
+            try (var writer = new ChunkedCallGraphWriter(output, OutputCodec.GZIP,
+                OutputCodec.DEFAULT_LEVEL)) {
+                PartialCallGraphGenerator.generateFromFile(path, List.of(), algorithm,
+                    emptyPCG(), CallPreservationStrategy.INCLUDING_ALL_SUBTYPES, chunk -> {
+                        for (final var id : chunk.mapOfAllMethods().keySet()) {
+                            assertTrue(written.add(id), "Method " + id + " written twice");
+                        }
+                        for (final var call : chunk.getGraph().getCallSites().keySet()) {
+                            assertTrue(written.contains(call.firstLong()));
+                            assertTrue(written.contains(call.secondLong()));
+                        }
+                        writer.accept(chunk);
+                        chunks.add(chunk);
+                    }, 2);
+                assertEquals(chunks.size(), writer.getChunks());
+            }
+            assertTrue(chunks.size() > 2, algorithm.name());
+            assertTrue(chunks.get(chunks.size() - 1).isCallGraphEmpty());
+
+            final var actual = ChunkedCallGraphWriter.read(output);
+            assertEquals(calls(expected), calls(actual), algorithm.name());
+            assertEquals(expected.mapOfAllMethods().size(), actual.mapOfAllMethods().size());
+        }
+    }
+
+    @Test
+    void chunksAreOrderedByIndex() {
+        assertEquals(9999, ChunkedCallGraphWriter.index(Path.of("chunk-9999.json")));
+        assertEquals(10000, ChunkedCallGraphWriter.index(Path.of("chunk-10000.json.gz")));
+        assertTrue(ChunkedCallGraphWriter.index(Path.of("chunk-10000.json"))
+            > ChunkedCallGraphWriter.index(Path.of("chunk-9999.json.gz")));
+    }
+}
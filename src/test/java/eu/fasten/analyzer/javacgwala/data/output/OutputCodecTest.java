@@ -0,0 +1,71 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.jupiter.api.Test;
+
+class OutputCodecTest {
+
+    private static JSONObject sample() {
+        final var calls = new JSONArray();
+        for (int i = 0; i < 1000; i++) {
+            calls.put(new JSONArray().put(i).put(i + 1).put(new JSONObject()));
+        }
+        return new JSONObject().put("product", "group:artifact").put("version", "1.0")
+            .put("call-sites", calls);
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        final var json = sample();
+        for (final var codec : OutputCodec.values()) {
+            final var out = new ByteArrayOutputStream();
+            final var stats = codec.write(json, out, OutputCodec.DEFAULT_LEVEL);
+            assertEquals(out.size(), stats.getCompressedBytes(), codec.name());
+            assertEquals(json.toString(), codec.decode(out.toByteArray()), codec.name());
+            if (codec != OutputCodec.NONE) {
+                assertTrue(stats.getRatio() < 0.5, codec.name());
+            }
+        }
+    }
+
+    @Test
+    void encodeWithLevels() {
+        final var text = sample().toString();
+        for (final var codec : OutputCodec.values()) {
+            for (final var level : new int[] {1, 9}) {
+                assertEquals(text, codec.decode(codec.encode(text, level)), codec.name());
+            }
+        }
+    }
+
+    @Test
+    void codecOfFile() {
+        assertEquals(OutputCodec.GZIP, OutputCodec.forFile("shard-0001.json.gz"));
+        assertEquals(OutputCodec.LZ4, OutputCodec.forFile("a-v1.json.lz4"));
+        assertEquals(OutputCodec.NONE, OutputCodec.forFile("a-v1.json"));
+    }
+}
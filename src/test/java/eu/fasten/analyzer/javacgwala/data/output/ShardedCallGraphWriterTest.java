@@ -0,0 +1,139 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package eu.fasten.analyzer.javacgwala.data.output;
+
+import static eu.fasten.core.data.Constants.mvnForge;
+import static eu.fasten.core.data.Constants.walaGenerator;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import eu.fasten.analyzer.javacgwala.data.callgraph.Algorithm;
+import eu.fasten.analyzer.javacgwala.data.callgraph.PartialCallGraphGenerator;
+import eu.fasten.core.data.CallPreservationStrategy;
+import eu.fasten.core.data.JavaScope;
+import eu.fasten.core.data.PartialJavaCallGraph;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ShardedCallGraphWriterTest {
+
+    private static PartialJavaCallGraph graph;
+
+    @BeforeAll
+    static void setUp() {
+        graph = PartialCallGraphGenerator.generateEmptyPCG(mvnForge,
+            "CallPreservation", "0.0.0", 42, walaGenerator);
+        final var path = new File(Thread.currentThread().getContextClassLoader()
+            .getResource("CallPreservation.jar").getFile()).getAbsolutePath();
+        PartialCallGraphGenerator.generateFromFile(path, Algorithm.CHA, graph,
+            CallPreservationStrategy.ONLY_STATIC_CALLSITES);
+    }
+
+    @Test
+    void shardsCoverTheGraph(@TempDir final Path directory) throws IOException {
+        final var written = ShardedCallGraphWriter.write(graph, directory, 4);
+        final var manifest = ShardManifest.load(directory);
+        assertEquals(written.getShards().size(), manifest.getShards().size());
+        assertTrue(manifest.getShards().size() <= 4);
+        assertEquals(graph.product, manifest.getProduct());
+
+        final Set<Object> calls = new HashSet<>();
+        var methods = 0;
+        for (int i = 0; i < manifest.getShards().size(); i++) {
+            final var shard = manifest.loadShard(directory, i);
+            calls.addAll(shard.getGraph().getCallSites().keySet());
+            methods += manifest.getShards().get(i).methods;
+            assertEquals(manifest.getShards().get(i).calls,
+                shard.getGraph().getCallSites().size());
+        }
+        assertEquals(graph.getGraph().getCallSites().keySet(), calls);
+
+        final var internalTypes = graph.getClassHierarchy().get(JavaScope.internalTypes);
+        var internalMethods = 0;
+        for (final var type : internalTypes.values()) {
+            internalMethods += type.getMethods().size();
+            for (final var id : type.getMethods().keySet()) {
+                assertTrue(manifest.findShard(id) >= 0);
+            }
+        }
+        assertEquals(internalMethods, methods);
+    }
+
+    @Test
+    void singleShardHoldsEverything(@TempDir final Path directory) throws IOException {
+        final var manifest = ShardedCallGraphWriter.write(graph, directory, 1);
+        assertEquals(1, manifest.getShards().size());
+        final var shard = manifest.loadShard(directory, 0);
+        assertEquals(graph.getGraph().getCallSites().keySet(),
+            shard.getGraph().getCallSites().keySet());
+        assertEquals(graph.mapOfAllMethods().size(), shard.mapOfAllMethods().size());
+    }
+
+    @Test
+    void compressedShardsAreLoaded(@TempDir final Path directory) throws IOException {
+        final var manifest = ShardedCallGraphWriter.write(graph, directory, 1, OutputCodec.GZIP,
+            OutputCodec.DEFAULT_LEVEL);
+        assertTrue(manifest.getShards().get(0).file.endsWith(".json.gz"));
+        final var shard = manifest.loadShard(directory, 0);
+        assertEquals(graph.getGraph().getCallSites().keySet(),
+            shard.getGraph().getCallSites().keySet());
+    }
+
+    @Test
+    void compressedShardsDecompressToPlainShards(@TempDir final Path plain,
+                                                 @TempDir final Path compressed)
+        throws IOException {
+        ShardedCallGraphWriter.write(graph, plain, 1);
+        final var manifest = ShardedCallGraphWriter.write(graph, compressed, 1, OutputCodec.GZIP,
+            OutputCodec.DEFAULT_LEVEL);
+        final var file = manifest.getShards().get(0).file;
+        assertEquals(Files.readString(plain.resolve(file.replace(".gz", ""))),
+            OutputCodec.GZIP.decode(Files.readAllBytes(compressed.resolve(file))));
+    }
+
+    @Test
+    void rangesAreMerged() {
+        final var ranges =
+            ShardedCallGraphWriter.ranges(new LongArrayList(new long[] {7, 1, 2, 3, 9, 8, 5}));
+        assertArrayEquals(new long[][] {{1, 3}, {5, 5}, {7, 9}}, ranges);
+
+        final var shard = new ShardManifest.Shard("s", List.of(), 0, 0, 0, ranges);
+        assertTrue(shard.contains(2));
+        assertTrue(shard.contains(9));
+        assertFalse(shard.contains(4));
+        assertFalse(shard.contains(10));
+    }
+
+    @Test
+    void packageOfTypeUri() {
+        assertEquals("/com.example/", ShardedCallGraphWriter.packageOf("/com.example/Foo"));
+        assertEquals("", ShardedCallGraphWriter.packageOf("Foo"));
+    }
+}